@@ -0,0 +1,70 @@
+package ru.study.shop.adapters.controllers.dto;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a batch of new orders, with one result per order in the order of the request.
+ */
+public class OrderBatchResult {
+    private final long createdCount;
+    private final long failedCount;
+    private final List<OrderResult> results;
+
+    public OrderBatchResult(List<OrderResult> results) {
+        this.results = Collections.unmodifiableList(results);
+        this.createdCount = results.stream().filter(OrderResult::isCreated).count();
+        this.failedCount = results.size() - createdCount;
+    }
+
+    public long getCreatedCount() {
+        return createdCount;
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    public List<OrderResult> getResults() {
+        return results;
+    }
+
+    public static class OrderResult {
+        private final int index;
+        private final Long orderId;
+        private final String error;
+
+        private OrderResult(int index, Long orderId, String error) {
+            this.index = index;
+            this.orderId = orderId;
+            this.error = error;
+        }
+
+        public static OrderResult created(int index, Long orderId) {
+            return new OrderResult(index, orderId, null);
+        }
+
+        public static OrderResult rejected(int index, String error) {
+            return new OrderResult(index, null, error);
+        }
+
+        /**
+         * @return position of the order in the request, starting from 0.
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        public Long getOrderId() {
+            return orderId;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public boolean isCreated() {
+            return error == null;
+        }
+    }
+}
@@ -3,9 +3,17 @@ package ru.study.shop.adapters.controllers.order_delivery;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.JmsUtils;
+import org.springframework.jms.support.converter.MessageConverter;
 import org.springframework.stereotype.Controller;
 import ru.study.shop.entities.Order;
 
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import java.util.List;
+
 @Controller
 public class DeliveryQueueController {
     @Autowired
@@ -24,4 +32,57 @@ public class DeliveryQueueController {
             return message;
         });
     }
+
+    /**
+     * Sends the delivery requests of the orders through one session and producer,
+     * instead of opening them for every order; the messages get the delivery mode,
+     * priority and time to live of the template, as single requests do.
+     */
+    public void setToDelivery(List<Order> orders, boolean isNew) {
+        if (orders.isEmpty()) {
+            return;
+        }
+
+        MessageConverter messageConverter = jmsTemplate.getMessageConverter();
+        jmsTemplate.execute(session -> {
+            MessageProducer producer = createProducer(session);
+            try {
+                for (Order order : orders) {
+                    Message message = messageConverter.toMessage(order, session);
+                    message.setBooleanProperty("isNew", isNew);
+                    producer.send(message);
+                }
+                JmsUtils.commitIfNecessary(session);
+            } finally {
+                JmsUtils.closeMessageProducer(producer);
+            }
+            return null;
+        }, false);
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    /**
+     * @return a producer with the same settings the template gives its own producers.
+     */
+    private MessageProducer createProducer(Session session) throws JMSException {
+        MessageProducer producer = session.createProducer(
+            jmsTemplate.getDestinationResolver().resolveDestinationName(session, destinationQueue, false));
+
+        if (!jmsTemplate.isMessageIdEnabled()) {
+            producer.setDisableMessageID(true);
+        }
+        if (!jmsTemplate.isMessageTimestampEnabled()) {
+            producer.setDisableMessageTimestamp(true);
+        }
+        if (jmsTemplate.isExplicitQosEnabled()) {
+            producer.setDeliveryMode(jmsTemplate.getDeliveryMode());
+            producer.setPriority(jmsTemplate.getPriority());
+            producer.setTimeToLive(jmsTemplate.getTimeToLive());
+        }
+
+        return producer;
+    }
 }
@@ -0,0 +1,160 @@
+package ru.study.shop.adapters.controllers.product_import;
+
+import org.apache.commons.validator.GenericValidator;
+import ru.study.shop.adapters.controllers.dto.ProductDto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Comma-separated values with a header line naming <code>ProductDto</code> properties in any order.
+ * Values may be double-quoted to contain commas and doubled quotes; an empty unquoted value is null.
+ */
+public class CsvProductRowReader implements ProductRowReader {
+    private static final char SEPARATOR = ',';
+    private static final char QUOTE = '"';
+
+    private static final List<String> COLUMNS = Collections.unmodifiableList(Arrays.asList(
+        "productName", "productType", "material", "manufacturer", "description", "price"));
+
+    private final BufferedReader input;
+    private final List<BiConsumer<ProductDto, String>> columnSetters = new ArrayList<>();
+
+    private long lineNumber = 0;
+
+    /**
+     * @throws IllegalArgumentException if the header is missing or names an unknown column.
+     */
+    public CsvProductRowReader(BufferedReader input) throws IOException {
+        this.input = input;
+
+        String header = readNonBlankLine();
+        if (header == null) {
+            throw new IllegalArgumentException("CSV header line is missing");
+        }
+
+        for (String column : splitLine(header)) {
+            columnSetters.add(getColumnSetter(column == null ? "" : column.trim()));
+        }
+    }
+
+    @Override
+    public ProductImportRow next() throws IOException {
+        String line = readNonBlankLine();
+        if (line == null) {
+            return null;
+        }
+
+        List<String> values = splitLine(line);
+        if (values == null) {
+            return ProductImportRow.malformed(lineNumber, "unterminated quoted value");
+        }
+        if (values.size() != columnSetters.size()) {
+            return ProductImportRow.malformed(lineNumber,
+                "expected " + columnSetters.size() + " values, found " + values.size());
+        }
+
+        ProductDto product = new ProductDto();
+        try {
+            for (int i = 0; i < values.size(); i++) {
+                columnSetters.get(i).accept(product, values.get(i));
+            }
+        } catch (IllegalArgumentException e) {
+            return ProductImportRow.malformed(lineNumber, e.getMessage());
+        }
+
+        return ProductImportRow.parsed(lineNumber, product);
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private String readNonBlankLine() throws IOException {
+        String line;
+        do {
+            line = input.readLine();
+            lineNumber++;
+        } while (line != null && line.trim().isEmpty());
+
+        return line;
+    }
+
+    private static BiConsumer<ProductDto, String> getColumnSetter(String column) {
+        switch (column) {
+            case "productName":
+                return ProductDto::setProductName;
+            case "productType":
+                return ProductDto::setProductType;
+            case "material":
+                return ProductDto::setMaterial;
+            case "manufacturer":
+                return ProductDto::setManufacturer;
+            case "description":
+                return ProductDto::setDescription;
+            case "price":
+                return (product, value) -> product.setPrice(parsePrice(value));
+            default:
+                throw new IllegalArgumentException("unknown CSV column '" + column + "'; expected some of " + COLUMNS);
+        }
+    }
+
+    private static Long parsePrice(String value) {
+        if (value == null) {
+            return null;
+        }
+        if (!GenericValidator.isLong(value.trim())) {
+            throw new IllegalArgumentException("price: not a number");
+        }
+        return Long.valueOf(value.trim());
+    }
+
+    /**
+     * @return values of the line, or null if a quoted value is not terminated.
+     */
+    private static List<String> splitLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+
+            if (quoted) {
+                if (c != QUOTE) {
+                    value.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == QUOTE) {
+                    value.append(QUOTE);
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == QUOTE) {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == SEPARATOR) {
+                values.add(toValue(value, wasQuoted));
+                value.setLength(0);
+                wasQuoted = false;
+            } else {
+                value.append(c);
+            }
+        }
+
+        if (quoted) {
+            return null;
+        }
+        values.add(toValue(value, wasQuoted));
+        return values;
+    }
+
+    private static String toValue(StringBuilder value, boolean wasQuoted) {
+        return value.length() == 0 && !wasQuoted ? null : value.toString();
+    }
+}
@@ -0,0 +1,51 @@
+package ru.study.shop.adapters.controllers.product_import;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import ru.study.shop.adapters.controllers.dto.ProductDto;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/**
+ * Newline-delimited JSON: one <code>ProductDto</code> object per line.
+ */
+public class NdjsonProductRowReader implements ProductRowReader {
+    private final BufferedReader input;
+    private final ObjectReader productReader;
+
+    private long lineNumber = 0;
+
+    public NdjsonProductRowReader(BufferedReader input, ObjectMapper objectMapper) {
+        this.input = input;
+        this.productReader = objectMapper.readerFor(ProductDto.class);
+    }
+
+    @Override
+    public ProductImportRow next() throws IOException {
+        String line;
+        do {
+            line = input.readLine();
+            lineNumber++;
+        } while (line != null && line.trim().isEmpty());
+
+        if (line == null) {
+            return null;
+        }
+
+        try {
+            // null, numbers, strings and arrays are valid JSON but bind to no product
+            JsonNode node = productReader.readTree(line);
+            if (!node.isObject()) {
+                return ProductImportRow.malformed(
+                    lineNumber, "malformed JSON: expected an object, got " + node.getNodeType());
+            }
+
+            return ProductImportRow.parsed(lineNumber, productReader.readValue(node));
+        } catch (JsonProcessingException e) {
+            return ProductImportRow.malformed(lineNumber, "malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package ru.study.shop.adapters.controllers.product_import;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of an import. Only the first <code>MAX_REPORTED_ERRORS</code> row errors are kept,
+ * so a broken file cannot grow the report without bound; <code>failedCount</code> counts all of them.
+ */
+public class ProductImportResult {
+    public static final int MAX_REPORTED_ERRORS = 1000;
+
+    private long importedCount = 0;
+    private long failedCount = 0;
+    private final List<RowError> errors = new ArrayList<>();
+
+    public long getImportedCount() {
+        return importedCount;
+    }
+
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    public List<RowError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    void addImported(int count) {
+        importedCount += count;
+    }
+
+    void addError(long lineNumber, String message) {
+        failedCount++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new RowError(lineNumber, message));
+        }
+    }
+
+    public static class RowError {
+        private final long line;
+        private final String message;
+
+        private RowError(long line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+    }
+}
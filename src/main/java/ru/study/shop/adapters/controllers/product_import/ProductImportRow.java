@@ -0,0 +1,42 @@
+package ru.study.shop.adapters.controllers.product_import;
+
+import ru.study.shop.adapters.controllers.dto.ProductDto;
+
+/**
+ * One line of an import: either a parsed product or the reason it could not be parsed.
+ */
+public class ProductImportRow {
+    private final long lineNumber;
+    private final ProductDto product;
+    private final String error;
+
+    private ProductImportRow(long lineNumber, ProductDto product, String error) {
+        this.lineNumber = lineNumber;
+        this.product = product;
+        this.error = error;
+    }
+
+    public static ProductImportRow parsed(long lineNumber, ProductDto product) {
+        return new ProductImportRow(lineNumber, product, null);
+    }
+
+    public static ProductImportRow malformed(long lineNumber, String error) {
+        return new ProductImportRow(lineNumber, null, error);
+    }
+
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    public ProductDto getProduct() {
+        return product;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public boolean isMalformed() {
+        return error != null;
+    }
+}
@@ -0,0 +1,115 @@
+package ru.study.shop.adapters.controllers.product_import;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import ru.study.shop.adapters.controllers.dto.ProductDto;
+import ru.study.shop.adapters.controllers.utils.dto_validation.groups.OnCreate;
+import ru.study.shop.entities.Product;
+import ru.study.shop.services.interfaces.ProductService;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Validates imported rows against the <code>ProductDto</code> creation rules and inserts the valid ones
+ * in batches of <code>batchSize</code>. Every batch is committed on its own, so a failed row or batch
+ * is reported and the load goes on.
+ */
+@Component
+public class ProductImporter {
+    public static final int DEFAULT_BATCH_SIZE = 500;
+
+    private final ProductService productService;
+
+    private final int batchSize;
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+    @Autowired
+    public ProductImporter(ProductService productService, @Value("${shop.products.import.batch-size}") int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("shop.products.import.batch-size must be positive");
+        }
+        this.productService = productService;
+        this.batchSize = batchSize;
+    }
+
+    public ProductImportResult importProducts(ProductRowReader rowReader) throws IOException {
+        ProductImportResult result = new ProductImportResult();
+
+        List<Product> batch = new ArrayList<>(batchSize);
+        List<Long> batchLines = new ArrayList<>(batchSize);
+
+        ProductImportRow row;
+        while ((row = rowReader.next()) != null) {
+            String error = row.isMalformed() ? row.getError() : validate(row.getProduct());
+            if (error != null) {
+                result.addError(row.getLineNumber(), error);
+                continue;
+            }
+
+            batch.add(mapDtoToProduct(row.getProduct()));
+            batchLines.add(row.getLineNumber());
+
+            if (batch.size() == batchSize) {
+                insertBatch(batch, batchLines, result);
+            }
+        }
+        insertBatch(batch, batchLines, result);
+
+        return result;
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private void insertBatch(List<Product> batch, List<Long> batchLines, ProductImportResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            productService.insertAll(new ArrayList<>(batch));
+            result.addImported(batch.size());
+        } catch (DataAccessException e) {
+            String message = "batch of lines " + batchLines.get(0) + "-" + batchLines.get(batchLines.size() - 1)
+                + " was not inserted: " + e.getMostSpecificCause().getMessage();
+            batchLines.forEach(line -> result.addError(line, message));
+        }
+
+        batch.clear();
+        batchLines.clear();
+    }
+
+    private String validate(ProductDto product) {
+        Set<ConstraintViolation<ProductDto>> violations = validator.validate(product, OnCreate.class);
+        if (violations.isEmpty()) {
+            return null;
+        }
+
+        StringBuilder str = new StringBuilder();
+        for (ConstraintViolation<ProductDto> violation : violations) {
+            str.append(violation.getPropertyPath()).append(": ").append(violation.getMessage()).append("; ");
+        }
+        return str.toString();
+    }
+
+    private Product mapDtoToProduct(ProductDto productDto) {
+        return new Product(
+            productDto.getProductName(),
+            productDto.getProductType(),
+            productDto.getMaterial(),
+            productDto.getManufacturer(),
+            productDto.getDescription(),
+            productDto.getPrice()
+        );
+    }
+}
@@ -0,0 +1,14 @@
+package ru.study.shop.adapters.controllers.product_import;
+
+import java.io.IOException;
+
+/**
+ * Reads import rows one at a time, so an import never holds more than a batch in memory.
+ */
+public interface ProductRowReader {
+    /**
+     * @return the next non-blank row, or null at the end of the input.
+     * @throws IOException if the input itself cannot be read; malformed rows are returned, not thrown.
+     */
+    ProductImportRow next() throws IOException;
+}
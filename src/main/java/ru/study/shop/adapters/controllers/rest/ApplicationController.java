@@ -5,6 +5,9 @@ import org.springframework.context.ApplicationContext;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import ru.study.shop.services.impl.ProductQueryResultCache;
+
+import java.util.Map;
 
 @RestController
 @RequestMapping("app")
@@ -12,13 +15,20 @@ public class ApplicationController {
 
     private static final int DEFAULT_SHUTDOWN_CODE = 0;
     private final ApplicationContext applicationContext;
+    private final ProductQueryResultCache productQueryResultCache;
 
-    public ApplicationController(ApplicationContext applicationContext) {
+    public ApplicationController(ApplicationContext applicationContext, ProductQueryResultCache productQueryResultCache) {
         this.applicationContext = applicationContext;
+        this.productQueryResultCache = productQueryResultCache;
     }
 
     @GetMapping("/shutdown")
     public void shutdownApplication() {
         SpringApplication.exit(applicationContext, () -> DEFAULT_SHUTDOWN_CODE);
     }
+
+    @GetMapping(value = "/caches/product-queries", produces = "application/json")
+    public Map<String, Object> getProductQueryCacheStatistics() {
+        return productQueryResultCache.getStatistics();
+    }
 }
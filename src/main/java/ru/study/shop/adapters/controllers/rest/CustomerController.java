@@ -0,0 +1,93 @@
+package ru.study.shop.adapters.controllers.rest;
+
+import org.apache.commons.validator.GenericValidator;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import ru.study.shop.services.interfaces.CustomerService;
+import ru.study.shop.services.interfaces.OrderService;
+
+import java.util.Optional;
+
+import static java.util.Objects.isNull;
+
+@RestController
+@RequestMapping("customers")
+public class CustomerController {
+    private static final String INVALID_CUSTOMER_ID_MESSAGE = "invalid customer ID; must be more than 0";
+    private static final String NO_SUCH_CUSTOMER_MESSAGE = "no such customer with provided ID: ";
+    private static final String INVALID_PAGE_MESSAGE = "invalid page; must be 0 or more";
+    private static final String INVALID_PAGE_SIZE_MESSAGE = "invalid page size; must be more than 0";
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
+    private final CustomerService customerService;
+
+    private final OrderService orderService;
+
+    public CustomerController(CustomerService customerService, OrderService orderService) {
+        this.customerService = customerService;
+        this.orderService = orderService;
+    }
+
+    /**
+     * @return a page of the customer's orders, latest first, or only their counts and totals when
+     * <code>summary</code> is true.
+     */
+    @GetMapping(value = "/{id}/orders", produces = "application/json")
+    public ResponseEntity<?> getCustomerOrders(
+        @PathVariable("id") Long customerId,
+        @RequestParam(name = "page") Optional<String> strPage,
+        @RequestParam(name = "size") Optional<String> strPageSize,
+        @RequestParam(name = "summary") Optional<Boolean> summary) {
+        validateCustomerId(customerId);
+
+        if (!customerService.findById(customerId).isPresent()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, NO_SUCH_CUSTOMER_MESSAGE + customerId);
+        }
+
+        if (summary.orElse(false)) {
+            return ResponseEntity.ok(orderService.summarizeByCustomer(customerId));
+        }
+
+        return ResponseEntity.ok(orderService.findByCustomer(customerId, getPage(strPage), getPageSize(strPageSize)));
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private void validateCustomerId(Long customerId) {
+        if (isNull(customerId) || customerId < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_CUSTOMER_ID_MESSAGE);
+        }
+    }
+
+    private int getPage(Optional<String> strPage) {
+        if (!strPage.isPresent()) {
+            return 0;
+        }
+        if (!GenericValidator.isInt(strPage.get()) || Integer.parseInt(strPage.get()) < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_PAGE_MESSAGE);
+        }
+
+        return Integer.parseInt(strPage.get());
+    }
+
+    private int getPageSize(Optional<String> strPageSize) {
+        if (!strPageSize.isPresent()) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (!GenericValidator.isInt(strPageSize.get()) || Integer.parseInt(strPageSize.get()) < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_PAGE_SIZE_MESSAGE);
+        }
+
+        return Math.min(Integer.parseInt(strPageSize.get()), MAX_PAGE_SIZE);
+    }
+}
@@ -1,15 +1,25 @@
 package ru.study.shop.adapters.controllers.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.validator.GenericValidator;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.study.shop.adapters.controllers.dto.OrderBatchResult;
+import ru.study.shop.adapters.controllers.dto.OrderBatchResult.OrderResult;
 import ru.study.shop.adapters.controllers.dto.OrderDto;
 import ru.study.shop.adapters.controllers.utils.dto_validation.groups.OnCreate;
 import ru.study.shop.adapters.controllers.utils.dto_validation.groups.OnUpdate;
+import ru.study.shop.adapters.hibernate.impl.query_classes.KeysetCursor;
+import ru.study.shop.adapters.hibernate.impl.query_classes.OrderPage;
+import ru.study.shop.adapters.hibernate.impl.query_classes.OrderPartition;
 import ru.study.shop.entities.Customer;
 import ru.study.shop.entities.Order;
+import ru.study.shop.entities.OrderLine;
 import ru.study.shop.entities.Product;
 import ru.study.shop.services.interfaces.CustomerService;
 import ru.study.shop.services.interfaces.OrderService;
@@ -18,9 +28,19 @@ import ru.study.shop.services.interfaces.ProductService;
 import javax.validation.ConstraintViolation;
 import javax.validation.Validation;
 import javax.validation.Validator;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
@@ -36,6 +56,20 @@ public class OrderController {
     private static final String NO_CUSTOMER_MESSAGE = "no such customer with provided ID: ";
     private static final String NO_SUCH_ORDER_MESSAGE = "no such order with provided ID: ";
     private static final String NO_PROPERTIES_TO_UPDATE_MESSAGE = "no properties to update in request body";
+    private static final String INVALID_PRODUCT_ID_MESSAGE = "invalid product ID; must be more than 0";
+    private static final String INVALID_MIN_TOTAL_PRICE_MESSAGE = "invalid minimal total price; must be 0 or more";
+    private static final String INVALID_DATE_RANGE_MESSAGE = "invalid date range; fromDate must not be after toDate";
+    private static final String INVALID_CURSOR_MESSAGE = "invalid cursor: ";
+    private static final String INVALID_MONTH_MESSAGE = "invalid month; must be yyyy-MM: ";
+    private static final String INVALID_ARCHIVED_MONTH_MESSAGE = "invalid month to archive: ";
+    private static final String NO_SUCH_ARCHIVED_MONTH_MESSAGE = "no such archived month: ";
+    private static final String INVALID_BATCH_SIZE_MESSAGE = "invalid number of orders; must be from 1 to ";
+    private static final String INVALID_PAGE_MESSAGE = "invalid page; must be 0 or more";
+    private static final String INVALID_PAGE_SIZE_MESSAGE = "invalid page size; must be more than 0";
+
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    public static final int MAX_BATCH_ORDERS = 1000;
 
     private final OrderService orderService;
 
@@ -43,43 +77,149 @@ public class OrderController {
 
     private final ProductService productService;
 
+    private final ObjectMapper objectMapper;
+
     private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
 
     public OrderController(OrderService orderService, CustomerService customerService, ProductService productService) {
+        this(orderService, customerService, productService, new ObjectMapper());
+    }
+
+    @Autowired
+    public OrderController(
+        OrderService orderService,
+        CustomerService customerService,
+        ProductService productService,
+        ObjectMapper objectMapper) {
         this.orderService = orderService;
         this.customerService = customerService;
         this.productService = productService;
+        this.objectMapper = objectMapper;
     }
 
+    /**
+     * @return a page of the orders placed between the dates, earliest first; the cursor of the next page is
+     * returned in the <code>X-Next-Cursor</code> header and passed back as <code>after</code>.
+     */
     @GetMapping(produces = "application/json")
     public ResponseEntity<List<Order>> getAllOrders(
         @RequestParam(name = "fromDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fromDT,
-        @RequestParam(name = "toDate", required = false) LocalDateTime toDT) {
+        @RequestParam(name = "toDate", required = false) LocalDateTime toDT,
+        @RequestParam(name = "limit") Optional<String> strLimit,
+        @RequestParam(name = "after") Optional<String> afterCursor) {
+        validateDateRange(fromDT, toDT);
+
+        KeysetCursor after = afterCursor.map(this::decodeCursor).orElse(null);
+        OrderPage page = orderService.findPage(
+            fromDT, toDT,
+            getPageSize(strLimit),
+            isNull(after) ? null : LocalDateTime.parse(after.getSortKey()),
+            isNull(after) ? null : after.getId());
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        page.getNextCursor().ifPresent(cursor -> response.header(ProductController.NEXT_CURSOR_HEADER, cursor.encode()));
+
+        return response.body(page.getOrders());
+    }
 
-        List<Order> result;
+    /**
+     * Streams all orders placed between the dates, earliest first, one JSON object per line.
+     */
+    @GetMapping(value = "/export", produces = ProductController.NDJSON_MEDIA_TYPE)
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+        @RequestParam(name = "fromDate", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fromDT,
+        @RequestParam(name = "toDate", required = false) LocalDateTime toDT) {
+        validateDateRange(fromDT, toDT);
 
-        if (isNull(fromDT) && isNull(toDT)) {
-            result = orderService.findAll();
-        } else if (nonNull(fromDT) && isNull(toDT)) {
-            result = orderService.findAllFromDate(fromDT);
-        } else if (isNull(fromDT)) {
-            result = orderService.findAllToDate(toDT);
-        } else {
-            result = orderService.findAllFromToDate(fromDT, toDT);
-        }
+        StreamingResponseBody body = output -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+            orderService.forEachOrder(fromDT, toDT, order -> writeLine(writer, order));
+            writer.flush();
+        };
 
-        return ResponseEntity.ok(result);
+        return ResponseEntity.ok(body);
     }
 
     @GetMapping(value = "/{id}", produces = "application/json")
     public ResponseEntity<Order> getOrderById(@PathVariable("id") Long orderId) {
         validateOrderId(orderId);
 
-        return orderService.findById(orderId)
+        return orderService.findByIdWithArchived(orderId)
             .map(ResponseEntity::ok)
             .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, NO_SUCH_PRODUCT_MESSAGE + orderId));
     }
 
+    /**
+     * @return a page of the orders containing the product, latest first, or only how often it was ordered when
+     * <code>countOnly</code> is true.
+     */
+    @GetMapping(value = "/by-product/{productId}", produces = "application/json")
+    public ResponseEntity<?> getOrdersByProduct(
+        @PathVariable("productId") Long productId,
+        @RequestParam(name = "page") Optional<String> strPage,
+        @RequestParam(name = "size") Optional<String> strPageSize,
+        @RequestParam(name = "countOnly") Optional<Boolean> countOnly) {
+        if (isNull(productId) || productId < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_PRODUCT_ID_MESSAGE);
+        }
+        checkForPresenceAndGetProduct(productId);
+
+        if (countOnly.orElse(false)) {
+            return ResponseEntity.ok(orderService.countByProduct(productId));
+        }
+
+        return ResponseEntity.ok(orderService.findByProduct(productId, getPage(strPage), getPageSize(strPageSize)));
+    }
+
+    /**
+     * @return a page of the orders with total price of at least <code>min</code>, most expensive first.
+     */
+    @GetMapping(value = "/by-total-price", produces = "application/json")
+    public ResponseEntity<List<Order>> getOrdersByMinTotalPrice(
+        @RequestParam(name = "min") Long minTotalPrice,
+        @RequestParam(name = "page") Optional<String> strPage,
+        @RequestParam(name = "size") Optional<String> strPageSize) {
+        if (isNull(minTotalPrice) || minTotalPrice < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_MIN_TOTAL_PRICE_MESSAGE);
+        }
+
+        return ResponseEntity.ok(
+            orderService.findByMinTotalPrice(minTotalPrice, getPage(strPage), getPageSize(strPageSize)));
+    }
+
+    /**
+     * @return archived months of orders with their totals.
+     */
+    @GetMapping(value = "/partitions", produces = "application/json")
+    public ResponseEntity<List<OrderPartition>> getPartitions() {
+        return ResponseEntity.ok(orderService.findPartitions());
+    }
+
+    /**
+     * Moves the orders of a past month out of the live tables; archived orders are no longer listed.
+     */
+    @PostMapping(value = "/partitions/{month}/archive", produces = "application/json")
+    public ResponseEntity<OrderPartition> archiveMonth(@PathVariable("month") String strMonth) {
+        YearMonth month = parseMonth(strMonth);
+
+        try {
+            return ResponseEntity.ok(orderService.archiveMonth(month));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_ARCHIVED_MONTH_MESSAGE + e.getMessage());
+        }
+    }
+
+    @DeleteMapping(value = "/partitions/{month}")
+    public ResponseEntity<Order> dropArchivedMonth(@PathVariable("month") String strMonth) {
+        YearMonth month = parseMonth(strMonth);
+
+        if (!orderService.dropArchivedMonth(month)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, NO_SUCH_ARCHIVED_MONTH_MESSAGE + month);
+        }
+
+        return ResponseEntity.ok().build();
+    }
+
     @PostMapping(value = "/new", produces = "application/json")
     public ResponseEntity<Order> createOrder(@RequestBody OrderDto newOrderDto) {
         validateOrderDto(newOrderDto, CREATE_OPTION);
@@ -89,6 +229,63 @@ public class OrderController {
         return ResponseEntity.ok(orderService.saveOrder(newOrder));
     }
 
+    /**
+     * Creates the valid orders of the batch in one transaction; orders failing validation or referring to
+     * missing customers or products are rejected without affecting the others.
+     *
+     * @return the id of every created order and the error of every rejected one, in the order of the request.
+     */
+    @PostMapping(value = "/batch", produces = "application/json")
+    public ResponseEntity<OrderBatchResult> createOrders(@RequestBody List<OrderDto> newOrderDtos) {
+        if (isNull(newOrderDtos) || newOrderDtos.isEmpty() || newOrderDtos.size() > MAX_BATCH_ORDERS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_BATCH_SIZE_MESSAGE + MAX_BATCH_ORDERS);
+        }
+
+        String[] errors = new String[newOrderDtos.size()];
+        Set<Long> customerIds = new HashSet<>();
+        Set<Long> productIds = new HashSet<>();
+        for (int i = 0; i < newOrderDtos.size(); i++) {
+            OrderDto dto = newOrderDtos.get(i);
+            errors[i] = getViolationMessage(dto, CREATE_OPTION);
+            if (isNull(errors[i])) {
+                customerIds.add(dto.getCustomerId());
+                productIds.addAll(dto.getProductIdAmountMap().keySet());
+            }
+        }
+
+        Map<Long, Customer> customersById = customerService.findAllById(customerIds).stream()
+            .collect(Collectors.toMap(Customer::getId, Function.identity()));
+        Map<Long, Product> productsById = productService.findAllById(productIds).stream()
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        List<Order> newOrders = new ArrayList<>();
+        List<Integer> newOrderIndexes = new ArrayList<>();
+        for (int i = 0; i < newOrderDtos.size(); i++) {
+            if (isNull(errors[i])) {
+                errors[i] = getMissingReferenceMessage(newOrderDtos.get(i), customersById, productsById);
+            }
+            if (isNull(errors[i])) {
+                newOrders.add(mapDtoToOrder(newOrderDtos.get(i), customersById, productsById));
+                newOrderIndexes.add(i);
+            }
+        }
+
+        List<Order> savedOrders = orderService.saveNewOrders(newOrders);
+
+        OrderResult[] results = new OrderResult[newOrderDtos.size()];
+        for (int i = 0; i < results.length; i++) {
+            if (nonNull(errors[i])) {
+                results[i] = OrderResult.rejected(i, errors[i]);
+            }
+        }
+        for (int i = 0; i < savedOrders.size(); i++) {
+            int index = newOrderIndexes.get(i);
+            results[index] = OrderResult.created(index, savedOrders.get(i).getId());
+        }
+
+        return ResponseEntity.ok(new OrderBatchResult(Arrays.asList(results)));
+    }
+
     @PutMapping(value = "/{id}")
     public ResponseEntity<Order> editOrder(@PathVariable("id") Long orderId, @RequestBody OrderDto orderDto) {
         validateOrderId(orderId);
@@ -122,11 +319,80 @@ public class OrderController {
         }
     }
 
+    private void validateDateRange(LocalDateTime fromDT, LocalDateTime toDT) {
+        if (nonNull(fromDT) && nonNull(toDT) && fromDT.isAfter(toDT)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_DATE_RANGE_MESSAGE);
+        }
+    }
+
+    private YearMonth parseMonth(String strMonth) {
+        try {
+            return YearMonth.parse(strMonth);
+        } catch (DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_MONTH_MESSAGE + strMonth);
+        }
+    }
+
+    private KeysetCursor decodeCursor(String encodedCursor) {
+        try {
+            KeysetCursor cursor = KeysetCursor.decode(encodedCursor);
+            if (!OrderPage.CURSOR_SORT_FIELD.equals(cursor.getSortField()) || isNull(cursor.getSortKey())) {
+                throw new IllegalArgumentException("not an order cursor");
+            }
+            LocalDateTime.parse(cursor.getSortKey());
+
+            return cursor;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_CURSOR_MESSAGE + e.getMessage());
+        }
+    }
+
+    private void writeLine(Writer writer, Order order) {
+        try {
+            writer.write(objectMapper.writeValueAsString(order));
+            writer.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int getPage(Optional<String> strPage) {
+        if (!strPage.isPresent()) {
+            return 0;
+        }
+        if (!GenericValidator.isInt(strPage.get()) || Integer.parseInt(strPage.get()) < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_PAGE_MESSAGE);
+        }
+
+        return Integer.parseInt(strPage.get());
+    }
+
+    private int getPageSize(Optional<String> strPageSize) {
+        if (!strPageSize.isPresent()) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (!GenericValidator.isInt(strPageSize.get()) || Integer.parseInt(strPageSize.get()) < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_PAGE_SIZE_MESSAGE);
+        }
+
+        return Math.min(Integer.parseInt(strPageSize.get()), MAX_PAGE_SIZE);
+    }
+
     private void validateOrderDto(OrderDto dto, Class<?> option) {
-        if (isNull(dto)) {
+        String violationMessage = getViolationMessage(dto, option);
+
+        if (nonNull(violationMessage)) {
             throw new ResponseStatusException(
-                HttpStatus.BAD_REQUEST,
-                NO_PROPERTIES_TO_UPDATE_MESSAGE);
+                HttpStatus.BAD_REQUEST, violationMessage);
+        }
+    }
+
+    /**
+     * @return null if the dto is valid.
+     */
+    private String getViolationMessage(OrderDto dto, Class<?> option) {
+        if (isNull(dto)) {
+            return NO_PROPERTIES_TO_UPDATE_MESSAGE;
         }
 
         if (isNull(option) || !option.equals(UPDATE_OPTION)) {
@@ -135,21 +401,39 @@ public class OrderController {
 
         Set<ConstraintViolation<OrderDto>> violations = validator.validate(dto, option);
 
-        if (!violations.isEmpty()) {
-            StringBuilder stringBuilder = new StringBuilder();
-            stringBuilder.append("violations: [");
-            for (ConstraintViolation<OrderDto> violation : violations) {
-                stringBuilder
-                    .append(violation.getPropertyPath())
-                    .append(": ")
-                    .append(violation.getMessage())
-                    .append("; ");
-            }
-            stringBuilder.append("]");
+        if (violations.isEmpty()) {
+            return null;
+        }
 
-            throw new ResponseStatusException(
-                HttpStatus.BAD_REQUEST, stringBuilder.toString());
+        StringBuilder stringBuilder = new StringBuilder();
+        stringBuilder.append("violations: [");
+        for (ConstraintViolation<OrderDto> violation : violations) {
+            stringBuilder
+                .append(violation.getPropertyPath())
+                .append(": ")
+                .append(violation.getMessage())
+                .append("; ");
         }
+        stringBuilder.append("]");
+
+        return stringBuilder.toString();
+    }
+
+    /**
+     * @return null if the customer and all products of the dto exist.
+     */
+    private String getMissingReferenceMessage(
+        OrderDto dto, Map<Long, Customer> customersById, Map<Long, Product> productsById) {
+        if (!customersById.containsKey(dto.getCustomerId())) {
+            return NO_CUSTOMER_MESSAGE + dto.getCustomerId();
+        }
+        for (Long productId : dto.getProductIdAmountMap().keySet()) {
+            if (!productsById.containsKey(productId)) {
+                return NO_SUCH_PRODUCT_MESSAGE + productId;
+            }
+        }
+
+        return null;
     }
 
     private void updateOrder(Order editableOrder, OrderDto orderDto) {
@@ -162,8 +446,8 @@ public class OrderController {
 
         if (nonNull(orderDto.getProductIdAmountMap())) {
 
-            editableOrder.setProductList(
-                dtoProductMapToList(orderDto.getProductIdAmountMap()));
+            editableOrder.setLines(
+                dtoProductMapToLines(orderDto.getProductIdAmountMap()));
         }
         if (nonNull(orderDto.getOrderedTime())) {
 
@@ -185,25 +469,32 @@ public class OrderController {
 
         return new Order(
             optionalCustomer.get(),
-            dtoProductMapToList(newOrderDto.getProductIdAmountMap()),
+            dtoProductMapToLines(newOrderDto.getProductIdAmountMap()),
             newOrderDto.getOrderedTime(),
             newOrderDto.getDelivered());
     }
 
-    private List<Product> dtoProductMapToList(Map<Long, Integer> productIdAmount) {
-        List<Product> productList = new ArrayList<>();
+    private Order mapDtoToOrder(OrderDto dto, Map<Long, Customer> customersById, Map<Long, Product> productsById) {
+        List<OrderLine> lines = new ArrayList<>();
+        for (Entry<Long, Integer> entry : dto.getProductIdAmountMap().entrySet()) {
+            lines.add(new OrderLine(productsById.get(entry.getKey()), entry.getValue()));
+        }
+
+        return new Order(customersById.get(dto.getCustomerId()), lines, dto.getOrderedTime(), dto.getDelivered());
+    }
+
+    private List<OrderLine> dtoProductMapToLines(Map<Long, Integer> productIdAmount) {
+        List<OrderLine> lines = new ArrayList<>();
 
         for (Entry<Long, Integer> entry : productIdAmount.entrySet()) {
             Long productId = entry.getKey();
 
             Product product = checkForPresenceAndGetProduct(productId);
 
-            for (int i = 0; i < entry.getValue(); i++) {
-                productList.add(product);
-            }
+            lines.add(new OrderLine(product, entry.getValue()));
         }
 
-        return productList;
+        return lines;
     }
 
     private Order checkForPresenceAndGetOrder(Long orderId) {
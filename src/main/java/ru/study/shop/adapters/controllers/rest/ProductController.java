@@ -1,24 +1,51 @@
 package ru.study.shop.adapters.controllers.rest;
 
 import org.apache.commons.validator.GenericValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 import ru.study.shop.adapters.controllers.dto.ProductDto;
+import ru.study.shop.adapters.controllers.product_import.CsvProductRowReader;
+import ru.study.shop.adapters.controllers.product_import.NdjsonProductRowReader;
+import ru.study.shop.adapters.controllers.product_import.ProductImportResult;
+import ru.study.shop.adapters.controllers.product_import.ProductImporter;
+import ru.study.shop.adapters.controllers.product_import.ProductRowReader;
 import ru.study.shop.adapters.controllers.utils.dto_validation.groups.OnCreate;
 import ru.study.shop.adapters.controllers.utils.dto_validation.groups.OnUpdate;
+import ru.study.shop.adapters.controllers.utils.http_caching.CatalogVersionETag;
+import ru.study.shop.adapters.hibernate.impl.query_classes.KeysetCursor;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductFacets;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductPage;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductPageRequest;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductProjection;
 import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductSortField;
 import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints.Builder;
+import ru.study.shop.adapters.hibernate.impl.query_classes.filter_language.FilterSyntaxException;
+import ru.study.shop.adapters.hibernate.impl.query_classes.filter_language.ProductFilter;
+import ru.study.shop.adapters.search.ProductSuggestion;
 import ru.study.shop.entities.Product;
 import ru.study.shop.services.interfaces.ProductService;
 
 import javax.validation.ConstraintViolation;
 import javax.validation.Validation;
 import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static java.util.Objects.isNull;
 import static java.util.Objects.nonNull;
@@ -29,20 +56,54 @@ public class ProductController {
     private static final String NO_SUCH_PRODUCT_MESSAGE = "no product with such ID is present";
     private static final String INVALID_ID_MESSAGE = "invalid ID; must be more than 0";
     private static final String NO_PROPERTIES_TO_UPDATE_MESSAGE = "no properties to update in request body";
+    private static final String INVALID_LIMIT_MESSAGE = "invalid limit; must be more than 0";
+    private static final String INVALID_PAGING_MESSAGE = "invalid paging parameters: ";
+    private static final String INVALID_FIELDS_MESSAGE = "invalid fields: ";
+    private static final String EMPTY_SEARCH_QUERY_MESSAGE = "search query must not be empty";
+    private static final String EMPTY_SUGGEST_PREFIX_MESSAGE = "prefix must not be empty";
+    private static final String INVALID_IMPORT_MESSAGE = "invalid import: ";
+    private static final String INVALID_FILTER_MESSAGE = "invalid filter: ";
+    private static final String UNCONSTRAINED_DELETE_MESSAGE = "at least one constraint is required to delete products";
+    private static final String INVALID_ID_RANGE_MESSAGE =
+        "invalid ID range; bounds must be integers, fromId not above toId";
+    private static final String INVALID_PRICE_RANGE_MESSAGE =
+        "invalid price range; bounds must be integers, fromPrice not above toPrice";
+    private static final String DELETED_COUNT_FIELD = "deletedCount";
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    public static final String CSV_MEDIA_TYPE = "text/csv";
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
 
     private static final Class<OnCreate> CREATE_OPTION = OnCreate.class;
     private static final Class<OnUpdate> UPDATE_OPTION = OnUpdate.class;
 
     private final ProductService productService;
 
+    private final ProductImporter productImporter;
+
+    private final ObjectMapper objectMapper;
+
     private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
 
     public ProductController(ProductService productService) {
+        this(productService, new ProductImporter(productService, ProductImporter.DEFAULT_BATCH_SIZE), new ObjectMapper());
+    }
+
+    @Autowired
+    public ProductController(ProductService productService, ProductImporter productImporter, ObjectMapper objectMapper) {
         this.productService = productService;
+        this.productImporter = productImporter;
+        this.objectMapper = objectMapper;
     }
 
+    /**
+     * @return products, or maps of the attributes listed in <code>fields</code> when it is given.
+     */
+    @CatalogVersionETag
     @GetMapping(produces = "application/json")
-    public ResponseEntity<List<Product>> getProductList(
+    public ResponseEntity<List<?>> getProductList(
         @RequestParam(name = "fromId") Optional<String> strFromId,
         @RequestParam(name = "toId") Optional<String> strToId,
         @RequestParam(name = "names") Optional<List<String>> productNames,
@@ -50,43 +111,93 @@ public class ProductController {
         @RequestParam(name = "manufacturers") Optional<List<String>> productManufacturers,
         @RequestParam(name = "materials") Optional<List<String>> productMaterials,
         @RequestParam(name = "fromPrice") Optional<String> strFromPrice,
-        @RequestParam(name = "toPrice") Optional<String> strToPrice) {
-
-        Builder builder = ProductQueryConstraints.getConstraintsBuilder();
-
-        Long fromId = null;
-        Long toId = null;
-        if (strFromId.isPresent() && GenericValidator.isLong(strFromId.get())) {
-            fromId = Long.valueOf(strFromId.get());
+        @RequestParam(name = "toPrice") Optional<String> strToPrice,
+        @RequestParam(name = "filter") Optional<String> filterExpression,
+        @RequestParam(name = "limit") Optional<String> strLimit,
+        @RequestParam(name = "after") Optional<String> afterCursor,
+        @RequestParam(name = "sort") Optional<String> sortFieldName,
+        @RequestParam(name = "fields") Optional<List<String>> fieldNames) {
+
+        ProductQueryConstraints builtQuery = getQueryConstraints(
+            strFromId, strToId,
+            productNames, productTypes, productManufacturers, productMaterials,
+            strFromPrice, strToPrice, filterExpression);
+        ProductProjection projection = getProjection(fieldNames);
+
+        ProductPage page = productService.findByProductQuery(
+            builtQuery,
+            getPageRequest(strLimit, afterCursor, sortFieldName),
+            projection);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        page.getNextCursor().ifPresent(cursor -> response.header(NEXT_CURSOR_HEADER, cursor.encode()));
+
+        if (projection.isAll()) {
+            return response.body(page.getProducts());
         }
-        if (strToId.isPresent() && GenericValidator.isLong(strToId.get())) {
-            toId = Long.valueOf(strToId.get());
-        }
-        builder.idConstraint(fromId, toId);
 
-        productNames.ifPresent(builder::nameConstraint);
+        return response.body(page.getProducts().stream()
+            .map(projection::toMap)
+            .collect(Collectors.toList()));
+    }
 
-        productTypes.ifPresent(builder::typeConstraint);
+    @CatalogVersionETag
+    @GetMapping(value = "/facets", produces = "application/json")
+    public ResponseEntity<ProductFacets> getProductFacets(
+        @RequestParam(name = "fromId") Optional<String> strFromId,
+        @RequestParam(name = "toId") Optional<String> strToId,
+        @RequestParam(name = "names") Optional<List<String>> productNames,
+        @RequestParam(name = "types") Optional<List<String>> productTypes,
+        @RequestParam(name = "manufacturers") Optional<List<String>> productManufacturers,
+        @RequestParam(name = "materials") Optional<List<String>> productMaterials,
+        @RequestParam(name = "fromPrice") Optional<String> strFromPrice,
+        @RequestParam(name = "toPrice") Optional<String> strToPrice,
+        @RequestParam(name = "filter") Optional<String> filterExpression) {
 
-        productManufacturers.ifPresent(builder::manufacturerConstraint);
+        return ResponseEntity.ok(productService.countFacets(getQueryConstraints(
+            strFromId, strToId,
+            productNames, productTypes, productManufacturers, productMaterials,
+            strFromPrice, strToPrice, filterExpression)));
+    }
 
-        productMaterials.ifPresent(builder::materialConstraint);
+    @CatalogVersionETag
+    @GetMapping(value = "/search", produces = "application/json")
+    public ResponseEntity<List<Product>> searchProducts(
+        @RequestParam(name = "q") Optional<String> query,
+        @RequestParam(name = "limit") Optional<String> strLimit) {
 
-        Long fromPrice = null;
-        Long toPrice = null;
-        if (strFromPrice.isPresent() && GenericValidator.isLong(strFromPrice.get())) {
-            fromPrice = Long.valueOf(strFromPrice.get());
+        if (!query.isPresent() || GenericValidator.isBlankOrNull(query.get())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, EMPTY_SEARCH_QUERY_MESSAGE);
         }
-        if (strToPrice.isPresent() && GenericValidator.isLong(strToPrice.get())) {
-            toPrice = Long.valueOf(strToPrice.get());
+
+        return ResponseEntity.ok(productService.searchProducts(query.get(), getLimit(strLimit)));
+    }
+
+    @GetMapping(value = "/suggest", produces = "application/json")
+    public ResponseEntity<List<ProductSuggestion>> suggestProducts(
+        @RequestParam(name = "prefix") Optional<String> prefix,
+        @RequestParam(name = "limit") Optional<String> strLimit) {
+
+        if (!prefix.isPresent() || GenericValidator.isBlankOrNull(prefix.get())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, EMPTY_SUGGEST_PREFIX_MESSAGE);
         }
-        builder.priceConstraint(fromPrice, toPrice);
 
-        ProductQueryConstraints builtQuery = builder.build();
+        return ResponseEntity.ok(productService.suggestProducts(prefix.get(), getLimit(strLimit)));
+    }
 
-        return ResponseEntity.ok(productService.findByProductQuery(builtQuery));
+    /**
+     * Not tagged with the catalog version: related products change with orders, not with the catalog.
+     */
+    @GetMapping(value = "/{id}/related", produces = "application/json")
+    public ResponseEntity<List<Product>> getRelatedProducts(
+        @PathVariable("id") Long productId,
+        @RequestParam(name = "limit") Optional<String> strLimit) {
+        validateProductId(productId);
+
+        return ResponseEntity.ok(productService.findRelatedProducts(productId, getLimit(strLimit)));
     }
 
+    @CatalogVersionETag(productIdVariable = "id")
     @GetMapping(value = "/{id}", produces = "application/json")
     public ResponseEntity<Product> getProductById(@PathVariable("id") Long productId) {
         validateProductId(productId);
@@ -103,6 +214,24 @@ public class ProductController {
         return ResponseEntity.ok(productService.saveProduct(mapDtoToProduct(newProduct)));
     }
 
+    /**
+     * Streams new products from NDJSON or CSV and inserts them in batches.
+     *
+     * @return counts of imported and failed rows with the errors of the failed ones.
+     */
+    @PostMapping(value = "/import", consumes = { NDJSON_MEDIA_TYPE, CSV_MEDIA_TYPE }, produces = "application/json")
+    public ResponseEntity<ProductImportResult> importProducts(
+        @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+        InputStream body) throws IOException {
+
+        BufferedReader input = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        try {
+            return ResponseEntity.ok(productImporter.importProducts(getRowReader(contentType, input)));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_IMPORT_MESSAGE + e.getMessage());
+        }
+    }
+
     @PutMapping(value = "/{id}")
     public ResponseEntity<Product> editProduct(@PathVariable("id") Long productId, @RequestBody ProductDto productChanges) {
         validateProductId(productId);
@@ -116,6 +245,41 @@ public class ProductController {
         return ResponseEntity.ok(editableProduct);
     }
 
+    /**
+     * Deletes every product matching the same constraints <code>GET /products</code> takes, in one statement.
+     * Unlike <code>GET</code>, malformed or inverted bounds are rejected instead of being ignored,
+     * as ignoring one would widen the deletion.
+     *
+     * @return number of deleted products.
+     */
+    @DeleteMapping(produces = "application/json")
+    public ResponseEntity<Map<String, Integer>> deleteProducts(
+        @RequestParam(name = "fromId") Optional<String> strFromId,
+        @RequestParam(name = "toId") Optional<String> strToId,
+        @RequestParam(name = "names") Optional<List<String>> productNames,
+        @RequestParam(name = "types") Optional<List<String>> productTypes,
+        @RequestParam(name = "manufacturers") Optional<List<String>> productManufacturers,
+        @RequestParam(name = "materials") Optional<List<String>> productMaterials,
+        @RequestParam(name = "fromPrice") Optional<String> strFromPrice,
+        @RequestParam(name = "toPrice") Optional<String> strToPrice,
+        @RequestParam(name = "filter") Optional<String> filterExpression) {
+
+        validateRange(strFromId, strToId, INVALID_ID_RANGE_MESSAGE);
+        validateRange(strFromPrice, strToPrice, INVALID_PRICE_RANGE_MESSAGE);
+
+        ProductQueryConstraints builtQuery = getQueryConstraints(
+            strFromId, strToId,
+            productNames, productTypes, productManufacturers, productMaterials,
+            strFromPrice, strToPrice, filterExpression);
+        if (!builtQuery.isConstrained()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, UNCONSTRAINED_DELETE_MESSAGE);
+        }
+
+        int deletedCount = productService.deleteByProductQuery(builtQuery);
+
+        return ResponseEntity.ok(Collections.singletonMap(DELETED_COUNT_FIELD, deletedCount));
+    }
+
     @DeleteMapping(value = "/{id}")
     public ResponseEntity<Product> deleteProduct(@PathVariable("id") Long productId) {
         validateProductId(productId);
@@ -138,6 +302,114 @@ public class ProductController {
         }
     }
 
+    private void validateRange(Optional<String> strFrom, Optional<String> strTo, String message) {
+        if ((strFrom.isPresent() && !GenericValidator.isLong(strFrom.get()))
+            || (strTo.isPresent() && !GenericValidator.isLong(strTo.get()))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, message);
+        }
+
+        if (strFrom.isPresent() && strTo.isPresent() && Long.parseLong(strFrom.get()) > Long.parseLong(strTo.get())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, message);
+        }
+    }
+
+    private ProductQueryConstraints getQueryConstraints(
+        Optional<String> strFromId,
+        Optional<String> strToId,
+        Optional<List<String>> productNames,
+        Optional<List<String>> productTypes,
+        Optional<List<String>> productManufacturers,
+        Optional<List<String>> productMaterials,
+        Optional<String> strFromPrice,
+        Optional<String> strToPrice,
+        Optional<String> filterExpression) {
+
+        Builder builder = ProductQueryConstraints.getConstraintsBuilder();
+
+        Long fromId = null;
+        Long toId = null;
+        if (strFromId.isPresent() && GenericValidator.isLong(strFromId.get())) {
+            fromId = Long.valueOf(strFromId.get());
+        }
+        if (strToId.isPresent() && GenericValidator.isLong(strToId.get())) {
+            toId = Long.valueOf(strToId.get());
+        }
+        builder.idConstraint(fromId, toId);
+
+        productNames.ifPresent(builder::nameConstraint);
+
+        productTypes.ifPresent(builder::typeConstraint);
+
+        productManufacturers.ifPresent(builder::manufacturerConstraint);
+
+        productMaterials.ifPresent(builder::materialConstraint);
+
+        Long fromPrice = null;
+        Long toPrice = null;
+        if (strFromPrice.isPresent() && GenericValidator.isLong(strFromPrice.get())) {
+            fromPrice = Long.valueOf(strFromPrice.get());
+        }
+        if (strToPrice.isPresent() && GenericValidator.isLong(strToPrice.get())) {
+            toPrice = Long.valueOf(strToPrice.get());
+        }
+        builder.priceConstraint(fromPrice, toPrice);
+
+        if (filterExpression.isPresent() && !filterExpression.get().trim().isEmpty()) {
+            try {
+                builder.filter(ProductFilter.parse(filterExpression.get()));
+            } catch (FilterSyntaxException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_FILTER_MESSAGE + e.getMessage());
+            }
+        }
+
+        return builder.build();
+    }
+
+    private ProductRowReader getRowReader(String contentType, BufferedReader input) throws IOException {
+        if (MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.valueOf(CSV_MEDIA_TYPE))) {
+            return new CsvProductRowReader(input);
+        }
+        return new NdjsonProductRowReader(input, objectMapper);
+    }
+
+    private ProductProjection getProjection(Optional<List<String>> fieldNames) {
+        try {
+            return fieldNames
+                .map(ProductProjection::of)
+                .orElse(ProductProjection.ALL);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_FIELDS_MESSAGE + e.getMessage());
+        }
+    }
+
+    private int getLimit(Optional<String> strLimit) {
+        if (!strLimit.isPresent()) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        if (!GenericValidator.isInt(strLimit.get()) || Integer.parseInt(strLimit.get()) < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_LIMIT_MESSAGE);
+        }
+
+        return Math.min(Integer.parseInt(strLimit.get()), MAX_PAGE_SIZE);
+    }
+
+    private ProductPageRequest getPageRequest(Optional<String> strLimit, Optional<String> afterCursor, Optional<String> sortFieldName) {
+        int limit = getLimit(strLimit);
+
+        try {
+            ProductSortField sortField = sortFieldName
+                .map(ProductSortField::fromEntityFieldName)
+                .orElse(ProductSortField.ID);
+            KeysetCursor after = afterCursor
+                .map(KeysetCursor::decode)
+                .orElse(null);
+
+            return new ProductPageRequest(sortField, limit, after);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, INVALID_PAGING_MESSAGE + e.getMessage());
+        }
+    }
+
     private void validateProductDto(ProductDto newProduct, Class<?> option) {
         if (isNull(newProduct)) {
             throw new ResponseStatusException(
@@ -127,14 +127,10 @@ public class StockController {
         @PathVariable("productId") Long productId) {
         validateId(productId);
 
-        List<Stock> stocksForProduct = stockService.findByProductId(productId);
-
-        if (stocksForProduct.isEmpty()) {
+        if (stockService.deleteAllStocksByProductId(productId) == 0) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, NO_SUCH_PRODUCT_MESSAGE);
         }
 
-        stockService.deleteAllStocks(stocksForProduct);
-
         return ResponseEntity.ok().build();
     }
 
@@ -0,0 +1,22 @@
+package ru.study.shop.adapters.controllers.utils.http_caching;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * The annotated GET handler responds with a strong ETag derived from the catalog version,
+ * and with 304 Not Modified when <code>If-None-Match</code> matches it, without invoking the handler.
+ * <p>
+ * When <code>productIdVariable</code> is given, the ETag is derived from the version of the product
+ * whose id is in that URI template variable instead.
+ */
+@Target({ METHOD })
+@Retention(RUNTIME)
+@Documented
+public @interface CatalogVersionETag {
+    String productIdVariable() default "";
+}
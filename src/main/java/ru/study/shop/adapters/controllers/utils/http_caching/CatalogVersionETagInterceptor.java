@@ -0,0 +1,101 @@
+package ru.study.shop.adapters.controllers.utils.http_caching;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.study.shop.services.impl.CatalogVersion;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.Enumeration;
+import java.util.Map;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Answers conditional GET requests to handlers annotated with {@link CatalogVersionETag}.
+ * <p>
+ * The ETag is taken before the handler reads the database, and the catalog version is bumped only after
+ * a write is committed, so a tag is never newer than the content it is sent with.
+ */
+@Component
+public class CatalogVersionETagInterceptor implements HandlerInterceptor {
+    private static final String WEAK_PREFIX = "W/";
+    private static final String ANY_TAG = "*";
+
+    private final CatalogVersion catalogVersion;
+
+    @Autowired
+    public CatalogVersionETagInterceptor(CatalogVersion catalogVersion) {
+        this.catalogVersion = catalogVersion;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod) || !isSafeMethod(request)) {
+            return true;
+        }
+
+        CatalogVersionETag annotation = ((HandlerMethod) handler).getMethodAnnotation(CatalogVersionETag.class);
+        if (isNull(annotation)) {
+            return true;
+        }
+
+        String eTag = getETag(request, annotation);
+        if (isNull(eTag)) {
+            return true;
+        }
+
+        response.setHeader(HttpHeaders.ETAG, eTag);
+        if (matchesIfNoneMatch(request, eTag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return false;
+        }
+        return true;
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private boolean isSafeMethod(HttpServletRequest request) {
+        return HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+    }
+
+    @SuppressWarnings("unchecked")
+    private String getETag(HttpServletRequest request, CatalogVersionETag annotation) {
+        if (annotation.productIdVariable().isEmpty()) {
+            return catalogVersion.getCatalogETag();
+        }
+
+        Map<String, String> uriVariables =
+            (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        String strProductId = isNull(uriVariables) ? null : uriVariables.get(annotation.productIdVariable());
+        try {
+            return isNull(strProductId) ? null : catalogVersion.getProductETag(Long.parseLong(strProductId));
+        } catch (NumberFormatException e) {
+            // leave malformed ids to the handler's own error handling
+            return null;
+        }
+    }
+
+    private boolean matchesIfNoneMatch(HttpServletRequest request, String eTag) {
+        Enumeration<String> headerValues = request.getHeaders(HttpHeaders.IF_NONE_MATCH);
+        while (headerValues.hasMoreElements()) {
+            for (String candidate : headerValues.nextElement().split(",")) {
+                candidate = candidate.trim();
+                if (candidate.startsWith(WEAK_PREFIX)) {
+                    candidate = candidate.substring(WEAK_PREFIX.length());
+                }
+                if (candidate.equals(ANY_TAG) || candidate.equals(eTag)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,26 @@
+package ru.study.shop.adapters.hibernate;
+
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints;
+import ru.study.shop.entities.Product;
+
+import java.util.List;
+
+/**
+ * Set-based product writes that bypass the persistence context.
+ */
+public interface BulkProductRepository {
+    /**
+     * Inserts new products with a single JDBC batch in one transaction and sets their ids.
+     *
+     * @return the same products.
+     */
+    List<Product> insertAll(List<Product> products);
+
+    /**
+     * Deletes the matching products with a single DELETE statement; their stocks are removed by the database
+     * cascade, while order lines keep their product name and price and lose only the reference.
+     *
+     * @return number of deleted products.
+     */
+    int deleteByProductQueryConstraints(ProductQueryConstraints productQueryConstraints);
+}
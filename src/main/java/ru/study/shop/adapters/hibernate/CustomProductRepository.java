@@ -1,5 +1,9 @@
 package ru.study.shop.adapters.hibernate;
 
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductFacets;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductPage;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductPageRequest;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductProjection;
 import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints;
 import ru.study.shop.entities.Product;
 
@@ -7,4 +11,19 @@ import java.util.List;
 
 public interface CustomProductRepository {
     List<Product> findByProductQueryConstraints(ProductQueryConstraints productQueryConstraints);
+
+    ProductPage findByProductQueryConstraints(ProductQueryConstraints productQueryConstraints, ProductPageRequest pageRequest);
+
+    /**
+     * Page of products in which only the projected attributes and the sort key are guaranteed to be set.
+     */
+    ProductPage findByProductQueryConstraints(
+        ProductQueryConstraints productQueryConstraints,
+        ProductPageRequest pageRequest,
+        ProductProjection projection);
+
+    /**
+     * @param priceBucketBounds ascending, at least one.
+     */
+    ProductFacets countFacets(ProductQueryConstraints productQueryConstraints, List<Long> priceBucketBounds);
 }
@@ -0,0 +1,99 @@
+package ru.study.shop.adapters.hibernate;
+
+import ru.study.shop.adapters.hibernate.impl.query_classes.CustomerOrderSummary;
+import ru.study.shop.adapters.hibernate.impl.query_classes.OrderPartition;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductOrderCount;
+import ru.study.shop.entities.Order;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Months of orders detached from the <code>orders</code> and <code>order_line</code> tables into tables of their own,
+ * so that old orders no longer weigh on the live tables and are dropped without a bulk DELETE.
+ * <p>
+ * Archived orders are still found by every order read: the <code>findArchived...</code> methods are the counterparts
+ * of the <code>OrderRepository</code> queries and their results are merged with the live ones. Archived orders are
+ * read only: they are built from the month tables and are not managed entities.
+ */
+public interface OrderPartitionRepository {
+    /**
+     * @return archived months, earliest first.
+     */
+    List<OrderPartition> findPartitions();
+
+    Optional<OrderPartition> findPartition(YearMonth month);
+
+    /**
+     * Creates <code>orders_yyyy_mm</code> and <code>order_line_yyyy_mm</code> unless the month is archived already.
+     * Must be called before <code>archivePartition</code> and outside of its transaction, as H2 commits on DDL.
+     */
+    void createPartitionTables(YearMonth month);
+
+    /**
+     * Moves the orders of the month with their lines into the tables made by <code>createPartitionTables</code>
+     * in one transaction; orders placed in an already archived month are added to its tables.
+     *
+     * @return the archived month with its totals.
+     */
+    OrderPartition archivePartition(YearMonth month);
+
+    /**
+     * Drops the tables of an archived month.
+     *
+     * @return false if the month is not archived.
+     */
+    boolean dropPartition(YearMonth month);
+
+    /**
+     * Reads only the months between <code>afterTime</code> and <code>toTime</code>.
+     *
+     * @return archived orders placed up to <code>toTime</code> that come after <code>(afterTime, afterId)</code> in
+     * <code>(orderedTime, id)</code> order, with their lines.
+     */
+    List<Order> findArchivedPageAfter(LocalDateTime afterTime, Long afterId, LocalDateTime toTime, int maxOrders);
+
+    Optional<Order> findArchivedById(Long orderId);
+
+    /**
+     * @return archived orders of the customer, latest first.
+     */
+    List<Order> findArchivedByCustomerId(Long customerId, int maxOrders);
+
+    /**
+     * @return counts and totals of the archived orders of the customer.
+     */
+    CustomerOrderSummary summarizeArchivedByCustomerId(Long customerId);
+
+    /**
+     * @return archived orders containing the product, latest first.
+     */
+    List<Order> findArchivedByProductId(Long productId, int maxOrders);
+
+    /**
+     * @return number of archived orders containing the product and number of units of it ordered.
+     */
+    ProductOrderCount countArchivedByProductId(Long productId);
+
+    /**
+     * @return pairs of product id and the number of archived orders containing the product.
+     */
+    List<Object[]> countArchivedOrdersByProduct();
+
+    /**
+     * @return archived orders with total price of at least <code>minTotalPrice</code>, most expensive first.
+     */
+    List<Order> findArchivedByTotalPriceAtLeast(Long minTotalPrice, int maxOrders);
+
+    /**
+     * @return ids of archived orders above <code>afterId</code>, ascending.
+     */
+    List<Long> findArchivedIdsAfter(Long afterId, int maxOrders);
+
+    /**
+     * @return pairs of order id and product id of archived orders, as <code>findProductIdsByOrderIdRange</code>.
+     */
+    List<Object[]> findArchivedProductIdsByOrderIdRange(Long afterId, Long toId);
+}
@@ -1,5 +1,7 @@
 package ru.study.shop.adapters.hibernate;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -8,10 +10,14 @@ import ru.study.shop.entities.Order;
 import java.time.LocalDateTime;
 import java.util.List;
 
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends JpaRepository<Order, Long>, OrderPartitionRepository {
     LocalDateTime MIN_ORDER_DATE_TIME = LocalDateTime.MIN;
     LocalDateTime MAX_ORDER_DATE_TIME = LocalDateTime.MAX;
 
+    @Override
+    @EntityGraph(Order.WITH_CUSTOMER_GRAPH)
+    List<Order> findAll();
+
     @Query(value =
             "SELECT * " +
             "FROM orders " +
@@ -35,4 +41,94 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
         nativeQuery = true
     )
     List<Order> findAllFromDateToDate(@Param("fromDate") LocalDateTime fromDate, @Param("toDate") LocalDateTime toDate);
+
+    /**
+     * @return orders placed up to <code>toTime</code> that come after <code>(afterTime, afterId)</code> in
+     * <code>(orderedTime, id)</code> order.
+     */
+    @EntityGraph(Order.WITH_CUSTOMER_GRAPH)
+    @Query(
+        "SELECT o FROM Order o " +
+        "WHERE o.orderedTime >= :afterTime AND o.orderedTime <= :toTime " +
+        "AND (o.orderedTime > :afterTime OR o.id > :afterId) " +
+        "ORDER BY o.orderedTime, o.id")
+    List<Order> findPageAfter(
+        @Param("afterTime") LocalDateTime afterTime,
+        @Param("afterId") Long afterId,
+        @Param("toTime") LocalDateTime toTime,
+        Pageable pageable);
+
+    /**
+     * @return orders of the customer, latest first.
+     */
+    @EntityGraph(Order.WITH_CUSTOMER_GRAPH)
+    @Query("SELECT o FROM Order o WHERE o.customer.id = :customerId ORDER BY o.orderedTime DESC, o.id DESC")
+    List<Order> findByCustomerId(@Param("customerId") Long customerId, Pageable pageable);
+
+    /**
+     * @return one row: number of orders, number of delivered orders, their total price, first and last ordered time
+     * of the customer.
+     */
+    @Query(
+        "SELECT COUNT(o), COALESCE(SUM(CASE WHEN o.delivered = true THEN 1 ELSE 0 END), 0), " +
+        "COALESCE(SUM(o.totalPrice), 0), MIN(o.orderedTime), MAX(o.orderedTime) " +
+        "FROM Order o WHERE o.customer.id = :customerId")
+    List<Object[]> summarizeByCustomerId(@Param("customerId") Long customerId);
+
+    /**
+     * @return number of items ordered by the customer.
+     */
+    @Query("SELECT COALESCE(SUM(l.quantity), 0) FROM OrderLine l WHERE l.order.customer.id = :customerId")
+    Long countProductsByCustomerId(@Param("customerId") Long customerId);
+
+    /**
+     * @return orders with total price of at least <code>minTotalPrice</code>, most expensive first.
+     */
+    @EntityGraph(Order.WITH_CUSTOMER_GRAPH)
+    @Query(
+        "SELECT o FROM Order o WHERE o.totalPrice >= :minTotalPrice " +
+        "ORDER BY o.totalPrice DESC, o.id DESC")
+    List<Order> findByTotalPriceAtLeast(@Param("minTotalPrice") Long minTotalPrice, Pageable pageable);
+
+    /**
+     * @return orders containing the product, latest first.
+     */
+    @Query(value =
+            "SELECT * " +
+            "FROM orders AS o " +
+            "WHERE EXISTS (SELECT 1 FROM order_line AS l WHERE l.order_id = o.id AND l.product_id = ?1) " +
+            "ORDER BY o.ordered_time DESC, o.id DESC",
+        nativeQuery = true
+    )
+    List<Order> findByProductId(@Param("productId") Long productId, Pageable pageable);
+
+    /**
+     * @return one row: number of orders containing the product and number of units of it ordered.
+     */
+    @Query(value =
+            "SELECT COUNT(*), COALESCE(SUM(quantity), 0) " +
+            "FROM order_line " +
+            "WHERE product_id = ?1",
+        nativeQuery = true
+    )
+    List<Object[]> countByProductId(@Param("productId") Long productId);
+
+    /**
+     * @return pairs of product id and the number of orders containing the product.
+     */
+    @Query("SELECT l.product.id, COUNT(l) FROM OrderLine l WHERE l.product IS NOT NULL GROUP BY l.product.id")
+    List<Object[]> countOrdersByProduct();
+
+    @Query("SELECT o.id FROM Order o WHERE o.id > :afterId ORDER BY o.id")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    /**
+     * @return pairs of order id and product id, ordered by order id; product id is null for an order without products.
+     */
+    @Query(
+        "SELECT o.id, l.product.id " +
+        "FROM Order o LEFT JOIN o.lines l " +
+        "WHERE o.id > :afterId AND o.id <= :toId " +
+        "ORDER BY o.id")
+    List<Object[]> findProductIdsByOrderIdRange(@Param("afterId") Long afterId, @Param("toId") Long toId);
 }
@@ -3,5 +3,16 @@ package ru.study.shop.adapters.hibernate;
 import org.springframework.data.jpa.repository.JpaRepository;
 import ru.study.shop.entities.Product;
 
-public interface ProductRepository extends JpaRepository<Product, Long>, CustomProductRepository {
+import java.util.List;
+
+public interface ProductRepository extends JpaRepository<Product, Long>, CustomProductRepository, BulkProductRepository {
+    List<Product> findByProductName(String productName);
+
+    List<Product> findByProductType(String productType);
+
+    List<Product> findByMaterial(String material);
+
+    List<Product> findByManufacturer(String manufacturer);
+
+    List<Product> findByPriceBetween(Long fromPrice, Long toPrice);
 }
@@ -1,7 +1,11 @@
 package ru.study.shop.adapters.hibernate;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 import ru.study.shop.entities.Product;
 import ru.study.shop.entities.Stock;
 
@@ -9,20 +13,29 @@ import java.util.List;
 import java.util.Optional;
 
 public interface StockRepository extends JpaRepository<Stock, Long> {
+    @Override
+    @EntityGraph(Stock.WITH_PRODUCT_GRAPH)
+    List<Stock> findAll();
+
     Optional<Stock> findByProductIdAndSize(Long productId, String size);
 
+    @EntityGraph(Stock.WITH_PRODUCT_GRAPH)
     List<Stock> findByProduct(Product product);
 
+    @EntityGraph(Stock.WITH_PRODUCT_GRAPH)
     List<Stock> findByProductId(Long productId);
 
+    @EntityGraph(Stock.WITH_PRODUCT_GRAPH)
     List<Stock> findBySize(String size);
 
+    @EntityGraph(Stock.WITH_PRODUCT_GRAPH)
     @Query(
         "SELECT s " +
         "FROM Stock s " +
         "WHERE s.quantity = 0")
     List<Stock> findEmptyStocks();
 
+    @EntityGraph(Stock.WITH_PRODUCT_GRAPH)
     @Query(
         "SELECT s " +
         "FROM Stock s " +
@@ -30,4 +43,16 @@ public interface StockRepository extends JpaRepository<Stock, Long> {
     List<Stock> findNonEmptyStocks();
 
     void deleteByProductIdAndSize(Long productId, String size);
+
+    /**
+     * Deletes all stocks of the product with a single statement.
+     *
+     * @return number of deleted stocks.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query(
+        "DELETE FROM Stock s " +
+        "WHERE s.product.id = :productId")
+    int deleteAllByProductId(@Param("productId") Long productId);
 }
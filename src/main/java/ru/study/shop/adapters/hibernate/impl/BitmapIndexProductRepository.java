@@ -0,0 +1,97 @@
+package ru.study.shop.adapters.hibernate.impl;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import ru.study.shop.adapters.hibernate.CustomProductRepository;
+import ru.study.shop.adapters.hibernate.ProductRepository;
+import ru.study.shop.adapters.hibernate.impl.bitmap_index.ProductBitmapIndex;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductFacets;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductPage;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductPageRequest;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductProjection;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints;
+import ru.study.shop.entities.Product;
+import ru.study.shop.services.interfaces.ProductChangeListener;
+
+import java.util.List;
+
+/**
+ * Alternative <code>CustomProductRepository</code> answering product queries from an in-memory bitmap index
+ * instead of H2. Enabled with <code>shop.products.query-engine=bitmap-index</code>.
+ * <p>
+ * The index is loaded from the database on the first query and then kept up to date
+ * through <code>ProductChangeListener</code> notifications.
+ * Queries with a boolean filter, which the index cannot evaluate, are passed on to the database.
+ */
+@Repository
+@ConditionalOnProperty(name = "shop.products.query-engine", havingValue = "bitmap-index")
+public class BitmapIndexProductRepository implements CustomProductRepository, ProductChangeListener {
+    private final ProductRepository productRepository;
+
+    private final ProductBitmapIndex index = new ProductBitmapIndex();
+
+    public BitmapIndexProductRepository(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    @Override
+    public List<Product> findByProductQueryConstraints(ProductQueryConstraints productQueryConstraints) {
+        if (productQueryConstraints.hasFilter()) {
+            return productRepository.findByProductQueryConstraints(productQueryConstraints);
+        }
+
+        index.loadIfNotLoaded(productRepository::findAll);
+
+        return index.find(productQueryConstraints);
+    }
+
+    @Override
+    public ProductPage findByProductQueryConstraints(ProductQueryConstraints productQueryConstraints, ProductPageRequest pageRequest) {
+        if (productQueryConstraints.hasFilter()) {
+            return productRepository.findByProductQueryConstraints(productQueryConstraints, pageRequest);
+        }
+
+        return ProductPage.fromFullResult(findByProductQueryConstraints(productQueryConstraints), pageRequest);
+    }
+
+    /**
+     * Indexed products are already in memory, so a projection is applied only when the page is serialized.
+     */
+    @Override
+    public ProductPage findByProductQueryConstraints(
+        ProductQueryConstraints productQueryConstraints,
+        ProductPageRequest pageRequest,
+        ProductProjection projection) {
+        if (productQueryConstraints.hasFilter()) {
+            return productRepository.findByProductQueryConstraints(productQueryConstraints, pageRequest, projection);
+        }
+
+        return findByProductQueryConstraints(productQueryConstraints, pageRequest);
+    }
+
+    @Override
+    public ProductFacets countFacets(ProductQueryConstraints productQueryConstraints, List<Long> priceBucketBounds) {
+        if (productQueryConstraints.hasFilter()) {
+            return productRepository.countFacets(productQueryConstraints, priceBucketBounds);
+        }
+
+        index.loadIfNotLoaded(productRepository::findAll);
+
+        return index.countFacets(productQueryConstraints, priceBucketBounds);
+    }
+
+    @Override
+    public void productsSaved(List<Product> savedProducts) {
+        index.putAll(savedProducts);
+    }
+
+    @Override
+    public void productsDeleted(List<Long> deletedProductIds) {
+        index.removeAll(deletedProductIds);
+    }
+
+    @Override
+    public void productsChangedInBulk() {
+        index.unload();
+    }
+}
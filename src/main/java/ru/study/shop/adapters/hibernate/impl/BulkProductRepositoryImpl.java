@@ -0,0 +1,91 @@
+package ru.study.shop.adapters.hibernate.impl;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+import ru.study.shop.adapters.hibernate.BulkProductRepository;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints;
+import ru.study.shop.adapters.hibernate.impl.query_plan.ProductQueryPlanCache;
+import ru.study.shop.adapters.hibernate.impl.query_plan.ProductQuerySelection;
+import ru.study.shop.adapters.hibernate.impl.query_plan.ProductQueryShape;
+import ru.study.shop.entities.Product;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.List;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Bulk inserts go straight to JDBC on the connection of the current persistence context,
+ * with ids taken from the same pooled generator Hibernate uses for <code>Product</code>.
+ * Bulk deletes are JPQL DELETE statements compiled from the constraint shape like product queries.
+ */
+@Transactional
+public class BulkProductRepositoryImpl implements BulkProductRepository {
+    private static final String INSERT_PRODUCT_SQL = "INSERT INTO product "
+        + "(id, product_name, product_type, material, manufacturer, description, price) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final ProductQueryPlanCache planCache = new ProductQueryPlanCache();
+
+    @Autowired
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Product> insertAll(List<Product> products) {
+        if (products.isEmpty()) {
+            return products;
+        }
+
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        IdentifierGenerator idGenerator = session.getFactory().getMetamodel()
+            .entityPersister(Product.class)
+            .getIdentifierGenerator();
+
+        for (Product product : products) {
+            product.setId((Long) idGenerator.generate(session, product));
+        }
+
+        session.doWork(connection -> {
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_PRODUCT_SQL)) {
+                for (Product product : products) {
+                    bindProduct(insert, product);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            }
+        });
+
+        return products;
+    }
+
+    @Override
+    public int deleteByProductQueryConstraints(ProductQueryConstraints productQueryConstraints) {
+        ProductQueryShape shape = ProductQueryShape.of(ProductQuerySelection.DELETION, productQueryConstraints, null, null);
+
+        return planCache.getPlan(shape).executeUpdate(entityManager, productQueryConstraints);
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private void bindProduct(PreparedStatement insert, Product product) throws SQLException {
+        insert.setLong(1, product.getId());
+        insert.setString(2, product.getProductName());
+        insert.setString(3, product.getProductType());
+        insert.setString(4, product.getMaterial());
+        insert.setString(5, product.getManufacturer());
+        insert.setString(6, product.getDescription());
+        if (isNull(product.getPrice())) {
+            insert.setNull(7, Types.BIGINT);
+        } else {
+            insert.setLong(7, product.getPrice());
+        }
+    }
+}
@@ -1,31 +1,42 @@
 package ru.study.shop.adapters.hibernate.impl;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
 import ru.study.shop.adapters.hibernate.CustomProductRepository;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductFacets;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductPage;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductAttribute;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductPageRequest;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductProjection;
 import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints;
-import ru.study.shop.adapters.hibernate.impl.query_classes.constraint_classes.Constraint;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryField;
+import ru.study.shop.adapters.hibernate.impl.query_plan.ProductQueryPlanCache;
+import ru.study.shop.adapters.hibernate.impl.query_plan.ProductQueryShape;
+import ru.study.shop.adapters.hibernate.impl.query_plan.ProductQuerySelection;
 import ru.study.shop.entities.Product;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
-import javax.persistence.criteria.CriteriaBuilder;
-import javax.persistence.criteria.CriteriaBuilder.In;
-import javax.persistence.criteria.CriteriaQuery;
-import javax.persistence.criteria.Predicate;
-import javax.persistence.criteria.Root;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-
-import static java.util.Objects.isNull;
-import static ru.study.shop.adapters.hibernate.impl.query_classes.constraint_classes.ConstraintType.RANGE;
-
+import java.util.Map;
+import java.util.Set;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Product queries are not assembled per request: each request is mapped to a query shape
+ * whose parameterized JPQL is compiled once in <code>ProductQueryPlanCache</code>, and only values are bound.
+ * <p>
+ * Queries run in a read-only transaction; large list constraints are written to the query filter table,
+ * which is local to the connection, and joined.
+ */
+@Transactional(readOnly = true)
 public class CustomProductRepositoryImpl implements CustomProductRepository {
-    private static final String ID_COLUMN = "id";
-    private static final String NAME_COLUMN = "productName";
-    private static final String TYPE_COLUMN = "productType";
-    private static final String MANUFACTURER_COLUMN = "manufacturer";
-    private static final String MATERIAL_COLUMN = "material";
-    private static final String PRICE_COLUMN = "price";
+    private final ProductQueryPlanCache planCache = new ProductQueryPlanCache();
 
     @Autowired
     @PersistenceContext
@@ -33,67 +44,103 @@ public class CustomProductRepositoryImpl implements CustomProductRepository {
 
     @Override
     public List<Product> findByProductQueryConstraints(ProductQueryConstraints productQueryConstraints) {
-        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Product> query = cb.createQuery(Product.class);
-        Root<Product> root = query.from(Product.class);
-
-        if (isNull(productQueryConstraints)) {
-            query.select(root);
-            return entityManager.createQuery(query).getResultList();
-        }
+        return planCache.getPlan(productQueryConstraints, null)
+            .execute(entityManager, Product.class, productQueryConstraints, null, TypedQuery::getResultList);
+    }
 
-        List<Predicate> predicates = new ArrayList<>();
+    @Override
+    public ProductPage findByProductQueryConstraints(ProductQueryConstraints productQueryConstraints, ProductPageRequest pageRequest) {
+        List<Product> lookahead = planCache.getPlan(productQueryConstraints, pageRequest)
+            .execute(entityManager, Product.class, productQueryConstraints, pageRequest, TypedQuery::getResultList);
 
-        if (productQueryConstraints.isIdIsConstrained()) {
-            if (productQueryConstraints.getIdConstraint().getConstraintType() == RANGE) {
-                predicates.add(getRangePredicate(cb, root, ID_COLUMN, productQueryConstraints.getIdConstraint()));
-            } else {
-                predicates.add(getInListPredicate(cb, root, productQueryConstraints.getIdConstraint().getConstraintList(), ID_COLUMN));
-            }
-        }
+        return ProductPage.fromLookahead(lookahead, pageRequest);
+    }
 
-        if (productQueryConstraints.isNameIsConstrained()) {
-            predicates.add(getInListPredicate(cb, root, productQueryConstraints.getNameConstraint().getConstraintList(), NAME_COLUMN));
-        }
+    /**
+     * Reads only the projected columns as tuples instead of entities.
+     */
+    @Override
+    public ProductPage findByProductQueryConstraints(
+        ProductQueryConstraints productQueryConstraints,
+        ProductPageRequest pageRequest,
+        ProductProjection projection) {
 
-        if (productQueryConstraints.isTypeIsConstrained()) {
-            predicates.add(getInListPredicate(cb, root, productQueryConstraints.getTypeConstraint().getConstraintList(), TYPE_COLUMN));
+        if (projection.isAll()) {
+            return findByProductQueryConstraints(productQueryConstraints, pageRequest);
         }
 
-        if (productQueryConstraints.isManufacturerIsConstrained()) {
-            predicates.add(getInListPredicate(cb, root, productQueryConstraints.getManufacturerConstraint().getConstraintList(), MANUFACTURER_COLUMN));
-        }
+        Set<ProductAttribute> attributes = projection.getQueriedAttributes(pageRequest.getSortField());
+        ProductQueryShape shape = ProductQueryShape.of(
+            ProductQuerySelection.attributes(attributes), productQueryConstraints, null, pageRequest);
 
-        if (productQueryConstraints.isMaterialIsConstrained()) {
-            predicates.add(getInListPredicate(cb, root, productQueryConstraints.getMaterialConstraint().getConstraintList(), MATERIAL_COLUMN));
-        }
+        List<Tuple> lookahead = planCache.getPlan(shape)
+            .execute(entityManager, Tuple.class, productQueryConstraints, pageRequest, TypedQuery::getResultList);
 
-        if (productQueryConstraints.isPriceIsConstrained()) {
-            if (productQueryConstraints.getPriceConstraint().getConstraintType() == RANGE) {
-                predicates.add(getRangePredicate(cb, root, PRICE_COLUMN, productQueryConstraints.getPriceConstraint()));
-            } else {
-                predicates.add(getInListPredicate(cb, root, productQueryConstraints.getPriceConstraint().getConstraintList(), PRICE_COLUMN));
-            }
-        }
+        return ProductPage.fromLookahead(toProducts(lookahead, attributes), pageRequest);
+    }
 
-        query.select(root).where(cb.and(predicates.toArray(new Predicate[0])));
-        return entityManager.createQuery(query).getResultList();
+    @Override
+    public ProductFacets countFacets(ProductQueryConstraints productQueryConstraints, List<Long> priceBucketBounds) {
+        return new ProductFacets(
+            countByValue(ProductQueryField.TYPE, productQueryConstraints),
+            countByValue(ProductQueryField.MATERIAL, productQueryConstraints),
+            countByValue(ProductQueryField.MANUFACTURER, productQueryConstraints),
+            priceBucketBounds,
+            countByPriceBucket(productQueryConstraints, priceBucketBounds));
     }
 
     /////////////////////////////////////////////////////////////
     // Impl
     /////////////////////////////////////////////////////////////
 
-    private <E extends Comparable<E>> Predicate getRangePredicate(CriteriaBuilder cb, Root<Product> root, String columnName, Constraint<E> constraint) {
-        return cb.between(root.get(columnName),
-            constraint.getFrom(),
-            constraint.getTo());
+    private List<Product> toProducts(List<Tuple> tuples, Set<ProductAttribute> attributes) {
+        List<Product> products = new ArrayList<>(tuples.size());
+
+        for (Tuple tuple : tuples) {
+            Product product = new Product();
+            int position = 0;
+            for (ProductAttribute attribute : attributes) {
+                attribute.setValue(product, tuple.get(position++));
+            }
+            products.add(product);
+        }
+
+        return products;
+    }
+
+    private Map<String, Long> countByValue(ProductQueryField field, ProductQueryConstraints productQueryConstraints) {
+        ProductQueryShape shape = ProductQueryShape.of(
+            ProductQuerySelection.countBy(field), productQueryConstraints, field, null);
+
+        List<Object[]> rows = planCache.getPlan(shape)
+            .execute(entityManager, Object[].class, productQueryConstraints, null, TypedQuery::getResultList);
+
+        Map<String, Long> counts = new HashMap<>();
+        for (Object[] row : rows) {
+            if (nonNull(row[0])) {
+                counts.put((String) row[0], ((Number) row[1]).longValue());
+            }
+        }
+
+        return counts;
     }
 
-    private <T> Predicate getInListPredicate(CriteriaBuilder cb, Root<Product> root, List<T> valuesList, String entityFieldName) {
-        In<T> inListClause = cb.in(root.get(entityFieldName));
+    private long[] countByPriceBucket(ProductQueryConstraints productQueryConstraints, List<Long> priceBucketBounds) {
+        ProductQueryShape shape = ProductQueryShape.of(
+            ProductQuerySelection.countByPriceBuckets(priceBucketBounds.size()), productQueryConstraints, ProductQueryField.PRICE, null);
+
+        Object[] row = planCache.getPlan(shape)
+            .execute(entityManager, Object[].class, productQueryConstraints, null, query -> {
+                for (int i = 0; i < priceBucketBounds.size(); i++) {
+                    query.setParameter(ProductQuerySelection.getPriceBoundParameter(i), priceBucketBounds.get(i));
+                }
+                return query.getSingleResult();
+            });
+        long[] counts = new long[row.length];
+        for (int i = 0; i < row.length; i++) {
+            counts[i] = nonNull(row[i]) ? ((Number) row[i]).longValue() : 0L;
+        }
 
-        valuesList.forEach(inListClause::value);
-        return inListClause;
+        return counts;
     }
 }
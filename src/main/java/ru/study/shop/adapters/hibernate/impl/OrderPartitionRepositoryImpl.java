@@ -0,0 +1,510 @@
+package ru.study.shop.adapters.hibernate.impl;
+
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+import ru.study.shop.adapters.hibernate.OrderPartitionRepository;
+import ru.study.shop.adapters.hibernate.impl.query_classes.CustomerOrderSummary;
+import ru.study.shop.adapters.hibernate.impl.query_classes.OrderPartition;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductOrderCount;
+import ru.study.shop.entities.Customer;
+import ru.study.shop.entities.Order;
+import ru.study.shop.entities.OrderLine;
+import ru.study.shop.entities.Product;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.Objects.isNull;
+
+/**
+ * H2 has no declarative partitioning, and entities can not be written through a view over several tables, so live
+ * orders stay in <code>orders</code> and a month is partitioned off once it is closed: its rows are moved into
+ * <code>orders_yyyy_mm</code> and <code>order_line_yyyy_mm</code> by a single transaction of DML statements.
+ * The tables are created beforehand, as H2 commits on DDL. From then on the month is dropped with DROP TABLE.
+ * <code>order_partition</code> lists the archived months with their totals. Range reads go only to the
+ * tables of the months they overlap; other reads go to the UNION ALL of the tables of all archived months.
+ */
+@Transactional
+public class OrderPartitionRepositoryImpl implements OrderPartitionRepository {
+    private static final DateTimeFormatter TABLE_SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final String ORDER_TABLE_PREFIX = "orders_";
+    private static final String ORDER_LINE_TABLE_PREFIX = "order_line_";
+
+    private static final String ORDER_COLUMNS = "id, customer_id, ordered_time, delivered, total_price";
+    private static final String ORDER_LINE_COLUMNS = "id, order_id, product_id, product_name, quantity, unit_price";
+
+    private static final String PARTITION_TABLE = "order_partition";
+    private static final String SELECT_PARTITIONS_SQL =
+        "SELECT partition_month, order_count, total_price, archived_time FROM order_partition ";
+
+    // ?1 and ?2 are the first and the next month's first instant
+    private static final String MONTH_CONDITION = "ordered_time >= ?1 AND ordered_time < ?2";
+
+    // ?1 is the time and ?3 the id of the last order read, ?2 the end of the range, ?4 the number of orders
+    private static final String PAGE_CONDITION =
+        "ordered_time >= ?1 AND ordered_time <= ?2 AND (ordered_time > ?1 OR id > ?3) ORDER BY ordered_time, id LIMIT ?4";
+    // ?2 is the number of orders
+    private static final String LATEST_FIRST_LIMIT = " ORDER BY ordered_time DESC, id DESC LIMIT ?2";
+
+    @Autowired
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<OrderPartition> findPartitions() {
+        List<?> rows = createReadQuery(SELECT_PARTITIONS_SQL + "ORDER BY partition_month", PARTITION_TABLE)
+            .getResultList();
+
+        return rows.stream()
+            .map(row -> mapPartition((Object[]) row))
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<OrderPartition> findPartition(YearMonth month) {
+        List<?> rows = createReadQuery(SELECT_PARTITIONS_SQL + "WHERE partition_month = ?1", PARTITION_TABLE)
+            .setParameter(1, toDate(month))
+            .getResultList();
+
+        return rows.stream()
+            .map(row -> mapPartition((Object[]) row))
+            .findFirst();
+    }
+
+    @Override
+    public void createPartitionTables(YearMonth month) {
+        String orderTable = getOrderTableName(month);
+        String orderLineTable = getOrderLineTableName(month);
+        String suffix = month.format(TABLE_SUFFIX_FORMAT);
+
+        if (!findPartition(month).isPresent()) {
+            // left over by an archiving that failed before the month was registered, so they hold no archived orders
+            executeUpdate("DROP TABLE IF EXISTS " + orderLineTable);
+            executeUpdate("DROP TABLE IF EXISTS " + orderTable);
+        }
+
+        executeUpdate("CREATE TABLE IF NOT EXISTS " + orderTable + " ("
+            + "id int PRIMARY KEY, "
+            + "customer_id int NOT NULL REFERENCES customer (id), "
+            + "ordered_time timestamp NOT NULL, "
+            + "delivered boolean NOT NULL, "
+            + "total_price bigint NOT NULL)");
+        executeUpdate("CREATE INDEX IF NOT EXISTS idx_orders_" + suffix + "_ordered_time_id "
+            + "ON " + orderTable + " (ordered_time, id)");
+
+        executeUpdate("CREATE TABLE IF NOT EXISTS " + orderLineTable + " ("
+            + "id bigint PRIMARY KEY, "
+            + "order_id int NOT NULL REFERENCES " + orderTable + " (id) ON DELETE CASCADE, "
+            + "product_id int REFERENCES product (id) ON DELETE SET NULL, "
+            + "product_name varchar2(100), "
+            + "quantity int NOT NULL, "
+            + "unit_price int)");
+        executeUpdate("CREATE INDEX IF NOT EXISTS idx_order_line_" + suffix + "_order_id "
+            + "ON " + orderLineTable + " (order_id)");
+    }
+
+    @Override
+    public OrderPartition archivePartition(YearMonth month) {
+        // live orders of the month must not be written behind the native statements
+        entityManager.flush();
+        entityManager.clear();
+
+        String orderTable = getOrderTableName(month);
+        String orderLineTable = getOrderLineTableName(month);
+        Timestamp from = Timestamp.valueOf(month.atDay(1).atStartOfDay());
+        Timestamp to = Timestamp.valueOf(month.plusMonths(1).atDay(1).atStartOfDay());
+
+        // orders first, as the lines of the month table reference them
+        executeMonthUpdate(
+            "INSERT INTO " + orderTable + " (" + ORDER_COLUMNS + ") "
+                + "SELECT " + ORDER_COLUMNS + " FROM orders WHERE " + MONTH_CONDITION,
+            from, to);
+        executeMonthUpdate(
+            "INSERT INTO " + orderLineTable + " (" + ORDER_LINE_COLUMNS + ") "
+                + "SELECT " + ORDER_LINE_COLUMNS + " FROM order_line "
+                + "WHERE order_id IN (SELECT id FROM orders WHERE " + MONTH_CONDITION + ")",
+            from, to);
+        // order lines are deleted by the cascade
+        executeMonthUpdate("DELETE FROM orders WHERE " + MONTH_CONDITION, from, to);
+
+        entityManager
+            .createNativeQuery(
+                "MERGE INTO order_partition (partition_month, order_count, total_price, archived_time) "
+                    + "KEY (partition_month) "
+                    + "SELECT ?1, COUNT(*), COALESCE(SUM(total_price), 0), ?2 FROM " + orderTable)
+            .setParameter(1, toDate(month))
+            .setParameter(2, Timestamp.valueOf(LocalDateTime.now()))
+            .executeUpdate();
+
+        return findPartition(month).orElseThrow(IllegalStateException::new);
+    }
+
+    @Override
+    public boolean dropPartition(YearMonth month) {
+        if (!findPartition(month).isPresent()) {
+            return false;
+        }
+
+        // unregistered first, so that reads never reach tables that are gone
+        entityManager
+            .createNativeQuery("DELETE FROM order_partition WHERE partition_month = ?1")
+            .setParameter(1, toDate(month))
+            .executeUpdate();
+        executeUpdate("DROP TABLE IF EXISTS " + getOrderLineTableName(month));
+        executeUpdate("DROP TABLE IF EXISTS " + getOrderTableName(month));
+
+        return true;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Order> findArchivedPageAfter(LocalDateTime afterTime, Long afterId, LocalDateTime toTime, int maxOrders) {
+        List<?> months = createReadQuery(
+                "SELECT partition_month FROM order_partition "
+                    + "WHERE partition_month >= ?1 AND partition_month <= ?2 ORDER BY partition_month",
+                PARTITION_TABLE)
+            .setParameter(1, toDate(YearMonth.from(afterTime)))
+            .setParameter(2, toDate(YearMonth.from(toTime)))
+            .getResultList();
+
+        List<Order> orders = new ArrayList<>();
+        // months do not overlap, so the orders of a month come before all orders of the later months
+        for (Object month : months) {
+            if (orders.size() == maxOrders) {
+                break;
+            }
+
+            YearMonth partitionMonth = YearMonth.from(((Date) month).toLocalDate());
+            orders.addAll(findOrders(
+                Collections.singletonList(partitionMonth),
+                PAGE_CONDITION,
+                Timestamp.valueOf(afterTime),
+                Timestamp.valueOf(toTime),
+                afterId,
+                maxOrders - orders.size()));
+        }
+
+        return orders;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Order> findArchivedById(Long orderId) {
+        return findOrders(findArchivedMonths(), "id = ?1", orderId).stream().findFirst();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Order> findArchivedByCustomerId(Long customerId, int maxOrders) {
+        return findOrders(findArchivedMonths(), "customer_id = ?1" + LATEST_FIRST_LIMIT, customerId, maxOrders);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CustomerOrderSummary summarizeArchivedByCustomerId(Long customerId) {
+        List<YearMonth> months = findArchivedMonths();
+        if (months.isEmpty()) {
+            return new CustomerOrderSummary(customerId, 0L, 0L, 0L, 0L, null, null);
+        }
+
+        String customerOrders = getOrderSource(months) + " AS o WHERE customer_id = ?1";
+        Object[] orders = (Object[]) createReadQuery(
+                "SELECT COUNT(*), COALESCE(SUM(CASE WHEN delivered THEN 1 ELSE 0 END), 0), "
+                    + "COALESCE(SUM(total_price), 0), MIN(ordered_time), MAX(ordered_time) FROM " + customerOrders,
+                getTableNames(months))
+            .setParameter(1, customerId)
+            .getSingleResult();
+        Object productCount = createReadQuery(
+                "SELECT COALESCE(SUM(quantity), 0) FROM " + getOrderLineSource(months) + " AS l "
+                    + "WHERE order_id IN (SELECT id FROM " + customerOrders + ")",
+                getTableNames(months))
+            .setParameter(1, customerId)
+            .getSingleResult();
+
+        return new CustomerOrderSummary(
+            customerId,
+            ((Number) orders[0]).longValue(),
+            ((Number) orders[1]).longValue(),
+            ((Number) productCount).longValue(),
+            ((Number) orders[2]).longValue(),
+            toLocalDateTime(orders[3]),
+            toLocalDateTime(orders[4]));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Order> findArchivedByProductId(Long productId, int maxOrders) {
+        List<YearMonth> months = findArchivedMonths();
+        if (months.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        return findOrders(
+            months,
+            "id IN (SELECT order_id FROM " + getOrderLineSource(months) + " AS l WHERE product_id = ?1)"
+                + LATEST_FIRST_LIMIT,
+            productId,
+            maxOrders);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProductOrderCount countArchivedByProductId(Long productId) {
+        List<YearMonth> months = findArchivedMonths();
+        if (months.isEmpty()) {
+            return new ProductOrderCount(productId, 0L, 0L);
+        }
+
+        Object[] counts = (Object[]) createReadQuery(
+                "SELECT COUNT(*), COALESCE(SUM(quantity), 0) FROM " + getOrderLineSource(months) + " AS l "
+                    + "WHERE product_id = ?1",
+                getTableNames(months))
+            .setParameter(1, productId)
+            .getSingleResult();
+
+        return new ProductOrderCount(productId, ((Number) counts[0]).longValue(), ((Number) counts[1]).longValue());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Object[]> countArchivedOrdersByProduct() {
+        List<YearMonth> months = findArchivedMonths();
+        if (months.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<?> rows = createReadQuery(
+                "SELECT product_id, COUNT(*) FROM " + getOrderLineSource(months) + " AS l "
+                    + "WHERE product_id IS NOT NULL GROUP BY product_id",
+                getTableNames(months))
+            .getResultList();
+
+        return toLongRows(rows);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Order> findArchivedByTotalPriceAtLeast(Long minTotalPrice, int maxOrders) {
+        return findOrders(
+            findArchivedMonths(),
+            "total_price >= ?1 ORDER BY total_price DESC, id DESC LIMIT ?2",
+            minTotalPrice,
+            maxOrders);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Long> findArchivedIdsAfter(Long afterId, int maxOrders) {
+        List<YearMonth> months = findArchivedMonths();
+        if (months.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<?> ids = bind(
+            createReadQuery(
+                "SELECT id FROM " + getOrderSource(months) + " AS o WHERE id > ?1 ORDER BY id LIMIT ?2",
+                getTableNames(months)),
+            afterId,
+            maxOrders);
+
+        return ids.stream()
+            .map(id -> ((Number) id).longValue())
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Object[]> findArchivedProductIdsByOrderIdRange(Long afterId, Long toId) {
+        List<YearMonth> months = findArchivedMonths();
+        if (months.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<?> rows = bind(
+            createReadQuery(
+                "SELECT o.id, l.product_id FROM " + getOrderSource(months) + " AS o "
+                    + "LEFT JOIN " + getOrderLineSource(months) + " AS l ON l.order_id = o.id "
+                    + "WHERE o.id > ?1 AND o.id <= ?2 ORDER BY o.id",
+                getTableNames(months)),
+            afterId,
+            toId);
+
+        return toLongRows(rows);
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    static String getOrderTableName(YearMonth month) {
+        return ORDER_TABLE_PREFIX + month.format(TABLE_SUFFIX_FORMAT);
+    }
+
+    static String getOrderLineTableName(YearMonth month) {
+        return ORDER_LINE_TABLE_PREFIX + month.format(TABLE_SUFFIX_FORMAT);
+    }
+
+    private List<YearMonth> findArchivedMonths() {
+        return findPartitions().stream()
+            .map(OrderPartition::getMonth)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * @param condition condition on the orders of the months, with positional parameters.
+     * @return orders in the order of the condition, with their lines.
+     */
+    private List<Order> findOrders(List<YearMonth> months, String condition, Object... parameters) {
+        if (months.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        String[] tables = getTableNames(months);
+        String orderSource = getOrderSource(months);
+
+        Map<Long, Order> ordersById = new HashMap<>();
+        List<Order> orders = new ArrayList<>();
+        String ordersQuery = "SELECT " + ORDER_COLUMNS + " FROM " + orderSource + " AS o WHERE " + condition;
+        for (Object row : bind(createReadQuery(ordersQuery, tables), parameters)) {
+            Order order = mapOrder((Object[]) row);
+            ordersById.put(order.getId(), order);
+            orders.add(order);
+        }
+
+        if (orders.isEmpty()) {
+            return orders;
+        }
+
+        String linesQuery = "SELECT " + ORDER_LINE_COLUMNS + " FROM " + getOrderLineSource(months) + " AS l "
+            + "WHERE order_id IN (SELECT id FROM " + orderSource + " AS o WHERE " + condition + ") "
+            + "ORDER BY order_id, id";
+        for (Object row : bind(createReadQuery(linesQuery, tables), parameters)) {
+            Object[] columns = (Object[]) row;
+            Order order = ordersById.get(((Number) columns[1]).longValue());
+            // not addLine, which would add the line to the stored total
+            OrderLine line = mapOrderLine(columns);
+            line.setOrder(order);
+            order.getLines().add(line);
+        }
+
+        return orders;
+    }
+
+    private static String getOrderSource(List<YearMonth> months) {
+        return getUnion(months, ORDER_COLUMNS, OrderPartitionRepositoryImpl::getOrderTableName);
+    }
+
+    private static String getOrderLineSource(List<YearMonth> months) {
+        return getUnion(months, ORDER_LINE_COLUMNS, OrderPartitionRepositoryImpl::getOrderLineTableName);
+    }
+
+    private static String getUnion(List<YearMonth> months, String columns, Function<YearMonth, String> tableName) {
+        return months.stream()
+            .map(month -> "SELECT " + columns + " FROM " + tableName.apply(month))
+            .collect(Collectors.joining(" UNION ALL ", "(", ")"));
+    }
+
+    private static String[] getTableNames(List<YearMonth> months) {
+        return months.stream()
+            .flatMap(month -> Stream.of(getOrderTableName(month), getOrderLineTableName(month)))
+            .toArray(String[]::new);
+    }
+
+    /**
+     * The tables are not mapped by entities, so naming them spares the flush that Hibernate runs before other native
+     * queries; such a flush would also drop the pending batch fetches of the live orders read in the same session.
+     */
+    private Query createReadQuery(String sql, String... tables) {
+        NativeQuery<?> query = entityManager.createNativeQuery(sql).unwrap(NativeQuery.class);
+        for (String table : tables) {
+            query.addSynchronizedQuerySpace(table);
+        }
+
+        return query;
+    }
+
+    private static List<?> bind(Query query, Object... parameters) {
+        for (int i = 0; i < parameters.length; i++) {
+            query.setParameter(i + 1, parameters[i]);
+        }
+
+        return query.getResultList();
+    }
+
+    private Order mapOrder(Object[] row) {
+        return new Order(
+            ((Number) row[0]).longValue(),
+            entityManager.getReference(Customer.class, ((Number) row[1]).longValue()),
+            new ArrayList<>(),
+            ((Number) row[4]).longValue(),
+            ((Timestamp) row[2]).toLocalDateTime(),
+            (Boolean) row[3]);
+    }
+
+    private OrderLine mapOrderLine(Object[] row) {
+        return new OrderLine(
+            ((Number) row[0]).longValue(),
+            null,
+            isNull(row[2]) ? null : entityManager.getReference(Product.class, ((Number) row[2]).longValue()),
+            (String) row[3],
+            ((Number) row[4]).intValue(),
+            isNull(row[5]) ? null : ((Number) row[5]).longValue());
+    }
+
+    private void executeUpdate(String sql) {
+        entityManager.createNativeQuery(sql).executeUpdate();
+    }
+
+    private void executeMonthUpdate(String sql, Timestamp from, Timestamp to) {
+        entityManager.createNativeQuery(sql)
+            .setParameter(1, from)
+            .setParameter(2, to)
+            .executeUpdate();
+    }
+
+    private static List<Object[]> toLongRows(List<?> rows) {
+        List<Object[]> longRows = new ArrayList<>(rows.size());
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            longRows.add(new Object[] {
+                ((Number) columns[0]).longValue(),
+                isNull(columns[1]) ? null : ((Number) columns[1]).longValue()});
+        }
+
+        return longRows;
+    }
+
+    private static LocalDateTime toLocalDateTime(Object timestamp) {
+        return isNull(timestamp) ? null : ((Timestamp) timestamp).toLocalDateTime();
+    }
+
+    private static Date toDate(YearMonth month) {
+        return Date.valueOf(month.atDay(1));
+    }
+
+    private static OrderPartition mapPartition(Object[] row) {
+        return new OrderPartition(
+            YearMonth.from(((Date) row[0]).toLocalDate()),
+            ((Number) row[1]).longValue(),
+            ((Number) row[2]).longValue(),
+            ((Timestamp) row[3]).toLocalDateTime());
+    }
+}
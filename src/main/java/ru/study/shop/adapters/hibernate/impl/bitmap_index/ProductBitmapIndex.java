@@ -0,0 +1,351 @@
+package ru.study.shop.adapters.hibernate.impl.bitmap_index;
+
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductFacets;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryField;
+import ru.study.shop.adapters.hibernate.impl.query_classes.constraint_classes.Constraint;
+import ru.study.shop.entities.Product;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+import static ru.study.shop.adapters.hibernate.impl.query_classes.constraint_classes.ConstraintType.RANGE;
+
+/**
+ * In-memory index over the product catalog.
+ * <p>
+ * Categorical columns (name, type, material, manufacturer) are dictionary-encoded into per-value
+ * compressed bitmaps of row numbers; id and price are kept as sorted arrays. A <code>ProductQueryConstraints</code>
+ * is answered by OR-ing the bitmaps of the listed values per column, turning range scans over the sorted arrays
+ * into bitmaps and AND-ing everything together.
+ * <p>
+ * Writes update the bitmaps in place; the sorted arrays are rebuilt lazily by the first query after a write.
+ */
+public class ProductBitmapIndex {
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<Product> rows = new ArrayList<>();
+    private final Map<Long, Integer> rowById = new HashMap<>();
+    private final RoaringBitmap liveRows = new RoaringBitmap();
+    private final RoaringBitmap freeRows = new RoaringBitmap();
+
+    private final ValueDictionary names = new ValueDictionary();
+    private final ValueDictionary types = new ValueDictionary();
+    private final ValueDictionary materials = new ValueDictionary();
+    private final ValueDictionary manufacturers = new ValueDictionary();
+
+    private final SortedLongColumn ids = new SortedLongColumn();
+    private final SortedLongColumn prices = new SortedLongColumn();
+
+    private volatile boolean loaded = false;
+    private volatile boolean sortedColumnsAreStale = false;
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Replaces the index content with the products returned by <code>loader</code>.
+     * The loader is called under the write lock, so no concurrent update is lost.
+     */
+    public void reload(Supplier<List<Product>> loader) {
+        lock.writeLock().lock();
+        try {
+            clear();
+            loader.get().forEach(this::putProduct);
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void loadIfNotLoaded(Supplier<List<Product>> loader) {
+        if (loaded) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                reload(loader);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Empties the index, so the next <code>loadIfNotLoaded</code> reloads it.
+     */
+    public void unload() {
+        lock.writeLock().lock();
+        try {
+            clear();
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putAll(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            products.forEach(this::putProduct);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeAll(Collection<Long> productIds) {
+        lock.writeLock().lock();
+        try {
+            productIds.forEach(this::removeProduct);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return rowById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return products satisfying all the constraints, ordered by id.
+     */
+    public List<Product> find(ProductQueryConstraints constraints) {
+        lockForReadWithFreshSortedColumns();
+        try {
+            return materialize(matchingRows(constraints, null));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Counts of every field are taken over the rows matching all constraints except the one on that field.
+     *
+     * @param priceBucketBounds ascending, at least one.
+     */
+    public ProductFacets countFacets(ProductQueryConstraints constraints, List<Long> priceBucketBounds) {
+        lockForReadWithFreshSortedColumns();
+        try {
+            return new ProductFacets(
+                types.countMatching(matchingRows(constraints, ProductQueryField.TYPE)),
+                materials.countMatching(matchingRows(constraints, ProductQueryField.MATERIAL)),
+                manufacturers.countMatching(matchingRows(constraints, ProductQueryField.MANUFACTURER)),
+                priceBucketBounds,
+                countByPriceBucket(matchingRows(constraints, ProductQueryField.PRICE), priceBucketBounds));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    /**
+     * @param ignoredField field whose constraint is not applied; may be null.
+     */
+    private RoaringBitmap matchingRows(ProductQueryConstraints constraints, ProductQueryField ignoredField) {
+        RoaringBitmap result = liveRows.clone();
+
+        if (isNull(constraints)) {
+            return result;
+        }
+
+        if (constraints.isIdIsConstrained() && ignoredField != ProductQueryField.ID) {
+            result.and(numericMatches(ids, constraints.getIdConstraint()));
+        }
+        if (constraints.isNameIsConstrained() && ignoredField != ProductQueryField.NAME) {
+            result.and(names.rowsMatchingAny(constraints.getNameConstraint().getConstraintList()));
+        }
+        if (constraints.isTypeIsConstrained() && ignoredField != ProductQueryField.TYPE) {
+            result.and(types.rowsMatchingAny(constraints.getTypeConstraint().getConstraintList()));
+        }
+        if (constraints.isMaterialIsConstrained() && ignoredField != ProductQueryField.MATERIAL) {
+            result.and(materials.rowsMatchingAny(constraints.getMaterialConstraint().getConstraintList()));
+        }
+        if (constraints.isManufacturerIsConstrained() && ignoredField != ProductQueryField.MANUFACTURER) {
+            result.and(manufacturers.rowsMatchingAny(constraints.getManufacturerConstraint().getConstraintList()));
+        }
+        if (constraints.isPriceIsConstrained() && ignoredField != ProductQueryField.PRICE) {
+            result.and(numericMatches(prices, constraints.getPriceConstraint()));
+        }
+
+        return result;
+    }
+
+    private long[] countByPriceBucket(RoaringBitmap matchingRows, List<Long> priceBucketBounds) {
+        long[] counts = new long[priceBucketBounds.size() + 1];
+
+        IntIterator iterator = matchingRows.getIntIterator();
+        while (iterator.hasNext()) {
+            Long price = rows.get(iterator.next()).getPrice();
+            if (isNull(price)) {
+                continue;
+            }
+
+            int bucket = Collections.binarySearch(priceBucketBounds, price);
+            counts[bucket >= 0 ? bucket + 1 : -bucket - 1]++;
+        }
+
+        return counts;
+    }
+
+    private RoaringBitmap numericMatches(SortedLongColumn column, Constraint<Long> constraint) {
+        if (constraint.getConstraintType() == RANGE) {
+            return column.rowsInRange(constraint.getFrom(), constraint.getTo());
+        }
+
+        return column.rowsMatchingAny(constraint.getConstraintList());
+    }
+
+    private List<Product> materialize(RoaringBitmap matchingRows) {
+        List<Product> result = new ArrayList<>(matchingRows.getCardinality());
+
+        IntIterator iterator = matchingRows.getIntIterator();
+        while (iterator.hasNext()) {
+            result.add(rows.get(iterator.next()));
+        }
+
+        result.sort(Comparator.comparing(Product::getId));
+        return result;
+    }
+
+    private void lockForReadWithFreshSortedColumns() {
+        lock.readLock().lock();
+
+        while (sortedColumnsAreStale) {
+            lock.readLock().unlock();
+            lock.writeLock().lock();
+            try {
+                if (sortedColumnsAreStale) {
+                    rebuildSortedColumns();
+                }
+                lock.readLock().lock();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    private void rebuildSortedColumns() {
+        int rowCount = liveRows.getCardinality();
+        ids.reset(rowCount);
+        prices.reset(rowCount);
+
+        IntIterator iterator = liveRows.getIntIterator();
+        while (iterator.hasNext()) {
+            int row = iterator.next();
+            Product product = rows.get(row);
+
+            ids.append(product.getId(), row);
+            if (nonNull(product.getPrice())) {
+                prices.append(product.getPrice(), row);
+            }
+        }
+
+        ids.sort();
+        prices.sort();
+        sortedColumnsAreStale = false;
+    }
+
+    private void putProduct(Product product) {
+        if (isNull(product) || isNull(product.getId())) {
+            return;
+        }
+
+        Integer row = rowById.get(product.getId());
+        if (nonNull(row)) {
+            unindexRow(row);
+        } else {
+            row = allocateRow();
+            rowById.put(product.getId(), row);
+        }
+
+        Product indexedProduct = copyOf(product);
+        rows.set(row, indexedProduct);
+
+        names.add(indexedProduct.getProductName(), row);
+        types.add(indexedProduct.getProductType(), row);
+        materials.add(indexedProduct.getMaterial(), row);
+        manufacturers.add(indexedProduct.getManufacturer(), row);
+        liveRows.add(row);
+
+        sortedColumnsAreStale = true;
+    }
+
+    private void removeProduct(Long productId) {
+        if (isNull(productId)) {
+            return;
+        }
+
+        Integer row = rowById.remove(productId);
+        if (isNull(row)) {
+            return;
+        }
+
+        unindexRow(row);
+        rows.set(row, null);
+        freeRows.add(row);
+
+        sortedColumnsAreStale = true;
+    }
+
+    private void unindexRow(int row) {
+        Product product = rows.get(row);
+
+        names.remove(product.getProductName(), row);
+        types.remove(product.getProductType(), row);
+        materials.remove(product.getMaterial(), row);
+        manufacturers.remove(product.getManufacturer(), row);
+        liveRows.remove(row);
+    }
+
+    private int allocateRow() {
+        if (!freeRows.isEmpty()) {
+            int row = freeRows.first();
+            freeRows.remove(row);
+            return row;
+        }
+
+        rows.add(null);
+        return rows.size() - 1;
+    }
+
+    private void clear() {
+        rows.clear();
+        rowById.clear();
+        liveRows.clear();
+        freeRows.clear();
+
+        names.clear();
+        types.clear();
+        materials.clear();
+        manufacturers.clear();
+
+        sortedColumnsAreStale = true;
+    }
+
+    private Product copyOf(Product product) {
+        return new Product(
+            product.getId(),
+            product.getProductName(),
+            product.getProductType(),
+            product.getMaterial(),
+            product.getManufacturer(),
+            product.getDescription(),
+            product.getPrice());
+    }
+}
@@ -0,0 +1,155 @@
+package ru.study.shop.adapters.hibernate.impl.bitmap_index;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Numeric column kept as a key-sorted pair of primitive arrays <code>(key, row)</code>,
+ * answering range and point lookups with binary search.
+ * Not thread-safe; guarded by the owning index.
+ */
+class SortedLongColumn {
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private long[] keys = new long[0];
+    private int[] rows = new int[0];
+    private int size = 0;
+
+    void reset(int capacity) {
+        if (keys.length < capacity) {
+            keys = new long[capacity];
+            rows = new int[capacity];
+        }
+        size = 0;
+    }
+
+    void append(long key, int row) {
+        if (size == keys.length) {
+            int newCapacity = Math.max(16, keys.length * 2);
+            keys = Arrays.copyOf(keys, newCapacity);
+            rows = Arrays.copyOf(rows, newCapacity);
+        }
+
+        keys[size] = key;
+        rows[size] = row;
+        size++;
+    }
+
+    void sort() {
+        quickSort(0, size - 1);
+    }
+
+    RoaringBitmap rowsInRange(long from, long to) {
+        RoaringBitmap result = new RoaringBitmap();
+
+        for (int i = lowerBound(from); i < size && keys[i] <= to; i++) {
+            result.add(rows[i]);
+        }
+
+        return result;
+    }
+
+    RoaringBitmap rowsMatchingAny(Collection<Long> values) {
+        RoaringBitmap result = new RoaringBitmap();
+
+        for (Long value : values) {
+            for (int i = lowerBound(value); i < size && keys[i] == value; i++) {
+                result.add(rows[i]);
+            }
+        }
+
+        return result;
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private int lowerBound(long key) {
+        int low = 0;
+        int high = size;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    private void quickSort(int left, int right) {
+        while (right - left > INSERTION_SORT_THRESHOLD) {
+            long pivot = medianOfThree(left, (left + right) >>> 1, right);
+
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (keys[i] < pivot) {
+                    i++;
+                }
+                while (keys[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+
+            if (j - left < right - i) {
+                quickSort(left, j);
+                left = i;
+            } else {
+                quickSort(i, right);
+                right = j;
+            }
+        }
+
+        insertionSort(left, right);
+    }
+
+    private long medianOfThree(int a, int b, int c) {
+        long x = keys[a];
+        long y = keys[b];
+        long z = keys[c];
+
+        if (x < y) {
+            return y < z ? y : Math.max(x, z);
+        }
+        return x < z ? x : Math.max(y, z);
+    }
+
+    private void insertionSort(int left, int right) {
+        for (int i = left + 1; i <= right; i++) {
+            long key = keys[i];
+            int row = rows[i];
+
+            int j = i - 1;
+            while (j >= left && keys[j] > key) {
+                keys[j + 1] = keys[j];
+                rows[j + 1] = rows[j];
+                j--;
+            }
+
+            keys[j + 1] = key;
+            rows[j + 1] = row;
+        }
+    }
+
+    private void swap(int i, int j) {
+        long key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+
+        int row = rows[i];
+        rows[i] = rows[j];
+        rows[j] = row;
+    }
+}
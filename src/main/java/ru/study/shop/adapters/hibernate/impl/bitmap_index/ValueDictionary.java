@@ -0,0 +1,86 @@
+package ru.study.shop.adapters.hibernate.impl.bitmap_index;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Dictionary encoding of a categorical column: every distinct value gets an int code
+ * and a compressed bitmap of the rows holding that value.
+ * Not thread-safe; guarded by the owning index.
+ */
+class ValueDictionary {
+    private final Map<String, Integer> codeByValue = new HashMap<>();
+    private final List<RoaringBitmap> rowsByCode = new ArrayList<>();
+
+    void add(String value, int row) {
+        if (isNull(value)) {
+            return;
+        }
+
+        Integer code = codeByValue.get(value);
+        if (isNull(code)) {
+            code = rowsByCode.size();
+            codeByValue.put(value, code);
+            rowsByCode.add(new RoaringBitmap());
+        }
+
+        rowsByCode.get(code).add(row);
+    }
+
+    void remove(String value, int row) {
+        if (isNull(value)) {
+            return;
+        }
+
+        Integer code = codeByValue.get(value);
+        if (isNull(code)) {
+            return;
+        }
+
+        rowsByCode.get(code).remove(row);
+    }
+
+    RoaringBitmap rowsMatchingAny(Collection<String> values) {
+        RoaringBitmap result = new RoaringBitmap();
+
+        for (String value : values) {
+            Integer code = codeByValue.get(value);
+
+            if (isNull(code)) {
+                continue;
+            }
+
+            result.or(rowsByCode.get(code));
+        }
+
+        return result;
+    }
+
+    /**
+     * @return number of the given rows holding each value; values held by none of them are left out.
+     */
+    Map<String, Long> countMatching(RoaringBitmap rows) {
+        Map<String, Long> counts = new HashMap<>();
+
+        codeByValue.forEach((value, code) -> {
+            long count = RoaringBitmap.andCardinality(rowsByCode.get(code), rows);
+            if (count > 0) {
+                counts.put(value, count);
+            }
+        });
+
+        return counts;
+    }
+
+    void clear() {
+        codeByValue.clear();
+        rowsByCode.clear();
+    }
+}
@@ -0,0 +1,38 @@
+package ru.study.shop.adapters.hibernate.impl.id_generation;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.util.Properties;
+
+/**
+ * Sequence generator with the pooled-lo optimizer: every sequence value is the low end of a block of
+ * <code>shop.id.allocation_size</code> ids handed out in memory, so inserts need no round trip per id
+ * and can be batched by Hibernate.
+ * <p>
+ * The allocation size is read from the Hibernate settings and must match the <code>INCREMENT BY</code>
+ * the sequences were created with.
+ */
+public class PooledLoSequenceGenerator extends SequenceStyleGenerator {
+    public static final String ALLOCATION_SIZE_SETTING = "shop.id.allocation_size";
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    private static final String POOLED_LO_OPTIMIZER = "pooled-lo";
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        int allocationSize = ConfigurationHelper.getInt(
+            ALLOCATION_SIZE_SETTING,
+            serviceRegistry.getService(ConfigurationService.class).getSettings(),
+            DEFAULT_ALLOCATION_SIZE);
+
+        params.setProperty(INCREMENT_PARAM, String.valueOf(allocationSize));
+        params.setProperty(OPT_PARAM, POOLED_LO_OPTIMIZER);
+
+        super.configure(type, params, serviceRegistry);
+    }
+}
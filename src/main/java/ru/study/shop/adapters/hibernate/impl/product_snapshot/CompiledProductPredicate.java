@@ -0,0 +1,125 @@
+package ru.study.shop.adapters.hibernate.impl.product_snapshot;
+
+import ru.study.shop.adapters.hibernate.impl.product_snapshot.ProductSnapshot.LongColumn;
+import ru.study.shop.adapters.hibernate.impl.product_snapshot.ProductSnapshot.StringColumn;
+import ru.study.shop.adapters.hibernate.impl.query_classes.LongHashSet;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryField;
+import ru.study.shop.adapters.hibernate.impl.query_classes.constraint_classes.Constraint;
+import ru.study.shop.adapters.hibernate.impl.query_classes.filter_language.ProductFilter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Objects.isNull;
+import static ru.study.shop.adapters.hibernate.impl.query_classes.constraint_classes.ConstraintType.RANGE;
+
+/**
+ * <code>ProductQueryConstraints</code> compiled against the columns of one snapshot.
+ * <p>
+ * Text lists become lookup tables over dictionary codes, numeric lists primitive hash sets,
+ * ranges a pair of longs. Values absent from the snapshot dictionaries are resolved at compile time,
+ * so a constraint no row can satisfy makes the whole predicate match nothing without a scan.
+ * A boolean filter is checked last, on the product object, only for rows passing all column checks.
+ */
+final class CompiledProductPredicate {
+    private final RowCheck[] checks;
+    private final boolean matchesNothing;
+
+    private CompiledProductPredicate(RowCheck[] checks, boolean matchesNothing) {
+        this.checks = checks;
+        this.matchesNothing = matchesNothing;
+    }
+
+    static CompiledProductPredicate compile(ProductSnapshot snapshot, ProductQueryConstraints constraints) {
+        List<RowCheck> checks = new ArrayList<>();
+
+        if (isNull(constraints)) {
+            return new CompiledProductPredicate(new RowCheck[0], false);
+        }
+
+        for (ProductQueryField field : ProductQueryField.values()) {
+            if (!field.isConstrained(constraints)) {
+                continue;
+            }
+
+            Constraint<?> constraint = field.getConstraint(constraints);
+            RowCheck check = field.isNumeric()
+                ? compileNumeric(snapshot.getLongColumn(field), constraint)
+                : compileText(snapshot.getStringColumn(field), constraint);
+
+            if (isNull(check)) {
+                return new CompiledProductPredicate(new RowCheck[0], true);
+            }
+            checks.add(check);
+        }
+
+        if (constraints.hasFilter()) {
+            ProductFilter filter = constraints.getFilter();
+            checks.add(row -> filter.matches(snapshot.getProduct(row)));
+        }
+
+        return new CompiledProductPredicate(checks.toArray(new RowCheck[0]), false);
+    }
+
+    boolean matchesNothing() {
+        return matchesNothing;
+    }
+
+    boolean test(int row) {
+        for (RowCheck check : checks) {
+            if (!check.test(row)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    @FunctionalInterface
+    private interface RowCheck {
+        boolean test(int row);
+    }
+
+    private static RowCheck compileNumeric(LongColumn column, Constraint<?> constraint) {
+        long[] values = column.values;
+        boolean[] nulls = column.nulls;
+
+        if (constraint.getConstraintType() == RANGE) {
+            long from = (Long) constraint.getFrom();
+            long to = (Long) constraint.getTo();
+            return row -> !nulls[row] && values[row] >= from && values[row] <= to;
+        }
+
+        List<?> list = constraint.getConstraintList();
+        LongHashSet accepted = new LongHashSet(list.size());
+        list.forEach(value -> accepted.add((Long) value));
+        return row -> !nulls[row] && accepted.contains(values[row]);
+    }
+
+    /**
+     * @return null if no row holds any of the listed values.
+     */
+    private static RowCheck compileText(StringColumn column, Constraint<?> constraint) {
+        int[] codes = column.codes;
+        boolean[] accepted = new boolean[column.getDictionarySize()];
+        boolean anyKnown = false;
+
+        for (Object value : constraint.getConstraintList()) {
+            int code = column.getCode((String) value);
+            if (code != ProductSnapshot.NO_CODE) {
+                accepted[code] = true;
+                anyKnown = true;
+            }
+        }
+
+        if (!anyKnown) {
+            return null;
+        }
+
+        return row -> codes[row] != ProductSnapshot.NO_CODE && accepted[codes[row]];
+    }
+}
@@ -0,0 +1,125 @@
+package ru.study.shop.adapters.hibernate.impl.product_snapshot;
+
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryField;
+import ru.study.shop.entities.Product;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Immutable struct-of-arrays copy of the product catalog, ordered by id.
+ * <p>
+ * Every constrainable field is a column indexed by row number: id and price are primitive long arrays
+ * with a null mask, text fields are dictionary-encoded into int codes. A scan over one field
+ * thus reads a single contiguous array instead of chasing a pointer per product.
+ */
+public final class ProductSnapshot {
+    static final int NO_CODE = -1;
+
+    private final Product[] products;
+    private final Map<ProductQueryField, LongColumn> longColumns = new EnumMap<>(ProductQueryField.class);
+    private final Map<ProductQueryField, StringColumn> stringColumns = new EnumMap<>(ProductQueryField.class);
+
+    private ProductSnapshot(Product[] products) {
+        this.products = products;
+
+        longColumns.put(ProductQueryField.ID, new LongColumn(products, ProductQueryField.ID));
+        longColumns.put(ProductQueryField.PRICE, new LongColumn(products, ProductQueryField.PRICE));
+        stringColumns.put(ProductQueryField.NAME, new StringColumn(products, ProductQueryField.NAME));
+        stringColumns.put(ProductQueryField.TYPE, new StringColumn(products, ProductQueryField.TYPE));
+        stringColumns.put(ProductQueryField.MANUFACTURER, new StringColumn(products, ProductQueryField.MANUFACTURER));
+        stringColumns.put(ProductQueryField.MATERIAL, new StringColumn(products, ProductQueryField.MATERIAL));
+    }
+
+    public static ProductSnapshot of(List<Product> products) {
+        List<Product> sortedProducts = new ArrayList<>(products);
+        sortedProducts.sort(Comparator.comparing(Product::getId));
+
+        return new ProductSnapshot(sortedProducts.toArray(new Product[0]));
+    }
+
+    public int size() {
+        return products.length;
+    }
+
+    public Product getProduct(int row) {
+        return products[row];
+    }
+
+    LongColumn getLongColumn(ProductQueryField field) {
+        return longColumns.get(field);
+    }
+
+    StringColumn getStringColumn(ProductQueryField field) {
+        return stringColumns.get(field);
+    }
+
+    static Object getValue(Product product, ProductQueryField field) {
+        switch (field) {
+            case ID:
+                return product.getId();
+            case NAME:
+                return product.getProductName();
+            case TYPE:
+                return product.getProductType();
+            case MANUFACTURER:
+                return product.getManufacturer();
+            case MATERIAL:
+                return product.getMaterial();
+            default:
+                return product.getPrice();
+        }
+    }
+
+    static final class LongColumn {
+        final long[] values;
+        final boolean[] nulls;
+
+        private LongColumn(Product[] products, ProductQueryField field) {
+            values = new long[products.length];
+            nulls = new boolean[products.length];
+
+            for (int row = 0; row < products.length; row++) {
+                Long value = (Long) getValue(products[row], field);
+                if (isNull(value)) {
+                    nulls[row] = true;
+                } else {
+                    values[row] = value;
+                }
+            }
+        }
+    }
+
+    static final class StringColumn {
+        final int[] codes;
+        private final Map<String, Integer> codeByValue = new HashMap<>();
+
+        private StringColumn(Product[] products, ProductQueryField field) {
+            codes = new int[products.length];
+
+            for (int row = 0; row < products.length; row++) {
+                String value = (String) getValue(products[row], field);
+                codes[row] = isNull(value)
+                    ? NO_CODE
+                    : codeByValue.computeIfAbsent(value, key -> codeByValue.size());
+            }
+        }
+
+        int getDictionarySize() {
+            return codeByValue.size();
+        }
+
+        /**
+         * @return code of the value, or <code>NO_CODE</code> if no row holds it.
+         */
+        int getCode(String value) {
+            return codeByValue.getOrDefault(value, NO_CODE);
+        }
+    }
+}
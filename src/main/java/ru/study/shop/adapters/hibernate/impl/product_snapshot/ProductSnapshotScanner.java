@@ -0,0 +1,145 @@
+package ru.study.shop.adapters.hibernate.impl.product_snapshot;
+
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints;
+import ru.study.shop.entities.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Evaluates product queries against a <code>ProductSnapshot</code> with a parallel fork/join scan.
+ * <p>
+ * The rows are split in halves down to leaves of at most <code>leafSize</code> rows; every leaf tests
+ * all the queries on its rows before moving on, so many queries cost one pass over the snapshot
+ * while the leaf is still in cache. Matches are set in one bitmap per query; leaves start at multiples of 64,
+ * so no two of them write the same bitmap word and no synchronization is needed.
+ */
+public class ProductSnapshotScanner {
+    public static final int DEFAULT_LEAF_SIZE = 4096;
+
+    private static final int WORD_BITS = 64;
+
+    private final ForkJoinPool pool;
+    private final int leafSize;
+
+    public ProductSnapshotScanner() {
+        this(ForkJoinPool.commonPool(), DEFAULT_LEAF_SIZE);
+    }
+
+    /**
+     * @param leafSize rounded up to a multiple of 64.
+     */
+    public ProductSnapshotScanner(ForkJoinPool pool, int leafSize) {
+        if (leafSize < 1) {
+            throw new IllegalArgumentException("leaf size must be positive");
+        }
+
+        this.pool = pool;
+        this.leafSize = (leafSize + WORD_BITS - 1) / WORD_BITS * WORD_BITS;
+    }
+
+    /**
+     * @return products matching the constraints, ordered by id.
+     */
+    public List<Product> find(ProductSnapshot snapshot, ProductQueryConstraints constraints) {
+        List<ProductQueryConstraints> queries = new ArrayList<>(1);
+        queries.add(constraints);
+
+        return findAll(snapshot, queries).get(0);
+    }
+
+    /**
+     * @return for every query, in order, the products matching it, ordered by id.
+     */
+    public List<List<Product>> findAll(ProductSnapshot snapshot, List<ProductQueryConstraints> queries) {
+        List<CompiledProductPredicate> predicates = new ArrayList<>();
+        List<Integer> scannedQueries = new ArrayList<>();
+
+        for (int i = 0; i < queries.size(); i++) {
+            CompiledProductPredicate predicate = CompiledProductPredicate.compile(snapshot, queries.get(i));
+            if (!predicate.matchesNothing()) {
+                predicates.add(predicate);
+                scannedQueries.add(i);
+            }
+        }
+
+        long[][] matches = new long[predicates.size()][(snapshot.size() + WORD_BITS - 1) / WORD_BITS];
+        if (!predicates.isEmpty() && snapshot.size() > 0) {
+            pool.invoke(new ScanTask(predicates.toArray(new CompiledProductPredicate[0]), matches, 0, snapshot.size()));
+        }
+
+        List<List<Product>> results = new ArrayList<>(queries.size());
+        for (int i = 0; i < queries.size(); i++) {
+            results.add(new ArrayList<>());
+        }
+        for (int i = 0; i < scannedQueries.size(); i++) {
+            results.set(scannedQueries.get(i), materialize(snapshot, matches[i]));
+        }
+
+        return results;
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private static List<Product> materialize(ProductSnapshot snapshot, long[] words) {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+
+        List<Product> products = new ArrayList<>(count);
+        for (int wordIndex = 0; wordIndex < words.length; wordIndex++) {
+            long word = words[wordIndex];
+            while (word != 0) {
+                products.add(snapshot.getProduct(wordIndex * WORD_BITS + Long.numberOfTrailingZeros(word)));
+                word &= word - 1;
+            }
+        }
+
+        return products;
+    }
+
+    private final class ScanTask extends RecursiveAction {
+        private final CompiledProductPredicate[] predicates;
+        private final long[][] matches;
+        private final int from;
+        private final int to;
+
+        ScanTask(CompiledProductPredicate[] predicates, long[][] matches, int from, int to) {
+            this.predicates = predicates;
+            this.matches = matches;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= leafSize) {
+                scan();
+                return;
+            }
+
+            int middle = from + ((to - from) / 2 + WORD_BITS - 1) / WORD_BITS * WORD_BITS;
+            invokeAll(
+                new ScanTask(predicates, matches, from, middle),
+                new ScanTask(predicates, matches, middle, to));
+        }
+
+        private void scan() {
+            for (int i = 0; i < predicates.length; i++) {
+                CompiledProductPredicate predicate = predicates[i];
+                long[] words = matches[i];
+
+                for (int row = from; row < to; row++) {
+                    if (predicate.test(row)) {
+                        words[row / WORD_BITS] |= 1L << row;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package ru.study.shop.adapters.hibernate.impl.query_classes;
+
+import java.time.LocalDateTime;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Order history of a customer reduced to counts and totals.
+ */
+public class CustomerOrderSummary {
+    private final Long customerId;
+    private final long orderCount;
+    private final long deliveredOrderCount;
+    private final long productCount;
+    private final long totalPrice;
+    private final LocalDateTime firstOrderedTime;
+    private final LocalDateTime lastOrderedTime;
+
+    public CustomerOrderSummary(
+        Long customerId,
+        long orderCount,
+        long deliveredOrderCount,
+        long productCount,
+        long totalPrice,
+        LocalDateTime firstOrderedTime,
+        LocalDateTime lastOrderedTime) {
+        this.customerId = customerId;
+        this.orderCount = orderCount;
+        this.deliveredOrderCount = deliveredOrderCount;
+        this.productCount = productCount;
+        this.totalPrice = totalPrice;
+        this.firstOrderedTime = firstOrderedTime;
+        this.lastOrderedTime = lastOrderedTime;
+    }
+
+    public Long getCustomerId() {
+        return customerId;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public long getDeliveredOrderCount() {
+        return deliveredOrderCount;
+    }
+
+    /**
+     * @return number of items ordered, counting every unit of a product.
+     */
+    public long getProductCount() {
+        return productCount;
+    }
+
+    public long getTotalPrice() {
+        return totalPrice;
+    }
+
+    /**
+     * @return null if the customer has no orders.
+     */
+    public LocalDateTime getFirstOrderedTime() {
+        return firstOrderedTime;
+    }
+
+    /**
+     * @return null if the customer has no orders.
+     */
+    public LocalDateTime getLastOrderedTime() {
+        return lastOrderedTime;
+    }
+
+    /**
+     * @return summary of the orders of both summaries, e.g. of the live and the archived orders of the customer.
+     */
+    public CustomerOrderSummary plus(CustomerOrderSummary other) {
+        return new CustomerOrderSummary(
+            customerId,
+            orderCount + other.orderCount,
+            deliveredOrderCount + other.deliveredOrderCount,
+            productCount + other.productCount,
+            totalPrice + other.totalPrice,
+            getEarlier(firstOrderedTime, other.firstOrderedTime),
+            getLater(lastOrderedTime, other.lastOrderedTime));
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private static LocalDateTime getEarlier(LocalDateTime time, LocalDateTime otherTime) {
+        if (isNull(time)) {
+            return otherTime;
+        }
+        if (isNull(otherTime)) {
+            return time;
+        }
+
+        return time.isAfter(otherTime) ? otherTime : time;
+    }
+
+    private static LocalDateTime getLater(LocalDateTime time, LocalDateTime otherTime) {
+        if (isNull(time)) {
+            return otherTime;
+        }
+        if (isNull(otherTime)) {
+            return time;
+        }
+
+        return time.isAfter(otherTime) ? time : otherTime;
+    }
+}
@@ -0,0 +1,64 @@
+package ru.study.shop.adapters.hibernate.impl.query_classes;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Objects;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Position of the last returned row of a keyset-paginated listing: the value of the sort key and the row id.
+ * Travels to clients as an opaque URL-safe string.
+ */
+public class KeysetCursor {
+    private static final String SEPARATOR = "|";
+    private static final String NULL_SORT_KEY = "";
+
+    private final String sortField;
+    private final String sortKey;
+    private final Long id;
+
+    public KeysetCursor(String sortField, String sortKey, Long id) {
+        this.sortField = Objects.requireNonNull(sortField);
+        this.sortKey = sortKey;
+        this.id = Objects.requireNonNull(id);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the string is not a cursor produced by {@link #encode()}.
+     */
+    public static KeysetCursor decode(String encodedCursor) {
+        String cursor = new String(Base64.getUrlDecoder().decode(encodedCursor), StandardCharsets.UTF_8);
+
+        int sortFieldEnd = cursor.indexOf(SEPARATOR);
+        int sortKeyEnd = cursor.lastIndexOf(SEPARATOR);
+        if (sortFieldEnd <= 0 || sortFieldEnd == sortKeyEnd) {
+            throw new IllegalArgumentException("malformed cursor");
+        }
+
+        String sortKey = cursor.substring(sortFieldEnd + 1, sortKeyEnd);
+
+        return new KeysetCursor(
+            cursor.substring(0, sortFieldEnd),
+            NULL_SORT_KEY.equals(sortKey) ? null : sortKey,
+            Long.valueOf(cursor.substring(sortKeyEnd + 1)));
+    }
+
+    public String encode() {
+        String cursor = sortField + SEPARATOR + (isNull(sortKey) ? NULL_SORT_KEY : sortKey) + SEPARATOR + id;
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public String getSortField() {
+        return sortField;
+    }
+
+    public String getSortKey() {
+        return sortKey;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
@@ -0,0 +1,105 @@
+package ru.study.shop.adapters.hibernate.impl.query_classes;
+
+/**
+ * Open-addressing hash set of primitive longs, for deduplicating large id lists without boxing.
+ */
+public final class LongHashSet {
+    private static final int MIN_CAPACITY = 8;
+    private static final long EMPTY_SLOT = 0L;
+
+    private long[] slots;
+    private boolean containsEmptySlotValue = false;
+    private int size = 0;
+
+    public LongHashSet(int expectedSize) {
+        slots = new long[capacityFor(expectedSize)];
+    }
+
+    /**
+     * @return true if the value was not in the set yet.
+     */
+    public boolean add(long value) {
+        if (value == EMPTY_SLOT) {
+            if (containsEmptySlotValue) {
+                return false;
+            }
+
+            containsEmptySlotValue = true;
+            size++;
+            return true;
+        }
+
+        int mask = slots.length - 1;
+        int slot = hash(value) & mask;
+        while (slots[slot] != EMPTY_SLOT) {
+            if (slots[slot] == value) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        slots[slot] = value;
+        size++;
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return true;
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY_SLOT) {
+            return containsEmptySlotValue;
+        }
+
+        int mask = slots.length - 1;
+        int slot = hash(value) & mask;
+        while (slots[slot] != EMPTY_SLOT) {
+            if (slots[slot] == value) {
+                return true;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private void rehash(int capacity) {
+        long[] oldSlots = slots;
+        slots = new long[capacity];
+
+        int mask = capacity - 1;
+        for (long value : oldSlots) {
+            if (value == EMPTY_SLOT) {
+                continue;
+            }
+
+            int slot = hash(value) & mask;
+            while (slots[slot] != EMPTY_SLOT) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = value;
+        }
+    }
+
+    private static int capacityFor(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+
+        return capacity;
+    }
+
+    private static int hash(long value) {
+        long mixed = value * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+}
@@ -0,0 +1,48 @@
+package ru.study.shop.adapters.hibernate.impl.query_classes;
+
+import ru.study.shop.entities.Order;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Orders of a time range in <code>(orderedTime, id)</code> order, and the cursor of the next page if there is one.
+ */
+public class OrderPage {
+    public static final String CURSOR_SORT_FIELD = "orderedTime";
+
+    private final List<Order> orders;
+    private final KeysetCursor nextCursor;
+
+    private OrderPage(List<Order> orders, KeysetCursor nextCursor) {
+        this.orders = orders;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Builds a page from up to <code>limit + 1</code> orders read in page order;
+     * the extra order only signals that there is a next page.
+     */
+    public static OrderPage fromLookahead(List<Order> orders, int limit) {
+        if (orders.size() <= limit) {
+            return new OrderPage(orders, null);
+        }
+
+        List<Order> pageOrders = orders.subList(0, limit);
+        Order lastOrder = pageOrders.get(pageOrders.size() - 1);
+
+        return new OrderPage(pageOrders, getCursor(lastOrder));
+    }
+
+    public static KeysetCursor getCursor(Order order) {
+        return new KeysetCursor(CURSOR_SORT_FIELD, order.getOrderedTime().toString(), order.getId());
+    }
+
+    public List<Order> getOrders() {
+        return orders;
+    }
+
+    public Optional<KeysetCursor> getNextCursor() {
+        return Optional.ofNullable(nextCursor);
+    }
+}
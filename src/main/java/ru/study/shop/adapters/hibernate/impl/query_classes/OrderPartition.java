@@ -0,0 +1,40 @@
+package ru.study.shop.adapters.hibernate.impl.query_classes;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+
+/**
+ * Month of orders archived into tables of its own, with the totals of the month.
+ */
+public class OrderPartition {
+    private final YearMonth month;
+    private final long orderCount;
+    private final long totalPrice;
+    private final LocalDateTime archivedTime;
+
+    public OrderPartition(YearMonth month, long orderCount, long totalPrice, LocalDateTime archivedTime) {
+        this.month = month;
+        this.orderCount = orderCount;
+        this.totalPrice = totalPrice;
+        this.archivedTime = archivedTime;
+    }
+
+    public YearMonth getMonth() {
+        return month;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    public long getTotalPrice() {
+        return totalPrice;
+    }
+
+    /**
+     * @return when orders of the month were last moved into its tables.
+     */
+    public LocalDateTime getArchivedTime() {
+        return archivedTime;
+    }
+}
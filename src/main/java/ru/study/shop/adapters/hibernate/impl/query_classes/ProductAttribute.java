@@ -0,0 +1,54 @@
+package ru.study.shop.adapters.hibernate.impl.query_classes;
+
+import ru.study.shop.entities.Product;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Product attributes that can be selected into a <code>ProductProjection</code>.
+ */
+public enum ProductAttribute {
+    ID("id", Product::getId, (product, value) -> product.setId((Long) value)),
+    PRODUCT_NAME("productName", Product::getProductName, (product, value) -> product.setProductName((String) value)),
+    PRODUCT_TYPE("productType", Product::getProductType, (product, value) -> product.setProductType((String) value)),
+    MATERIAL("material", Product::getMaterial, (product, value) -> product.setMaterial((String) value)),
+    MANUFACTURER("manufacturer", Product::getManufacturer, (product, value) -> product.setManufacturer((String) value)),
+    DESCRIPTION("description", Product::getDescription, (product, value) -> product.setDescription((String) value)),
+    PRICE("price", Product::getPrice, (product, value) -> product.setPrice((Long) value));
+
+    private final String entityFieldName;
+    private final Function<Product, Object> getter;
+    private final BiConsumer<Product, Object> setter;
+
+    ProductAttribute(String entityFieldName, Function<Product, Object> getter, BiConsumer<Product, Object> setter) {
+        this.entityFieldName = entityFieldName;
+        this.getter = getter;
+        this.setter = setter;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the product has no such field.
+     */
+    public static ProductAttribute fromEntityFieldName(String entityFieldName) {
+        for (ProductAttribute attribute : values()) {
+            if (attribute.entityFieldName.equals(entityFieldName)) {
+                return attribute;
+            }
+        }
+
+        throw new IllegalArgumentException("unknown product field '" + entityFieldName + "'");
+    }
+
+    public String getEntityFieldName() {
+        return entityFieldName;
+    }
+
+    public Object getValue(Product product) {
+        return getter.apply(product);
+    }
+
+    public void setValue(Product product, Object value) {
+        setter.accept(product, value);
+    }
+}
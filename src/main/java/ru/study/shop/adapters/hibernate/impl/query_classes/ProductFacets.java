@@ -0,0 +1,104 @@
+package ru.study.shop.adapters.hibernate.impl.query_classes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Product counts per value of the filterable fields, for a filter sidebar.
+ * <p>
+ * Counts of a field are computed with every constraint except the one on that field itself,
+ * so that the other values of an already filtered field keep their counts and can be added to the filter.
+ * Values are ordered by count, most frequent first.
+ */
+public class ProductFacets {
+    private final Map<String, Long> productType;
+    private final Map<String, Long> material;
+    private final Map<String, Long> manufacturer;
+    private final List<PriceBucket> price;
+
+    /**
+     * @param priceBucketBounds ascending bounds the <code>priceBucketCounts</code> were computed for;
+     *                          there is one more count than bounds.
+     */
+    public ProductFacets(
+        Map<String, Long> productTypeCounts,
+        Map<String, Long> materialCounts,
+        Map<String, Long> manufacturerCounts,
+        List<Long> priceBucketBounds,
+        long[] priceBucketCounts) {
+        this.productType = sortedByCount(productTypeCounts);
+        this.material = sortedByCount(materialCounts);
+        this.manufacturer = sortedByCount(manufacturerCounts);
+
+        List<PriceBucket> buckets = new ArrayList<>(priceBucketCounts.length);
+        for (int i = 0; i < priceBucketCounts.length; i++) {
+            buckets.add(new PriceBucket(
+                i == 0 ? null : priceBucketBounds.get(i - 1),
+                i == priceBucketBounds.size() ? null : priceBucketBounds.get(i),
+                priceBucketCounts[i]));
+        }
+        this.price = Collections.unmodifiableList(buckets);
+    }
+
+    public Map<String, Long> getProductType() {
+        return productType;
+    }
+
+    public Map<String, Long> getMaterial() {
+        return material;
+    }
+
+    public Map<String, Long> getManufacturer() {
+        return manufacturer;
+    }
+
+    public List<PriceBucket> getPrice() {
+        return price;
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private static Map<String, Long> sortedByCount(Map<String, Long> counts) {
+        Map<String, Long> result = new LinkedHashMap<>();
+
+        counts.entrySet().stream()
+            .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(Map.Entry.comparingByKey()))
+            .forEach(entry -> result.put(entry.getKey(), entry.getValue()));
+
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Count of products with <code>from &lt;= price &lt; to</code>; a null bound is unbounded.
+     */
+    public static class PriceBucket {
+        private final Long from;
+        private final Long to;
+        private final long count;
+
+        PriceBucket(Long from, Long to, long count) {
+            this.from = from;
+            this.to = to;
+            this.count = count;
+        }
+
+        public Long getFrom() {
+            return from;
+        }
+
+        public Long getTo() {
+            return to;
+        }
+
+        public long getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package ru.study.shop.adapters.hibernate.impl.query_classes;
+
+/**
+ * How often a product was ordered, for stock planning.
+ */
+public class ProductOrderCount {
+    private final Long productId;
+    private final long orderCount;
+    private final long unitCount;
+
+    public ProductOrderCount(Long productId, long orderCount, long unitCount) {
+        this.productId = productId;
+        this.orderCount = orderCount;
+        this.unitCount = unitCount;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public long getOrderCount() {
+        return orderCount;
+    }
+
+    /**
+     * @return units of the product in all orders; an order may contain several.
+     */
+    public long getUnitCount() {
+        return unitCount;
+    }
+
+    /**
+     * @return counts of the orders of both, e.g. of the live and the archived orders.
+     */
+    public ProductOrderCount plus(ProductOrderCount other) {
+        return new ProductOrderCount(productId, orderCount + other.orderCount, unitCount + other.unitCount);
+    }
+}
@@ -0,0 +1,53 @@
+package ru.study.shop.adapters.hibernate.impl.query_classes;
+
+import ru.study.shop.entities.Product;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+public class ProductPage {
+    private final List<Product> products;
+    private final KeysetCursor nextCursor;
+
+    private ProductPage(List<Product> products, KeysetCursor nextCursor) {
+        this.products = products;
+        this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Builds a page from up to <code>limit + 1</code> products read in page order;
+     * the extra product only signals that there is a next page.
+     */
+    public static ProductPage fromLookahead(List<Product> products, ProductPageRequest pageRequest) {
+        if (products.size() <= pageRequest.getLimit()) {
+            return new ProductPage(products, null);
+        }
+
+        List<Product> pageProducts = products.subList(0, pageRequest.getLimit());
+        Product lastProduct = pageProducts.get(pageProducts.size() - 1);
+
+        return new ProductPage(pageProducts, pageRequest.getSortField().getCursor(lastProduct));
+    }
+
+    /**
+     * Builds a page from an unordered, complete result.
+     */
+    public static ProductPage fromFullResult(List<Product> products, ProductPageRequest pageRequest) {
+        List<Product> lookahead = products.stream()
+            .filter(pageRequest::isAfterCursor)
+            .sorted(pageRequest.getSortField().getComparator())
+            .limit(pageRequest.getLimit() + 1L)
+            .collect(Collectors.toList());
+
+        return fromLookahead(lookahead, pageRequest);
+    }
+
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    public Optional<KeysetCursor> getNextCursor() {
+        return Optional.ofNullable(nextCursor);
+    }
+}
@@ -0,0 +1,85 @@
+package ru.study.shop.adapters.hibernate.impl.query_classes;
+
+import ru.study.shop.entities.Product;
+
+import java.util.Objects;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Keyset page of a product listing: at most <code>limit</code> products ordered by <code>sortField</code> and id,
+ * starting right after the <code>after</code> cursor (from the beginning if it is null).
+ */
+public class ProductPageRequest {
+    private final ProductSortField sortField;
+    private final int limit;
+    private final KeysetCursor after;
+
+    private final Long afterSortKey;
+
+    /**
+     * @throws IllegalArgumentException if the limit is not positive or the cursor belongs to another sort order.
+     */
+    public ProductPageRequest(ProductSortField sortField, int limit, KeysetCursor after) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("page limit must be positive");
+        }
+        if (!isNull(after) && !sortField.getEntityFieldName().equals(after.getSortField())) {
+            throw new IllegalArgumentException("cursor was issued for another sort order");
+        }
+
+        this.sortField = Objects.requireNonNull(sortField);
+        this.limit = limit;
+        this.after = after;
+        this.afterSortKey = isNull(after) || isNull(after.getSortKey()) ? null : Long.valueOf(after.getSortKey());
+    }
+
+    public static ProductPageRequest firstPage(int limit) {
+        return new ProductPageRequest(ProductSortField.ID, limit, null);
+    }
+
+    public ProductSortField getSortField() {
+        return sortField;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public KeysetCursor getAfter() {
+        return after;
+    }
+
+    public boolean hasAfter() {
+        return !isNull(after);
+    }
+
+    public Long getAfterSortKey() {
+        return afterSortKey;
+    }
+
+    public Long getAfterId() {
+        return isNull(after) ? null : after.getId();
+    }
+
+    /**
+     * In-memory counterpart of the seek predicate.
+     */
+    public boolean isAfterCursor(Product product) {
+        if (isNull(after)) {
+            return true;
+        }
+
+        Long sortKey = sortField.getSortKey(product);
+
+        if (isNull(afterSortKey)) {
+            return !isNull(sortKey) || product.getId() > after.getId();
+        }
+        if (isNull(sortKey)) {
+            return false;
+        }
+
+        int comparison = sortKey.compareTo(afterSortKey);
+        return comparison > 0 || (comparison == 0 && product.getId() > after.getId());
+    }
+}
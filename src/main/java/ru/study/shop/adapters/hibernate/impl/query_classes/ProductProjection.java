@@ -0,0 +1,60 @@
+package ru.study.shop.adapters.hibernate.impl.query_classes;
+
+import ru.study.shop.entities.Product;
+
+import java.util.*;
+
+/**
+ * Subset of product attributes a listing returns. The id is always part of a projection.
+ */
+public class ProductProjection {
+    public static final ProductProjection ALL = new ProductProjection(EnumSet.allOf(ProductAttribute.class));
+
+    private final Set<ProductAttribute> attributes;
+
+    private ProductProjection(Set<ProductAttribute> attributes) {
+        this.attributes = Collections.unmodifiableSet(attributes);
+    }
+
+    /**
+     * @param entityFieldNames names of the <code>Product</code> fields to select; an empty list selects all of them.
+     * @throws IllegalArgumentException if one of the names is not a product field.
+     */
+    public static ProductProjection of(List<String> entityFieldNames) {
+        if (entityFieldNames.isEmpty()) {
+            return ALL;
+        }
+
+        EnumSet<ProductAttribute> attributes = EnumSet.of(ProductAttribute.ID);
+        for (String entityFieldName : entityFieldNames) {
+            attributes.add(ProductAttribute.fromEntityFieldName(entityFieldName.trim()));
+        }
+
+        return attributes.size() == ProductAttribute.values().length ? ALL : new ProductProjection(attributes);
+    }
+
+    public boolean isAll() {
+        return attributes.size() == ProductAttribute.values().length;
+    }
+
+    public Set<ProductAttribute> getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * @return attributes to read for a page in the given order: the projected ones and the sort key the next cursor is built from.
+     */
+    public Set<ProductAttribute> getQueriedAttributes(ProductSortField sortField) {
+        EnumSet<ProductAttribute> queried = EnumSet.copyOf(attributes);
+        queried.add(ProductAttribute.fromEntityFieldName(sortField.getEntityFieldName()));
+
+        return queried;
+    }
+
+    public Map<String, Object> toMap(Product product) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        attributes.forEach(attribute -> result.put(attribute.getEntityFieldName(), attribute.getValue(product)));
+
+        return result;
+    }
+}
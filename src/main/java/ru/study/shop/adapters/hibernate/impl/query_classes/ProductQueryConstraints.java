@@ -1,7 +1,10 @@
 package ru.study.shop.adapters.hibernate.impl.query_classes;
 
 import ru.study.shop.adapters.hibernate.impl.query_classes.constraint_classes.Constraint;
+import ru.study.shop.adapters.hibernate.impl.query_classes.filter_language.ProductFilter;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
@@ -38,6 +41,8 @@ public class ProductQueryConstraints {
     private Constraint<Long> priceConstraint = getRangeConstraint(MIN_PRICE, MAX_PRICE);
     private boolean priceIsConstrained = false;
 
+    private ProductFilter filter;
+
     private ProductQueryConstraints() {
     }
 
@@ -93,6 +98,24 @@ public class ProductQueryConstraints {
         return priceConstraint;
     }
 
+    /**
+     * @return boolean filter applied in addition to the field constraints, or null.
+     */
+    public ProductFilter getFilter() {
+        return filter;
+    }
+
+    public boolean hasFilter() {
+        return nonNull(filter);
+    }
+
+    /**
+     * @return true if a field constraint or a filter narrows the query down.
+     */
+    public boolean isConstrained() {
+        return hasFilter() || Arrays.stream(ProductQueryField.values()).anyMatch(field -> field.isConstrained(this));
+    }
+
     public class Builder {
         private Builder() {
         }
@@ -132,7 +155,7 @@ public class ProductQueryConstraints {
                 return this;
             }
 
-            idList = idList.stream().distinct().collect(Collectors.toList());
+            idList = distinct(idList);
 
             ProductQueryConstraints.this.idConstraint = getConstraintList(idList);
             ProductQueryConstraints.this.idIsConstrained = true;
@@ -246,15 +269,36 @@ public class ProductQueryConstraints {
                 return this;
             }
 
-            priceList = priceList.stream().distinct().collect(Collectors.toList());
+            priceList = distinct(priceList);
 
             ProductQueryConstraints.this.priceConstraint = getConstraintList(priceList);
             ProductQueryConstraints.this.priceIsConstrained = true;
             return this;
         }
 
+        public Builder filter(ProductFilter filter) {
+            ProductQueryConstraints.this.filter = filter;
+            return this;
+        }
+
         public ProductQueryConstraints build() {
             return ProductQueryConstraints.this;
         }
+
+        /**
+         * Keeps the first occurrence of every value, deduplicating through a primitive hash set.
+         */
+        private List<Long> distinct(List<Long> values) {
+            LongHashSet seen = new LongHashSet(values.size());
+            List<Long> result = new ArrayList<>(values.size());
+
+            for (Long value : values) {
+                if (seen.add(value)) {
+                    result.add(value);
+                }
+            }
+
+            return result;
+        }
     }
 }
@@ -0,0 +1,66 @@
+package ru.study.shop.adapters.hibernate.impl.query_classes;
+
+import ru.study.shop.adapters.hibernate.impl.query_classes.constraint_classes.Constraint;
+
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Constrainable product fields of <code>ProductQueryConstraints</code>, in the order queries check them.
+ */
+public enum ProductQueryField {
+    ID("id", "id", true,
+        ProductQueryConstraints::isIdIsConstrained, ProductQueryConstraints::getIdConstraint),
+    NAME("productName", "name", false,
+        ProductQueryConstraints::isNameIsConstrained, ProductQueryConstraints::getNameConstraint),
+    TYPE("productType", "type", false,
+        ProductQueryConstraints::isTypeIsConstrained, ProductQueryConstraints::getTypeConstraint),
+    MANUFACTURER("manufacturer", "manufacturer", false,
+        ProductQueryConstraints::isManufacturerIsConstrained, ProductQueryConstraints::getManufacturerConstraint),
+    MATERIAL("material", "material", false,
+        ProductQueryConstraints::isMaterialIsConstrained, ProductQueryConstraints::getMaterialConstraint),
+    PRICE("price", "price", true,
+        ProductQueryConstraints::isPriceIsConstrained, ProductQueryConstraints::getPriceConstraint);
+
+    private final String entityFieldName;
+    private final String parameterName;
+    private final boolean numeric;
+    private final Predicate<ProductQueryConstraints> constrainedCheck;
+    private final Function<ProductQueryConstraints, Constraint<?>> constraintGetter;
+
+    ProductQueryField(
+        String entityFieldName,
+        String parameterName,
+        boolean numeric,
+        Predicate<ProductQueryConstraints> constrainedCheck,
+        Function<ProductQueryConstraints, Constraint<?>> constraintGetter) {
+        this.entityFieldName = entityFieldName;
+        this.parameterName = parameterName;
+        this.numeric = numeric;
+        this.constrainedCheck = constrainedCheck;
+        this.constraintGetter = constraintGetter;
+    }
+
+    public String getEntityFieldName() {
+        return entityFieldName;
+    }
+
+    public String getParameterName() {
+        return parameterName;
+    }
+
+    /**
+     * @return true if the values of the field are <code>Long</code>.
+     */
+    public boolean isNumeric() {
+        return numeric;
+    }
+
+    public boolean isConstrained(ProductQueryConstraints constraints) {
+        return constrainedCheck.test(constraints);
+    }
+
+    public Constraint<?> getConstraint(ProductQueryConstraints constraints) {
+        return constraintGetter.apply(constraints);
+    }
+}
@@ -0,0 +1,57 @@
+package ru.study.shop.adapters.hibernate.impl.query_classes;
+
+import ru.study.shop.entities.Product;
+
+import java.util.Comparator;
+import java.util.function.Function;
+
+import static java.util.Objects.isNull;
+
+public enum ProductSortField {
+    ID("id", Product::getId),
+    PRICE("price", Product::getPrice);
+
+    private final String entityFieldName;
+    private final Function<Product, Long> sortKeyExtractor;
+
+    ProductSortField(String entityFieldName, Function<Product, Long> sortKeyExtractor) {
+        this.entityFieldName = entityFieldName;
+        this.sortKeyExtractor = sortKeyExtractor;
+    }
+
+    /**
+     * @throws IllegalArgumentException if there is no sort field with such name.
+     */
+    public static ProductSortField fromEntityFieldName(String entityFieldName) {
+        for (ProductSortField sortField : values()) {
+            if (sortField.entityFieldName.equals(entityFieldName)) {
+                return sortField;
+            }
+        }
+
+        throw new IllegalArgumentException("unknown sort field: " + entityFieldName);
+    }
+
+    public String getEntityFieldName() {
+        return entityFieldName;
+    }
+
+    public Long getSortKey(Product product) {
+        return sortKeyExtractor.apply(product);
+    }
+
+    /**
+     * Ordering consistent with the database one: by sort key with nulls first, then by id.
+     */
+    public Comparator<Product> getComparator() {
+        return Comparator
+            .comparing(sortKeyExtractor, Comparator.nullsFirst(Comparator.<Long>naturalOrder()))
+            .thenComparing(Product::getId);
+    }
+
+    public KeysetCursor getCursor(Product product) {
+        Long sortKey = getSortKey(product);
+
+        return new KeysetCursor(entityFieldName, isNull(sortKey) ? null : sortKey.toString(), product.getId());
+    }
+}
@@ -0,0 +1,212 @@
+package ru.study.shop.adapters.hibernate.impl.query_classes.filter_language;
+
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryField;
+import ru.study.shop.entities.Product;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.StringJoiner;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Comparison of a product field with one value, or with a list of values for IN and NOT IN.
+ * Comparisons with a null field value never match, as in SQL.
+ */
+final class FilterComparison extends FilterExpression {
+    private static final char LIKE_ESCAPE = '!';
+
+    private final ProductQueryField field;
+    private final FilterOperator operator;
+    private final List<Object> values;
+
+    FilterComparison(ProductQueryField field, FilterOperator operator, Object value) {
+        this(field, operator, Collections.singletonList(value));
+    }
+
+    private FilterComparison(ProductQueryField field, FilterOperator operator, List<Object> values) {
+        this.field = field;
+        this.operator = operator;
+        this.values = values;
+    }
+
+    /**
+     * @return an equality, or a list comparison if there are several values.
+     */
+    static FilterComparison of(ProductQueryField field, Collection<Object> values, boolean negated) {
+        if (values.size() == 1) {
+            return new FilterComparison(field, negated ? FilterOperator.NOT_EQUAL : FilterOperator.EQUAL, values.iterator().next());
+        }
+
+        return new FilterComparison(field, negated ? FilterOperator.NOT_IN : FilterOperator.IN,
+            Collections.unmodifiableList(new ArrayList<>(values)));
+    }
+
+    ProductQueryField getField() {
+        return field;
+    }
+
+    FilterOperator getOperator() {
+        return operator;
+    }
+
+    List<Object> getValues() {
+        return values;
+    }
+
+    @Override
+    FilterExpression negate() {
+        return new FilterComparison(field, operator.negate(), values);
+    }
+
+    @Override
+    FilterExpression normalize() {
+        return this;
+    }
+
+    @Override
+    void render(StringBuilder jpql, List<Object> boundValues) {
+        jpql.append(ProductFilter.ENTITY_ALIAS).append('.').append(field.getEntityFieldName())
+            .append(' ').append(operator.getJpqlOperator()).append(' ');
+
+        switch (operator) {
+            case IN:
+            case NOT_IN: {
+                // padded with the last value, so lists whose sizes round up to the same power of two share the text
+                StringJoiner inList = new StringJoiner(", ", "(", ")");
+                int paddedSize = getPaddedSize(values.size());
+                for (int i = 0; i < paddedSize; i++) {
+                    inList.add(":" + ProductFilter.getParameterName(boundValues.size()));
+                    boundValues.add(values.get(Math.min(i, values.size() - 1)));
+                }
+                jpql.append(inList);
+                break;
+            }
+            case PREFIX:
+            case NOT_PREFIX:
+                jpql.append(':').append(ProductFilter.getParameterName(boundValues.size()))
+                    .append(" ESCAPE '").append(LIKE_ESCAPE).append('\'');
+                boundValues.add(escapeLike((String) values.get(0)) + "%");
+                break;
+            default:
+                jpql.append(':').append(ProductFilter.getParameterName(boundValues.size()));
+                boundValues.add(values.get(0));
+                break;
+        }
+    }
+
+    @Override
+    boolean matches(Product product) {
+        Object actual = getFieldValue(product);
+        if (isNull(actual)) {
+            return false;
+        }
+
+        Object value = values.get(0);
+
+        switch (operator) {
+            case EQUAL:
+                return actual.equals(value);
+            case NOT_EQUAL:
+                return !actual.equals(value);
+            case IN:
+                return values.contains(actual);
+            case NOT_IN:
+                return !values.contains(actual);
+            case PREFIX:
+                return ((String) actual).startsWith((String) value);
+            case NOT_PREFIX:
+                return !((String) actual).startsWith((String) value);
+            case LESS:
+                return (Long) actual < (Long) value;
+            case LESS_OR_EQUAL:
+                return (Long) actual <= (Long) value;
+            case GREATER:
+                return (Long) actual > (Long) value;
+            default:
+                return (Long) actual >= (Long) value;
+        }
+    }
+
+    @Override
+    public String toString() {
+        String name = field.getParameterName();
+
+        switch (operator) {
+            case IN:
+            case NOT_IN: {
+                StringJoiner alternatives = new StringJoiner(" OR ", operator == FilterOperator.IN ? "(" : "NOT (", ")");
+                values.forEach(value -> alternatives.add(name + ":" + quote(value)));
+                return alternatives.toString();
+            }
+            case EQUAL:
+                return name + ":" + quote(values.get(0));
+            case NOT_EQUAL:
+                return "NOT " + name + ":" + quote(values.get(0));
+            case PREFIX:
+                return name + ":" + quote(values.get(0)) + "*";
+            case NOT_PREFIX:
+                return "NOT " + name + ":" + quote(values.get(0)) + "*";
+            case LESS:
+                return name + "<" + values.get(0);
+            case LESS_OR_EQUAL:
+                return name + "<=" + values.get(0);
+            case GREATER:
+                return name + ">" + values.get(0);
+            default:
+                return name + ">=" + values.get(0);
+        }
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private Object getFieldValue(Product product) {
+        switch (field) {
+            case ID:
+                return product.getId();
+            case NAME:
+                return product.getProductName();
+            case TYPE:
+                return product.getProductType();
+            case MANUFACTURER:
+                return product.getManufacturer();
+            case MATERIAL:
+                return product.getMaterial();
+            default:
+                return product.getPrice();
+        }
+    }
+
+    /**
+     * @return the smallest power of two not less than the list size, as for IN-lists of field constraints.
+     */
+    static int getPaddedSize(int listSize) {
+        if (listSize <= 1) {
+            return 1;
+        }
+
+        return Integer.highestOneBit(listSize - 1) << 1;
+    }
+
+    private static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length());
+        for (char c : value.toCharArray()) {
+            if (c == LIKE_ESCAPE || c == '%' || c == '_') {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    private static String quote(Object value) {
+        if (value instanceof Long) {
+            return value.toString();
+        }
+        return "\"" + value.toString().replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
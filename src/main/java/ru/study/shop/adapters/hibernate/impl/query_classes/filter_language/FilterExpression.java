@@ -0,0 +1,48 @@
+package ru.study.shop.adapters.hibernate.impl.query_classes.filter_language;
+
+import ru.study.shop.entities.Product;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Node of a parsed filter. <code>toString()</code> writes the node back in the filter language.
+ */
+abstract class FilterExpression {
+    /**
+     * Orders operands of normalized junctions by their query text first, so that filters differing
+     * only in values or operand order render the same condition.
+     */
+    static final Comparator<FilterExpression> CANONICAL_ORDER = Comparator
+        .comparing(FilterExpression::getTemplate)
+        .thenComparing(FilterExpression::toString);
+
+    /**
+     * @return the logical negation of the expression, not necessarily normalized.
+     */
+    abstract FilterExpression negate();
+
+    /**
+     * @return an equivalent expression without <code>NOT</code> nodes, with nested junctions of the same kind flattened,
+     * equality comparisons of a field merged into IN-lists and operands in <code>CANONICAL_ORDER</code>.
+     */
+    abstract FilterExpression normalize();
+
+    /**
+     * Appends the JPQL condition of the expression, adding bound values to <code>values</code>
+     * in the order of their parameters.
+     */
+    abstract void render(StringBuilder jpql, List<Object> values);
+
+    abstract boolean matches(Product product);
+
+    @Override
+    public abstract String toString();
+
+    String getTemplate() {
+        StringBuilder jpql = new StringBuilder();
+        render(jpql, new ArrayList<>());
+        return jpql.toString();
+    }
+}
@@ -0,0 +1,125 @@
+package ru.study.shop.adapters.hibernate.impl.query_classes.filter_language;
+
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryField;
+import ru.study.shop.entities.Product;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * AND or OR of two or more operands.
+ */
+final class FilterJunction extends FilterExpression {
+    private final boolean conjunction;
+    private final List<FilterExpression> operands;
+
+    FilterJunction(boolean conjunction, List<FilterExpression> operands) {
+        this.conjunction = conjunction;
+        this.operands = Collections.unmodifiableList(operands);
+    }
+
+    boolean isConjunction() {
+        return conjunction;
+    }
+
+    List<FilterExpression> getOperands() {
+        return operands;
+    }
+
+    @Override
+    FilterExpression negate() {
+        return new FilterJunction(!conjunction, operands.stream()
+            .map(FilterExpression::negate)
+            .collect(Collectors.toList()));
+    }
+
+    @Override
+    FilterExpression normalize() {
+        List<FilterExpression> flattened = new ArrayList<>();
+        for (FilterExpression operand : operands) {
+            FilterExpression normalized = operand.normalize();
+
+            if (normalized instanceof FilterJunction && ((FilterJunction) normalized).conjunction == conjunction) {
+                flattened.addAll(((FilterJunction) normalized).operands);
+            } else {
+                flattened.add(normalized);
+            }
+        }
+
+        Set<FilterExpression> distinct = new TreeSet<>(CANONICAL_ORDER);
+        distinct.addAll(mergeEqualities(flattened));
+
+        if (distinct.size() == 1) {
+            return distinct.iterator().next();
+        }
+
+        return new FilterJunction(conjunction, new ArrayList<>(distinct));
+    }
+
+    @Override
+    void render(StringBuilder jpql, List<Object> values) {
+        jpql.append('(');
+        for (int i = 0; i < operands.size(); i++) {
+            if (i > 0) {
+                jpql.append(conjunction ? " AND " : " OR ");
+            }
+            operands.get(i).render(jpql, values);
+        }
+        jpql.append(')');
+    }
+
+    @Override
+    boolean matches(Product product) {
+        return conjunction
+            ? operands.stream().allMatch(operand -> operand.matches(product))
+            : operands.stream().anyMatch(operand -> operand.matches(product));
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(conjunction ? " AND " : " OR ");
+        for (FilterExpression operand : operands) {
+            joiner.add(operand instanceof FilterJunction ? "(" + operand + ")" : operand.toString());
+        }
+        return joiner.toString();
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    /**
+     * Merges <code>a:x OR a:y</code> into <code>a IN (x, y)</code> and, dually,
+     * <code>NOT a:x AND NOT a:y</code> into <code>a NOT IN (x, y)</code>.
+     */
+    private List<FilterExpression> mergeEqualities(List<FilterExpression> flattened) {
+        FilterOperator singleOperator = conjunction ? FilterOperator.NOT_EQUAL : FilterOperator.EQUAL;
+        FilterOperator listOperator = conjunction ? FilterOperator.NOT_IN : FilterOperator.IN;
+
+        Map<ProductQueryField, Set<Object>> valuesByField = new EnumMap<>(ProductQueryField.class);
+        List<FilterExpression> merged = new ArrayList<>();
+
+        for (FilterExpression operand : flattened) {
+            if (operand instanceof FilterComparison) {
+                FilterComparison comparison = (FilterComparison) operand;
+
+                if (comparison.getOperator() == singleOperator || comparison.getOperator() == listOperator) {
+                    valuesByField.computeIfAbsent(comparison.getField(), field -> new TreeSet<>())
+                        .addAll(comparison.getValues());
+                    continue;
+                }
+            }
+            merged.add(operand);
+        }
+
+        valuesByField.forEach((field, values) -> merged.add(FilterComparison.of(field, values, conjunction)));
+        return merged;
+    }
+}
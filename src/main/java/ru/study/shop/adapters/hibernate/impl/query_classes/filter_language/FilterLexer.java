@@ -0,0 +1,127 @@
+package ru.study.shop.adapters.hibernate.impl.query_classes.filter_language;
+
+import ru.study.shop.adapters.hibernate.impl.query_classes.filter_language.FilterToken.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Splits a filter expression into tokens. Words run up to whitespace or one of <code>()":&lt;&gt;=*</code>;
+ * quoted strings may contain anything, with <code>\</code> escaping the next character.
+ * <code>AND</code>, <code>OR</code> and <code>NOT</code> are keywords in any case unless quoted.
+ */
+final class FilterLexer {
+    private static final String DELIMITERS = "()\":<>=*";
+
+    private FilterLexer() {
+    }
+
+    static List<FilterToken> tokenize(String text) {
+        List<FilterToken> tokens = new ArrayList<>();
+        int position = 0;
+
+        while (position < text.length()) {
+            char c = text.charAt(position);
+
+            if (Character.isWhitespace(c)) {
+                position++;
+                continue;
+            }
+
+            switch (c) {
+                case '(':
+                    tokens.add(new FilterToken(Type.LEFT_PAREN, "(", position++));
+                    break;
+                case ')':
+                    tokens.add(new FilterToken(Type.RIGHT_PAREN, ")", position++));
+                    break;
+                case ':':
+                case '=':
+                    tokens.add(new FilterToken(Type.COLON, String.valueOf(c), position++));
+                    break;
+                case '*':
+                    tokens.add(new FilterToken(Type.STAR, "*", position++));
+                    break;
+                case '<':
+                case '>':
+                    position = readComparison(text, position, tokens);
+                    break;
+                case '"':
+                    position = readString(text, position, tokens);
+                    break;
+                default:
+                    position = readWord(text, position, tokens);
+                    break;
+            }
+        }
+
+        tokens.add(new FilterToken(Type.END, "", text.length()));
+        return tokens;
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private static int readComparison(String text, int start, List<FilterToken> tokens) {
+        boolean less = text.charAt(start) == '<';
+        boolean orEqual = start + 1 < text.length() && text.charAt(start + 1) == '=';
+
+        Type type = less
+            ? orEqual ? Type.LESS_OR_EQUAL : Type.LESS
+            : orEqual ? Type.GREATER_OR_EQUAL : Type.GREATER;
+        int end = orEqual ? start + 2 : start + 1;
+
+        tokens.add(new FilterToken(type, text.substring(start, end), start));
+        return end;
+    }
+
+    private static int readString(String text, int start, List<FilterToken> tokens) {
+        StringBuilder value = new StringBuilder();
+        int position = start + 1;
+
+        while (position < text.length()) {
+            char c = text.charAt(position++);
+
+            if (c == '"') {
+                tokens.add(new FilterToken(Type.STRING, value.toString(), start));
+                return position;
+            }
+            if (c == '\\') {
+                if (position == text.length()) {
+                    break;
+                }
+                c = text.charAt(position++);
+            }
+            value.append(c);
+        }
+
+        throw new FilterSyntaxException("unterminated string", start);
+    }
+
+    private static int readWord(String text, int start, List<FilterToken> tokens) {
+        int position = start;
+        while (position < text.length()
+            && !Character.isWhitespace(text.charAt(position))
+            && DELIMITERS.indexOf(text.charAt(position)) < 0) {
+            position++;
+        }
+
+        String word = text.substring(start, position);
+        tokens.add(new FilterToken(getWordType(word), word, start));
+        return position;
+    }
+
+    private static Type getWordType(String word) {
+        if ("AND".equalsIgnoreCase(word)) {
+            return Type.AND;
+        }
+        if ("OR".equalsIgnoreCase(word)) {
+            return Type.OR;
+        }
+        if ("NOT".equalsIgnoreCase(word)) {
+            return Type.NOT;
+        }
+        return Type.WORD;
+    }
+}
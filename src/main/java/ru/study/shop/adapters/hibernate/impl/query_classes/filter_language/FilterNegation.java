@@ -0,0 +1,43 @@
+package ru.study.shop.adapters.hibernate.impl.query_classes.filter_language;
+
+import ru.study.shop.entities.Product;
+
+import java.util.List;
+
+/**
+ * <code>NOT</code> as parsed. Normalization pushes it down into the comparisons, so it never reaches a query.
+ */
+final class FilterNegation extends FilterExpression {
+    private final FilterExpression operand;
+
+    FilterNegation(FilterExpression operand) {
+        this.operand = operand;
+    }
+
+    @Override
+    FilterExpression negate() {
+        return operand;
+    }
+
+    @Override
+    FilterExpression normalize() {
+        return operand.negate().normalize();
+    }
+
+    @Override
+    void render(StringBuilder jpql, List<Object> values) {
+        jpql.append("NOT (");
+        operand.render(jpql, values);
+        jpql.append(')');
+    }
+
+    @Override
+    boolean matches(Product product) {
+        return !operand.matches(product);
+    }
+
+    @Override
+    public String toString() {
+        return "NOT (" + operand + ")";
+    }
+}
@@ -0,0 +1,57 @@
+package ru.study.shop.adapters.hibernate.impl.query_classes.filter_language;
+
+/**
+ * Comparison operators of normalized filters. Every operator has a negation,
+ * which lets normalization push <code>NOT</code> down into the comparisons.
+ */
+enum FilterOperator {
+    EQUAL("="),
+    NOT_EQUAL("<>"),
+    LESS("<"),
+    LESS_OR_EQUAL("<="),
+    GREATER(">"),
+    GREATER_OR_EQUAL(">="),
+    IN("IN"),
+    NOT_IN("NOT IN"),
+    PREFIX("LIKE"),
+    NOT_PREFIX("NOT LIKE");
+
+    private final String jpqlOperator;
+
+    FilterOperator(String jpqlOperator) {
+        this.jpqlOperator = jpqlOperator;
+    }
+
+    String getJpqlOperator() {
+        return jpqlOperator;
+    }
+
+    boolean isRange() {
+        return this == LESS || this == LESS_OR_EQUAL || this == GREATER || this == GREATER_OR_EQUAL;
+    }
+
+    FilterOperator negate() {
+        switch (this) {
+            case EQUAL:
+                return NOT_EQUAL;
+            case NOT_EQUAL:
+                return EQUAL;
+            case LESS:
+                return GREATER_OR_EQUAL;
+            case LESS_OR_EQUAL:
+                return GREATER;
+            case GREATER:
+                return LESS_OR_EQUAL;
+            case GREATER_OR_EQUAL:
+                return LESS;
+            case IN:
+                return NOT_IN;
+            case NOT_IN:
+                return IN;
+            case PREFIX:
+                return NOT_PREFIX;
+            default:
+                return PREFIX;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package ru.study.shop.adapters.hibernate.impl.query_classes.filter_language;
+
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryField;
+import ru.study.shop.adapters.hibernate.impl.query_classes.filter_language.FilterToken.Type;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Recursive descent parser of the filter language:
+ * <pre>
+ * filter     = or
+ * or         = and ("OR" and)*
+ * and        = unary ("AND" unary)*
+ * unary      = "NOT" unary | "(" or ")" | comparison
+ * comparison = field (":" value ["*"] | ("&lt;" | "&lt;=" | "&gt;" | "&gt;=") value)
+ * </pre>
+ * Fields are the request parameter names of <code>ProductQueryField</code>. Ranges are only allowed
+ * on numeric fields, prefix matches only on text fields.
+ */
+final class FilterParser {
+    static final int MAX_NESTING_DEPTH = 32;
+
+    private static final String FIELD_NAMES = Arrays.stream(ProductQueryField.values())
+        .map(ProductQueryField::getParameterName)
+        .collect(Collectors.joining(", "));
+
+    private final List<FilterToken> tokens;
+    private int next = 0;
+    private int depth = 0;
+
+    private FilterParser(List<FilterToken> tokens) {
+        this.tokens = tokens;
+    }
+
+    static FilterExpression parse(String text) {
+        FilterParser parser = new FilterParser(FilterLexer.tokenize(text));
+
+        FilterExpression expression = parser.parseOr();
+        parser.expect(Type.END, "AND, OR or end of filter");
+
+        return expression;
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private FilterExpression parseOr() {
+        List<FilterExpression> operands = new ArrayList<>();
+        operands.add(parseAnd());
+        while (accept(Type.OR)) {
+            operands.add(parseAnd());
+        }
+
+        return operands.size() == 1 ? operands.get(0) : new FilterJunction(false, operands);
+    }
+
+    private FilterExpression parseAnd() {
+        List<FilterExpression> operands = new ArrayList<>();
+        operands.add(parseUnary());
+        while (accept(Type.AND)) {
+            operands.add(parseUnary());
+        }
+
+        return operands.size() == 1 ? operands.get(0) : new FilterJunction(true, operands);
+    }
+
+    private FilterExpression parseUnary() {
+        FilterToken token = tokens.get(next);
+
+        if (token.is(Type.NOT) || token.is(Type.LEFT_PAREN)) {
+            if (++depth > MAX_NESTING_DEPTH) {
+                throw new FilterSyntaxException("filter is nested deeper than " + MAX_NESTING_DEPTH + " levels", token.getPosition());
+            }
+            next++;
+
+            FilterExpression expression;
+            if (token.is(Type.NOT)) {
+                expression = new FilterNegation(parseUnary());
+            } else {
+                expression = parseOr();
+                expect(Type.RIGHT_PAREN, "')'");
+            }
+
+            depth--;
+            return expression;
+        }
+
+        return parseComparison();
+    }
+
+    private FilterExpression parseComparison() {
+        FilterToken fieldToken = expect(Type.WORD, "a field name");
+        ProductQueryField field = getField(fieldToken);
+
+        FilterToken operatorToken = tokens.get(next++);
+        FilterOperator operator = getOperator(operatorToken);
+
+        FilterToken valueToken = tokens.get(next++);
+        if (!valueToken.is(Type.WORD) && !valueToken.is(Type.STRING)) {
+            throw unexpected(valueToken, "a value");
+        }
+
+        boolean prefix = accept(Type.STAR);
+        if (prefix && (operator != FilterOperator.EQUAL || field.isNumeric())) {
+            throw new FilterSyntaxException("prefix match is only supported as ':' on text fields", valueToken.getPosition());
+        }
+        if (operator.isRange() && !field.isNumeric()) {
+            throw new FilterSyntaxException(
+                "'" + operatorToken.getText() + "' is not supported on text field " + field.getParameterName(),
+                operatorToken.getPosition());
+        }
+
+        return new FilterComparison(field, prefix ? FilterOperator.PREFIX : operator, getValue(field, valueToken));
+    }
+
+    private static ProductQueryField getField(FilterToken token) {
+        for (ProductQueryField field : ProductQueryField.values()) {
+            if (field.getParameterName().equalsIgnoreCase(token.getText())) {
+                return field;
+            }
+        }
+
+        throw new FilterSyntaxException(
+            "unknown field " + token + "; expected one of " + FIELD_NAMES, token.getPosition());
+    }
+
+    private static FilterOperator getOperator(FilterToken token) {
+        switch (token.getType()) {
+            case COLON:
+                return FilterOperator.EQUAL;
+            case LESS:
+                return FilterOperator.LESS;
+            case LESS_OR_EQUAL:
+                return FilterOperator.LESS_OR_EQUAL;
+            case GREATER:
+                return FilterOperator.GREATER;
+            case GREATER_OR_EQUAL:
+                return FilterOperator.GREATER_OR_EQUAL;
+            default:
+                throw unexpected(token, "':', '<', '<=', '>' or '>='");
+        }
+    }
+
+    private static Object getValue(ProductQueryField field, FilterToken token) {
+        if (!field.isNumeric()) {
+            return token.getText();
+        }
+
+        try {
+            return Long.valueOf(token.getText());
+        } catch (NumberFormatException e) {
+            throw new FilterSyntaxException(
+                "field " + field.getParameterName() + " expects a number, found " + token, token.getPosition());
+        }
+    }
+
+    private boolean accept(Type type) {
+        if (tokens.get(next).is(type)) {
+            next++;
+            return true;
+        }
+        return false;
+    }
+
+    private FilterToken expect(Type type, String expected) {
+        FilterToken token = tokens.get(next);
+        if (!token.is(type)) {
+            throw unexpected(token, expected);
+        }
+        next++;
+        return token;
+    }
+
+    private static FilterSyntaxException unexpected(FilterToken token, String expected) {
+        return new FilterSyntaxException("expected " + expected + " but found " + token, token.getPosition());
+    }
+}
@@ -0,0 +1,20 @@
+package ru.study.shop.adapters.hibernate.impl.query_classes.filter_language;
+
+/**
+ * Thrown when a product filter expression cannot be parsed.
+ */
+public class FilterSyntaxException extends IllegalArgumentException {
+    private final int position;
+
+    FilterSyntaxException(String message, int position) {
+        super(message + " at position " + (position + 1));
+        this.position = position;
+    }
+
+    /**
+     * @return zero-based offset in the expression text where parsing failed.
+     */
+    public int getPosition() {
+        return position;
+    }
+}
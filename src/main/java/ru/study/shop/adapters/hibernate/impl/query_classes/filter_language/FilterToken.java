@@ -0,0 +1,39 @@
+package ru.study.shop.adapters.hibernate.impl.query_classes.filter_language;
+
+final class FilterToken {
+    enum Type {
+        WORD, STRING, LEFT_PAREN, RIGHT_PAREN, COLON, STAR, LESS, LESS_OR_EQUAL, GREATER, GREATER_OR_EQUAL,
+        AND, OR, NOT, END
+    }
+
+    private final Type type;
+    private final String text;
+    private final int position;
+
+    FilterToken(Type type, String text, int position) {
+        this.type = type;
+        this.text = text;
+        this.position = position;
+    }
+
+    Type getType() {
+        return type;
+    }
+
+    String getText() {
+        return text;
+    }
+
+    int getPosition() {
+        return position;
+    }
+
+    boolean is(Type type) {
+        return this.type == type;
+    }
+
+    @Override
+    public String toString() {
+        return type == Type.END ? "end of filter" : "'" + text + "'";
+    }
+}
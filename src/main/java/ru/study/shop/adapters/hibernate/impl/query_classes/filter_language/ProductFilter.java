@@ -0,0 +1,101 @@
+package ru.study.shop.adapters.hibernate.impl.query_classes.filter_language;
+
+import ru.study.shop.entities.Product;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Boolean product filter, e.g. <code>type:Кеды AND (material:Кожа OR price&lt;3000) AND NOT name:"Старый"*</code>.
+ * <p>
+ * <code>field:value</code> is equality, <code>field:value*</code> a prefix match on text fields,
+ * <code>&lt;</code>, <code>&lt;=</code>, <code>&gt;</code> and <code>&gt;=</code> open-ended ranges on id and price.
+ * Comparisons combine with <code>AND</code>, <code>OR</code>, <code>NOT</code> and parentheses;
+ * values with spaces or delimiters are quoted.
+ * <p>
+ * A parsed filter is normalized and rendered once into a parameterized JPQL condition,
+ * so equivalent filters, and filters differing only in values, share the query text.
+ * IN-lists are padded up to a power of two by repeating their last value, so that list lengths
+ * do not multiply the texts.
+ */
+public final class ProductFilter {
+    public static final int MAX_LENGTH = 4096;
+
+    static final String ENTITY_ALIAS = "p";
+    private static final String PARAMETER_PREFIX = "filter";
+
+    private final FilterExpression expression;
+    private final String condition;
+    private final List<Object> values;
+    private final String canonicalForm;
+
+    private ProductFilter(FilterExpression expression) {
+        List<Object> boundValues = new ArrayList<>();
+        StringBuilder jpql = new StringBuilder();
+        expression.render(jpql, boundValues);
+
+        this.expression = expression;
+        this.condition = jpql.toString();
+        this.values = Collections.unmodifiableList(boundValues);
+        this.canonicalForm = expression.toString();
+    }
+
+    /**
+     * @throws FilterSyntaxException if the text is not a valid filter.
+     */
+    public static ProductFilter parse(String text) {
+        if (text.length() > MAX_LENGTH) {
+            throw new FilterSyntaxException("filter is longer than " + MAX_LENGTH + " characters", MAX_LENGTH);
+        }
+
+        return new ProductFilter(FilterParser.parse(text).normalize());
+    }
+
+    /**
+     * @return JPQL condition on the product alias <code>p</code>, with parameters named by {@link #getParameterName(int)}.
+     * Does not depend on the bound values.
+     */
+    public String getCondition() {
+        return condition;
+    }
+
+    /**
+     * @return values of the condition parameters, by parameter index.
+     */
+    public List<Object> getValues() {
+        return values;
+    }
+
+    public static String getParameterName(int index) {
+        return PARAMETER_PREFIX + index;
+    }
+
+    public boolean matches(Product product) {
+        return expression.matches(product);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ProductFilter)) {
+            return false;
+        }
+        return canonicalForm.equals(((ProductFilter) o).canonicalForm);
+    }
+
+    @Override
+    public int hashCode() {
+        return canonicalForm.hashCode();
+    }
+
+    /**
+     * @return the normalized filter in the filter language; parsing it yields an equal filter.
+     */
+    @Override
+    public String toString() {
+        return canonicalForm;
+    }
+}
@@ -0,0 +1,282 @@
+package ru.study.shop.adapters.hibernate.impl.query_plan;
+
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductPageRequest;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryField;
+import ru.study.shop.adapters.hibernate.impl.query_classes.constraint_classes.Constraint;
+import ru.study.shop.adapters.hibernate.impl.query_classes.filter_language.ProductFilter;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.function.Function;
+
+import static java.util.Objects.nonNull;
+
+import static ru.study.shop.adapters.hibernate.impl.query_plan.ProductQueryShape.ABSENT;
+import static ru.study.shop.adapters.hibernate.impl.query_plan.ProductQueryShape.LARGE_LIST_ARITY;
+import static ru.study.shop.adapters.hibernate.impl.query_plan.ProductQueryShape.RANGE_ARITY;
+
+/**
+ * Parameterized JPQL rendered once for a <code>ProductQueryShape</code>.
+ * Executing it only binds values, and since the text of a shape never changes,
+ * Hibernate's query plan cache and the JDBC statement cache are hit on every execution.
+ * IN-lists are padded up to the shape arity by repeating their last value;
+ * large numeric lists are written to the query filter table for the duration of the execution and joined.
+ * The condition of a boolean filter is appended as is and its values are bound by index.
+ */
+public class ProductQueryPlan {
+    private static final String ENTITY_ALIAS = "p";
+    private static final String ID_FIELD = "id";
+    private static final String AFTER_KEY_PARAMETER = "afterKey";
+    private static final String AFTER_ID_PARAMETER = "afterId";
+
+    private final ProductQueryShape shape;
+    private final String jpql;
+
+    private ProductQueryPlan(ProductQueryShape shape, String jpql) {
+        this.shape = shape;
+        this.jpql = jpql;
+    }
+
+    static ProductQueryPlan compile(ProductQueryShape shape) {
+        StringBuilder jpql = new StringBuilder(shape.getSelection().isDeletion()
+            ? "DELETE"
+            : "SELECT " + shape.getSelection().getSelectClause())
+            .append(" FROM Product ").append(ENTITY_ALIAS);
+
+        List<String> conditions = getConstraintConditions(shape);
+        if (nonNull(shape.getFilterCondition())) {
+            conditions.add(shape.getFilterCondition());
+        }
+        getSeekCondition(shape, conditions);
+        if (!conditions.isEmpty()) {
+            jpql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+
+        if (shape.getSelection().isGrouped()) {
+            jpql.append(" GROUP BY ").append(shape.getSelection().getGroupByClause());
+        }
+
+        if (shape.isPaged()) {
+            jpql.append(" ORDER BY ");
+            if (!ID_FIELD.equals(shape.getSortField().getEntityFieldName())) {
+                jpql.append(path(shape.getSortField().getEntityFieldName())).append(" ASC, ");
+            }
+            jpql.append(path(ID_FIELD)).append(" ASC");
+        }
+
+        return new ProductQueryPlan(shape, jpql.toString());
+    }
+
+    public String getJpql() {
+        return jpql;
+    }
+
+    /**
+     * Creates a query of the plan bound to the given values, which must have the shape of the plan,
+     * and runs <code>execution</code> on it. Filter table rows written for large lists are removed afterwards,
+     * so plans with large lists must be executed in a transaction.
+     *
+     * @param pageRequest null for an unpaged query.
+     * @param execution   may bind further parameters of the selection before reading the result.
+     */
+    public <T, R> R execute(
+        EntityManager entityManager,
+        Class<T> resultClass,
+        ProductQueryConstraints constraints,
+        ProductPageRequest pageRequest,
+        Function<TypedQuery<T>, R> execution) {
+
+        Map<ProductQueryField, Long> filterIds = insertLargeLists(entityManager, constraints);
+        try {
+            return execution.apply(createQuery(entityManager, resultClass, constraints, pageRequest, filterIds));
+        } finally {
+            filterIds.values().forEach(filterId -> QueryFilterTable.delete(entityManager, filterId));
+        }
+    }
+
+    /**
+     * Runs the plan of a {@link ProductQuerySelection#DELETION} shape as a single bulk DELETE.
+     * Must be executed in a transaction.
+     *
+     * @return number of deleted products.
+     */
+    public int executeUpdate(EntityManager entityManager, ProductQueryConstraints constraints) {
+        if (!shape.getSelection().isDeletion()) {
+            throw new IllegalStateException("not a deletion plan: " + jpql);
+        }
+
+        Map<ProductQueryField, Long> filterIds = insertLargeLists(entityManager, constraints);
+        try {
+            Query query = entityManager.createQuery(jpql);
+            bindConstraints(query, constraints, filterIds);
+
+            return query.executeUpdate();
+        } finally {
+            filterIds.values().forEach(filterId -> QueryFilterTable.delete(entityManager, filterId));
+        }
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private Map<ProductQueryField, Long> insertLargeLists(EntityManager entityManager, ProductQueryConstraints constraints) {
+        Map<ProductQueryField, Long> filterIds = new EnumMap<>(ProductQueryField.class);
+
+        if (!shape.hasLargeLists()) {
+            return filterIds;
+        }
+
+        for (ProductQueryField field : ProductQueryField.values()) {
+            if (shape.getArity(field) == LARGE_LIST_ARITY) {
+                filterIds.put(field, QueryFilterTable.insert(entityManager, field.getConstraint(constraints).getConstraintList()));
+            }
+        }
+
+        return filterIds;
+    }
+
+    private <T> TypedQuery<T> createQuery(
+        EntityManager entityManager,
+        Class<T> resultClass,
+        ProductQueryConstraints constraints,
+        ProductPageRequest pageRequest,
+        Map<ProductQueryField, Long> filterIds) {
+
+        TypedQuery<T> query = entityManager.createQuery(jpql, resultClass);
+        bindConstraints(query, constraints, filterIds);
+
+        if (shape.isPaged()) {
+            bindSeek(query, pageRequest);
+            query.setMaxResults(pageRequest.getLimit() + 1);
+        }
+
+        return query;
+    }
+
+    private static List<String> getConstraintConditions(ProductQueryShape shape) {
+        List<String> conditions = new ArrayList<>();
+
+        for (ProductQueryField field : ProductQueryField.values()) {
+            int arity = shape.getArity(field);
+            String fieldPath = path(field.getEntityFieldName());
+
+            if (arity == ABSENT) {
+                continue;
+            }
+
+            if (arity == RANGE_ARITY) {
+                conditions.add(fieldPath + " BETWEEN :" + fromParameter(field) + " AND :" + toParameter(field));
+            } else if (arity == LARGE_LIST_ARITY) {
+                String valuesAlias = field.getParameterName() + "Values";
+                conditions.add(fieldPath + " IN (SELECT " + valuesAlias + ".filterValue FROM QueryFilterValue " + valuesAlias
+                    + " WHERE " + valuesAlias + ".filterId = :" + filterParameter(field) + ")");
+            } else {
+                StringJoiner inList = new StringJoiner(", ", fieldPath + " IN (", ")");
+                for (int i = 0; i < arity; i++) {
+                    inList.add(":" + listParameter(field, i));
+                }
+                conditions.add(inList.toString());
+            }
+        }
+
+        return conditions;
+    }
+
+    private static void getSeekCondition(ProductQueryShape shape, List<String> conditions) {
+        String idPath = path(ID_FIELD);
+
+        switch (shape.getSeekKind()) {
+            case AFTER_ID:
+                conditions.add(idPath + " > :" + AFTER_ID_PARAMETER);
+                break;
+            case AFTER_KEY: {
+                String keyPath = path(shape.getSortField().getEntityFieldName());
+                conditions.add("(" + keyPath + " > :" + AFTER_KEY_PARAMETER
+                    + " OR (" + keyPath + " = :" + AFTER_KEY_PARAMETER + " AND " + idPath + " > :" + AFTER_ID_PARAMETER + "))");
+                break;
+            }
+            case AFTER_NULL_KEY: {
+                String keyPath = path(shape.getSortField().getEntityFieldName());
+                conditions.add("(" + keyPath + " IS NOT NULL"
+                    + " OR (" + keyPath + " IS NULL AND " + idPath + " > :" + AFTER_ID_PARAMETER + "))");
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    private void bindConstraints(Query query, ProductQueryConstraints constraints, Map<ProductQueryField, Long> filterIds) {
+        for (ProductQueryField field : ProductQueryField.values()) {
+            int arity = shape.getArity(field);
+
+            if (arity == ABSENT) {
+                continue;
+            }
+
+            Constraint<?> constraint = field.getConstraint(constraints);
+
+            if (arity == RANGE_ARITY) {
+                query.setParameter(fromParameter(field), constraint.getFrom());
+                query.setParameter(toParameter(field), constraint.getTo());
+            } else if (arity == LARGE_LIST_ARITY) {
+                query.setParameter(filterParameter(field), filterIds.get(field));
+            } else {
+                List<?> values = constraint.getConstraintList();
+                for (int i = 0; i < arity; i++) {
+                    query.setParameter(listParameter(field, i), values.get(Math.min(i, values.size() - 1)));
+                }
+            }
+        }
+
+        if (nonNull(shape.getFilterCondition())) {
+            List<Object> filterValues = constraints.getFilter().getValues();
+            for (int i = 0; i < filterValues.size(); i++) {
+                query.setParameter(ProductFilter.getParameterName(i), filterValues.get(i));
+            }
+        }
+    }
+
+    private void bindSeek(Query query, ProductPageRequest pageRequest) {
+        switch (shape.getSeekKind()) {
+            case AFTER_KEY:
+                query.setParameter(AFTER_KEY_PARAMETER, pageRequest.getAfterSortKey());
+                query.setParameter(AFTER_ID_PARAMETER, pageRequest.getAfterId());
+                break;
+            case AFTER_ID:
+            case AFTER_NULL_KEY:
+                query.setParameter(AFTER_ID_PARAMETER, pageRequest.getAfterId());
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static String path(String entityFieldName) {
+        return ENTITY_ALIAS + "." + entityFieldName;
+    }
+
+    private static String fromParameter(ProductQueryField field) {
+        return field.getParameterName() + "From";
+    }
+
+    private static String toParameter(ProductQueryField field) {
+        return field.getParameterName() + "To";
+    }
+
+    private static String filterParameter(ProductQueryField field) {
+        return field.getParameterName() + "Filter";
+    }
+
+    private static String listParameter(ProductQueryField field, int index) {
+        return field.getParameterName() + index;
+    }
+}
@@ -0,0 +1,46 @@
+package ru.study.shop.adapters.hibernate.impl.query_plan;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductPageRequest;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints;
+
+/**
+ * Compiled product query plans keyed by query shape.
+ * <p>
+ * Field constraints alone give few shapes: six fields that are absent, RANGE or a power-of-two LIST arity,
+ * times the selections and paging variants. Boolean filters come from clients and their structure is part
+ * of the shape, so the number of shapes is unbounded and the least used plans are evicted.
+ */
+public class ProductQueryPlanCache {
+    public static final long DEFAULT_MAX_PLANS = 1000L;
+
+    private final Cache<ProductQueryShape, ProductQueryPlan> plans;
+
+    public ProductQueryPlanCache() {
+        this(DEFAULT_MAX_PLANS);
+    }
+
+    public ProductQueryPlanCache(long maxPlans) {
+        this.plans = Caffeine.newBuilder()
+            .maximumSize(maxPlans)
+            .build();
+    }
+
+    /**
+     * @param pageRequest null for an unpaged query.
+     */
+    public ProductQueryPlan getPlan(ProductQueryConstraints constraints, ProductPageRequest pageRequest) {
+        return getPlan(ProductQueryShape.of(constraints, pageRequest));
+    }
+
+    public ProductQueryPlan getPlan(ProductQueryShape shape) {
+        return plans.get(shape, ProductQueryPlan::compile);
+    }
+
+    public int size() {
+        // eviction is deferred, so pending evictions are run before counting
+        plans.cleanUp();
+        return (int) plans.estimatedSize();
+    }
+}
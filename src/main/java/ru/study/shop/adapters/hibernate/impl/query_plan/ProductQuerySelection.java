@@ -0,0 +1,115 @@
+package ru.study.shop.adapters.hibernate.impl.query_plan;
+
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductAttribute;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryField;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.StringJoiner;
+
+import static java.util.Objects.isNull;
+
+/**
+ * What a product query returns: the SELECT list and, for aggregates, the GROUP BY list;
+ * or {@link #DELETION} for a bulk DELETE of the matching products.
+ * Part of <code>ProductQueryShape</code>, so it must not contain values; those are bound as parameters.
+ */
+public final class ProductQuerySelection {
+    public static final ProductQuerySelection ENTITIES = new ProductQuerySelection("p", null);
+    public static final ProductQuerySelection DELETION = new ProductQuerySelection(null, null);
+
+    private static final String PRICE_BOUND_PARAMETER = "priceBound";
+
+    private final String selectClause;
+    private final String groupByClause;
+
+    private ProductQuerySelection(String selectClause, String groupByClause) {
+        this.selectClause = selectClause;
+        this.groupByClause = groupByClause;
+    }
+
+    /**
+     * Selects the attributes, in iteration order of the collection, instead of whole entities.
+     */
+    public static ProductQuerySelection attributes(Collection<ProductAttribute> attributes) {
+        StringJoiner selectList = new StringJoiner(", ");
+        attributes.forEach(attribute -> selectList.add("p." + attribute.getEntityFieldName()));
+
+        return new ProductQuerySelection(selectList.toString(), null);
+    }
+
+    /**
+     * Selects <code>[value, count]</code> rows, one per distinct value of the field.
+     */
+    public static ProductQuerySelection countBy(ProductQueryField field) {
+        String fieldPath = "p." + field.getEntityFieldName();
+
+        return new ProductQuerySelection(fieldPath + ", COUNT(p)", fieldPath);
+    }
+
+    /**
+     * Selects a single row of product counts per price bucket. Bucket bounds are bound to the
+     * {@link #getPriceBoundParameter(int)} parameters; <code>n</code> ascending bounds make <code>n + 1</code> buckets
+     * <code>[..., b0), [b0, b1), ..., [b(n-1), ...)</code>. Products without a price are not counted.
+     */
+    public static ProductQuerySelection countByPriceBuckets(int boundCount) {
+        if (boundCount < 1) {
+            throw new IllegalArgumentException("at least one price bucket bound is required");
+        }
+
+        StringJoiner sums = new StringJoiner(", ");
+        sums.add(countWhen("p.price < :" + getPriceBoundParameter(0)));
+        for (int i = 1; i < boundCount; i++) {
+            sums.add(countWhen("p.price >= :" + getPriceBoundParameter(i - 1) + " AND p.price < :" + getPriceBoundParameter(i)));
+        }
+        sums.add(countWhen("p.price >= :" + getPriceBoundParameter(boundCount - 1)));
+
+        return new ProductQuerySelection(sums.toString(), null);
+    }
+
+    public static String getPriceBoundParameter(int index) {
+        return PRICE_BOUND_PARAMETER + index;
+    }
+
+    String getSelectClause() {
+        return selectClause;
+    }
+
+    boolean isDeletion() {
+        return isNull(selectClause);
+    }
+
+    boolean isGrouped() {
+        return !isNull(groupByClause);
+    }
+
+    String getGroupByClause() {
+        return groupByClause;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        ProductQuerySelection that = (ProductQuerySelection) o;
+        return Objects.equals(selectClause, that.selectClause) && Objects.equals(groupByClause, that.groupByClause);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(selectClause, groupByClause);
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private static String countWhen(String condition) {
+        return "SUM(CASE WHEN " + condition + " THEN 1 ELSE 0 END)";
+    }
+}
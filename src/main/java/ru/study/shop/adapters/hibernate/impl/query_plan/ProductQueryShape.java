@@ -0,0 +1,193 @@
+package ru.study.shop.adapters.hibernate.impl.query_plan;
+
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductPageRequest;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryField;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductSortField;
+import ru.study.shop.adapters.hibernate.impl.query_classes.constraint_classes.Constraint;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import static java.util.Objects.isNull;
+import static ru.study.shop.adapters.hibernate.impl.query_classes.constraint_classes.ConstraintType.RANGE;
+
+/**
+ * Everything that determines the text of a product query, but none of the bound values:
+ * the selection, which fields are constrained, RANGE vs LIST, IN-list arity rounded up to a power of two,
+ * and the paging order and seek kind.
+ * <p>
+ * Numeric lists longer than <code>LARGE_LIST_THRESHOLD</code> are not inlined at all: their values are written
+ * to the query filter table and joined, so the query text does not depend on their length.
+ * A boolean filter contributes its parameterized condition, which does not depend on its values either.
+ */
+public final class ProductQueryShape {
+    static final int ABSENT = 0;
+    static final int RANGE_ARITY = -1;
+    static final int LARGE_LIST_ARITY = -2;
+
+    static final int LARGE_LIST_THRESHOLD = 64;
+
+    private static final ProductQueryField[] FIELDS = ProductQueryField.values();
+
+    private final ProductQuerySelection selection;
+    private final int[] arities;
+    private final ProductSortField sortField;
+    private final SeekKind seekKind;
+    private final String filterCondition;
+
+    private ProductQueryShape(
+        ProductQuerySelection selection,
+        int[] arities,
+        String filterCondition,
+        ProductSortField sortField,
+        SeekKind seekKind) {
+        this.selection = selection;
+        this.arities = arities;
+        this.filterCondition = filterCondition;
+        this.sortField = sortField;
+        this.seekKind = seekKind;
+    }
+
+    /**
+     * Shape of a query selecting product entities.
+     *
+     * @param pageRequest null for an unpaged query.
+     */
+    public static ProductQueryShape of(ProductQueryConstraints constraints, ProductPageRequest pageRequest) {
+        return of(ProductQuerySelection.ENTITIES, constraints, null, pageRequest);
+    }
+
+    /**
+     * @param ignoredField field whose constraint is left out of the query, e.g. for facet counts; may be null.
+     * @param pageRequest  null for an unpaged query.
+     */
+    public static ProductQueryShape of(
+        ProductQuerySelection selection,
+        ProductQueryConstraints constraints,
+        ProductQueryField ignoredField,
+        ProductPageRequest pageRequest) {
+
+        int[] arities = new int[FIELDS.length];
+        String filterCondition = null;
+
+        if (!isNull(constraints)) {
+            for (ProductQueryField field : FIELDS) {
+                if (field == ignoredField || !field.isConstrained(constraints)) {
+                    continue;
+                }
+
+                arities[field.ordinal()] = getArity(field, field.getConstraint(constraints));
+            }
+
+            if (constraints.hasFilter()) {
+                filterCondition = constraints.getFilter().getCondition();
+            }
+        }
+
+        if (isNull(pageRequest)) {
+            return new ProductQueryShape(selection, arities, filterCondition, null, SeekKind.NONE);
+        }
+
+        return new ProductQueryShape(
+            selection, arities, filterCondition, pageRequest.getSortField(), SeekKind.of(pageRequest));
+    }
+
+    private static int getArity(ProductQueryField field, Constraint<?> constraint) {
+        if (constraint.getConstraintType() == RANGE) {
+            return RANGE_ARITY;
+        }
+
+        int listSize = constraint.getConstraintList().size();
+        if (field.isNumeric() && listSize > LARGE_LIST_THRESHOLD) {
+            return LARGE_LIST_ARITY;
+        }
+
+        return getArityBucket(listSize);
+    }
+
+    /**
+     * @return the smallest power of two not less than the list size.
+     */
+    static int getArityBucket(int listSize) {
+        if (listSize <= 1) {
+            return 1;
+        }
+
+        return Integer.highestOneBit(listSize - 1) << 1;
+    }
+
+    ProductQuerySelection getSelection() {
+        return selection;
+    }
+
+    int getArity(ProductQueryField field) {
+        return arities[field.ordinal()];
+    }
+
+    boolean hasLargeLists() {
+        for (int arity : arities) {
+            if (arity == LARGE_LIST_ARITY) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return JPQL condition of the boolean filter, or null if there is none.
+     */
+    String getFilterCondition() {
+        return filterCondition;
+    }
+
+    boolean isPaged() {
+        return !isNull(sortField);
+    }
+
+    ProductSortField getSortField() {
+        return sortField;
+    }
+
+    SeekKind getSeekKind() {
+        return seekKind;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        ProductQueryShape that = (ProductQueryShape) o;
+        return selection.equals(that.selection)
+            && Arrays.equals(arities, that.arities)
+            && Objects.equals(filterCondition, that.filterCondition)
+            && sortField == that.sortField
+            && seekKind == that.seekKind;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(arities) + Objects.hash(selection, filterCondition, sortField, seekKind);
+    }
+
+    enum SeekKind {
+        NONE, AFTER_ID, AFTER_KEY, AFTER_NULL_KEY;
+
+        static SeekKind of(ProductPageRequest pageRequest) {
+            if (!pageRequest.hasAfter()) {
+                return NONE;
+            }
+            if (pageRequest.getSortField() == ProductSortField.ID) {
+                return AFTER_ID;
+            }
+
+            return isNull(pageRequest.getAfterSortKey()) ? AFTER_NULL_KEY : AFTER_KEY;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package ru.study.shop.adapters.hibernate.impl.query_plan;
+
+import org.hibernate.Session;
+
+import javax.persistence.EntityManager;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes list constraint values to the <code>query_filter_value</code> table with batched JDBC inserts
+ * on the connection of the current persistence context, and removes them after the query.
+ * <p>
+ * The table is a local temporary table of that connection, so other sessions never see or lock its rows,
+ * and writing to it is allowed in read-only transactions.
+ */
+class QueryFilterTable {
+    // TRANSACTIONAL keeps H2 from committing the open transaction, as it does for other DDL
+    private static final String CREATE_TABLE_SQL = "CREATE LOCAL TEMPORARY TABLE IF NOT EXISTS query_filter_value ("
+        + "filter_id bigint NOT NULL, filter_value bigint NOT NULL, PRIMARY KEY (filter_id, filter_value)) TRANSACTIONAL";
+    private static final String INSERT_VALUE_SQL = "INSERT INTO query_filter_value (filter_id, filter_value) VALUES (?, ?)";
+    private static final String DELETE_FILTER_SQL = "DELETE FROM query_filter_value WHERE filter_id = ?";
+
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    private static final AtomicLong lastFilterId = new AtomicLong();
+
+    private QueryFilterTable() {
+    }
+
+    /**
+     * @param values distinct values.
+     * @return id of the new filter.
+     */
+    static long insert(EntityManager entityManager, List<?> values) {
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (Statement create = connection.createStatement()) {
+                create.execute(CREATE_TABLE_SQL);
+            }
+
+            long filterId = lastFilterId.incrementAndGet();
+
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_VALUE_SQL)) {
+                int batched = 0;
+                for (Object value : values) {
+                    insert.setLong(1, filterId);
+                    insert.setLong(2, (Long) value);
+                    insert.addBatch();
+
+                    if (++batched == INSERT_BATCH_SIZE) {
+                        insert.executeBatch();
+                        batched = 0;
+                    }
+                }
+                if (batched > 0) {
+                    insert.executeBatch();
+                }
+            }
+
+            return filterId;
+        });
+    }
+
+    static void delete(EntityManager entityManager, long filterId) {
+        entityManager.unwrap(Session.class).doWork(connection -> {
+            try (PreparedStatement delete = connection.prepareStatement(DELETE_FILTER_SQL)) {
+                delete.setLong(1, filterId);
+                delete.executeUpdate();
+            }
+        });
+    }
+}
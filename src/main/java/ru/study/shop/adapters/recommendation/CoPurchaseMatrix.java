@@ -0,0 +1,72 @@
+package ru.study.shop.adapters.recommendation;
+
+/**
+ * Sparse symmetric matrix counting the orders in which two products were bought together.
+ * <p>
+ * Rows and their cells are primitive-keyed hash maps, so a catalog of many products with few co-purchases each
+ * takes memory proportional to the number of distinct product pairs actually ordered together.
+ */
+final class CoPurchaseMatrix {
+    private static final long[] NO_PRODUCTS = new long[0];
+
+    private final LongObjectHashMap<LongIntHashMap> rows = new LongObjectHashMap<>();
+
+    /**
+     * Counts one order.
+     *
+     * @param productIds distinct ids of the products in the order.
+     */
+    void addBasket(long[] productIds) {
+        for (int i = 0; i < productIds.length; i++) {
+            LongIntHashMap row = rows.computeIfAbsent(productIds[i], productId -> new LongIntHashMap());
+            for (int j = 0; j < productIds.length; j++) {
+                if (i != j) {
+                    row.increment(productIds[j], 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return ids of at most <code>limit</code> products most often bought with the product, most often first;
+     * ties go to the lower id.
+     */
+    long[] getTopNeighbours(long productId, int limit) {
+        LongIntHashMap row = rows.get(productId);
+        if (row == null || limit < 1) {
+            return NO_PRODUCTS;
+        }
+
+        // insertion into a short sorted array; limit is small, rows may be long
+        long[] topIds = new long[Math.min(limit, row.size())];
+        int[] topCounts = new int[topIds.length];
+        int[] size = { 0 };
+
+        row.forEach((neighbourId, count) -> {
+            int position = size[0];
+            while (position > 0 && isBefore(count, neighbourId, topCounts[position - 1], topIds[position - 1])) {
+                position--;
+            }
+            if (position == topIds.length) {
+                return;
+            }
+
+            int moved = Math.min(size[0], topIds.length - 1) - position;
+            System.arraycopy(topIds, position, topIds, position + 1, moved);
+            System.arraycopy(topCounts, position, topCounts, position + 1, moved);
+            topIds[position] = neighbourId;
+            topCounts[position] = count;
+            size[0] = Math.min(size[0] + 1, topIds.length);
+        });
+
+        return topIds;
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private static boolean isBefore(int count, long id, int otherCount, long otherId) {
+        return count > otherCount || (count == otherCount && id < otherId);
+    }
+}
@@ -0,0 +1,209 @@
+package ru.study.shop.adapters.recommendation;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.study.shop.adapters.hibernate.OrderRepository;
+import ru.study.shop.adapters.hibernate.impl.query_classes.LongHashSet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * "Customers also bought": products most often ordered together with a product.
+ * <p>
+ * Co-purchase counts are kept in a <code>CoPurchaseMatrix</code> fed with the orders placed since the previous run
+ * every <code>shop.products.related.refresh-interval-ms</code>. The products whose counts changed get their
+ * <code>MAX_RELATED</code> neighbours recomputed, and lookups only read these precomputed lists.
+ * <p>
+ * Orders are picked up by id, so orders changed or deleted after they were counted, and orders committed with an id
+ * below one already counted, are only accounted for by the full rebuild run on
+ * <code>shop.products.related.rebuild-cron</code>.
+ */
+@Component
+public class CoPurchaseRecommender {
+    public static final int MAX_RELATED = 10;
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    // larger orders are wholesale rather than baskets, and would add basketSize^2 counts each
+    static final int MAX_BASKET_SIZE = 100;
+
+    private static final long NO_ORDER_ID = 0L;
+
+    private final BiFunction<Long, Integer, List<Object[]>> orderLineLoader;
+    private final int batchSize;
+
+    private final Object lock = new Object();
+    private CoPurchaseMatrix matrix = new CoPurchaseMatrix();
+    private long lastOrderId = NO_ORDER_ID;
+
+    private volatile Map<Long, long[]> relatedByProductId = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CoPurchaseRecommender(OrderRepository orderRepository) {
+        this((afterOrderId, maxOrders) -> loadOrderLines(orderRepository, afterOrderId, maxOrders), DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * @param orderLineLoader pairs of order id and product id, ordered by order id, of the first <code>maxOrders</code>
+     *                        orders with ids above <code>afterOrderId</code>; product id is null for an empty order.
+     * @param batchSize       orders loaded at once.
+     */
+    public CoPurchaseRecommender(BiFunction<Long, Integer, List<Object[]>> orderLineLoader, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batch size must be more than 0");
+        }
+
+        this.orderLineLoader = orderLineLoader;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @return ids of at most <code>limit</code> (and at most <code>MAX_RELATED</code>) products most often ordered
+     * together with the product, most often first.
+     */
+    public List<Long> findRelated(Long productId, int limit) {
+        long[] related = relatedByProductId.get(productId);
+        if (isNull(related)) {
+            return new ArrayList<>();
+        }
+
+        int count = Math.min(related.length, limit);
+        List<Long> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(related[i]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Counts the orders placed since the previous run.
+     */
+    @Scheduled(fixedDelayString = "${shop.products.related.refresh-interval-ms}")
+    public void refresh() {
+        synchronized (lock) {
+            lastOrderId = countOrdersAfter(lastOrderId, matrix, relatedByProductId);
+        }
+    }
+
+    /**
+     * Recounts all orders; lookups are served from the previous counts until it completes.
+     */
+    @Scheduled(cron = "${shop.products.related.rebuild-cron}")
+    public void rebuild() {
+        synchronized (lock) {
+            CoPurchaseMatrix rebuiltMatrix = new CoPurchaseMatrix();
+            Map<Long, long[]> rebuiltRelated = new ConcurrentHashMap<>();
+
+            lastOrderId = countOrdersAfter(NO_ORDER_ID, rebuiltMatrix, rebuiltRelated);
+            matrix = rebuiltMatrix;
+            relatedByProductId = rebuiltRelated;
+        }
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    /**
+     * @return id of the last order counted.
+     */
+    private long countOrdersAfter(long afterOrderId, CoPurchaseMatrix targetMatrix, Map<Long, long[]> targetRelated) {
+        LongHashSet changedProductIds = new LongHashSet(batchSize);
+        List<Long> changedProductIdList = new ArrayList<>();
+
+        while (true) {
+            List<Object[]> orderLines = orderLineLoader.apply(afterOrderId, batchSize);
+            if (orderLines.isEmpty()) {
+                break;
+            }
+
+            int orderCount = 0;
+            int from = 0;
+            while (from < orderLines.size()) {
+                long orderId = (Long) orderLines.get(from)[0];
+                int to = from;
+                while (to < orderLines.size() && (Long) orderLines.get(to)[0] == orderId) {
+                    to++;
+                }
+
+                long[] basket = getBasket(orderLines, from, to);
+                if (basket.length > 1 && basket.length <= MAX_BASKET_SIZE) {
+                    targetMatrix.addBasket(basket);
+                    for (long productId : basket) {
+                        if (changedProductIds.add(productId)) {
+                            changedProductIdList.add(productId);
+                        }
+                    }
+                }
+
+                orderCount++;
+                afterOrderId = orderId;
+                from = to;
+            }
+
+            if (orderCount < batchSize) {
+                break;
+            }
+        }
+
+        for (Long productId : changedProductIdList) {
+            targetRelated.put(productId, targetMatrix.getTopNeighbours(productId, MAX_RELATED));
+        }
+
+        return afterOrderId;
+    }
+
+    /**
+     * @return distinct product ids of order lines <code>[from, to)</code>.
+     */
+    private static long[] getBasket(List<Object[]> orderLines, int from, int to) {
+        LongHashSet seen = new LongHashSet(to - from);
+        long[] basket = new long[to - from];
+        int size = 0;
+
+        for (int i = from; i < to; i++) {
+            Long productId = (Long) orderLines.get(i)[1];
+            if (nonNull(productId) && seen.add(productId)) {
+                basket[size++] = productId;
+            }
+        }
+
+        return Arrays.copyOf(basket, size);
+    }
+
+    /**
+     * Reads live and archived orders alike, so that archiving a month does not take its orders out of a rebuild.
+     */
+    private static List<Object[]> loadOrderLines(OrderRepository orderRepository, long afterOrderId, int maxOrders) {
+        List<Long> orderIds = Stream.concat(
+                orderRepository.findIdsAfter(afterOrderId, PageRequest.of(0, maxOrders)).stream(),
+                orderRepository.findArchivedIdsAfter(afterOrderId, maxOrders).stream())
+            .sorted()
+            .limit(maxOrders)
+            .collect(Collectors.toList());
+        if (orderIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Long toOrderId = orderIds.get(orderIds.size() - 1);
+        // the sort is stable, so the rows of an order stay together
+        return Stream.concat(
+                orderRepository.findProductIdsByOrderIdRange(afterOrderId, toOrderId).stream(),
+                orderRepository.findArchivedProductIdsByOrderIdRange(afterOrderId, toOrderId).stream())
+            .sorted(Comparator.comparing(row -> (Long) row[0]))
+            .collect(Collectors.toList());
+    }
+}
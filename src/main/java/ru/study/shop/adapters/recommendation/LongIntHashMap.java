@@ -0,0 +1,117 @@
+package ru.study.shop.adapters.recommendation;
+
+/**
+ * Open-addressing hash map from primitive longs to primitive int counters.
+ */
+final class LongIntHashMap {
+    private static final int MIN_CAPACITY = 4;
+    private static final long EMPTY_SLOT = 0L;
+
+    private long[] keys;
+    private int[] values;
+    private boolean containsEmptySlotKey = false;
+    private int emptySlotKeyValue = 0;
+    private int size = 0;
+
+    LongIntHashMap() {
+        keys = new long[MIN_CAPACITY];
+        values = new int[MIN_CAPACITY];
+    }
+
+    void increment(long key, int delta) {
+        if (key == EMPTY_SLOT) {
+            if (!containsEmptySlotKey) {
+                containsEmptySlotKey = true;
+                size++;
+            }
+            emptySlotKeyValue += delta;
+            return;
+        }
+
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY_SLOT) {
+            if (keys[slot] == key) {
+                values[slot] += delta;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = delta;
+        size++;
+        if (size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    /**
+     * @return the counter of the key, or 0 if the key is absent.
+     */
+    int get(long key) {
+        if (key == EMPTY_SLOT) {
+            return emptySlotKeyValue;
+        }
+
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY_SLOT) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        return 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void forEach(EntryConsumer consumer) {
+        if (containsEmptySlotKey) {
+            consumer.accept(EMPTY_SLOT, emptySlotKeyValue);
+        }
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY_SLOT) {
+                consumer.accept(keys[slot], values[slot]);
+            }
+        }
+    }
+
+    interface EntryConsumer {
+        void accept(long key, int value);
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+
+        int mask = capacity - 1;
+        for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+            if (oldKeys[oldSlot] == EMPTY_SLOT) {
+                continue;
+            }
+
+            int slot = hash(oldKeys[oldSlot]) & mask;
+            while (keys[slot] != EMPTY_SLOT) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[oldSlot];
+            values[slot] = oldValues[oldSlot];
+        }
+    }
+
+    static int hash(long value) {
+        long mixed = value * 0x9E3779B97F4A7C15L;
+        return (int) (mixed ^ (mixed >>> 32));
+    }
+}
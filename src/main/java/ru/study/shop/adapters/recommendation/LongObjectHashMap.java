@@ -0,0 +1,103 @@
+package ru.study.shop.adapters.recommendation;
+
+import java.util.function.LongFunction;
+
+/**
+ * Open-addressing hash map from primitive longs to objects.
+ */
+final class LongObjectHashMap<V> {
+    private static final int MIN_CAPACITY = 16;
+    private static final long EMPTY_SLOT = 0L;
+
+    private long[] keys;
+    private Object[] values;
+    private V emptySlotKeyValue;
+    private int size = 0;
+
+    LongObjectHashMap() {
+        keys = new long[MIN_CAPACITY];
+        values = new Object[MIN_CAPACITY];
+    }
+
+    /**
+     * @return the value of the key, or null if the key is absent.
+     */
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        if (key == EMPTY_SLOT) {
+            return emptySlotKeyValue;
+        }
+
+        int mask = keys.length - 1;
+        int slot = LongIntHashMap.hash(key) & mask;
+        while (keys[slot] != EMPTY_SLOT) {
+            if (keys[slot] == key) {
+                return (V) values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        return null;
+    }
+
+    V computeIfAbsent(long key, LongFunction<V> valueFactory) {
+        V value = get(key);
+        if (value == null) {
+            value = valueFactory.apply(key);
+            put(key, value);
+        }
+
+        return value;
+    }
+
+    int size() {
+        return size;
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    // only called for absent keys
+    private void put(long key, V value) {
+        if (key == EMPTY_SLOT) {
+            emptySlotKeyValue = value;
+            size++;
+            return;
+        }
+
+        int mask = keys.length - 1;
+        int slot = LongIntHashMap.hash(key) & mask;
+        while (keys[slot] != EMPTY_SLOT) {
+            slot = (slot + 1) & mask;
+        }
+
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        if (size * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[capacity];
+        values = new Object[capacity];
+
+        int mask = capacity - 1;
+        for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++) {
+            if (oldKeys[oldSlot] == EMPTY_SLOT) {
+                continue;
+            }
+
+            int slot = LongIntHashMap.hash(oldKeys[oldSlot]) & mask;
+            while (keys[slot] != EMPTY_SLOT) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[oldSlot];
+            values[slot] = oldValues[oldSlot];
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package ru.study.shop.adapters.search;
+
+import java.util.Arrays;
+
+/**
+ * Documents containing a term with the weighted term frequency in each, ordered by document number.
+ * Postings of deleted documents stay until the index is compacted; <code>liveDocumentFrequency</code> excludes them.
+ */
+class PostingList {
+    private static final int INITIAL_CAPACITY = 4;
+
+    private int[] documents = new int[INITIAL_CAPACITY];
+    private float[] frequencies = new float[INITIAL_CAPACITY];
+    private int size = 0;
+    private int liveDocumentFrequency = 0;
+
+    void add(int document, float frequency) {
+        if (size == documents.length) {
+            documents = Arrays.copyOf(documents, size * 2);
+            frequencies = Arrays.copyOf(frequencies, size * 2);
+        }
+
+        documents[size] = document;
+        frequencies[size] = frequency;
+        size++;
+        liveDocumentFrequency++;
+    }
+
+    void documentDeleted() {
+        liveDocumentFrequency--;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int getDocument(int index) {
+        return documents[index];
+    }
+
+    float getFrequency(int index) {
+        return frequencies[index];
+    }
+
+    int getLiveDocumentFrequency() {
+        return liveDocumentFrequency;
+    }
+}
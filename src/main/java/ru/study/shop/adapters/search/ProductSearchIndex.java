@@ -0,0 +1,316 @@
+package ru.study.shop.adapters.search;
+
+import org.springframework.stereotype.Component;
+import ru.study.shop.adapters.hibernate.ProductRepository;
+import ru.study.shop.entities.Product;
+import ru.study.shop.services.interfaces.ProductChangeListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Embedded full-text index over product name, type, manufacturer and description.
+ * <p>
+ * Every product is a document; its text is analyzed by <code>RussianAnalyzer</code> into stemmed terms,
+ * and each term keeps a posting list of the documents containing it. Field matches are weighted
+ * (a name match counts more than a description match), and documents are ranked with BM25.
+ * Only the <code>limit</code> best documents are kept in a bounded heap while postings are scored,
+ * so a query never sorts all matching documents.
+ * <p>
+ * The index is loaded from the database on the first search and then kept up to date
+ * through <code>ProductChangeListener</code> notifications.
+ */
+@Component
+public class ProductSearchIndex implements ProductChangeListener {
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float TYPE_WEIGHT = 2.0f;
+    private static final float MANUFACTURER_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+
+    private static final double BM25_K1 = 1.2;
+    private static final double BM25_B = 0.75;
+
+    private static final int MIN_DELETED_DOCUMENTS_TO_COMPACT = 1000;
+
+    private final ProductRepository productRepository;
+    private final RussianAnalyzer analyzer = new RussianAnalyzer();
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<Product> documents = new ArrayList<>();
+    private float[] documentLengths = new float[0];
+    private final Map<Long, Integer> documentByProductId = new HashMap<>();
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private double totalLength = 0;
+    private int deletedDocuments = 0;
+
+    private volatile boolean loaded = false;
+
+    public ProductSearchIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * @return at most <code>limit</code> products matching any term of the query, best first.
+     */
+    public List<Product> search(String query, int limit) {
+        loadIfNotLoaded();
+
+        lock.readLock().lock();
+        try {
+            Set<String> terms = new LinkedHashSet<>(analyzer.analyze(query));
+            if (terms.isEmpty() || documentByProductId.isEmpty() || limit < 1) {
+                return new ArrayList<>();
+            }
+
+            return collectTopDocuments(score(terms), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentByProductId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void productsSaved(List<Product> savedProducts) {
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                savedProducts.forEach(this::putDocument);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void productsDeleted(List<Long> deletedProductIds) {
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                deletedProductIds.forEach(this::removeDocument);
+                compactIfNeeded();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops the index; it is loaded again on the next search.
+     */
+    @Override
+    public void productsChangedInBulk() {
+        lock.writeLock().lock();
+        try {
+            rebuild(new ArrayList<>());
+            loaded = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private void loadIfNotLoaded() {
+        if (loaded) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                rebuild(productRepository.findAll());
+                loaded = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void rebuild(List<Product> products) {
+        documents.clear();
+        documentLengths = new float[products.size()];
+        documentByProductId.clear();
+        postings.clear();
+        totalLength = 0;
+        deletedDocuments = 0;
+
+        products.forEach(this::putDocument);
+    }
+
+    private void compactIfNeeded() {
+        if (deletedDocuments >= MIN_DELETED_DOCUMENTS_TO_COMPACT && deletedDocuments > documentByProductId.size()) {
+            List<Product> liveDocuments = new ArrayList<>(documentByProductId.size());
+            documents.stream()
+                .filter(Objects::nonNull)
+                .forEach(liveDocuments::add);
+
+            rebuild(liveDocuments);
+        }
+    }
+
+    private void putDocument(Product product) {
+        removeDocument(product.getId());
+
+        Map<String, Float> termFrequencies = new HashMap<>();
+        float length = addFieldTerms(termFrequencies, product.getProductName(), NAME_WEIGHT)
+            + addFieldTerms(termFrequencies, product.getProductType(), TYPE_WEIGHT)
+            + addFieldTerms(termFrequencies, product.getManufacturer(), MANUFACTURER_WEIGHT)
+            + addFieldTerms(termFrequencies, product.getDescription(), DESCRIPTION_WEIGHT);
+
+        int document = documents.size();
+        documents.add(copyOf(product));
+        if (document == documentLengths.length) {
+            documentLengths = Arrays.copyOf(documentLengths, Math.max(16, document * 2));
+        }
+        documentLengths[document] = length;
+        documentByProductId.put(product.getId(), document);
+        totalLength += length;
+
+        termFrequencies.forEach((term, frequency) ->
+            postings.computeIfAbsent(term, t -> new PostingList()).add(document, frequency));
+    }
+
+    private void removeDocument(Long productId) {
+        Integer document = documentByProductId.remove(productId);
+        if (isNull(document)) {
+            return;
+        }
+
+        Product product = documents.set(document, null);
+        totalLength -= documentLengths[document];
+        deletedDocuments++;
+
+        Set<String> terms = new HashSet<>();
+        terms.addAll(analyzer.analyze(product.getProductName()));
+        terms.addAll(analyzer.analyze(product.getProductType()));
+        terms.addAll(analyzer.analyze(product.getManufacturer()));
+        terms.addAll(analyzer.analyze(product.getDescription()));
+        terms.forEach(term -> postings.get(term).documentDeleted());
+    }
+
+    private float addFieldTerms(Map<String, Float> termFrequencies, String text, float weight) {
+        List<String> terms = analyzer.analyze(text);
+        terms.forEach(term -> termFrequencies.merge(term, weight, Float::sum));
+
+        return terms.size() * weight;
+    }
+
+    private DocumentScores score(Set<String> terms) {
+        DocumentScores scores = new DocumentScores(documents.size());
+        int documentCount = documentByProductId.size();
+        double averageLength = totalLength / documentCount;
+
+        for (String term : terms) {
+            PostingList postingList = postings.get(term);
+            if (isNull(postingList) || postingList.getLiveDocumentFrequency() == 0) {
+                continue;
+            }
+
+            int documentFrequency = postingList.getLiveDocumentFrequency();
+            double idf = Math.log(1 + (documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+
+            for (int i = 0; i < postingList.size(); i++) {
+                int document = postingList.getDocument(i);
+                if (isNull(documents.get(document))) {
+                    continue;
+                }
+
+                double frequency = postingList.getFrequency(i);
+                double normalization = BM25_K1 * (1 - BM25_B + BM25_B * documentLengths[document] / averageLength);
+                scores.add(document, (float) (idf * frequency * (BM25_K1 + 1) / (frequency + normalization)));
+            }
+        }
+
+        return scores;
+    }
+
+    private List<Product> collectTopDocuments(DocumentScores scores, int limit) {
+        // The head of the heap is the worst of the kept documents: the lowest score, then the highest id.
+        Comparator<Integer> ranking = (first, second) -> {
+            int byScore = Float.compare(scores.get(first), scores.get(second));
+            return byScore != 0
+                ? byScore
+                : documents.get(second).getId().compareTo(documents.get(first).getId());
+        };
+        PriorityQueue<Integer> topDocuments = new PriorityQueue<>(limit, ranking);
+
+        for (int i = 0; i < scores.getMatchedCount(); i++) {
+            int document = scores.getMatched(i);
+
+            if (topDocuments.size() < limit) {
+                topDocuments.add(document);
+            } else if (ranking.compare(document, topDocuments.peek()) > 0) {
+                topDocuments.poll();
+                topDocuments.add(document);
+            }
+        }
+
+        Product[] result = new Product[topDocuments.size()];
+        for (int i = result.length - 1; i >= 0; i--) {
+            result[i] = documents.get(topDocuments.poll());
+        }
+
+        return new ArrayList<>(Arrays.asList(result));
+    }
+
+    private static Product copyOf(Product product) {
+        return new Product(
+            product.getId(),
+            product.getProductName(),
+            product.getProductType(),
+            product.getMaterial(),
+            product.getManufacturer(),
+            product.getDescription(),
+            product.getPrice());
+    }
+
+    /**
+     * Score accumulators of a query, with the list of documents that matched at least one term,
+     * so that top-k selection visits only matching documents.
+     */
+    private static class DocumentScores {
+        private final float[] scores;
+        private int[] matched = new int[16];
+        private int matchedCount = 0;
+
+        DocumentScores(int documentCount) {
+            this.scores = new float[documentCount];
+        }
+
+        void add(int document, float score) {
+            if (scores[document] == 0) {
+                if (matchedCount == matched.length) {
+                    matched = Arrays.copyOf(matched, matchedCount * 2);
+                }
+                matched[matchedCount++] = document;
+            }
+
+            scores[document] += score;
+        }
+
+        float get(int document) {
+            return scores[document];
+        }
+
+        int getMatchedCount() {
+            return matchedCount;
+        }
+
+        int getMatched(int index) {
+            return matched[index];
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package ru.study.shop.adapters.search;
+
+/**
+ * Distinct value of a product field offered by typeahead, with the number of orders of the products holding it.
+ */
+public final class ProductSuggestion {
+    private final String value;
+    private final String field;
+    private final long popularity;
+
+    public ProductSuggestion(String value, String field, long popularity) {
+        this.value = value;
+        this.field = field;
+        this.popularity = popularity;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * @return request parameter name of the field: name, type or manufacturer.
+     */
+    public String getField() {
+        return field;
+    }
+
+    public long getPopularity() {
+        return popularity;
+    }
+}
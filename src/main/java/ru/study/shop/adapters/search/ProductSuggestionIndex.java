@@ -0,0 +1,238 @@
+package ru.study.shop.adapters.search;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.study.shop.adapters.hibernate.OrderRepository;
+import ru.study.shop.adapters.hibernate.ProductRepository;
+import ru.study.shop.entities.Product;
+import ru.study.shop.services.interfaces.ProductChangeListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Typeahead over the distinct product names, types and manufacturers, ranked by the number of orders
+ * of the products holding them.
+ * <p>
+ * Lookups read an immutable <code>SuggestionTrie</code> without locking. Product writes update the field values
+ * kept per product and schedule a rebuild of the trie on a background thread; writes arriving while a rebuild
+ * is pending are folded into it. Order counts are reloaded every
+ * <code>shop.products.suggest.popularity-refresh-interval-ms</code>.
+ * <p>
+ * The index is loaded from the database on the first lookup.
+ */
+@Component
+public class ProductSuggestionIndex implements ProductChangeListener {
+    public static final int MAX_SUGGESTIONS = 10;
+
+    // order of the values kept per product
+    private static final String[] FIELDS = { "name", "type", "manufacturer" };
+
+    private final Supplier<List<Product>> productLoader;
+    private final Supplier<Map<Long, Long>> popularityLoader;
+    private final Executor rebuildExecutor;
+
+    private final Object lock = new Object();
+    private final Map<Long, String[]> valuesByProductId = new HashMap<>();
+    private Map<Long, Long> orderCountByProductId = new HashMap<>();
+    private boolean loaded = false;
+    private long generation = 0;
+
+    private final AtomicBoolean rebuildPending = new AtomicBoolean(false);
+    private volatile SuggestionTrie trie;
+
+    @Autowired
+    public ProductSuggestionIndex(ProductRepository productRepository, OrderRepository orderRepository) {
+        this(
+            productRepository::findAll,
+            () -> toOrderCounts(orderRepository.countOrdersByProduct(), orderRepository.countArchivedOrdersByProduct()),
+            Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "product-suggestion-rebuild");
+                thread.setDaemon(true);
+                return thread;
+            }));
+    }
+
+    /**
+     * @param popularityLoader order counts by product id.
+     * @param rebuildExecutor  runs trie rebuilds after writes.
+     */
+    public ProductSuggestionIndex(
+        Supplier<List<Product>> productLoader,
+        Supplier<Map<Long, Long>> popularityLoader,
+        Executor rebuildExecutor) {
+        this.productLoader = productLoader;
+        this.popularityLoader = popularityLoader;
+        this.rebuildExecutor = rebuildExecutor;
+    }
+
+    /**
+     * @return at most <code>limit</code> (and at most <code>MAX_SUGGESTIONS</code>) values having a word
+     * starting with the prefix, most ordered first. Matching ignores case.
+     */
+    public List<ProductSuggestion> suggest(String prefix, int limit) {
+        String normalizedPrefix = SuggestionTrie.normalize(prefix);
+        if (normalizedPrefix.isEmpty() || limit < 1) {
+            return new ArrayList<>();
+        }
+
+        SuggestionTrie currentTrie = trie;
+        if (isNull(currentTrie)) {
+            currentTrie = loadIfNotLoaded();
+        }
+
+        return currentTrie.lookup(normalizedPrefix, Math.min(limit, MAX_SUGGESTIONS));
+    }
+
+    /**
+     * Reloads order counts and rebuilds the trie with them; does nothing before the first lookup.
+     */
+    @Scheduled(
+        initialDelayString = "${shop.products.suggest.popularity-refresh-interval-ms}",
+        fixedDelayString = "${shop.products.suggest.popularity-refresh-interval-ms}")
+    public void refreshPopularity() {
+        synchronized (lock) {
+            if (!loaded) {
+                return;
+            }
+        }
+
+        Map<Long, Long> orderCounts = popularityLoader.get();
+        synchronized (lock) {
+            orderCountByProductId = orderCounts;
+        }
+        scheduleRebuild();
+    }
+
+    @Override
+    public void productsSaved(List<Product> savedProducts) {
+        synchronized (lock) {
+            if (!loaded) {
+                return;
+            }
+            savedProducts.forEach(this::putValues);
+        }
+        scheduleRebuild();
+    }
+
+    @Override
+    public void productsDeleted(List<Long> deletedProductIds) {
+        synchronized (lock) {
+            if (!loaded) {
+                return;
+            }
+            deletedProductIds.forEach(valuesByProductId::remove);
+        }
+        scheduleRebuild();
+    }
+
+    /**
+     * Drops the index; it is loaded again on the next lookup.
+     */
+    @Override
+    public void productsChangedInBulk() {
+        synchronized (lock) {
+            valuesByProductId.clear();
+            orderCountByProductId = new HashMap<>();
+            loaded = false;
+            generation++;
+            trie = null;
+        }
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private SuggestionTrie loadIfNotLoaded() {
+        synchronized (lock) {
+            if (!loaded) {
+                productLoader.get().forEach(this::putValues);
+                orderCountByProductId = popularityLoader.get();
+                loaded = true;
+                trie = SuggestionTrie.build(collectSuggestions(), MAX_SUGGESTIONS);
+            }
+            return trie;
+        }
+    }
+
+    private void scheduleRebuild() {
+        if (rebuildPending.compareAndSet(false, true)) {
+            rebuildExecutor.execute(this::rebuild);
+        }
+    }
+
+    private void rebuild() {
+        // cleared first, so that writes made while the trie is being built schedule another rebuild
+        rebuildPending.set(false);
+
+        List<ProductSuggestion> suggestions;
+        long builtGeneration;
+        synchronized (lock) {
+            if (!loaded) {
+                return;
+            }
+            suggestions = collectSuggestions();
+            builtGeneration = generation;
+        }
+
+        SuggestionTrie rebuiltTrie = SuggestionTrie.build(suggestions, MAX_SUGGESTIONS);
+
+        synchronized (lock) {
+            if (loaded && generation == builtGeneration) {
+                trie = rebuiltTrie;
+            }
+        }
+    }
+
+    private void putValues(Product product) {
+        valuesByProductId.put(product.getId(), new String[] {
+            product.getProductName(), product.getProductType(), product.getManufacturer() });
+    }
+
+    private List<ProductSuggestion> collectSuggestions() {
+        List<Map<String, Long>> popularityByValue = new ArrayList<>();
+        for (int i = 0; i < FIELDS.length; i++) {
+            popularityByValue.add(new HashMap<>());
+        }
+
+        valuesByProductId.forEach((productId, values) -> {
+            long orderCount = orderCountByProductId.getOrDefault(productId, 0L);
+            for (int i = 0; i < values.length; i++) {
+                if (nonNull(values[i])) {
+                    popularityByValue.get(i).merge(values[i], orderCount, Long::sum);
+                }
+            }
+        });
+
+        List<ProductSuggestion> suggestions = new ArrayList<>();
+        for (int i = 0; i < FIELDS.length; i++) {
+            String field = FIELDS[i];
+            popularityByValue.get(i).forEach((value, popularity) ->
+                suggestions.add(new ProductSuggestion(value, field, popularity)));
+        }
+
+        return suggestions;
+    }
+
+    private static Map<Long, Long> toOrderCounts(List<Object[]> liveRows, List<Object[]> archivedRows) {
+        Map<Long, Long> orderCounts = new HashMap<>(liveRows.size() * 2);
+        for (Object[] row : liveRows) {
+            orderCounts.put((Long) row[0], (Long) row[1]);
+        }
+        for (Object[] row : archivedRows) {
+            orderCounts.merge((Long) row[0], (Long) row[1], Long::sum);
+        }
+        return orderCounts;
+    }
+}
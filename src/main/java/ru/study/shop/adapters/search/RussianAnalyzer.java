@@ -0,0 +1,78 @@
+package ru.study.shop.adapters.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Turns text into index terms: splits on everything that is not a letter or a digit, lower-cases,
+ * folds <code>ё</code> into <code>е</code>, drops stop words and stems Cyrillic words.
+ * Latin words and numbers are kept as they are.
+ */
+class RussianAnalyzer {
+    private static final Set<String> STOP_WORDS = new HashSet<>(Arrays.asList(
+        "и", "в", "во", "не", "что", "на", "с", "со", "как", "а", "то", "по", "из", "для", "от", "до",
+        "у", "к", "ко", "о", "об", "же", "за", "но", "или", "при", "без", "над", "под"));
+
+    private final RussianStemmer stemmer = new RussianStemmer();
+
+    List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (isNull(text)) {
+            return terms;
+        }
+
+        int tokenStart = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean isTokenChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+
+            if (isTokenChar && tokenStart < 0) {
+                tokenStart = i;
+            } else if (!isTokenChar && tokenStart >= 0) {
+                addTerm(terms, text.substring(tokenStart, i));
+                tokenStart = -1;
+            }
+        }
+
+        return terms;
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private void addTerm(List<String> terms, String token) {
+        String word = normalize(token);
+
+        if (STOP_WORDS.contains(word)) {
+            return;
+        }
+
+        terms.add(isCyrillic(word) ? stemmer.stem(word) : word);
+    }
+
+    private static String normalize(String token) {
+        StringBuilder word = new StringBuilder(token.length());
+
+        for (int i = 0; i < token.length(); i++) {
+            char c = Character.toLowerCase(token.charAt(i));
+            word.append(c == 'ё' ? 'е' : c);
+        }
+
+        return word.toString();
+    }
+
+    private static boolean isCyrillic(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (Character.UnicodeBlock.of(word.charAt(i)) != Character.UnicodeBlock.CYRILLIC) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -0,0 +1,170 @@
+package ru.study.shop.adapters.search;
+
+/**
+ * Snowball stemming algorithm for Russian (https://snowballstem.org/algorithms/russian/stemmer.html).
+ * Expects a lower-cased word with <code>ё</code> already replaced by <code>е</code>.
+ */
+class RussianStemmer {
+    private static final String VOWELS = "аеиоуыэюя";
+
+    private static final String[] PERFECTIVE_GERUND_1 = {"вшись", "вши", "в"};
+    private static final String[] PERFECTIVE_GERUND_2 = {"ившись", "ывшись", "ивши", "ывши", "ив", "ыв"};
+    private static final String[] ADJECTIVE = {
+        "ими", "ыми", "его", "ого", "ему", "ому",
+        "ее", "ие", "ые", "ое", "ей", "ий", "ый", "ой", "ем", "им", "ым", "ом", "их", "ых", "ую", "юю", "ая", "яя", "ою", "ею"};
+    private static final String[] PARTICIPLE_1 = {"ем", "нн", "вш", "ющ", "щ"};
+    private static final String[] PARTICIPLE_2 = {"ивш", "ывш", "ующ"};
+    private static final String[] REFLEXIVE = {"ся", "сь"};
+    private static final String[] VERB_1 = {"ете", "йте", "ешь", "нно", "ла", "на", "ли", "ем", "ло", "но", "ет", "ют", "ны", "ть", "й", "л", "н"};
+    private static final String[] VERB_2 = {
+        "ейте", "уйте", "ила", "ыла", "ена", "ите", "или", "ыли", "ило", "ыло", "ено", "ует", "уют", "ены", "ить", "ыть", "ишь",
+        "ей", "уй", "ил", "ыл", "им", "ым", "ен", "ят", "ит", "ыт", "ую", "ю"};
+    private static final String[] NOUN = {
+        "иями", "ями", "ами", "ией", "иям", "ием", "иях",
+        "ев", "ов", "ие", "ье", "еи", "ии", "ей", "ой", "ий", "ям", "ем", "ам", "ом", "ах", "ях", "ию", "ью", "ия", "ья",
+        "а", "е", "и", "й", "о", "у", "ы", "ь", "ю", "я"};
+    private static final String[] SUPERLATIVE = {"ейше", "ейш"};
+    private static final String[] DERIVATIONAL = {"ость", "ост"};
+
+    private static final int NO_MATCH = -1;
+
+    String stem(String word) {
+        int rv = getRegionAfterFirstVowel(word, 0);
+        if (rv >= word.length()) {
+            return word;
+        }
+        int r2 = getR(word, getR(word, 0));
+
+        StringBuilder stem = new StringBuilder(word);
+
+        // Step 1
+        if (!removePrecededByAOrYa(stem, rv, PERFECTIVE_GERUND_1) && !remove(stem, rv, PERFECTIVE_GERUND_2)) {
+            remove(stem, rv, REFLEXIVE);
+
+            if (remove(stem, rv, ADJECTIVE)) {
+                if (!removePrecededByAOrYa(stem, rv, PARTICIPLE_1)) {
+                    remove(stem, rv, PARTICIPLE_2);
+                }
+            } else if (!removePrecededByAOrYa(stem, rv, VERB_1) && !remove(stem, rv, VERB_2)) {
+                remove(stem, rv, NOUN);
+            }
+        }
+
+        // Step 2
+        remove(stem, rv, new String[]{"и"});
+
+        // Step 3
+        remove(stem, r2, DERIVATIONAL);
+
+        // Step 4
+        if (remove(stem, rv, SUPERLATIVE)) {
+            undoubleN(stem, rv);
+        } else if (!undoubleN(stem, rv)) {
+            remove(stem, rv, new String[]{"ь"});
+        }
+
+        return stem.toString();
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private static boolean undoubleN(StringBuilder stem, int region) {
+        int length = stem.length();
+        if (length - 2 >= region && stem.charAt(length - 1) == 'н' && stem.charAt(length - 2) == 'н') {
+            stem.setLength(length - 1);
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Removes the longest of the endings found in the region.
+     */
+    private static boolean remove(StringBuilder stem, int region, String[] endings) {
+        int endingLength = findLongestEnding(stem, region, endings);
+        if (endingLength == NO_MATCH) {
+            return false;
+        }
+
+        stem.setLength(stem.length() - endingLength);
+        return true;
+    }
+
+    /**
+     * Removes the longest of the endings found in the region if it is preceded by <code>а</code> or <code>я</code>.
+     * Like in Snowball, a shorter ending is not tried when the longest one is not preceded by them.
+     */
+    private static boolean removePrecededByAOrYa(StringBuilder stem, int region, String[] endings) {
+        int endingLength = findLongestEnding(stem, region, endings);
+        if (endingLength == NO_MATCH) {
+            return false;
+        }
+
+        int precedingIndex = stem.length() - endingLength - 1;
+        if (precedingIndex < region) {
+            return false;
+        }
+
+        char preceding = stem.charAt(precedingIndex);
+        if (preceding != 'а' && preceding != 'я') {
+            return false;
+        }
+
+        stem.setLength(stem.length() - endingLength);
+        return true;
+    }
+
+    private static int findLongestEnding(CharSequence stem, int region, String[] endings) {
+        int longest = NO_MATCH;
+
+        for (String ending : endings) {
+            int start = stem.length() - ending.length();
+            if (ending.length() > longest && start >= region && endsWith(stem, ending)) {
+                longest = ending.length();
+            }
+        }
+
+        return longest;
+    }
+
+    private static boolean endsWith(CharSequence stem, String ending) {
+        int offset = stem.length() - ending.length();
+        for (int i = 0; i < ending.length(); i++) {
+            if (stem.charAt(offset + i) != ending.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static int getRegionAfterFirstVowel(String word, int from) {
+        for (int i = from; i < word.length(); i++) {
+            if (isVowel(word.charAt(i))) {
+                return i + 1;
+            }
+        }
+
+        return word.length();
+    }
+
+    /**
+     * @return start of the region after the first non-vowel following a vowel, searching from <code>from</code>.
+     */
+    private static int getR(String word, int from) {
+        for (int i = from + 1; i < word.length(); i++) {
+            if (!isVowel(word.charAt(i)) && isVowel(word.charAt(i - 1))) {
+                return i + 1;
+            }
+        }
+
+        return word.length();
+    }
+
+    private static boolean isVowel(char c) {
+        return VOWELS.indexOf(c) >= 0;
+    }
+}
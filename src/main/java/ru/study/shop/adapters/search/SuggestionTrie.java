@@ -0,0 +1,220 @@
+package ru.study.shop.adapters.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Immutable path-compressed trie from normalized keys to suggestions.
+ * <p>
+ * Suggestions are numbered by rank, most popular first, and every node stores the numbers of the
+ * <code>topK</code> best suggestions in its subtree. A lookup therefore walks the prefix once and copies
+ * at most <code>topK</code> entries, however many keys share the prefix.
+ * <p>
+ * A suggestion is reachable from its whole value and from the start of every word in it.
+ */
+final class SuggestionTrie {
+    private static final Comparator<ProductSuggestion> RANK_ORDER = Comparator
+        .comparingLong(ProductSuggestion::getPopularity).reversed()
+        .thenComparing(ProductSuggestion::getValue)
+        .thenComparing(ProductSuggestion::getField);
+
+    private final ProductSuggestion[] suggestions;
+    private final Node root;
+
+    private SuggestionTrie(ProductSuggestion[] suggestions, Node root) {
+        this.suggestions = suggestions;
+        this.root = root;
+    }
+
+    static SuggestionTrie build(List<ProductSuggestion> unrankedSuggestions, int topK) {
+        ProductSuggestion[] suggestions = unrankedSuggestions.toArray(new ProductSuggestion[0]);
+        Arrays.sort(suggestions, RANK_ORDER);
+
+        List<Key> keys = new ArrayList<>();
+        for (int rank = 0; rank < suggestions.length; rank++) {
+            String value = normalize(suggestions[rank].getValue());
+            if (value.isEmpty()) {
+                continue;
+            }
+
+            keys.add(new Key(value, rank));
+            for (int i = value.indexOf(' '); i >= 0; i = value.indexOf(' ', i + 1)) {
+                keys.add(new Key(value.substring(i + 1), rank));
+            }
+        }
+        // keys are added in rank order and the sort is stable, so keys with equal text stay in rank order
+        keys.sort(null);
+
+        Node root = keys.isEmpty()
+            ? new Node("", new char[0], new Node[0], new int[0])
+            : buildNode(keys, 0, keys.size(), 0, topK);
+
+        return new SuggestionTrie(suggestions, root);
+    }
+
+    /**
+     * Lower case, <code>ё</code> folded to <code>е</code>, whitespace runs collapsed into one space.
+     */
+    static String normalize(String text) {
+        StringBuilder normalized = new StringBuilder(text.length());
+
+        for (String word : text.trim().toLowerCase(Locale.ROOT).replace('ё', 'е').split("\\s+")) {
+            if (word.isEmpty()) {
+                continue;
+            }
+            if (normalized.length() > 0) {
+                normalized.append(' ');
+            }
+            normalized.append(word);
+        }
+
+        return normalized.toString();
+    }
+
+    /**
+     * @param prefix normalized.
+     * @return at most <code>limit</code> suggestions having a key starting with the prefix, best first.
+     */
+    List<ProductSuggestion> lookup(String prefix, int limit) {
+        Node node = root;
+        int position = 0;
+
+        while (true) {
+            int matched = Math.min(node.label.length(), prefix.length() - position);
+            if (!prefix.regionMatches(position, node.label, 0, matched)) {
+                return new ArrayList<>();
+            }
+
+            position += matched;
+            if (position == prefix.length()) {
+                return getSuggestions(node.top, limit);
+            }
+
+            int child = Arrays.binarySearch(node.childChars, prefix.charAt(position));
+            if (child < 0) {
+                return new ArrayList<>();
+            }
+            node = node.children[child];
+        }
+    }
+
+    int size() {
+        return suggestions.length;
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private List<ProductSuggestion> getSuggestions(int[] ranks, int limit) {
+        int count = Math.min(ranks.length, limit);
+        List<ProductSuggestion> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(suggestions[ranks[i]]);
+        }
+        return result;
+    }
+
+    /**
+     * Builds the node for sorted keys <code>[from, to)</code>, which share their first <code>depth</code> characters.
+     */
+    private static Node buildNode(List<Key> keys, int from, int to, int depth, int topK) {
+        String first = keys.get(from).text;
+        String last = keys.get(to - 1).text;
+
+        // keys are sorted, so the common prefix of the first and the last key is common to all of them
+        int end = depth;
+        while (end < first.length() && end < last.length() && first.charAt(end) == last.charAt(end)) {
+            end++;
+        }
+
+        // keys ending here come first, in rank order, so only the first topK of them can make it into the top
+        int next = from;
+        while (next < to && keys.get(next).text.length() == end) {
+            next++;
+        }
+        int[] candidates = new int[Math.min(next - from, topK)];
+        for (int i = 0; i < candidates.length; i++) {
+            candidates[i] = keys.get(from + i).rank;
+        }
+
+        List<Character> childChars = new ArrayList<>();
+        List<Node> children = new ArrayList<>();
+        while (next < to) {
+            char c = keys.get(next).text.charAt(end);
+            int groupEnd = next;
+            while (groupEnd < to && keys.get(groupEnd).text.charAt(end) == c) {
+                groupEnd++;
+            }
+
+            Node child = buildNode(keys, next, groupEnd, end, topK);
+            childChars.add(c);
+            children.add(child);
+            candidates = merge(candidates, child.top);
+            next = groupEnd;
+        }
+
+        char[] chars = new char[childChars.size()];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = childChars.get(i);
+        }
+
+        return new Node(
+            first.substring(depth, end),
+            chars,
+            children.toArray(new Node[0]),
+            topDistinct(candidates, topK));
+    }
+
+    private static int[] merge(int[] left, int[] right) {
+        int[] result = Arrays.copyOf(left, left.length + right.length);
+        System.arraycopy(right, 0, result, left.length, right.length);
+        return result;
+    }
+
+    private static int[] topDistinct(int[] ranks, int topK) {
+        int[] sorted = ranks.clone();
+        Arrays.sort(sorted);
+
+        int count = 0;
+        for (int i = 0; i < sorted.length && count < topK; i++) {
+            if (count == 0 || sorted[count - 1] != sorted[i]) {
+                sorted[count++] = sorted[i];
+            }
+        }
+
+        return Arrays.copyOf(sorted, count);
+    }
+
+    private static final class Key implements Comparable<Key> {
+        private final String text;
+        private final int rank;
+
+        private Key(String text, int rank) {
+            this.text = text;
+            this.rank = rank;
+        }
+
+        @Override
+        public int compareTo(Key other) {
+            return text.compareTo(other.text);
+        }
+    }
+
+    private static final class Node {
+        private final String label;
+        private final char[] childChars;
+        private final Node[] children;
+        private final int[] top;
+
+        private Node(String label, char[] childChars, Node[] children, int[] top) {
+            this.label = label;
+            this.childChars = childChars;
+            this.children = children;
+            this.top = top;
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package ru.study.shop.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.study.shop.adapters.controllers.utils.http_caching.CatalogVersionETagInterceptor;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final CatalogVersionETagInterceptor catalogVersionETagInterceptor;
+
+    @Autowired
+    public WebConfig(CatalogVersionETagInterceptor catalogVersionETagInterceptor) {
+        this.catalogVersionETagInterceptor = catalogVersionETagInterceptor;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(catalogVersionETagInterceptor);
+    }
+}
@@ -4,18 +4,27 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 
 @Entity
 @Table(name = "customer")
+// customers of orders read by native queries, which take no entity graph, are loaded for a page at once
+@BatchSize(size = Order.FETCH_BATCH_SIZE)
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
 @Setter
 public class Customer {
     @Id
-    @GeneratedValue(strategy =  GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "customer_seq")
+    @GenericGenerator(
+        name = "customer_seq",
+        strategy = "ru.study.shop.adapters.hibernate.impl.id_generation.PooledLoSequenceGenerator",
+        parameters = @Parameter(name = "sequence_name", value = "customer_seq"))
     private Long id;
 
     private String firstName;
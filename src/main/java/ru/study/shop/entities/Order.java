@@ -1,26 +1,52 @@
 package ru.study.shop.entities;
 
 import com.fasterxml.jackson.annotation.*;
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.isNull;
 
 @Entity
 @Table(name = "orders")
+@NamedEntityGraph(name = Order.WITH_CUSTOMER_GRAPH, attributeNodes = @NamedAttributeNode("customer"))
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
 @Setter
-@JsonPropertyOrder({"orderId", "customerId", "products", "orderedTime", "delivered"})
+@JsonPropertyOrder({"orderId", "customerId", "lines", "totalPrice", "orderedTime", "delivered"})
 public class Order {
+    /**
+     * Fetches the customer with the orders. Lines are left to batch fetching, as fetching a collection with
+     * a page of orders makes Hibernate read all matching orders and page them in memory.
+     */
+    public static final String WITH_CUSTOMER_GRAPH = "Order.withCustomer";
+
+    /**
+     * Lazy associations initialized with one statement, the largest page of orders served: lines of that many
+     * orders, or that many customers or products.
+     */
+    public static final int FETCH_BATCH_SIZE = 200;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @GenericGenerator(
+        name = "orders_seq",
+        strategy = "ru.study.shop.adapters.hibernate.impl.id_generation.PooledLoSequenceGenerator",
+        parameters = @Parameter(name = "sequence_name", value = "orders_seq"))
     @JsonProperty("orderId")
     private Long id;
 
@@ -31,23 +57,85 @@ public class Order {
     @JsonProperty("customerId")
     private Customer customer;
 
-    @ManyToMany(fetch = FetchType.LAZY)
-    @JoinTable(
-        name = "orders_product",
-        joinColumns = @JoinColumn(name = "order_id"),
-        inverseJoinColumns = @JoinColumn(name = "product_id")
-    )
-    @JsonProperty(value = "products")
-    private List<Product> productList = new ArrayList<>();
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
+    @BatchSize(size = FETCH_BATCH_SIZE)
+    @JsonProperty(value = "lines")
+    private List<OrderLine> lines = new ArrayList<>();
+
+    /**
+     * Sum of the line prices, kept up to date by <code>setLines</code> and <code>addLine</code> so that totals are
+     * read and filtered on without loading the lines.
+     */
+    @Setter(AccessLevel.NONE)
+    private long totalPrice;
 
     private LocalDateTime orderedTime;
 
     private boolean delivered;
 
-    public Order(Customer customer, List<Product> productList, LocalDateTime orderedTime, boolean delivered) {
+    public Order(Customer customer, List<OrderLine> lines, LocalDateTime orderedTime, boolean delivered) {
         this.customer = customer;
-        this.productList = productList;
         this.orderedTime = orderedTime;
         this.delivered = delivered;
+        setLines(lines);
+    }
+
+    /**
+     * Makes the order consist of the lines. A line for a product the order already has only updates
+     * the quantity and unit price of the existing line, so that its row is updated rather than deleted and
+     * inserted again.
+     */
+    public void setLines(List<OrderLine> newLines) {
+        if (newLines == lines) {
+            return;
+        }
+
+        Map<Long, OrderLine> newLineByProductId = new LinkedHashMap<>();
+        List<OrderLine> linesWithoutProductId = new ArrayList<>();
+        for (OrderLine newLine : newLines) {
+            Long productId = newLine.getProduct().getId();
+            if (isNull(productId)) {
+                linesWithoutProductId.add(newLine);
+            } else {
+                newLineByProductId.put(productId, newLine);
+            }
+        }
+
+        Iterator<OrderLine> iterator = lines.iterator();
+        while (iterator.hasNext()) {
+            OrderLine line = iterator.next();
+            // a line of a deleted product has no product and is never kept
+            OrderLine newLine = isNull(line.getProduct()) ? null : newLineByProductId.remove(line.getProduct().getId());
+            if (isNull(newLine)) {
+                iterator.remove();
+            } else if (newLine != line) {
+                line.setProductName(newLine.getProductName());
+                line.setQuantity(newLine.getQuantity());
+                line.setUnitPrice(newLine.getUnitPrice());
+            }
+        }
+
+        newLineByProductId.values().forEach(this::addLine);
+        linesWithoutProductId.forEach(this::addLine);
+        updateTotalPrice();
+    }
+
+    public void addLine(OrderLine line) {
+        line.setOrder(this);
+        lines.add(line);
+        totalPrice += line.getTotalPrice();
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private void updateTotalPrice() {
+        long newTotalPrice = 0L;
+        for (OrderLine line : lines) {
+            newTotalPrice += line.getTotalPrice();
+        }
+
+        totalPrice = newTotalPrice;
     }
 }
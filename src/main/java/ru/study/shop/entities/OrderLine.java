@@ -0,0 +1,71 @@
+package ru.study.shop.entities;
+
+import com.fasterxml.jackson.annotation.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import javax.persistence.*;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Product of an order with the number of units ordered and the name and price of one unit when it was ordered.
+ * The product is null once it has been deleted; the line itself stays with the order.
+ */
+@Entity
+@Table(name = "order_line")
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+@JsonPropertyOrder({"productId", "productName", "quantity", "unitPrice"})
+public class OrderLine {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_line_seq")
+    @GenericGenerator(
+        name = "order_line_seq",
+        strategy = "ru.study.shop.adapters.hibernate.impl.id_generation.PooledLoSequenceGenerator",
+        parameters = @Parameter(name = "sequence_name", value = "order_line_seq"))
+    @JsonIgnore
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id")
+    @JsonIgnore
+    private Order order;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "product_id")
+    @JsonIdentityInfo(generator = ObjectIdGenerators.PropertyGenerator.class, property = "id")
+    @JsonIdentityReference(alwaysAsId = true)
+    @JsonProperty("productId")
+    private Product product;
+
+    private String productName;
+
+    private int quantity;
+
+    private Long unitPrice;
+
+    /**
+     * Takes the current name and price of the product.
+     */
+    public OrderLine(Product product, int quantity) {
+        this.product = product;
+        this.productName = product.getProductName();
+        this.quantity = quantity;
+        this.unitPrice = product.getPrice();
+    }
+
+    /**
+     * @return price of all units of the line; 0 if the product had no price.
+     */
+    @JsonIgnore
+    public long getTotalPrice() {
+        return isNull(unitPrice) ? 0L : unitPrice * quantity;
+    }
+}
@@ -4,18 +4,27 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 
 @Entity
 @Table(name = "PRODUCT")
+// products of order lines are serialized with the lines, and are loaded for a whole page of orders at once
+@BatchSize(size = Order.FETCH_BATCH_SIZE)
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
 @Setter
 public class Product {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @GenericGenerator(
+        name = "product_seq",
+        strategy = "ru.study.shop.adapters.hibernate.impl.id_generation.PooledLoSequenceGenerator",
+        parameters = @Parameter(name = "sequence_name", value = "product_seq"))
     private Long id;
 
     private String productName;
@@ -0,0 +1,38 @@
+package ru.study.shop.entities;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+/**
+ * Value of a large list constraint, written for the duration of a single query so that the query
+ * can join the list instead of binding every value as a separate parameter.
+ * The table is a local temporary table created on the querying connection, not part of the schema.
+ */
+@Entity
+@Table(name = "QUERY_FILTER_VALUE")
+@IdClass(QueryFilterValue.Key.class)
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class QueryFilterValue {
+    @Id
+    private Long filterId;
+
+    @Id
+    private Long filterValue;
+
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @EqualsAndHashCode
+    public static class Key implements Serializable {
+        private Long filterId;
+        private Long filterValue;
+    }
+}
@@ -5,20 +5,29 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
 import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.Parameter;
 
 import javax.persistence.*;
 
 @Entity
 @Table(name = "STOCK")
+@NamedEntityGraph(name = Stock.WITH_PRODUCT_GRAPH, attributeNodes = @NamedAttributeNode("product"))
 @NoArgsConstructor
 @AllArgsConstructor
 @Getter
 @Setter
 @JsonPropertyOrder({"productId", "size", "quantity"})
 public class Stock {
+    public static final String WITH_PRODUCT_GRAPH = "Stock.withProduct";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_seq")
+    @GenericGenerator(
+        name = "stock_seq",
+        strategy = "ru.study.shop.adapters.hibernate.impl.id_generation.PooledLoSequenceGenerator",
+        parameters = @Parameter(name = "sequence_name", value = "stock_seq"))
     @JsonIgnore
     private Long id;
 
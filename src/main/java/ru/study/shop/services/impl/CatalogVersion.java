@@ -0,0 +1,79 @@
+package ru.study.shop.services.impl;
+
+import org.springframework.stereotype.Component;
+import ru.study.shop.entities.Product;
+import ru.study.shop.services.interfaces.ProductChangeListener;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Monotonically increasing version of the product catalog, bumped after every product write
+ * through <code>ProductServiceImpl</code>; every product also remembers the version of its last change.
+ * <p>
+ * Versions restart with the application, so they are qualified by the start time in ETags.
+ */
+@Component
+public class CatalogVersion implements ProductChangeListener {
+    private final long epoch = System.currentTimeMillis();
+
+    private final AtomicLong version = new AtomicLong();
+
+    private final ConcurrentMap<Long, Long> productVersions = new ConcurrentHashMap<>();
+
+    /**
+     * Version of the last bulk change, which may have touched any product.
+     */
+    private volatile long bulkChangeVersion = 0;
+
+    public long getVersion() {
+        return version.get();
+    }
+
+    public long getProductVersion(Long productId) {
+        return Math.max(productVersions.getOrDefault(productId, 0L), bulkChangeVersion);
+    }
+
+    /**
+     * @return strong entity tag of everything derived from the whole catalog.
+     */
+    public String getCatalogETag() {
+        return "\"" + epoch + "-" + getVersion() + "\"";
+    }
+
+    /**
+     * @return strong entity tag of everything derived from a single product.
+     */
+    public String getProductETag(Long productId) {
+        return "\"" + epoch + "-p" + productId + "-" + getProductVersion(productId) + "\"";
+    }
+
+    @Override
+    public void productsSaved(List<Product> savedProducts) {
+        bump(savedProducts.stream()
+            .map(Product::getId)
+            .collect(Collectors.toList()));
+    }
+
+    @Override
+    public void productsDeleted(List<Long> deletedProductIds) {
+        bump(deletedProductIds);
+    }
+
+    @Override
+    public void productsChangedInBulk() {
+        bulkChangeVersion = version.incrementAndGet();
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private void bump(List<Long> productIds) {
+        long newVersion = version.incrementAndGet();
+        productIds.forEach(productId -> productVersions.put(productId, newVersion));
+    }
+}
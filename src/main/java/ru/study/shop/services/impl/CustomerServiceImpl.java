@@ -5,6 +5,7 @@ import ru.study.shop.adapters.hibernate.CustomerRepository;
 import ru.study.shop.entities.Customer;
 import ru.study.shop.services.interfaces.CustomerService;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,4 +26,9 @@ public class CustomerServiceImpl implements CustomerService {
     public Optional<Customer> findById(Long id) {
         return customerRepository.findById(id);
     }
+
+    @Override
+    public List<Customer> findAllById(Collection<Long> ids) {
+        return customerRepository.findAllById(ids);
+    }
 }
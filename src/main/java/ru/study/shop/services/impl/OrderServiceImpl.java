@@ -1,23 +1,53 @@
 package ru.study.shop.services.impl;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import ru.study.shop.adapters.controllers.order_delivery.DeliveryQueueController;
 import ru.study.shop.adapters.hibernate.OrderRepository;
+import ru.study.shop.adapters.hibernate.impl.query_classes.CustomerOrderSummary;
+import ru.study.shop.adapters.hibernate.impl.query_classes.OrderPage;
+import ru.study.shop.adapters.hibernate.impl.query_classes.OrderPartition;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductOrderCount;
 import ru.study.shop.entities.Customer;
 import ru.study.shop.entities.Order;
 import ru.study.shop.entities.Product;
 import ru.study.shop.services.interfaces.OrderService;
 
+import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 
 @Service
 @Transactional
 public class OrderServiceImpl implements OrderService {
+    public static final int EXPORT_BATCH_SIZE = 500;
+
+    // bounds of an unbounded time range; inside the range of SQL timestamps, unlike LocalDateTime.MIN and MAX
+    private static final LocalDateTime EARLIEST_ORDERED_TIME = LocalDateTime.of(1, 1, 1, 0, 0);
+    private static final LocalDateTime LATEST_ORDERED_TIME = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+    private static final long NO_ORDER_ID = 0L;
+
+    private static final Comparator<Order> ORDERED_TIME_ORDER =
+        Comparator.comparing(Order::getOrderedTime).thenComparing(Order::getId);
+    private static final Comparator<Order> LATEST_FIRST_ORDER = ORDERED_TIME_ORDER.reversed();
+    private static final Comparator<Order> MOST_EXPENSIVE_FIRST_ORDER =
+        Comparator.comparing(Order::getTotalPrice).thenComparing(Order::getId).reversed();
 
     @Autowired
     private final OrderRepository orderRepository;
@@ -25,9 +55,15 @@ public class OrderServiceImpl implements OrderService {
     @Autowired
     private final DeliveryQueueController deliveryQueueController;
 
-    public OrderServiceImpl(OrderRepository orderRepository, DeliveryQueueController deliveryQueueController) {
+    private final EntityManager entityManager;
+
+    public OrderServiceImpl(
+        OrderRepository orderRepository,
+        DeliveryQueueController deliveryQueueController,
+        EntityManager entityManager) {
         this.orderRepository = orderRepository;
         this.deliveryQueueController = deliveryQueueController;
+        this.entityManager = entityManager;
     }
 
     @Override
@@ -40,31 +76,141 @@ public class OrderServiceImpl implements OrderService {
         return orderRepository.findById(orderId);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Order> findByIdWithArchived(Long orderId) {
+        Optional<Order> order = orderRepository.findById(orderId);
+
+        return order.isPresent() ? order : orderRepository.findArchivedById(orderId);
+    }
+
     @Override
     public List<Order> findAllFromDate(LocalDateTime fromDate) {
-        System.out.println("IN ALL FROM DATE");
-        return orderRepository.findAllFromDate(fromDate);
+        return withArchivedOrders(orderRepository.findAllFromDate(fromDate), fromDate, null);
     }
 
     @Override
     public List<Order> findAllToDate(LocalDateTime toDate) {
-        System.out.println("IN ALL TO DATE");
-
-        return orderRepository.findAllToDate(toDate);
+        return withArchivedOrders(orderRepository.findAllToDate(toDate), null, toDate);
     }
 
     @Override
     public List<Order> findAllFromToDate(LocalDateTime from, LocalDateTime to) {
-        System.out.println("IN ALL FROM TO DATE");
-        return orderRepository.findAllFromDateToDate(from, to);
+        return withArchivedOrders(orderRepository.findAllFromDateToDate(from, to), from, to);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public OrderPage findPage(LocalDateTime from, LocalDateTime to, int limit, LocalDateTime afterTime, Long afterId) {
+        List<Order> lookahead = findOrdersAfter(from, to, afterTime, afterId, limit + 1);
+
+        return OrderPage.fromLookahead(lookahead, limit);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void forEachOrder(LocalDateTime from, LocalDateTime to, Consumer<Order> action) {
+        LocalDateTime afterTime = null;
+        Long afterId = null;
+
+        while (true) {
+            List<Order> orders = findOrdersAfter(from, to, afterTime, afterId, EXPORT_BATCH_SIZE);
+            orders.forEach(action);
+
+            if (orders.size() < EXPORT_BATCH_SIZE) {
+                break;
+            }
+
+            Order lastOrder = orders.get(orders.size() - 1);
+            afterTime = lastOrder.getOrderedTime();
+            afterId = lastOrder.getId();
+            // the exported batch is no longer needed; without this the persistence context would keep every order
+            entityManager.clear();
+        }
     }
 
     @Override
     public List<Order> findByCustomer(Customer customer) {
-        return orderRepository.findAll()
-            .stream()
-            .filter(order -> order.getCustomer().equals(customer))
-            .collect(Collectors.toList());
+        if (isNull(customer) || isNull(customer.getId())) {
+            return new ArrayList<>();
+        }
+
+        List<Order> liveOrders = orderRepository.findByCustomerId(customer.getId(), Pageable.unpaged());
+        List<Order> archivedOrders = orderRepository.findArchivedByCustomerId(customer.getId(), Integer.MAX_VALUE);
+        if (archivedOrders.isEmpty()) {
+            return liveOrders;
+        }
+
+        return mergePage(liveOrders, archivedOrders, LATEST_FIRST_ORDER, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Order> findByCustomer(Long customerId, int page, int pageSize) {
+        List<Order> archivedOrders = orderRepository.findArchivedByCustomerId(customerId, getMaxOrders(page, pageSize));
+        if (archivedOrders.isEmpty()) {
+            return orderRepository.findByCustomerId(customerId, PageRequest.of(page, pageSize));
+        }
+
+        List<Order> liveOrders = orderRepository.findByCustomerId(
+            customerId, PageRequest.of(0, getMaxOrders(page, pageSize)));
+        return mergePage(liveOrders, archivedOrders, LATEST_FIRST_ORDER, page, pageSize);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CustomerOrderSummary summarizeByCustomer(Long customerId) {
+        Object[] orders = orderRepository.summarizeByCustomerId(customerId).get(0);
+        Long productCount = orderRepository.countProductsByCustomerId(customerId);
+
+        CustomerOrderSummary liveSummary = new CustomerOrderSummary(
+            customerId,
+            ((Number) orders[0]).longValue(),
+            ((Number) orders[1]).longValue(),
+            productCount,
+            ((Number) orders[2]).longValue(),
+            (LocalDateTime) orders[3],
+            (LocalDateTime) orders[4]);
+        return liveSummary.plus(orderRepository.summarizeArchivedByCustomerId(customerId));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Order> findByMinTotalPrice(Long minTotalPrice, int page, int pageSize) {
+        List<Order> archivedOrders = orderRepository.findArchivedByTotalPriceAtLeast(
+            minTotalPrice, getMaxOrders(page, pageSize));
+        if (archivedOrders.isEmpty()) {
+            return orderRepository.findByTotalPriceAtLeast(minTotalPrice, PageRequest.of(page, pageSize));
+        }
+
+        List<Order> liveOrders = orderRepository.findByTotalPriceAtLeast(
+            minTotalPrice, PageRequest.of(0, getMaxOrders(page, pageSize)));
+        return mergePage(liveOrders, archivedOrders, MOST_EXPENSIVE_FIRST_ORDER, page, pageSize);
+    }
+
+    @Override
+    public List<OrderPartition> findPartitions() {
+        return orderRepository.findPartitions();
+    }
+
+    /**
+     * Runs outside of a transaction, so that the tables of the month are created and committed
+     * before the orders are moved into them in a transaction of their own.
+     */
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public OrderPartition archiveMonth(YearMonth month) {
+        if (!month.isBefore(YearMonth.now())) {
+            throw new IllegalArgumentException("only past months can be archived");
+        }
+
+        orderRepository.createPartitionTables(month);
+        return orderRepository.archivePartition(month);
+    }
+
+    @Override
+    public boolean dropArchivedMonth(YearMonth month) {
+        return orderRepository.dropPartition(month);
     }
 
     @Override
@@ -74,10 +220,40 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     public List<Order> findByProduct(Product product) {
-        return orderRepository.findAll()
-            .stream()
-            .filter(order -> order.getProductList().contains(product))
-            .collect(Collectors.toList());
+        if (isNull(product) || isNull(product.getId())) {
+            return new ArrayList<>();
+        }
+
+        List<Order> liveOrders = orderRepository.findByProductId(product.getId(), Pageable.unpaged());
+        List<Order> archivedOrders = orderRepository.findArchivedByProductId(product.getId(), Integer.MAX_VALUE);
+        if (archivedOrders.isEmpty()) {
+            return liveOrders;
+        }
+
+        return mergePage(liveOrders, archivedOrders, LATEST_FIRST_ORDER, 0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Order> findByProduct(Long productId, int page, int pageSize) {
+        List<Order> archivedOrders = orderRepository.findArchivedByProductId(productId, getMaxOrders(page, pageSize));
+        if (archivedOrders.isEmpty()) {
+            return orderRepository.findByProductId(productId, PageRequest.of(page, pageSize));
+        }
+
+        List<Order> liveOrders = orderRepository.findByProductId(
+            productId, PageRequest.of(0, getMaxOrders(page, pageSize)));
+        return mergePage(liveOrders, archivedOrders, LATEST_FIRST_ORDER, page, pageSize);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ProductOrderCount countByProduct(Long productId) {
+        Object[] counts = orderRepository.countByProductId(productId).get(0);
+
+        ProductOrderCount liveCount = new ProductOrderCount(
+            productId, ((Number) counts[0]).longValue(), ((Number) counts[1]).longValue());
+        return liveCount.plus(orderRepository.countArchivedByProductId(productId));
     }
 
     @Override
@@ -98,17 +274,101 @@ public class OrderServiceImpl implements OrderService {
         return savedOrder;
     }
 
+    @Override
+    public List<Order> saveNewOrders(List<Order> orders) {
+        if (orders.isEmpty()) {
+            return orders;
+        }
+
+        // ids are taken from the pooled generators, so the inserts are sent in JDBC batches at flush
+        List<Order> savedOrders = orderRepository.saveAll(orders);
+        // the batched inserts may still fail at commit; delivery is only requested for orders that were stored
+        runAfterCommit(() -> deliveryQueueController.setToDelivery(savedOrders, true));
+
+        return savedOrders;
+    }
+
     @Override
     public Long getTotalPrice(Order order) {
-        return order.getProductList().stream()
-            .map(Product::getPrice)
-            .collect(Collectors.toList())
-            .stream()
-            .reduce((long) 0, (Long::sum));
+        return order.getTotalPrice();
     }
 
     @Override
     public void deleteOrder(Order order) {
         orderRepository.delete(order);
     }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private List<Order> findOrdersAfter(
+        LocalDateTime from, LocalDateTime to, LocalDateTime afterTime, Long afterId, int maxOrders) {
+        if (isNull(afterTime) || isNull(afterId) || (nonNull(from) && afterTime.isBefore(from))) {
+            afterTime = isNull(from) ? EARLIEST_ORDERED_TIME : from;
+            afterId = NO_ORDER_ID;
+        }
+
+        LocalDateTime toTime = isNull(to) ? LATEST_ORDERED_TIME : to;
+        List<Order> liveOrders = orderRepository.findPageAfter(afterTime, afterId, toTime, PageRequest.of(0, maxOrders));
+        List<Order> archivedOrders = orderRepository.findArchivedPageAfter(afterTime, afterId, toTime, maxOrders);
+        if (archivedOrders.isEmpty()) {
+            return liveOrders;
+        }
+
+        // orders placed in an archived month after it was archived are live, so both lists may hold the same times
+        return Stream.concat(liveOrders.stream(), archivedOrders.stream())
+            .sorted(ORDERED_TIME_ORDER)
+            .limit(maxOrders)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * @return number of orders read from the live and from the archived tables to merge the page from.
+     */
+    private static int getMaxOrders(int page, int pageSize) {
+        return (int) Math.min(Integer.MAX_VALUE, ((long) page + 1) * pageSize);
+    }
+
+    /**
+     * @param liveOrders     first live orders in the page order, at least up to the end of the page.
+     * @param archivedOrders first archived orders in the page order, at least up to the end of the page.
+     */
+    private static List<Order> mergePage(
+        List<Order> liveOrders, List<Order> archivedOrders, Comparator<Order> pageOrder, int page, int pageSize) {
+        return Stream.concat(liveOrders.stream(), archivedOrders.stream())
+            .sorted(pageOrder)
+            .skip((long) page * pageSize)
+            .limit(pageSize)
+            .collect(Collectors.toList());
+    }
+
+    private List<Order> withArchivedOrders(List<Order> liveOrders, LocalDateTime from, LocalDateTime to) {
+        List<Order> archivedOrders = orderRepository.findArchivedPageAfter(
+            isNull(from) ? EARLIEST_ORDERED_TIME : from,
+            NO_ORDER_ID,
+            isNull(to) ? LATEST_ORDERED_TIME : to,
+            Integer.MAX_VALUE);
+        if (archivedOrders.isEmpty()) {
+            return liveOrders;
+        }
+
+        List<Order> orders = new ArrayList<>(liveOrders);
+        orders.addAll(archivedOrders);
+        return orders;
+    }
 }
@@ -0,0 +1,99 @@
+package ru.study.shop.services.impl;
+
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductPageRequest;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductProjection;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryField;
+import ru.study.shop.adapters.hibernate.impl.query_classes.constraint_classes.Constraint;
+import ru.study.shop.adapters.hibernate.impl.query_classes.constraint_classes.ConstraintType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Canonical form of a product query: constraint lists are sorted and deduplicated,
+ * so constraints listing the same values in another order share a key,
+ * and a boolean filter is keyed by its normalized form.
+ * <p>
+ * The key is scoped to the cache generation it was built in.
+ */
+final class ProductQueryCacheKey {
+    private static final String UNPAGED = "unpaged";
+
+    private final List<Object> components;
+    private final int hashCode;
+
+    private ProductQueryCacheKey(List<Object> components) {
+        this.components = components;
+        this.hashCode = components.hashCode();
+    }
+
+    static ProductQueryCacheKey of(
+        long generation,
+        ProductQueryConstraints constraints,
+        ProductPageRequest pageRequest,
+        ProductProjection projection) {
+
+        List<Object> components = new ArrayList<>();
+        components.add(generation);
+
+        for (ProductQueryField field : ProductQueryField.values()) {
+            components.add(isNull(constraints) || !field.isConstrained(constraints)
+                ? null
+                : getCanonicalConstraint(field.getConstraint(constraints)));
+        }
+        components.add(isNull(constraints) || !constraints.hasFilter() ? null : constraints.getFilter().toString());
+
+        if (isNull(pageRequest)) {
+            components.add(UNPAGED);
+        } else {
+            components.add(pageRequest.getSortField());
+            components.add(pageRequest.getLimit());
+            components.add(pageRequest.hasAfter() ? pageRequest.getAfter().encode() : null);
+        }
+
+        components.add(isNull(projection) ? null : projection.getAttributes());
+
+        return new ProductQueryCacheKey(Collections.unmodifiableList(components));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ProductQueryCacheKey)) {
+            return false;
+        }
+        ProductQueryCacheKey that = (ProductQueryCacheKey) o;
+        return hashCode == that.hashCode && components.equals(that.components);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        return components.toString();
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static Object getCanonicalConstraint(Constraint<?> constraint) {
+        if (constraint.getConstraintType() == ConstraintType.RANGE) {
+            return Arrays.asList(constraint.getFrom(), constraint.getTo());
+        }
+        // a set, unlike a list, never equals a range of two values
+        return new TreeSet(constraint.getConstraintList());
+    }
+}
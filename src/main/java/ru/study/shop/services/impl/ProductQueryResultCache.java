@@ -0,0 +1,112 @@
+package ru.study.shop.services.impl;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductPage;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductPageRequest;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductProjection;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints;
+import ru.study.shop.entities.Product;
+import ru.study.shop.services.interfaces.ProductChangeListener;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of product query results in front of the query repositories.
+ * <p>
+ * Entries are weighed by the number of products they hold and evicted by Caffeine's W-TinyLFU policy.
+ * Every product write starts a new generation: keys carry the generation they were built in,
+ * so a result read before a write can never be served after it, even if it is stored afterwards.
+ */
+@Component
+public class ProductQueryResultCache implements ProductChangeListener {
+    public static final long DEFAULT_MAX_CACHED_PRODUCTS = 100_000L;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Cache<ProductQueryCacheKey, Object> cache;
+
+    @Autowired
+    public ProductQueryResultCache(@Value("${shop.products.query-cache.max-products}") long maxCachedProducts) {
+        this.cache = Caffeine.newBuilder()
+            .maximumWeight(maxCachedProducts)
+            .weigher((ProductQueryCacheKey key, Object result) -> getWeight(result))
+            .recordStats()
+            .build();
+    }
+
+    public List<Product> getProducts(ProductQueryConstraints constraints, Supplier<List<Product>> loader) {
+        return get(ProductQueryCacheKey.of(generation.get(), constraints, null, null),
+            () -> Collections.unmodifiableList(loader.get()));
+    }
+
+    public ProductPage getPage(
+        ProductQueryConstraints constraints,
+        ProductPageRequest pageRequest,
+        ProductProjection projection,
+        Supplier<ProductPage> loader) {
+        return get(ProductQueryCacheKey.of(generation.get(), constraints, pageRequest, projection), loader);
+    }
+
+    /**
+     * @return hit, miss and eviction counters since the application start.
+     */
+    public Map<String, Object> getStatistics() {
+        CacheStats stats = cache.stats();
+
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("generation", generation.get());
+        statistics.put("estimatedSize", cache.estimatedSize());
+        statistics.put("requestCount", stats.requestCount());
+        statistics.put("hitCount", stats.hitCount());
+        statistics.put("missCount", stats.missCount());
+        statistics.put("hitRate", stats.hitRate());
+        statistics.put("evictionCount", stats.evictionCount());
+        statistics.put("evictionWeight", stats.evictionWeight());
+        return statistics;
+    }
+
+    @Override
+    public void productsSaved(List<Product> savedProducts) {
+        invalidate();
+    }
+
+    @Override
+    public void productsDeleted(List<Long> deletedProductIds) {
+        invalidate();
+    }
+
+    @Override
+    public void productsChangedInBulk() {
+        invalidate();
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    @SuppressWarnings("unchecked")
+    private <T> T get(ProductQueryCacheKey key, Supplier<T> loader) {
+        return (T) cache.get(key, ignored -> loader.get());
+    }
+
+    private void invalidate() {
+        generation.incrementAndGet();
+        // entries of older generations are unreachable already, this only frees their memory
+        cache.invalidateAll();
+    }
+
+    private static int getWeight(Object result) {
+        List<?> products = result instanceof ProductPage ? ((ProductPage) result).getProducts() : (List<?>) result;
+        return products.size() + 1;
+    }
+}
@@ -1,24 +1,100 @@
 package ru.study.shop.services.impl;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import ru.study.shop.adapters.hibernate.CustomProductRepository;
 import ru.study.shop.adapters.hibernate.ProductRepository;
+import ru.study.shop.adapters.hibernate.impl.BitmapIndexProductRepository;
+import ru.study.shop.adapters.hibernate.impl.product_snapshot.ProductSnapshot;
+import ru.study.shop.adapters.hibernate.impl.product_snapshot.ProductSnapshotScanner;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductFacets;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductPage;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductPageRequest;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductProjection;
 import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints;
+import ru.study.shop.adapters.recommendation.CoPurchaseRecommender;
+import ru.study.shop.adapters.search.ProductSearchIndex;
+import ru.study.shop.adapters.search.ProductSuggestion;
+import ru.study.shop.adapters.search.ProductSuggestionIndex;
 import ru.study.shop.entities.Product;
+import ru.study.shop.services.interfaces.ProductChangeListener;
 import ru.study.shop.services.interfaces.ProductService;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.TreeSet;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 public class ProductServiceImpl implements ProductService {
+    private static final List<Long> DEFAULT_PRICE_BUCKET_BOUNDS = Collections.unmodifiableList(
+        Arrays.asList(1000L, 3000L, 5000L, 10000L));
 
     private final ProductRepository productRepository;
 
+    private final CustomProductRepository productQueryRepository;
+
+    private final ProductSearchIndex productSearchIndex;
+
+    private final ProductSuggestionIndex productSuggestionIndex;
+
+    private final CoPurchaseRecommender coPurchaseRecommender;
+
+    private final ProductQueryResultCache queryResultCache;
+
+    private final List<ProductChangeListener> changeListeners;
+
+    private final List<Long> priceBucketBounds;
+
+    private final ProductSnapshotScanner snapshotScanner = new ProductSnapshotScanner();
+
     public ProductServiceImpl(ProductRepository productRepository) {
         this.productRepository = productRepository;
+        this.productQueryRepository = productRepository;
+        this.productSearchIndex = new ProductSearchIndex(productRepository);
+        this.productSuggestionIndex = new ProductSuggestionIndex(productRepository::findAll, HashMap::new, Runnable::run);
+        this.coPurchaseRecommender = new CoPurchaseRecommender(
+            (afterOrderId, maxOrders) -> new ArrayList<>(), CoPurchaseRecommender.DEFAULT_BATCH_SIZE);
+        this.queryResultCache = new ProductQueryResultCache(ProductQueryResultCache.DEFAULT_MAX_CACHED_PRODUCTS);
+        this.priceBucketBounds = DEFAULT_PRICE_BUCKET_BOUNDS;
+        this.changeListeners = new ArrayList<>(Arrays.asList(productSearchIndex, productSuggestionIndex, queryResultCache));
+    }
+
+    @Autowired
+    public ProductServiceImpl(
+        ProductRepository productRepository,
+        ObjectProvider<BitmapIndexProductRepository> bitmapIndexProductRepository,
+        ProductSearchIndex productSearchIndex,
+        ProductSuggestionIndex productSuggestionIndex,
+        CoPurchaseRecommender coPurchaseRecommender,
+        ProductQueryResultCache queryResultCache,
+        ObjectProvider<ProductChangeListener> changeListeners,
+        @Value("${shop.products.facets.price-bucket-bounds}") List<Long> priceBucketBounds) {
+        this.productRepository = productRepository;
+
+        CustomProductRepository indexRepository = bitmapIndexProductRepository.getIfAvailable();
+        this.productQueryRepository = Objects.nonNull(indexRepository) ? indexRepository : productRepository;
+        this.productSearchIndex = productSearchIndex;
+        this.productSuggestionIndex = productSuggestionIndex;
+        this.coPurchaseRecommender = coPurchaseRecommender;
+        this.queryResultCache = queryResultCache;
+
+        this.changeListeners = changeListeners.orderedStream().collect(Collectors.toList());
+
+        if (priceBucketBounds.isEmpty()) {
+            throw new IllegalArgumentException("shop.products.facets.price-bucket-bounds must not be empty");
+        }
+        this.priceBucketBounds = new ArrayList<>(new TreeSet<>(priceBucketBounds));
     }
 
     @Override
@@ -31,32 +107,45 @@ public class ProductServiceImpl implements ProductService {
         return productRepository.findById(id);
     }
 
+    @Override
+    public List<Product> findAllById(Collection<Long> ids) {
+        return productRepository.findAllById(ids);
+    }
+
     @Override
     public List<Product> findByName(String name) {
-        return productRepository.findAll().stream()
-            .filter(product -> product.getProductName().equals(name))
-            .collect(Collectors.toList());
+        if (Objects.isNull(name)) {
+            return new ArrayList<>();
+        }
+
+        return productRepository.findByProductName(name);
     }
 
     @Override
     public List<Product> findByType(String type) {
-        return productRepository.findAll().stream()
-            .filter(product -> product.getProductType().equals(type))
-            .collect(Collectors.toList());
+        if (Objects.isNull(type)) {
+            return new ArrayList<>();
+        }
+
+        return productRepository.findByProductType(type);
     }
 
     @Override
     public List<Product> findByMaterial(String material) {
-        return productRepository.findAll().stream()
-            .filter(product -> product.getMaterial().equals(material))
-            .collect(Collectors.toList());
+        if (Objects.isNull(material)) {
+            return new ArrayList<>();
+        }
+
+        return productRepository.findByMaterial(material);
     }
 
     @Override
     public List<Product> findByManufacturer(String manufacturer) {
-        return productRepository.findAll().stream()
-            .filter(product -> product.getManufacturer().equals(manufacturer))
-            .collect(Collectors.toList());
+        if (Objects.isNull(manufacturer)) {
+            return new ArrayList<>();
+        }
+
+        return productRepository.findByManufacturer(manufacturer);
     }
 
     @Override
@@ -74,42 +163,148 @@ public class ProductServiceImpl implements ProductService {
             return new ArrayList<>();
         }
 
-        Long finalFromPrice = fromPrice;
-        Long finalToPrice = toPrice;
-        return productRepository.findAll().stream()
-            .filter(product ->
-                product.getPrice().compareTo(finalFromPrice) >= 0 &&
-                    product.getPrice().compareTo(finalToPrice) <= 0)
-            .collect(Collectors.toList());
+        return productRepository.findByPriceBetween(fromPrice, toPrice);
     }
 
     @Override
     public List<Product> findByProductQuery(ProductQueryConstraints productQueryConstraints) {
-        return productRepository.findByProductQueryConstraints(productQueryConstraints);
+        return queryResultCache.getProducts(productQueryConstraints,
+            () -> productQueryRepository.findByProductQueryConstraints(productQueryConstraints));
+    }
+
+    @Override
+    public ProductPage findByProductQuery(ProductQueryConstraints productQueryConstraints, ProductPageRequest pageRequest) {
+        return findByProductQuery(productQueryConstraints, pageRequest, ProductProjection.ALL);
+    }
+
+    @Override
+    public ProductPage findByProductQuery(
+        ProductQueryConstraints productQueryConstraints,
+        ProductPageRequest pageRequest,
+        ProductProjection projection) {
+        return queryResultCache.getPage(productQueryConstraints, pageRequest, projection,
+            () -> productQueryRepository.findByProductQueryConstraints(productQueryConstraints, pageRequest, projection));
+    }
+
+    @Override
+    public ProductFacets countFacets(ProductQueryConstraints productQueryConstraints) {
+        return productQueryRepository.countFacets(productQueryConstraints, priceBucketBounds);
+    }
+
+    @Override
+    public List<List<Product>> findByProductQueries(List<ProductQueryConstraints> productQueries) {
+        if (productQueries.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        return snapshotScanner.findAll(ProductSnapshot.of(productRepository.findAll()), productQueries);
+    }
+
+    @Override
+    public List<Product> searchProducts(String query, int limit) {
+        if (Objects.isNull(query) || query.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        return productSearchIndex.search(query, limit);
+    }
+
+    @Override
+    public List<ProductSuggestion> suggestProducts(String prefix, int limit) {
+        if (Objects.isNull(prefix)) {
+            return new ArrayList<>();
+        }
+
+        return productSuggestionIndex.suggest(prefix, limit);
+    }
+
+    @Override
+    public List<Product> findRelatedProducts(Long productId, int limit) {
+        if (Objects.isNull(productId)) {
+            return new ArrayList<>();
+        }
+
+        List<Long> relatedIds = coPurchaseRecommender.findRelated(productId, limit);
+        if (relatedIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // products deleted since the co-purchases were counted are skipped
+        Map<Long, Product> productsById = productRepository.findAllById(relatedIds).stream()
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+        return relatedIds.stream()
+            .map(productsById::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
     }
 
     @Override
     public void deleteById(Long id) {
         productRepository.deleteById(id);
+        notifyProductsDeleted(Collections.singletonList(id));
     }
 
     @Override
     public Product saveProduct(Product product) {
-        return productRepository.save(product);
+        Product savedProduct = productRepository.save(product);
+        notifyProductsSaved(Collections.singletonList(savedProduct));
+
+        return savedProduct;
     }
 
     @Override
     public List<Product> saveAll(List<Product> products) {
-        return productRepository.saveAll(products);
+        List<Product> savedProducts = productRepository.saveAll(products);
+        notifyProductsSaved(savedProducts);
+
+        return savedProducts;
+    }
+
+    @Override
+    public List<Product> insertAll(List<Product> products) {
+        List<Product> insertedProducts = productRepository.insertAll(products);
+        notifyProductsSaved(insertedProducts);
+
+        return insertedProducts;
     }
 
     @Override
     public void deleteProduct(Product product) {
         productRepository.delete(product);
+        notifyProductsDeleted(Collections.singletonList(product.getId()));
     }
 
     @Override
     public void deleteAll(List<Product> products) {
-        productRepository.deleteAll(products);
+        productRepository.deleteInBatch(products);
+        notifyProductsDeleted(products.stream()
+            .map(Product::getId)
+            .collect(Collectors.toList()));
+    }
+
+    @Override
+    public int deleteByProductQuery(ProductQueryConstraints productQueryConstraints) {
+        if (Objects.isNull(productQueryConstraints) || !productQueryConstraints.isConstrained()) {
+            throw new IllegalArgumentException("bulk delete requires at least one constraint");
+        }
+
+        int deletedCount = productRepository.deleteByProductQueryConstraints(productQueryConstraints);
+        if (deletedCount > 0) {
+            changeListeners.forEach(ProductChangeListener::productsChangedInBulk);
+        }
+
+        return deletedCount;
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private void notifyProductsSaved(List<Product> savedProducts) {
+        changeListeners.forEach(listener -> listener.productsSaved(savedProducts));
+    }
+
+    private void notifyProductsDeleted(List<Long> deletedProductIds) {
+        changeListeners.forEach(listener -> listener.productsDeleted(deletedProductIds));
     }
 }
@@ -59,6 +59,11 @@ public class StockServiceImpl implements StockService {
         return stockRepository.save(stock);
     }
 
+    @Override
+    public List<Stock> saveAllStocks(@NonNull List<Stock> stocks) {
+        return stockRepository.saveAll(stocks);
+    }
+
     @Override
     public void deleteStock(Stock stock) {
         stockRepository.delete(stock);
@@ -66,6 +71,11 @@ public class StockServiceImpl implements StockService {
 
     @Override
     public void deleteAllStocks(List<Stock> stocks) {
-        stockRepository.deleteAll(stocks);
+        stockRepository.deleteInBatch(stocks);
+    }
+
+    @Override
+    public int deleteAllStocksByProductId(@NonNull Long productId) {
+        return stockRepository.deleteAllByProductId(productId);
     }
 }
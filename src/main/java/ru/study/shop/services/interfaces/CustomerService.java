@@ -2,6 +2,7 @@ package ru.study.shop.services.interfaces;
 
 import ru.study.shop.entities.Customer;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -9,4 +10,9 @@ public interface CustomerService {
     List<Customer> findAll();
 
     Optional<Customer> findById(Long id);
+
+    /**
+     * @return the existing customers among the ids, in no particular order.
+     */
+    List<Customer> findAllById(Collection<Long> ids);
 }
@@ -1,30 +1,103 @@
 package ru.study.shop.services.interfaces;
 
+import ru.study.shop.adapters.hibernate.impl.query_classes.CustomerOrderSummary;
+import ru.study.shop.adapters.hibernate.impl.query_classes.OrderPage;
+import ru.study.shop.adapters.hibernate.impl.query_classes.OrderPartition;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductOrderCount;
 import ru.study.shop.entities.Customer;
 import ru.study.shop.entities.Order;
 import ru.study.shop.entities.Product;
 
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 public interface OrderService {
     List<Order> findAll();
 
+    /**
+     * @return live order only, which can be changed.
+     */
     Optional<Order> findById(Long orderId);
 
+    /**
+     * @return live order, or else archived order, which is read only.
+     */
+    Optional<Order> findByIdWithArchived(Long orderId);
+
+    /**
+     * Orders of the date range are returned from archived months as well, here and by the paging methods.
+     */
     List<Order> findAllFromDate(LocalDateTime fromDate);
 
     List<Order> findAllToDate(LocalDateTime toDate);
 
     List<Order> findAllFromToDate(LocalDateTime from, LocalDateTime to);
 
+    /**
+     * @param from      lower bound of the ordered time, inclusive; unbounded if null.
+     * @param to        upper bound of the ordered time, inclusive; unbounded if null.
+     * @param afterTime ordered time of the last order of the previous page; null for the first page.
+     * @param afterId   id of the last order of the previous page; null for the first page.
+     * @return at most <code>limit</code> orders in <code>(orderedTime, id)</code> order.
+     */
+    OrderPage findPage(LocalDateTime from, LocalDateTime to, int limit, LocalDateTime afterTime, Long afterId);
+
+    /**
+     * Passes the orders of the time range to the action in <code>(orderedTime, id)</code> order, loading them in
+     * batches and holding only the current batch in memory. Lazy associations are available to the action.
+     */
+    void forEachOrder(LocalDateTime from, LocalDateTime to, Consumer<Order> action);
+
     List<Order> findByCustomer(Customer customer);
 
+    /**
+     * @return the page of the customer's orders, latest first.
+     */
+    List<Order> findByCustomer(Long customerId, int page, int pageSize);
+
+    CustomerOrderSummary summarizeByCustomer(Long customerId);
+
     List<Order> findByProduct(Product product);
 
+    /**
+     * @return the page of orders containing the product, latest first.
+     */
+    List<Order> findByProduct(Long productId, int page, int pageSize);
+
+    ProductOrderCount countByProduct(Long productId);
+
+    /**
+     * @return the page of orders with total price of at least <code>minTotalPrice</code>, most expensive first.
+     */
+    List<Order> findByMinTotalPrice(Long minTotalPrice, int page, int pageSize);
+
+    List<OrderPartition> findPartitions();
+
+    /**
+     * Moves the orders of a past month out of the live tables into tables of the month.
+     * Archived orders are still found by every order read and counted in every summary, but are read only.
+     *
+     * @throws IllegalArgumentException if the month is not over yet.
+     */
+    OrderPartition archiveMonth(YearMonth month);
+
+    /**
+     * @return false if the month is not archived.
+     */
+    boolean dropArchivedMonth(YearMonth month);
+
     Order saveOrder(Order order);
 
+    /**
+     * Inserts new orders in one transaction and sends their delivery requests together.
+     *
+     * @return the saved orders, in the same order.
+     */
+    List<Order> saveNewOrders(List<Order> orders);
+
     List<Order> saveAll(List<Order> orders);
 
     void deleteOrder(Order order);
@@ -0,0 +1,21 @@
+package ru.study.shop.services.interfaces;
+
+import ru.study.shop.entities.Product;
+
+import java.util.List;
+
+/**
+ * Receives notifications about every product write made through <code>ProductService</code>.
+ * Used to keep in-memory structures built over the catalog up to date.
+ */
+public interface ProductChangeListener {
+    void productsSaved(List<Product> savedProducts);
+
+    void productsDeleted(List<Long> deletedProductIds);
+
+    /**
+     * Called after a set-based write whose affected products are not known one by one;
+     * anything derived from the catalog has to be dropped or rebuilt.
+     */
+    void productsChangedInBulk();
+}
@@ -1,8 +1,14 @@
 package ru.study.shop.services.interfaces;
 
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductFacets;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductPage;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductPageRequest;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductProjection;
 import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints;
+import ru.study.shop.adapters.search.ProductSuggestion;
 import ru.study.shop.entities.Product;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,6 +17,11 @@ public interface ProductService {
 
     Optional<Product> findById(Long id);
 
+    /**
+     * @return the existing products among the ids, in no particular order.
+     */
+    List<Product> findAllById(Collection<Long> ids);
+
     List<Product> findByName(String name);
 
     List<Product> findByType(String type);
@@ -23,13 +34,55 @@ public interface ProductService {
 
     List<Product> findByProductQuery(ProductQueryConstraints productQueryConstraints);
 
+    ProductPage findByProductQuery(ProductQueryConstraints productQueryConstraints, ProductPageRequest pageRequest);
+
+    ProductPage findByProductQuery(
+        ProductQueryConstraints productQueryConstraints,
+        ProductPageRequest pageRequest,
+        ProductProjection projection);
+
+    ProductFacets countFacets(ProductQueryConstraints productQueryConstraints);
+
+    /**
+     * Evaluates many queries in one parallel pass over an in-memory snapshot of the catalog,
+     * which is loaded from the database once per call.
+     *
+     * @return products matching each query, ordered by id, in the order of the queries.
+     */
+    List<List<Product>> findByProductQueries(List<ProductQueryConstraints> productQueries);
+
+    List<Product> searchProducts(String query, int limit);
+
+    /**
+     * @return names, types and manufacturers with a word starting with the prefix, most ordered first.
+     */
+    List<ProductSuggestion> suggestProducts(String prefix, int limit);
+
+    /**
+     * @return products most often ordered together with the product, most often first.
+     */
+    List<Product> findRelatedProducts(Long productId, int limit);
+
     Product saveProduct(Product product);
 
     List<Product> saveAll(List<Product> products);
 
+    /**
+     * Inserts new products with one batched statement, bypassing the persistence context.
+     */
+    List<Product> insertAll(List<Product> products);
+
     void deleteById(Long id);
 
     void deleteProduct(Product product);
 
     void deleteAll(List<Product> products);
+
+    /**
+     * Deletes every product matching the constraints with a single statement.
+     *
+     * @return number of deleted products.
+     * @throws IllegalArgumentException if no field is constrained.
+     */
+    int deleteByProductQuery(ProductQueryConstraints productQueryConstraints);
 }
@@ -24,7 +24,14 @@ public interface StockService {
 
     Stock saveStock(Stock stock);
 
+    List<Stock> saveAllStocks(List<Stock> stocks);
+
     void deleteStock(Stock stock);
 
     void deleteAllStocks(List<Stock> stocks);
+
+    /**
+     * @return number of deleted stocks.
+     */
+    int deleteAllStocksByProductId(Long productId);
 }
@@ -0,0 +1,2 @@
+-- Order listings and exports walk this index from the last (ordered_time, id) they returned.
+CREATE INDEX idx_orders_ordered_time_id ON orders (ordered_time, id);
@@ -0,0 +1,8 @@
+-- Months of orders moved out of orders and order_line into tables of their own, orders_yyyy_mm and
+-- order_line_yyyy_mm, with the totals of the month. Dropping a month drops its tables.
+CREATE TABLE order_partition (
+  partition_month date PRIMARY KEY,
+  order_count int NOT NULL,
+  total_price bigint NOT NULL,
+  archived_time timestamp NOT NULL
+);
@@ -0,0 +1,30 @@
+-- Deleting a product no longer deletes its lines from past orders, which would leave them disagreeing with
+-- orders.total_price: a line keeps the product name and unit price it was ordered with and loses only the reference.
+-- The foreign key has no name to drop it by, so the table is rebuilt.
+CREATE TABLE order_line_copy (
+  id bigint DEFAULT NEXT VALUE FOR order_line_seq PRIMARY KEY,
+  order_id int NOT NULL,
+  product_id int,
+  product_name varchar2(100),
+  quantity int NOT NULL,
+  unit_price int
+);
+
+INSERT INTO order_line_copy (id, order_id, product_id, product_name, quantity, unit_price)
+SELECT l.id, l.order_id, l.product_id, p.product_name, l.quantity, l.unit_price
+FROM order_line AS l
+JOIN product AS p ON p.id = l.product_id;
+
+DROP TABLE order_line;
+
+ALTER TABLE order_line_copy RENAME TO order_line;
+
+ALTER TABLE order_line ADD CONSTRAINT uc_order_line_order_product UNIQUE (order_id, product_id);
+
+ALTER TABLE order_line ADD CONSTRAINT ck_order_line_quantity CHECK (quantity > 0);
+
+ALTER TABLE order_line ADD FOREIGN KEY (order_id) REFERENCES orders (id) ON DELETE CASCADE;
+
+ALTER TABLE order_line ADD FOREIGN KEY (product_id) REFERENCES product (id) ON DELETE SET NULL;
+
+CREATE INDEX idx_order_line_product_id_order_id ON order_line (product_id, order_id);
@@ -0,0 +1,9 @@
+CREATE INDEX idx_product_product_name ON product (product_name);
+
+CREATE INDEX idx_product_product_type ON product (product_type);
+
+CREATE INDEX idx_product_material ON product (material);
+
+CREATE INDEX idx_product_manufacturer ON product (manufacturer);
+
+CREATE INDEX idx_product_price ON product (price);
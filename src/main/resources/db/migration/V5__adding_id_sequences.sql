@@ -0,0 +1,19 @@
+-- Ids are assigned by the application from these sequences with the pooled-lo optimizer:
+-- every value is the low end of a block of ${id_allocation_size} ids, so the increment must match the allocation size.
+-- Sequences start after the ids already handed out by the identity columns.
+CREATE SEQUENCE product_seq START WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM product) INCREMENT BY ${id_allocation_size};
+
+CREATE SEQUENCE customer_seq START WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM customer) INCREMENT BY ${id_allocation_size};
+
+CREATE SEQUENCE orders_seq START WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM orders) INCREMENT BY ${id_allocation_size};
+
+CREATE SEQUENCE stock_seq START WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM stock) INCREMENT BY ${id_allocation_size};
+
+-- Rows inserted by plain SQL without an id take a whole block, so they never collide with application ids.
+ALTER TABLE product ALTER COLUMN id SET DEFAULT NEXT VALUE FOR product_seq;
+
+ALTER TABLE customer ALTER COLUMN id SET DEFAULT NEXT VALUE FOR customer_seq;
+
+ALTER TABLE orders ALTER COLUMN id SET DEFAULT NEXT VALUE FOR orders_seq;
+
+ALTER TABLE stock ALTER COLUMN id SET DEFAULT NEXT VALUE FOR stock_seq;
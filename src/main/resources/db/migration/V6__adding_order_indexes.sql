@@ -0,0 +1 @@
+CREATE INDEX idx_orders_customer_id_ordered_time ON orders (customer_id, ordered_time);
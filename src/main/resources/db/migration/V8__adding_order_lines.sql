@@ -0,0 +1,28 @@
+-- One row per product of an order with its quantity, instead of one orders_product row per unit.
+CREATE SEQUENCE order_line_seq START WITH 1 INCREMENT BY ${id_allocation_size};
+
+CREATE TABLE order_line (
+  id bigint DEFAULT NEXT VALUE FOR order_line_seq PRIMARY KEY,
+  order_id int NOT NULL,
+  product_id int NOT NULL,
+  quantity int NOT NULL,
+  unit_price int,
+  CONSTRAINT uc_order_line_order_product UNIQUE (order_id, product_id),
+  CONSTRAINT ck_order_line_quantity CHECK (quantity > 0)
+);
+
+-- Prices at order time were never stored, so existing lines take the current product price.
+INSERT INTO order_line (order_id, product_id, quantity, unit_price)
+SELECT op.order_id, op.product_id, COUNT(*), p.price
+FROM orders_product AS op
+JOIN product AS p ON p.id = op.product_id
+GROUP BY op.order_id, op.product_id, p.price;
+
+ALTER TABLE order_line ADD FOREIGN KEY (order_id) REFERENCES orders (id) ON DELETE CASCADE;
+
+ALTER TABLE order_line ADD FOREIGN KEY (product_id) REFERENCES product (id) ON DELETE CASCADE;
+
+-- Lines of an order are found through the unique constraint, orders containing a product through this index.
+CREATE INDEX idx_order_line_product_id_order_id ON order_line (product_id, order_id);
+
+DROP TABLE orders_product;
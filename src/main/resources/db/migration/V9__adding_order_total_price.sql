@@ -0,0 +1,11 @@
+-- Total price of an order, written with its lines so that totals are read and filtered on without summing the lines.
+ALTER TABLE orders ADD COLUMN total_price bigint DEFAULT 0 NOT NULL;
+
+UPDATE orders AS o
+SET total_price = (
+  SELECT COALESCE(SUM(CAST(l.quantity AS bigint) * l.unit_price), 0)
+  FROM order_line AS l
+  WHERE l.order_id = o.id
+);
+
+CREATE INDEX idx_orders_total_price ON orders (total_price);
@@ -0,0 +1,119 @@
+package ru.study.shop.adapters.controllers;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import ru.study.shop.adapters.controllers.dto.ProductDto;
+import ru.study.shop.adapters.controllers.rest.ProductController;
+import ru.study.shop.adapters.controllers.utils.http_caching.CatalogVersionETagInterceptor;
+import ru.study.shop.entities.Product;
+import ru.study.shop.services.impl.CatalogVersion;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CatalogVersionETagInterceptorTest {
+    private static final Long PRODUCT_ID = 1L;
+    private static final Long OTHER_PRODUCT_ID = 2L;
+
+    private CatalogVersion catalogVersion;
+    private CatalogVersionETagInterceptor interceptor;
+
+    private HandlerMethod listHandler;
+    private HandlerMethod productHandler;
+    private HandlerMethod createHandler;
+
+    @Before
+    public void setUp() throws NoSuchMethodException {
+        catalogVersion = new CatalogVersion();
+        interceptor = new CatalogVersionETagInterceptor(catalogVersion);
+
+        ProductController controller = new ProductController(null);
+        listHandler = new HandlerMethod(controller, "searchProducts", Optional.class, Optional.class);
+        productHandler = new HandlerMethod(controller, "getProductById", Long.class);
+        createHandler = new HandlerMethod(controller, "createProduct", ProductDto.class);
+    }
+
+    @Test
+    public void catalogETagIsSetWithoutIfNoneMatch() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(getRequest(null), response, listHandler));
+        assertEquals(catalogVersion.getCatalogETag(), response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    public void matchingIfNoneMatchReturnsNotModified() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(interceptor.preHandle(
+            getRequest("\"other\", W/" + catalogVersion.getCatalogETag()), response, listHandler));
+        assertEquals(304, response.getStatus());
+    }
+
+    @Test
+    public void catalogWriteChangesCatalogETag() {
+        String oldETag = catalogVersion.getCatalogETag();
+        catalogVersion.productsDeleted(Collections.singletonList(OTHER_PRODUCT_ID));
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(getRequest(oldETag), response, listHandler));
+        assertNotEquals(oldETag, response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    public void productETagChangesOnlyWithThatProduct() {
+        String oldETag = catalogVersion.getProductETag(PRODUCT_ID);
+
+        catalogVersion.productsDeleted(Collections.singletonList(OTHER_PRODUCT_ID));
+        assertFalse(interceptor.preHandle(getProductRequest(oldETag), new MockHttpServletResponse(), productHandler));
+
+        Product product = new Product();
+        product.setId(PRODUCT_ID);
+        List<Product> savedProducts = Collections.singletonList(product);
+        catalogVersion.productsSaved(savedProducts);
+        assertTrue(interceptor.preHandle(getProductRequest(oldETag), new MockHttpServletResponse(), productHandler));
+    }
+
+    @Test
+    public void notAnnotatedOrUnsafeRequestsAreIgnored() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(interceptor.preHandle(getRequest("*"), response, createHandler));
+        assertNull(response.getHeader(HttpHeaders.ETAG));
+
+        MockHttpServletRequest postRequest = getRequest("*");
+        postRequest.setMethod("POST");
+        assertTrue(interceptor.preHandle(postRequest, response, listHandler));
+        assertNull(response.getHeader(HttpHeaders.ETAG));
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private MockHttpServletRequest getRequest(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/products");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return request;
+    }
+
+    private MockHttpServletRequest getProductRequest(String ifNoneMatch) {
+        MockHttpServletRequest request = getRequest(ifNoneMatch);
+        request.setAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE,
+            Collections.singletonMap("id", PRODUCT_ID.toString()));
+        return request;
+    }
+}
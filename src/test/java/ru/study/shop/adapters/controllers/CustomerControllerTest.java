@@ -0,0 +1,119 @@
+package ru.study.shop.adapters.controllers;
+
+import org.assertj.core.util.Lists;
+import org.easymock.TestSubject;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.web.server.ResponseStatusException;
+import org.unitils.UnitilsBlockJUnit4ClassRunner;
+import org.unitils.easymock.annotation.Mock;
+import ru.study.shop.adapters.controllers.rest.CustomerController;
+import ru.study.shop.adapters.hibernate.impl.query_classes.CustomerOrderSummary;
+import ru.study.shop.entities.Customer;
+import ru.study.shop.entities.Order;
+import ru.study.shop.services.interfaces.CustomerService;
+import ru.study.shop.services.interfaces.OrderService;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.easymock.EasyMock.expect;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.unitils.easymock.EasyMockUnitils.replay;
+import static org.unitils.easymock.EasyMockUnitils.verify;
+
+@RunWith(UnitilsBlockJUnit4ClassRunner.class)
+public class CustomerControllerTest {
+    private static final long NEGATIVE_CUSTOMER_ID = -1L;
+    private static final long ZERO_CUSTOMER_ID = 0L;
+    private static final long VALID_CUSTOMER_ID = 1L;
+    private static final Customer CUSTOMER = new Customer(VALID_CUSTOMER_ID, "Имя", "Фамилия", "логин", "почта");
+
+    @Mock
+    private CustomerService customerService;
+
+    @Mock
+    private OrderService orderService;
+
+    @TestSubject
+    private CustomerController customerController;
+
+    @Before
+    public void setUp() {
+        customerController = new CustomerController(customerService, orderService);
+    }
+
+    @Test
+    public void getCustomerOrdersWithInvalidIdThrowsException() {
+        assertThrows(ResponseStatusException.class, () -> customerController.getCustomerOrders(
+            NEGATIVE_CUSTOMER_ID, Optional.empty(), Optional.empty(), Optional.empty()));
+        assertThrows(ResponseStatusException.class, () -> customerController.getCustomerOrders(
+            ZERO_CUSTOMER_ID, Optional.empty(), Optional.empty(), Optional.empty()));
+    }
+
+    @Test
+    public void getCustomerOrdersWithNonExistIdThrowsException() {
+        expect(customerService.findById(VALID_CUSTOMER_ID)).andReturn(Optional.empty()).once();
+        replay();
+
+        assertThrows(ResponseStatusException.class, () -> customerController.getCustomerOrders(
+            VALID_CUSTOMER_ID, Optional.empty(), Optional.empty(), Optional.empty()));
+    }
+
+    @Test
+    public void getCustomerOrdersWithoutPagingReturnsFirstPageOfDefaultSize() {
+        List<Order> orders = Lists.newArrayList(new Order());
+        expect(customerService.findById(VALID_CUSTOMER_ID)).andReturn(Optional.of(CUSTOMER));
+        expect(orderService.findByCustomer(VALID_CUSTOMER_ID, 0, 50)).andReturn(orders).once();
+        replay();
+
+        Object result = customerController.getCustomerOrders(
+            VALID_CUSTOMER_ID, Optional.empty(), Optional.empty(), Optional.empty()).getBody();
+
+        assertEquals(orders, result);
+        verify();
+    }
+
+    @Test
+    public void getCustomerOrdersCapsPageSize() {
+        expect(customerService.findById(VALID_CUSTOMER_ID)).andReturn(Optional.of(CUSTOMER));
+        expect(orderService.findByCustomer(VALID_CUSTOMER_ID, 3, 200)).andReturn(Lists.emptyList()).once();
+        replay();
+
+        customerController.getCustomerOrders(
+            VALID_CUSTOMER_ID, Optional.of("3"), Optional.of("100000"), Optional.of(false));
+
+        verify();
+    }
+
+    @Test
+    public void getCustomerOrdersWithInvalidPagingThrowsException() {
+        expect(customerService.findById(VALID_CUSTOMER_ID)).andReturn(Optional.of(CUSTOMER)).times(4);
+        replay();
+
+        assertThrows(ResponseStatusException.class, () -> customerController.getCustomerOrders(
+            VALID_CUSTOMER_ID, Optional.of("-1"), Optional.empty(), Optional.empty()));
+        assertThrows(ResponseStatusException.class, () -> customerController.getCustomerOrders(
+            VALID_CUSTOMER_ID, Optional.empty(), Optional.of("0"), Optional.empty()));
+        assertThrows(ResponseStatusException.class, () -> customerController.getCustomerOrders(
+            VALID_CUSTOMER_ID, Optional.of("первая"), Optional.empty(), Optional.empty()));
+        assertThrows(ResponseStatusException.class, () -> customerController.getCustomerOrders(
+            VALID_CUSTOMER_ID, Optional.empty(), Optional.of("10.5"), Optional.empty()));
+    }
+
+    @Test
+    public void getCustomerOrdersInSummaryModeDoesNotLoadOrders() {
+        CustomerOrderSummary summary = new CustomerOrderSummary(VALID_CUSTOMER_ID, 0, 0, 0, 0, null, null);
+        expect(customerService.findById(VALID_CUSTOMER_ID)).andReturn(Optional.of(CUSTOMER));
+        expect(orderService.summarizeByCustomer(VALID_CUSTOMER_ID)).andReturn(summary).once();
+        replay();
+
+        Object result = customerController.getCustomerOrders(
+            VALID_CUSTOMER_ID, Optional.empty(), Optional.empty(), Optional.of(true)).getBody();
+
+        assertEquals(summary, result);
+        verify();
+    }
+}
@@ -0,0 +1,141 @@
+package ru.study.shop.adapters.controllers;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.jms.support.converter.MessageConverter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.unitils.UnitilsBlockJUnit4ClassRunner;
+import org.unitils.easymock.annotation.Mock;
+import ru.study.shop.adapters.controllers.order_delivery.DeliveryQueueController;
+import ru.study.shop.entities.Order;
+
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.DeliveryMode;
+import javax.jms.Message;
+import javax.jms.MessageProducer;
+import javax.jms.Queue;
+import javax.jms.Session;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.unitils.easymock.EasyMockUnitils.replay;
+import static org.unitils.easymock.EasyMockUnitils.verify;
+
+@RunWith(UnitilsBlockJUnit4ClassRunner.class)
+public class DeliveryQueueControllerTest {
+    private static final String DELIVERY_QUEUE_NAME = "delivery-request-queue";
+    private static final int PRIORITY = 7;
+    private static final long TIME_TO_LIVE = 60_000L;
+
+    @Mock
+    private ConnectionFactory connectionFactory;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private Session session;
+
+    @Mock
+    private Queue queue;
+
+    @Mock
+    private MessageProducer producer;
+
+    @Mock
+    private MessageConverter messageConverter;
+
+    @Mock
+    private Message message;
+
+    private JmsTemplate jmsTemplate;
+
+    private DeliveryQueueController deliveryQueueController;
+
+    @Before
+    public void setUp() {
+        jmsTemplate = new JmsTemplate(connectionFactory);
+        jmsTemplate.setMessageConverter(messageConverter);
+
+        deliveryQueueController = new DeliveryQueueController(jmsTemplate);
+        ReflectionTestUtils.setField(deliveryQueueController, "destinationQueue", DELIVERY_QUEUE_NAME);
+    }
+
+    @Test
+    public void setToDeliveryOfEmptyListSendsNothing() {
+        replay();
+
+        deliveryQueueController.setToDelivery(Collections.emptyList(), true);
+
+        verify();
+    }
+
+    @Test
+    public void setToDeliverySendsAllOrdersThroughOneProducerWithTemplateQos() throws Exception {
+        List<Order> orders = Arrays.asList(new Order(), new Order(), new Order());
+        jmsTemplate.setExplicitQosEnabled(true);
+        jmsTemplate.setDeliveryMode(DeliveryMode.NON_PERSISTENT);
+        jmsTemplate.setPriority(PRIORITY);
+        jmsTemplate.setTimeToLive(TIME_TO_LIVE);
+
+        expectSession();
+        producer.setDeliveryMode(DeliveryMode.NON_PERSISTENT);
+        producer.setPriority(PRIORITY);
+        producer.setTimeToLive(TIME_TO_LIVE);
+        expectSentOrders(orders, true);
+        replay();
+
+        deliveryQueueController.setToDelivery(orders, true);
+
+        verify();
+    }
+
+    @Test
+    public void setToDeliveryKeepsProducerDefaultsWithoutExplicitQos() throws Exception {
+        List<Order> orders = Arrays.asList(new Order(), new Order());
+        jmsTemplate.setMessageIdEnabled(false);
+
+        expectSession();
+        producer.setDisableMessageID(true);
+        expectSentOrders(orders, false);
+        replay();
+
+        deliveryQueueController.setToDelivery(orders, false);
+
+        verify();
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    /**
+     * Expects the batch to open exactly one connection, session and producer.
+     */
+    private void expectSession() throws Exception {
+        expect(connectionFactory.createConnection()).andReturn(connection).once();
+        expect(connection.createSession(false, Session.AUTO_ACKNOWLEDGE)).andReturn(session).once();
+        expect(session.createQueue(DELIVERY_QUEUE_NAME)).andReturn(queue).once();
+        expect(session.createProducer(queue)).andReturn(producer).once();
+    }
+
+    private void expectSentOrders(List<Order> orders, boolean isNew) throws Exception {
+        for (Order order : orders) {
+            expect(messageConverter.toMessage(order, session)).andReturn(message).once();
+        }
+        message.setBooleanProperty("isNew", isNew);
+        expectLastCall().times(orders.size());
+        producer.send(message);
+        expectLastCall().times(orders.size());
+        session.commit();
+        producer.close();
+        session.close();
+        connection.close();
+    }
+}
@@ -1,5 +1,6 @@
 package ru.study.shop.adapters.controllers;
 
+import org.assertj.core.util.Lists;
 import org.easymock.TestSubject;
 import org.junit.Before;
 import org.junit.Test;
@@ -9,17 +10,24 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.server.ResponseStatusException;
 import org.unitils.UnitilsBlockJUnit4ClassRunner;
 import org.unitils.easymock.annotation.Mock;
+import ru.study.shop.adapters.controllers.dto.OrderBatchResult;
 import ru.study.shop.adapters.controllers.dto.OrderDto;
 import ru.study.shop.adapters.controllers.rest.OrderController;
+import ru.study.shop.adapters.controllers.rest.ProductController;
 import ru.study.shop.adapters.hibernate.OrderRepository;
+import ru.study.shop.adapters.hibernate.impl.query_classes.KeysetCursor;
+import ru.study.shop.adapters.hibernate.impl.query_classes.OrderPage;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductOrderCount;
 import ru.study.shop.entities.Customer;
 import ru.study.shop.entities.Order;
+import ru.study.shop.entities.OrderLine;
 import ru.study.shop.entities.Product;
 import ru.study.shop.services.interfaces.CustomerService;
 import ru.study.shop.services.interfaces.OrderService;
 import ru.study.shop.services.interfaces.ProductService;
 
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.time.ZoneOffset;
 import java.util.*;
 
@@ -29,7 +37,10 @@ import static java.util.Objects.isNull;
 import static java.util.concurrent.ThreadLocalRandom.current;
 import static org.easymock.EasyMock.*;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 import static org.unitils.easymock.EasyMockUnitils.replay;
 import static org.unitils.easymock.EasyMockUnitils.verify;
 
@@ -76,45 +87,75 @@ public class OrderControllerTest {
     }
 
     @Test
-    public void getAllOrdersWithoutDatesCallsFindAllOnce() {
-        expect(orderService.findAll()).andReturn(getOrderList()).once();
+    public void getAllOrdersWithoutParametersReturnsFirstPageOfDefaultSize() {
+        expect(orderService.findPage(null, null, 50, null, null))
+            .andReturn(OrderPage.fromLookahead(getOrderList(), 50)).once();
         replay();
 
-        orderController.getAllOrders(null, null);
+        ResponseEntity<List<Order>> response = orderController.getAllOrders(null, null, Optional.empty(), Optional.empty());
 
+        assertEquals(ORDER_LIST_SIZE, response.getBody().size());
+        assertNull(response.getHeaders().getFirst(ProductController.NEXT_CURSOR_HEADER));
         verify();
     }
 
     @Test
-    public void getAllOrdersWithLowerNullDateCallsFindFromDateOnce() {
-        expect(orderService.findAllToDate(SOME_DATE)).andReturn(getOrderList()).once();
+    public void getAllOrdersPassesDatesAndCapsLimit() {
+        LocalDateTime latterThanSomeDate = SOME_DATE.plusMonths(MONTH_DIFF_BETWEEN_DATES);
+        expect(orderService.findPage(SOME_DATE, latterThanSomeDate, 200, null, null))
+            .andReturn(OrderPage.fromLookahead(getOrderList(), 200)).once();
         replay();
 
-        orderController.getAllOrders(null, SOME_DATE);
+        orderController.getAllOrders(SOME_DATE, latterThanSomeDate, Optional.of("100000"), Optional.empty());
 
         verify();
     }
 
     @Test
-    public void getALlOrdersWithUpperNullDateCallsFindToDateOnce() {
-        expect(orderService.findAllFromDate(SOME_DATE)).andReturn(getOrderList()).once();
+    public void getAllOrdersReturnsCursorOfLastOrderAndResumesFromIt() {
+        Order lastOrder = new Order();
+        lastOrder.setId(VALID_ORDER_ID);
+        lastOrder.setOrderedTime(SOME_DATE);
+        List<Order> lookahead = Lists.newArrayList(lastOrder, new Order());
+
+        expect(orderService.findPage(null, null, 1, null, null))
+            .andReturn(OrderPage.fromLookahead(lookahead, 1)).once();
+        expect(orderService.findPage(null, null, 1, SOME_DATE, VALID_ORDER_ID))
+            .andReturn(OrderPage.fromLookahead(Lists.emptyList(), 1)).once();
         replay();
 
-        orderController.getAllOrders(SOME_DATE, null);
+        String nextCursor = orderController.getAllOrders(null, null, Optional.of("1"), Optional.empty())
+            .getHeaders().getFirst(ProductController.NEXT_CURSOR_HEADER);
+        orderController.getAllOrders(null, null, Optional.of("1"), Optional.of(nextCursor));
 
         verify();
     }
 
     @Test
-    public void getAllOrdersWithBothDatesCallsFindFromToDateOnce() {
-        LocalDateTime latterThanSomeDate = SOME_DATE.plusMonths(MONTH_DIFF_BETWEEN_DATES);
-        expect(orderService.findAllFromToDate(SOME_DATE, latterThanSomeDate))
-            .andReturn(getOrderList()).once();
-        replay();
+    public void getAllOrdersWithInvalidCursorThrowsException() {
+        String productCursor = new KeysetCursor("price", "150", VALID_PRODUCT_ID).encode();
+        String malformedTimeCursor = new KeysetCursor(OrderPage.CURSOR_SORT_FIELD, "вчера", VALID_ORDER_ID).encode();
+
+        assertThrows(ResponseStatusException.class, () -> orderController.getAllOrders(
+            null, null, Optional.empty(), Optional.of("не курсор")));
+        assertThrows(ResponseStatusException.class, () -> orderController.getAllOrders(
+            null, null, Optional.empty(), Optional.of(productCursor)));
+        assertThrows(ResponseStatusException.class, () -> orderController.getAllOrders(
+            null, null, Optional.empty(), Optional.of(malformedTimeCursor)));
+    }
 
-        orderController.getAllOrders(SOME_DATE, latterThanSomeDate);
+    @Test
+    public void getAllOrdersWithInvalidLimitThrowsException() {
+        assertThrows(ResponseStatusException.class, () -> orderController.getAllOrders(
+            null, null, Optional.of("0"), Optional.empty()));
+        assertThrows(ResponseStatusException.class, () -> orderController.getAllOrders(
+            null, null, Optional.of("десять"), Optional.empty()));
+    }
 
-        verify();
+    @Test
+    public void getAllOrdersWithReversedDatesThrowsException() {
+        assertThrows(ResponseStatusException.class, () -> orderController.getAllOrders(
+            SOME_DATE.plusMonths(MONTH_DIFF_BETWEEN_DATES), SOME_DATE, Optional.empty(), Optional.empty()));
     }
 
     @Test
@@ -125,7 +166,7 @@ public class OrderControllerTest {
 
     @Test
     public void getOrderByIdWithExistIdCallsFindByIdOnce() {
-        expect(orderService.findById(VALID_ORDER_ID)).andReturn(Optional.of(new Order())).once();
+        expect(orderService.findByIdWithArchived(VALID_ORDER_ID)).andReturn(Optional.of(new Order())).once();
         replay();
 
         orderController.getOrderById(VALID_ORDER_ID);
@@ -135,7 +176,7 @@ public class OrderControllerTest {
 
     @Test
     public void getOrderByIdWithNonExistIdCallsFindByIdOnceAndThrowsException() {
-        expect(orderService.findById(VALID_ORDER_ID)).andReturn(Optional.empty()).once();
+        expect(orderService.findByIdWithArchived(VALID_ORDER_ID)).andReturn(Optional.empty()).once();
         replay();
 
         assertThrows(ResponseStatusException.class, () -> orderController.getOrderById(VALID_ORDER_ID));
@@ -302,6 +343,250 @@ public class OrderControllerTest {
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
+    @Test
+    public void getOrdersByProductInvalidProductIdThrowsException() {
+        assertThrows(ResponseStatusException.class, () -> orderController.getOrdersByProduct(
+            NEGATIVE_PRODUCT_ID, Optional.empty(), Optional.empty(), Optional.empty()));
+        assertThrows(ResponseStatusException.class, () -> orderController.getOrdersByProduct(
+            ZERO_PRODUCT_ID, Optional.empty(), Optional.empty(), Optional.empty()));
+    }
+
+    @Test
+    public void getOrdersByProductNonPresentProductThrowsException() {
+        expect(productService.findById(VALID_PRODUCT_ID)).andReturn(Optional.empty()).once();
+        replay();
+
+        assertThrows(ResponseStatusException.class, () -> orderController.getOrdersByProduct(
+            VALID_PRODUCT_ID, Optional.empty(), Optional.empty(), Optional.empty()));
+    }
+
+    @Test
+    public void getOrdersByProductCallsFindByProductWithPageOnce() {
+        expect(productService.findById(VALID_PRODUCT_ID)).andReturn(Optional.of(new Product()));
+        expect(orderService.findByProduct(VALID_PRODUCT_ID, 2, 20)).andReturn(getOrderList()).once();
+        replay();
+
+        orderController.getOrdersByProduct(VALID_PRODUCT_ID, Optional.of("2"), Optional.of("20"), Optional.empty());
+
+        verify();
+    }
+
+    @Test
+    public void getOrdersByProductWithInvalidPagingThrowsException() {
+        expect(productService.findById(VALID_PRODUCT_ID)).andReturn(Optional.of(new Product())).times(3);
+        replay();
+
+        assertThrows(ResponseStatusException.class, () -> orderController.getOrdersByProduct(
+            VALID_PRODUCT_ID, Optional.of("-1"), Optional.empty(), Optional.empty()));
+        assertThrows(ResponseStatusException.class, () -> orderController.getOrdersByProduct(
+            VALID_PRODUCT_ID, Optional.of("вторая"), Optional.empty(), Optional.empty()));
+        assertThrows(ResponseStatusException.class, () -> orderController.getOrdersByProduct(
+            VALID_PRODUCT_ID, Optional.empty(), Optional.of("много"), Optional.empty()));
+    }
+
+    @Test
+    public void getOrdersByProductCountOnlyDoesNotLoadOrders() {
+        ProductOrderCount count = new ProductOrderCount(VALID_PRODUCT_ID, 3, 5);
+        expect(productService.findById(VALID_PRODUCT_ID)).andReturn(Optional.of(new Product()));
+        expect(orderService.countByProduct(VALID_PRODUCT_ID)).andReturn(count).once();
+        replay();
+
+        Object result = orderController.getOrdersByProduct(
+            VALID_PRODUCT_ID, Optional.empty(), Optional.empty(), Optional.of(true)).getBody();
+
+        assertEquals(count, result);
+        verify();
+    }
+
+    @Test
+    public void getOrdersByMinTotalPriceNegativePriceThrowsException() {
+        assertThrows(ResponseStatusException.class, () -> orderController.getOrdersByMinTotalPrice(
+            -1L, Optional.empty(), Optional.empty()));
+    }
+
+    @Test
+    public void getOrdersByMinTotalPriceCallsFindByMinTotalPriceWithPageOnce() {
+        expect(orderService.findByMinTotalPrice(10_000L, 0, 50)).andReturn(getOrderList()).once();
+        replay();
+
+        orderController.getOrdersByMinTotalPrice(10_000L, Optional.empty(), Optional.empty());
+
+        verify();
+    }
+
+    @Test
+    public void archiveMonthWithMalformedMonthThrowsException() {
+        assertThrows(ResponseStatusException.class, () -> orderController.archiveMonth("2021-13"));
+        assertThrows(ResponseStatusException.class, () -> orderController.archiveMonth("июнь"));
+    }
+
+    @Test
+    public void archiveMonthRejectedByServiceThrowsException() {
+        YearMonth month = YearMonth.now();
+        expect(orderService.archiveMonth(month)).andThrow(new IllegalArgumentException("not over yet")).once();
+        replay();
+
+        assertThrows(ResponseStatusException.class, () -> orderController.archiveMonth(month.toString()));
+    }
+
+    @Test
+    public void dropArchivedMonthNotArchivedThrowsException() {
+        expect(orderService.dropArchivedMonth(YearMonth.of(2021, 6))).andReturn(false).once();
+        replay();
+
+        assertThrows(ResponseStatusException.class, () -> orderController.dropArchivedMonth("2021-06"));
+    }
+
+    @Test
+    public void createOrdersWithEmptyOrOversizedBatchThrowsException() {
+        List<OrderDto> oversizedBatch = new ArrayList<>();
+        for (int i = 0; i <= OrderController.MAX_BATCH_ORDERS; i++) {
+            oversizedBatch.add(getValidOrderDto());
+        }
+
+        assertThrows(ResponseStatusException.class, () -> orderController.createOrders(new ArrayList<>()));
+        assertThrows(ResponseStatusException.class, () -> orderController.createOrders(oversizedBatch));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void createOrdersSavesValidOrdersTogetherAndReportsRejectedOnes() {
+        long missingProductId = 99L;
+        Product product = new Product(VALID_PRODUCT_ID, "Продукт", "Тип", "Материал", "-", "-", 1500L);
+        Customer customer = new Customer(VALID_CUSTOMER_ID, "Имя", "Фамилия", "логин", "почта");
+        Map<Long, Integer> missingProductMap = new HashMap<>();
+        missingProductMap.put(missingProductId, VALID_PRODUCT_AMOUNT);
+        List<OrderDto> batch = Arrays.asList(
+            new OrderDto(VALID_CUSTOMER_ID, Collections.singletonMap(VALID_PRODUCT_ID, 2), SOME_DATE, false),
+            new OrderDto(null, Collections.singletonMap(VALID_PRODUCT_ID, 1), SOME_DATE, false),
+            new OrderDto(VALID_CUSTOMER_ID, missingProductMap, SOME_DATE, false));
+        List<Order> savedOrders = new ArrayList<>();
+
+        expect(customerService.findAllById(Collections.singleton(VALID_CUSTOMER_ID)))
+            .andReturn(Lists.newArrayList(customer)).once();
+        expect(productService.findAllById(new HashSet<>(Arrays.asList(VALID_PRODUCT_ID, missingProductId))))
+            .andReturn(Lists.newArrayList(product)).once();
+        expect(orderService.saveNewOrders(anyObject())).andAnswer(() -> {
+            List<Order> orders = (List<Order>) getCurrentArguments()[0];
+            orders.get(0).setId(VALID_ORDER_ID);
+            savedOrders.addAll(orders);
+            return orders;
+        }).once();
+        replay();
+
+        OrderBatchResult result = orderController.createOrders(batch).getBody();
+
+        assertEquals(1, result.getCreatedCount());
+        assertEquals(2, result.getFailedCount());
+        assertEquals(Long.valueOf(VALID_ORDER_ID), result.getResults().get(0).getOrderId());
+        assertFalse(result.getResults().get(1).isCreated());
+        assertTrue(result.getResults().get(2).getError().endsWith(String.valueOf(missingProductId)));
+        assertEquals(1, savedOrders.size());
+        assertEquals(2, savedOrders.get(0).getLines().get(0).getQuantity());
+        assertEquals(3000L, savedOrders.get(0).getTotalPrice());
+        verify();
+    }
+
+    @Test
+    public void createOrdersRejectsInvalidDtoWithoutLookingUpItsReferences() {
+        List<OrderDto> batch = Arrays.asList(
+            new OrderDto(VALID_CUSTOMER_ID, Collections.singletonMap(VALID_PRODUCT_ID, 1), SOME_DATE, false),
+            new OrderDto(VALID_CUSTOMER_ID, Collections.singletonMap(ZERO_PRODUCT_ID, 1), SOME_DATE, false));
+
+        expect(customerService.findAllById(Collections.singleton(VALID_CUSTOMER_ID)))
+            .andReturn(Lists.newArrayList(getCustomer(VALID_CUSTOMER_ID))).once();
+        expect(productService.findAllById(Collections.singleton(VALID_PRODUCT_ID)))
+            .andReturn(Lists.newArrayList(getProduct(VALID_PRODUCT_ID))).once();
+        expectSavedOrderIds(VALID_ORDER_ID);
+        replay();
+
+        OrderBatchResult result = orderController.createOrders(batch).getBody();
+
+        assertCreated(result, 0, VALID_ORDER_ID);
+        assertRejected(result, 1, "violations: [");
+        verify();
+    }
+
+    @Test
+    public void createOrdersRejectsOrderOfUnknownCustomer() {
+        long unknownCustomerId = 99L;
+        List<OrderDto> batch = Arrays.asList(
+            new OrderDto(unknownCustomerId, Collections.singletonMap(VALID_PRODUCT_ID, 1), SOME_DATE, false),
+            new OrderDto(VALID_CUSTOMER_ID, Collections.singletonMap(VALID_PRODUCT_ID, 1), SOME_DATE, false));
+
+        expect(customerService.findAllById(new HashSet<>(Arrays.asList(VALID_CUSTOMER_ID, unknownCustomerId))))
+            .andReturn(Lists.newArrayList(getCustomer(VALID_CUSTOMER_ID))).once();
+        expect(productService.findAllById(Collections.singleton(VALID_PRODUCT_ID)))
+            .andReturn(Lists.newArrayList(getProduct(VALID_PRODUCT_ID))).once();
+        expectSavedOrderIds(VALID_ORDER_ID);
+        replay();
+
+        OrderBatchResult result = orderController.createOrders(batch).getBody();
+
+        assertRejected(result, 0, "no such customer with provided ID: " + unknownCustomerId);
+        assertCreated(result, 1, VALID_ORDER_ID);
+        verify();
+    }
+
+    @Test
+    public void createOrdersRejectsOrderOfUnknownProduct() {
+        long unknownProductId = 99L;
+        Map<Long, Integer> productIdAmountMap = new HashMap<>();
+        productIdAmountMap.put(VALID_PRODUCT_ID, 1);
+        productIdAmountMap.put(unknownProductId, 1);
+        List<OrderDto> batch = Arrays.asList(
+            new OrderDto(VALID_CUSTOMER_ID, Collections.singletonMap(VALID_PRODUCT_ID, 1), SOME_DATE, false),
+            new OrderDto(VALID_CUSTOMER_ID, productIdAmountMap, SOME_DATE, false));
+
+        expect(customerService.findAllById(Collections.singleton(VALID_CUSTOMER_ID)))
+            .andReturn(Lists.newArrayList(getCustomer(VALID_CUSTOMER_ID))).once();
+        expect(productService.findAllById(new HashSet<>(Arrays.asList(VALID_PRODUCT_ID, unknownProductId))))
+            .andReturn(Lists.newArrayList(getProduct(VALID_PRODUCT_ID))).once();
+        expectSavedOrderIds(VALID_ORDER_ID);
+        replay();
+
+        OrderBatchResult result = orderController.createOrders(batch).getBody();
+
+        assertCreated(result, 0, VALID_ORDER_ID);
+        assertRejected(result, 1, "no such product with provided ID: " + unknownProductId);
+        verify();
+    }
+
+    @Test
+    public void createOrdersMapsEveryResultBackToItsRequestIndex() {
+        long unknownCustomerId = 99L;
+        long unknownProductId = 98L;
+        long secondCustomerId = 2L;
+        List<OrderDto> batch = Arrays.asList(
+            new OrderDto(null, Collections.singletonMap(VALID_PRODUCT_ID, 1), SOME_DATE, false),
+            new OrderDto(secondCustomerId, Collections.singletonMap(VALID_PRODUCT_ID, 1), SOME_DATE, false),
+            new OrderDto(unknownCustomerId, Collections.singletonMap(VALID_PRODUCT_ID, 1), SOME_DATE, false),
+            new OrderDto(VALID_CUSTOMER_ID, Collections.singletonMap(VALID_PRODUCT_ID, 1), SOME_DATE, true),
+            new OrderDto(VALID_CUSTOMER_ID, Collections.singletonMap(unknownProductId, 1), SOME_DATE, false));
+
+        expect(customerService.findAllById(
+            new HashSet<>(Arrays.asList(VALID_CUSTOMER_ID, secondCustomerId, unknownCustomerId))))
+            .andReturn(Lists.newArrayList(getCustomer(VALID_CUSTOMER_ID), getCustomer(secondCustomerId))).once();
+        expect(productService.findAllById(new HashSet<>(Arrays.asList(VALID_PRODUCT_ID, unknownProductId))))
+            .andReturn(Lists.newArrayList(getProduct(VALID_PRODUCT_ID))).once();
+        List<Order> savedOrders = expectSavedOrderIds(11L, 12L);
+        replay();
+
+        OrderBatchResult result = orderController.createOrders(batch).getBody();
+
+        assertEquals(batch.size(), result.getResults().size());
+        assertEquals(2, result.getCreatedCount());
+        assertEquals(3, result.getFailedCount());
+        assertRejected(result, 0, "violations: [");
+        assertCreated(result, 1, 11L);
+        assertRejected(result, 2, "no such customer with provided ID: " + unknownCustomerId);
+        assertCreated(result, 3, 12L);
+        assertRejected(result, 4, "no such product with provided ID: " + unknownProductId);
+        assertEquals(Long.valueOf(secondCustomerId), savedOrders.get(0).getCustomer().getId());
+        assertTrue(savedOrders.get(1).isDelivered());
+        verify();
+    }
+
     // ===================================================================================================================
     // = Implementation
     // ===================================================================================================================
@@ -318,6 +603,53 @@ public class OrderControllerTest {
         return idAmountMap;
     }
 
+    /**
+     * Expects one save of the batch and gives its orders the ids in turn.
+     *
+     * @return the saved orders, filled once the batch is saved.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Order> expectSavedOrderIds(Long... orderIds) {
+        List<Order> savedOrders = new ArrayList<>();
+        expect(orderService.saveNewOrders(anyObject())).andAnswer(() -> {
+            List<Order> orders = (List<Order>) getCurrentArguments()[0];
+            assertEquals(orderIds.length, orders.size());
+            for (int i = 0; i < orderIds.length; i++) {
+                orders.get(i).setId(orderIds[i]);
+            }
+            savedOrders.addAll(orders);
+            return orders;
+        }).once();
+
+        return savedOrders;
+    }
+
+    private void assertCreated(OrderBatchResult result, int index, long orderId) {
+        OrderBatchResult.OrderResult orderResult = result.getResults().get(index);
+
+        assertEquals(index, orderResult.getIndex());
+        assertTrue(orderResult.isCreated());
+        assertEquals(Long.valueOf(orderId), orderResult.getOrderId());
+        assertNull(orderResult.getError());
+    }
+
+    private void assertRejected(OrderBatchResult result, int index, String errorPrefix) {
+        OrderBatchResult.OrderResult orderResult = result.getResults().get(index);
+
+        assertEquals(index, orderResult.getIndex());
+        assertFalse(orderResult.isCreated());
+        assertNull(orderResult.getOrderId());
+        assertTrue(orderResult.getError(), orderResult.getError().startsWith(errorPrefix));
+    }
+
+    private Customer getCustomer(long customerId) {
+        return new Customer(customerId, "Имя", "Фамилия", "логин" + customerId, "почта" + customerId);
+    }
+
+    private Product getProduct(long productId) {
+        return new Product(productId, "Продукт", "Тип", "Материал", "-", "-", 1500L);
+    }
+
     private OrderDto getValidOrderDto() {
         return new OrderDto(VALID_ORDER_ID, getValidProductIdAmountMap(), SOME_DATE, true);
     }
@@ -327,28 +659,24 @@ public class OrderControllerTest {
         customer.setId(VALID_CUSTOMER_ID);
         Order order = new Order(
             customer,
-            mapToList(dto.getProductIdAmountMap()),
+            mapToLines(dto.getProductIdAmountMap()),
             dto.getOrderedTime(),
             dto.getDelivered());
         order.setId(VALID_ORDER_ID);
         return order;
     }
 
-    private List<Product> mapToList(Map<Long, Integer> productIdAmountMap) {
-        List<Product> productList = new ArrayList<>();
+    private List<OrderLine> mapToLines(Map<Long, Integer> productIdAmountMap) {
+        List<OrderLine> lines = new ArrayList<>();
 
         for (Map.Entry<Long, Integer> pair : productIdAmountMap.entrySet()) {
-            Long id = pair.getKey();
-
-            for (int i = 0; i < pair.getValue(); i++) {
-                Product product = new Product();
-                product.setId(id);
+            Product product = new Product();
+            product.setId(pair.getKey());
 
-                productList.add(product);
-            }
+            lines.add(new OrderLine(product, pair.getValue()));
         }
 
-        return productList;
+        return lines;
     }
 
     private List<Order> getOrderList() {
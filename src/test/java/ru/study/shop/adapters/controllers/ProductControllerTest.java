@@ -16,10 +16,13 @@ import ru.study.shop.entities.Product;
 import ru.study.shop.services.interfaces.ProductService;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
 
+import static org.easymock.EasyMock.anyObject;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.expectLastCall;
 import static org.junit.Assert.assertEquals;
@@ -230,11 +233,71 @@ public class ProductControllerTest {
         assertEquals(HttpStatus.OK, response.getStatusCode());
     }
 
+    @Test
+    public void searchProductsWithInvalidLimitThrowsException() {
+        assertThrows(ResponseStatusException.class, () -> productController.searchProducts(
+            Optional.of(STRING_VAL), Optional.of("0")));
+        assertThrows(ResponseStatusException.class, () -> productController.searchProducts(
+            Optional.of(STRING_VAL), Optional.of("все")));
+    }
+
+    @Test
+    public void deleteProductsWithMalformedBoundThrowsException() {
+        assertThrows(ResponseStatusException.class, () -> deleteProducts(
+            Optional.of("abc"), Optional.empty(), Optional.empty(), Optional.empty()));
+        assertThrows(ResponseStatusException.class, () -> deleteProducts(
+            Optional.empty(), Optional.of("10.5"), Optional.empty(), Optional.empty()));
+        assertThrows(ResponseStatusException.class, () -> deleteProducts(
+            Optional.empty(), Optional.empty(), Optional.of("abc"), Optional.empty()));
+        assertThrows(ResponseStatusException.class, () -> deleteProducts(
+            Optional.empty(), Optional.empty(), Optional.empty(), Optional.of("")));
+    }
+
+    @Test
+    public void deleteProductsWithInvertedRangeThrowsException() {
+        assertThrows(ResponseStatusException.class, () -> deleteProducts(
+            Optional.of("10"), Optional.of("5"), Optional.empty(), Optional.empty()));
+        assertThrows(ResponseStatusException.class, () -> deleteProducts(
+            Optional.empty(), Optional.empty(), Optional.of("5000"), Optional.of("1000")));
+    }
+
+    @Test
+    public void deleteProductsWithoutConstraintsThrowsException() {
+        replay();
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class, () -> productController.deleteProducts(
+            Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(), Optional.empty(),
+            Optional.empty(), Optional.empty(), Optional.of(" ")));
+
+        assertEquals(HttpStatus.BAD_REQUEST, exception.getStatus());
+        verify();
+    }
+
+    @Test
+    public void deleteProductsWithValidRangeReturnsDeletedCount() {
+        expect(productService.deleteByProductQuery(anyObject())).andReturn(3).once();
+        replay();
+
+        ResponseEntity<Map<String, Integer>> response = deleteProducts(
+            Optional.of("1"), Optional.of("10"), Optional.of("1000"), Optional.of("5000"));
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertEquals(Integer.valueOf(3), response.getBody().get("deletedCount"));
+        verify();
+    }
 
     // ===================================================================================================================
     // = Implementation
     // ===================================================================================================================
 
+    private ResponseEntity<Map<String, Integer>> deleteProducts(
+        Optional<String> strFromId, Optional<String> strToId, Optional<String> strFromPrice, Optional<String> strToPrice) {
+        return productController.deleteProducts(
+            strFromId, strToId,
+            Optional.of(Arrays.asList(STRING_VAL)), Optional.empty(), Optional.empty(), Optional.empty(),
+            strFromPrice, strToPrice, Optional.empty());
+    }
+
     private ProductDto getValidDto() {
         return new ProductDto(
             STRING_VAL, STRING_VAL, STRING_VAL,
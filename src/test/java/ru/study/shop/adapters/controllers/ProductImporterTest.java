@@ -0,0 +1,114 @@
+package ru.study.shop.adapters.controllers;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.unitils.UnitilsBlockJUnit4ClassRunner;
+import org.unitils.easymock.annotation.Mock;
+import ru.study.shop.adapters.controllers.product_import.CsvProductRowReader;
+import ru.study.shop.adapters.controllers.product_import.NdjsonProductRowReader;
+import ru.study.shop.adapters.controllers.product_import.ProductImportResult;
+import ru.study.shop.adapters.controllers.product_import.ProductImporter;
+import ru.study.shop.entities.Product;
+import ru.study.shop.services.interfaces.ProductService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import static org.unitils.easymock.EasyMockUnitils.replay;
+
+@RunWith(UnitilsBlockJUnit4ClassRunner.class)
+public class ProductImporterTest {
+    private static final int BATCH_SIZE = 2;
+
+    @Mock
+    private ProductService productService;
+
+    private ProductImporter productImporter;
+
+    private final List<Integer> insertedBatchSizes = new ArrayList<>();
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        productImporter = new ProductImporter(productService, BATCH_SIZE);
+
+        expect(productService.insertAll(anyObject())).andAnswer(() -> {
+            List<Product> batch = (List<Product>) getCurrentArguments()[0];
+            insertedBatchSizes.add(batch.size());
+            return batch;
+        }).anyTimes();
+        replay();
+    }
+
+    @Test
+    public void csvRowsAreInsertedInBatchesAndInvalidRowsReported() throws IOException {
+        String csv = "price,productName,productType,material,manufacturer,description\n"
+            + "1500,Стол,Мебель,Дуб,Фабрика,\"Большой, раздвижной\"\n"
+            + "\n"
+            + "2000,Стул,Мебель,Бук,Фабрика,\n"
+            + "abc,Шкаф,Мебель,Сосна,Фабрика,\n"
+            + "3000,,Мебель,Сосна,Фабрика,\n"
+            + "4000,Полка,Мебель,Сосна,Фабрика,\"Настенная \"\"Лофт\"\"\"\n";
+
+        ProductImportResult result = productImporter.importProducts(
+            new CsvProductRowReader(new BufferedReader(new StringReader(csv))));
+
+        assertEquals(3, result.getImportedCount());
+        assertEquals(2, result.getFailedCount());
+        assertEquals(5, result.getErrors().get(0).getLine());
+        assertEquals(6, result.getErrors().get(1).getLine());
+        assertEquals(2, (int) insertedBatchSizes.get(0));
+        assertEquals(1, (int) insertedBatchSizes.get(1));
+    }
+
+    @Test
+    public void csvWithUnknownColumnIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new CsvProductRowReader(
+            new BufferedReader(new StringReader("productName,colour\n"))));
+    }
+
+    @Test
+    public void ndjsonMalformedLinesAreReportedWithoutAbortingImport() throws IOException {
+        String ndjson = "{\"productName\":\"Стол\",\"productType\":\"Мебель\",\"material\":\"Дуб\",\"manufacturer\":\"Фабрика\"}\n"
+            + "{\"productName\":\n"
+            + "{\"productName\":\"Стул\",\"productType\":\"Мебель\",\"material\":\"Бук\",\"manufacturer\":\"Фабрика\",\"price\":-1}\n"
+            + "{\"productName\":\"Шкаф\",\"productType\":\"Мебель\",\"material\":\"Сосна\",\"manufacturer\":\"Фабрика\"}\n";
+
+        ProductImportResult result = productImporter.importProducts(
+            new NdjsonProductRowReader(new BufferedReader(new StringReader(ndjson)), new ObjectMapper()));
+
+        assertEquals(2, result.getImportedCount());
+        assertEquals(2, result.getFailedCount());
+        assertEquals(2, result.getErrors().get(0).getLine());
+        assertEquals(3, result.getErrors().get(1).getLine());
+    }
+
+    @Test
+    public void ndjsonLinesThatAreNotObjectsAreReportedAsMalformed() throws IOException {
+        String ndjson = "null\n"
+            + "[1, 2]\n"
+            + "42\n"
+            + "{\"productName\":\"Шкаф\",\"productType\":\"Мебель\",\"material\":\"Сосна\",\"manufacturer\":\"Фабрика\"}\n";
+
+        ProductImportResult result = productImporter.importProducts(
+            new NdjsonProductRowReader(new BufferedReader(new StringReader(ndjson)), new ObjectMapper()));
+
+        assertEquals(1, result.getImportedCount());
+        assertEquals(3, result.getFailedCount());
+        assertEquals(1, result.getErrors().get(0).getLine());
+        assertTrue(result.getErrors().get(0).getMessage().startsWith("malformed JSON"));
+        assertEquals(2, result.getErrors().get(1).getLine());
+        assertEquals(3, result.getErrors().get(2).getLine());
+    }
+}
@@ -327,7 +327,7 @@ public class StockControllerTest {
 
     @Test
     public void DeleteAllStocksByProductId_WithNoProductPresent_ThrowsException() {
-        expect(stockService.findByProductId(VALID_PRODUCT_ID)).andReturn(new ArrayList<>()).atLeastOnce();
+        expect(stockService.deleteAllStocksByProductId(VALID_PRODUCT_ID)).andReturn(0).atLeastOnce();
         replay();
 
         assertThrows(ResponseStatusException.class, () ->
@@ -336,10 +336,7 @@ public class StockControllerTest {
 
     @Test
     public void DeleteAllStocksByProductId_WithProductIsPresent_ReturnsOk() {
-        List<Stock> nonEmptyList = getStockList(VALID_PRODUCT_ID, VALID_STOCK_SIZE);
-        expect(stockService.findByProductId(VALID_PRODUCT_ID)).andReturn(nonEmptyList).atLeastOnce();
-        stockService.deleteAllStocks(nonEmptyList);
-        expectLastCall();
+        expect(stockService.deleteAllStocksByProductId(VALID_PRODUCT_ID)).andReturn(STOCK_LIST_SIZE).once();
         replay();
 
         ResponseEntity<List<Stock>> response = stockController.deleteAllStocksByProductId(VALID_PRODUCT_ID);
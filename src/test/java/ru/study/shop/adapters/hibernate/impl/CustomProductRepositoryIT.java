@@ -4,14 +4,22 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.junit4.SpringRunner;
 import ru.study.shop.ShopApplication;
 import ru.study.shop.adapters.hibernate.ProductRepository;
+import ru.study.shop.adapters.hibernate.impl.query_classes.KeysetCursor;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductFacets;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductPage;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductPageRequest;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductProjection;
 import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductSortField;
 import ru.study.shop.entities.Product;
 
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static java.util.Objects.isNull;
 import static org.junit.Assert.*;
@@ -32,9 +40,18 @@ public class CustomProductRepositoryIT {
 
     private static final int MAX_LIST_SIZE = 5;
 
+    private static final int PAGE_SIZE = 5;
+
+    private static final int LARGE_ID_LIST_SIZE = 5000;
+
+    private static final List<Long> PRICE_BUCKET_BOUNDS = Arrays.asList(1000L, 5000L);
+
     @Autowired
     private ProductRepository repository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Test
     public void findByProductQueryNullQueryConstraintReturnsLikeFindAll() {
         List<Product> productList;
@@ -136,10 +153,98 @@ public class CustomProductRepositoryIT {
         assertEquals(manufacturerList, manufacturerResultList);
     }
 
+    @Test
+    public void findByProductQueryPagesThroughAllProductsInPriceOrder() {
+        ProductSortField sortField = ProductSortField.PRICE;
+
+        List<Product> pagedList = new ArrayList<>();
+        KeysetCursor cursor = null;
+        do {
+            ProductPage page = repository.findByProductQueryConstraints(
+                ProductQueryConstraints.getConstraintsBuilder().build(),
+                new ProductPageRequest(sortField, PAGE_SIZE, cursor));
+
+            assertTrue(page.getProducts().size() <= PAGE_SIZE);
+            pagedList.addAll(page.getProducts());
+            cursor = page.getNextCursor().orElse(null);
+        } while (cursor != null);
+
+        List<Product> expectedList = repository.findAll();
+        expectedList.sort(sortField.getComparator());
+
+        assertEquals(
+            expectedList.stream().map(Product::getId).collect(Collectors.toList()),
+            pagedList.stream().map(Product::getId).collect(Collectors.toList()));
+    }
+
     /////////////////////////////////////////////////////////////
     // Impl
     /////////////////////////////////////////////////////////////
 
+    @Test
+    public void findByProductQueryWithProjectionReadsOnlyProjectedAttributes() {
+        ProductPageRequest pageRequest = new ProductPageRequest(ProductSortField.PRICE, PAGE_SIZE, null);
+
+        ProductPage fullPage = repository.findByProductQueryConstraints(null, pageRequest);
+        ProductPage projectedPage = repository.findByProductQueryConstraints(null, pageRequest,
+            ProductProjection.of(Arrays.asList("productName", "manufacturer")));
+
+        assertEquals(
+            fullPage.getProducts().stream().map(Product::getId).collect(Collectors.toList()),
+            projectedPage.getProducts().stream().map(Product::getId).collect(Collectors.toList()));
+        projectedPage.getProducts().forEach(product -> {
+            assertNotNull(product.getProductName());
+            assertNull(product.getDescription());
+            assertNull(product.getMaterial());
+        });
+        assertEquals(
+            fullPage.getNextCursor().map(KeysetCursor::encode),
+            projectedPage.getNextCursor().map(KeysetCursor::encode));
+    }
+
+    @Test
+    public void findByProductQueryWithLargeIdListJoinsSessionLocalFilterTable() {
+        List<Long> ids = LongStream.rangeClosed(1, LARGE_ID_LIST_SIZE).boxed().collect(Collectors.toList());
+        Collections.shuffle(ids);
+        ProductQueryConstraints queryConstraints = ProductQueryConstraints.getConstraintsBuilder()
+            .idConstraint(ids).build();
+
+        List<Product> resultList = repository.findByProductQueryConstraints(queryConstraints);
+        // the second query finds the temporary table already created on its connection
+        List<Product> repeatedResultList = repository.findByProductQueryConstraints(queryConstraints);
+
+        compareProductLists(repository.findAll(), resultList);
+        compareProductLists(resultList, repeatedResultList);
+        assertEquals(Integer.valueOf(0), jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES"
+                + " WHERE TABLE_NAME = 'QUERY_FILTER_VALUE' AND STORAGE_TYPE NOT LIKE '%TEMPORARY'",
+            Integer.class));
+    }
+
+    @Test
+    public void countFacetsMatchesCountsOverAllProducts() {
+        List<Product> allProducts = repository.findAll();
+        List<String> types = getRandomStringListFrom(getDistinctSortedProductTypesListFromDB());
+        ProductQueryConstraints queryConstraints = ProductQueryConstraints.getConstraintsBuilder()
+            .typeConstraint(types).build();
+
+        ProductFacets facets = repository.countFacets(queryConstraints, PRICE_BUCKET_BOUNDS);
+
+        Map<String, Long> expectedTypeCounts = allProducts.stream()
+            .collect(Collectors.groupingBy(Product::getProductType, Collectors.counting()));
+        Map<String, Long> expectedMaterialCounts = allProducts.stream()
+            .filter(product -> types.contains(product.getProductType()))
+            .collect(Collectors.groupingBy(Product::getMaterial, Collectors.counting()));
+        long expectedCheapProductCount = allProducts.stream()
+            .filter(product -> types.contains(product.getProductType()) && product.getPrice() < PRICE_BUCKET_BOUNDS.get(0))
+            .count();
+
+        assertEquals(expectedTypeCounts, facets.getProductType());
+        assertEquals(expectedMaterialCounts, facets.getMaterial());
+        assertEquals(PRICE_BUCKET_BOUNDS.size() + 1, facets.getPrice().size());
+        assertEquals(expectedCheapProductCount, facets.getPrice().get(0).getCount());
+    }
+
     private List<String> getDistinctSortedProductNamesListFromDB() {
         return repository.findAll().stream()
             .map(Product::getProductName).sorted().distinct().collect(Collectors.toList());
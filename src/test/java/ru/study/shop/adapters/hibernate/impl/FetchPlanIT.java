@@ -0,0 +1,154 @@
+package ru.study.shop.adapters.hibernate.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.study.shop.ShopApplication;
+import ru.study.shop.adapters.hibernate.OrderRepository;
+import ru.study.shop.adapters.hibernate.StockRepository;
+import ru.study.shop.services.interfaces.OrderService;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Serializes listings the way the controllers do, with lazy associations forced by the object mapper,
+ * and counts the statements it takes.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(
+    classes = ShopApplication.class,
+    properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class FetchPlanIT {
+    // long before the seed data, so that the range holds only the orders inserted here
+    private static final LocalDateTime FROM_TIME = LocalDateTime.of(2002, 3, 1, 0, 0);
+    private static final LocalDateTime TO_TIME = FROM_TIME.plusMonths(1);
+    private static final int ORDER_COUNT = 20;
+
+    // orders with their customers, lines of the orders, products of the lines
+    private static final int MAX_ORDER_PAGE_STATEMENTS = 3;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private StockRepository stockRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    @Before
+    public void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Long firstCustomerId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM customer", Long.class);
+        Long lastCustomerId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM customer", Long.class);
+        for (int i = 0; i < ORDER_COUNT; i++) {
+            jdbcTemplate.update(
+                "INSERT INTO orders (customer_id, ordered_time, delivered, total_price) VALUES (?, ?, false, 0)",
+                i % 2 == 0 ? firstCustomerId : lastCustomerId,
+                FROM_TIME.plusHours(i));
+        }
+        jdbcTemplate.update(
+            "INSERT INTO order_line (order_id, product_id, quantity, unit_price) " +
+            "SELECT o.id, p.id, 1, p.price FROM orders AS o JOIN product AS p ON MOD(o.id + p.id, 3) = 0 " +
+            "WHERE o.ordered_time >= ? AND o.ordered_time < ?",
+            FROM_TIME, TO_TIME);
+    }
+
+    @After
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM orders WHERE ordered_time >= ? AND ordered_time < ?", FROM_TIME, TO_TIME);
+    }
+
+    @Test
+    public void orderPageIsSerializedInConstantNumberOfStatements() {
+        long smallPageStatements = countStatements(() -> orderService.findPage(FROM_TIME, TO_TIME, 5, null, null).getOrders());
+        long fullPageStatements = countStatements(
+            () -> orderService.findPage(FROM_TIME, TO_TIME, ORDER_COUNT, null, null).getOrders());
+
+        // the page also looks up the archived months of the range
+        assertTrue(fullPageStatements <= MAX_ORDER_PAGE_STATEMENTS + 1);
+        assertEquals(smallPageStatements, fullPageStatements);
+    }
+
+    @Test
+    public void ordersOfCustomerAreSerializedInConstantNumberOfStatements() {
+        Long customerId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM customer", Long.class);
+
+        long statements = countStatements(() -> orderService.findByCustomer(customerId, 0, ORDER_COUNT));
+
+        // the history also looks up the archived months
+        assertTrue(statements <= MAX_ORDER_PAGE_STATEMENTS + 1);
+    }
+
+    @Test
+    public void ordersOfProductAreSerializedInConstantNumberOfStatements() {
+        Long productId = jdbcTemplate.queryForObject("SELECT MIN(product_id) FROM order_line", Long.class);
+
+        // the native query takes no entity graph, so customers are batch fetched too
+        long statements = countStatements(
+            () -> orderRepository.findByProductId(productId, PageRequest.of(0, ORDER_COUNT)));
+
+        assertTrue(statements <= MAX_ORDER_PAGE_STATEMENTS + 1);
+    }
+
+    @Test
+    public void stocksAreSerializedInOneStatement() {
+        assertEquals(1, countStatements(stockRepository::findAll));
+        assertEquals(1, countStatements(stockRepository::findNonEmptyStocks));
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    /**
+     * @return statements run to load and serialize the listing in one persistence context.
+     */
+    private long countStatements(Supplier<List<?>> listing) {
+        statistics.clear();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            try {
+                objectMapper.writeValueAsString(listing.get());
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        return statistics.getPrepareStatementCount();
+    }
+}
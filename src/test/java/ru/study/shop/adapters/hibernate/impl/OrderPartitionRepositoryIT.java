@@ -0,0 +1,216 @@
+package ru.study.shop.adapters.hibernate.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import ru.study.shop.ShopApplication;
+import ru.study.shop.adapters.hibernate.OrderRepository;
+import ru.study.shop.adapters.hibernate.impl.query_classes.CustomerOrderSummary;
+import ru.study.shop.adapters.hibernate.impl.query_classes.OrderPartition;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductOrderCount;
+import ru.study.shop.entities.Order;
+import ru.study.shop.entities.OrderLine;
+import ru.study.shop.services.interfaces.OrderService;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = ShopApplication.class)
+public class OrderPartitionRepositoryIT {
+    // long before the seed data, so that the month holds only the orders inserted here
+    private static final YearMonth MONTH = YearMonth.of(2001, 1);
+    private static final String MONTH_TIME = "2001-01-15 10:00:00";
+    private static final LocalDateTime MONTH_START = MONTH.atDay(1).atStartOfDay();
+    private static final LocalDateTime MONTH_END = MONTH.atEndOfMonth().atTime(23, 59, 59);
+    private static final int UNIT_PRICE = 350;
+    private static final int QUANTITY = 2;
+
+    @Autowired
+    private OrderRepository repository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setUp() {
+        jdbcTemplate.update(
+            "INSERT INTO orders (customer_id, ordered_time, delivered, total_price) "
+                + "SELECT MIN(id), TIMESTAMP '" + MONTH_TIME + "', false, ? FROM customer",
+            UNIT_PRICE * QUANTITY);
+        jdbcTemplate.update(
+            "INSERT INTO order_line (order_id, product_id, quantity, unit_price) "
+                + "SELECT o.id, (SELECT MIN(id) FROM product), ?, ? FROM orders AS o "
+                + "WHERE o.ordered_time = TIMESTAMP '" + MONTH_TIME + "'",
+            QUANTITY, UNIT_PRICE);
+    }
+
+    @After
+    public void tearDown() {
+        repository.dropPartition(MONTH);
+        jdbcTemplate.update("DELETE FROM orders WHERE ordered_time = TIMESTAMP '" + MONTH_TIME + "'");
+    }
+
+    @Test
+    public void archivePartitionMovesOrdersOfMonthWithTheirLines() {
+        OrderPartition partition = archive();
+
+        assertEquals(MONTH, partition.getMonth());
+        assertEquals(1, partition.getOrderCount());
+        assertEquals(UNIT_PRICE * QUANTITY, partition.getTotalPrice());
+        assertEquals(0, countRows("orders AS o WHERE o.ordered_time = TIMESTAMP '" + MONTH_TIME + "'"));
+        assertEquals(1, countRows(OrderPartitionRepositoryImpl.getOrderTableName(MONTH)));
+        assertEquals(1, countRows(OrderPartitionRepositoryImpl.getOrderLineTableName(MONTH)));
+        assertTrue(repository.findPartitions().stream().anyMatch(p -> MONTH.equals(p.getMonth())));
+    }
+
+    @Test
+    public void archivePartitionAddsLateOrdersToArchivedMonth() {
+        archive();
+        setUp();
+
+        OrderPartition partition = archive();
+
+        assertEquals(2, partition.getOrderCount());
+        assertEquals(2, countRows(OrderPartitionRepositoryImpl.getOrderLineTableName(MONTH)));
+    }
+
+    @Test
+    public void dropPartitionDropsTablesOfArchivedMonthOnly() {
+        assertFalse(repository.dropPartition(MONTH));
+
+        archive();
+
+        assertTrue(repository.dropPartition(MONTH));
+        assertFalse(repository.findPartition(MONTH).isPresent());
+        assertEquals(
+            Integer.valueOf(0),
+            jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.tables WHERE LOWER(table_name) IN (?, ?)",
+                Integer.class,
+                OrderPartitionRepositoryImpl.getOrderTableName(MONTH),
+                OrderPartitionRepositoryImpl.getOrderLineTableName(MONTH)));
+    }
+
+    @Test
+    public void archivedOrdersAreStillFoundByTimeRangeAndId() {
+        Long orderId = findLiveOrderId();
+
+        archive();
+
+        List<Order> rangeOrders = orderService.findAllFromToDate(MONTH_START, MONTH_END);
+        assertEquals(1, rangeOrders.size());
+        assertArchivedOrder(orderId, rangeOrders.get(0));
+
+        List<Order> pageOrders = orderService.findPage(MONTH_START, MONTH_END, 10, null, null).getOrders();
+        assertEquals(1, pageOrders.size());
+        assertArchivedOrder(orderId, pageOrders.get(0));
+
+        assertFalse(orderService.findById(orderId).isPresent());
+        assertArchivedOrder(orderId, orderService.findByIdWithArchived(orderId).orElseThrow(AssertionError::new));
+    }
+
+    @Test
+    public void archivingKeepsOrdersInCustomerProductAndPriceReads() {
+        Long orderId = findLiveOrderId();
+        Long customerId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM customer", Long.class);
+        Long productId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM product", Long.class);
+        long minTotalPrice = UNIT_PRICE * QUANTITY;
+
+        List<Long> customerOrderIds = getIds(orderService.findByCustomer(customerId, 0, 1000));
+        CustomerOrderSummary summary = orderService.summarizeByCustomer(customerId);
+        List<Long> productOrderIds = getIds(orderService.findByProduct(productId, 0, 1000));
+        ProductOrderCount productCount = orderService.countByProduct(productId);
+        List<Long> expensiveOrderIds = getIds(orderService.findByMinTotalPrice(minTotalPrice, 0, 1000));
+        assertTrue(customerOrderIds.contains(orderId));
+
+        archive();
+
+        assertEquals(customerOrderIds, getIds(orderService.findByCustomer(customerId, 0, 1000)));
+        CustomerOrderSummary archivedSummary = orderService.summarizeByCustomer(customerId);
+        assertEquals(summary.getOrderCount(), archivedSummary.getOrderCount());
+        assertEquals(summary.getProductCount(), archivedSummary.getProductCount());
+        assertEquals(summary.getTotalPrice(), archivedSummary.getTotalPrice());
+        assertEquals(summary.getFirstOrderedTime(), archivedSummary.getFirstOrderedTime());
+        assertEquals(productOrderIds, getIds(orderService.findByProduct(productId, 0, 1000)));
+        assertEquals(productCount.getUnitCount(), orderService.countByProduct(productId).getUnitCount());
+        assertEquals(expensiveOrderIds, getIds(orderService.findByMinTotalPrice(minTotalPrice, 0, 1000)));
+
+        assertEquals(Collections.singletonList(orderId), repository.findArchivedIdsAfter(orderId - 1, 10));
+        List<Object[]> productIds = repository.findArchivedProductIdsByOrderIdRange(orderId - 1, orderId);
+        assertEquals(1, productIds.size());
+        assertArrayEquals(new Object[] { orderId, productId }, productIds.get(0));
+    }
+
+    @Test
+    public void failedArchivingLeavesOrdersOfMonthLive() {
+        Long orderId = findLiveOrderId();
+        archive();
+        setUp();
+        Long lateOrderId = findLiveOrderId();
+        // an order line that clashes with the late order's line makes the move fail after its orders were copied
+        jdbcTemplate.update(
+            "INSERT INTO " + OrderPartitionRepositoryImpl.getOrderLineTableName(MONTH) + " "
+                + "(id, order_id, product_id, product_name, quantity, unit_price) "
+                + "SELECT id, ?, NULL, NULL, 1, 1 FROM order_line WHERE order_id = ?",
+            orderId, lateOrderId);
+
+        try {
+            archive();
+            fail();
+        } catch (RuntimeException expected) {
+            // the move is rolled back as a whole
+        }
+
+        assertTrue(orderService.findById(lateOrderId).isPresent());
+        assertEquals(1, countRows(OrderPartitionRepositoryImpl.getOrderTableName(MONTH)));
+        assertEquals(1, repository.findPartition(MONTH).orElseThrow(AssertionError::new).getOrderCount());
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private OrderPartition archive() {
+        repository.createPartitionTables(MONTH);
+        return repository.archivePartition(MONTH);
+    }
+
+    private Long findLiveOrderId() {
+        return jdbcTemplate.queryForObject(
+            "SELECT MAX(id) FROM orders WHERE ordered_time = TIMESTAMP '" + MONTH_TIME + "'", Long.class);
+    }
+
+    private static List<Long> getIds(List<Order> orders) {
+        return orders.stream()
+            .map(Order::getId)
+            .collect(Collectors.toList());
+    }
+
+    private void assertArchivedOrder(Long orderId, Order order) {
+        assertEquals(orderId, order.getId());
+        assertEquals(UNIT_PRICE * QUANTITY, order.getTotalPrice());
+        assertEquals(1, order.getLines().size());
+
+        OrderLine line = order.getLines().get(0);
+        assertEquals(QUANTITY, line.getQuantity());
+        assertEquals(Long.valueOf(UNIT_PRICE), line.getUnitPrice());
+    }
+
+    private int countRows(String tableAndCondition) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + tableAndCondition, Integer.class);
+    }
+}
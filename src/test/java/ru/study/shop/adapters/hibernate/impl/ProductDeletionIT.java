@@ -0,0 +1,123 @@
+package ru.study.shop.adapters.hibernate.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.study.shop.ShopApplication;
+import ru.study.shop.adapters.hibernate.CustomerRepository;
+import ru.study.shop.adapters.hibernate.OrderRepository;
+import ru.study.shop.adapters.hibernate.ProductRepository;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints;
+import ru.study.shop.entities.Order;
+import ru.study.shop.entities.OrderLine;
+import ru.study.shop.entities.Product;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Deletes a product of a past order and checks that the order keeps its lines and total.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = ShopApplication.class)
+public class ProductDeletionIT {
+    // long before the seed data, so that the range holds only the orders inserted here
+    private static final LocalDateTime ORDERED_TIME = LocalDateTime.of(2003, 4, 1, 12, 0);
+
+    private static final String DELETED_PRODUCT_NAME = "Удаляемый товар";
+    private static final long DELETED_PRODUCT_PRICE = 1500L;
+    private static final int DELETED_PRODUCT_QUANTITY = 2;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private CustomerRepository customerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Product deletedProduct;
+    private Order order;
+
+    @Before
+    public void setUp() {
+        deletedProduct = productRepository.save(
+            new Product(DELETED_PRODUCT_NAME, "Тип", "Материал", "-", "-", DELETED_PRODUCT_PRICE));
+        Product keptProduct = productRepository.findAll().get(0);
+
+        order = orderRepository.save(new Order(
+            customerRepository.findAll().get(0),
+            Arrays.asList(new OrderLine(deletedProduct, DELETED_PRODUCT_QUANTITY), new OrderLine(keptProduct, 1)),
+            ORDERED_TIME,
+            true));
+    }
+
+    @After
+    public void tearDown() {
+        jdbcTemplate.update("DELETE FROM orders WHERE ordered_time = ?", ORDERED_TIME);
+        jdbcTemplate.update("DELETE FROM product WHERE product_name = ?", DELETED_PRODUCT_NAME);
+    }
+
+    @Test
+    public void deletingProductKeepsItsLineInPastOrder() {
+        productRepository.deleteById(deletedProduct.getId());
+
+        assertOrderKeepsDeletedProductLine();
+    }
+
+    @Test
+    public void bulkDeletingProductKeepsItsLineInPastOrder() {
+        int deleted = productRepository.deleteByProductQueryConstraints(ProductQueryConstraints.getConstraintsBuilder()
+            .idConstraint(Arrays.asList(deletedProduct.getId())).build());
+
+        assertEquals(1, deleted);
+        assertOrderKeepsDeletedProductLine();
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private void assertOrderKeepsDeletedProductLine() {
+        assertFalse(productRepository.findById(deletedProduct.getId()).isPresent());
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Order storedOrder = orderRepository.findById(order.getId()).orElseThrow(AssertionError::new);
+            assertEquals(2, storedOrder.getLines().size());
+
+            OrderLine deletedProductLine = storedOrder.getLines().stream()
+                .filter(line -> DELETED_PRODUCT_NAME.equals(line.getProductName()))
+                .findFirst()
+                .orElseThrow(AssertionError::new);
+            assertNull(deletedProductLine.getProduct());
+            assertEquals(DELETED_PRODUCT_QUANTITY, deletedProductLine.getQuantity());
+            assertEquals(Long.valueOf(DELETED_PRODUCT_PRICE), deletedProductLine.getUnitPrice());
+
+            long linesTotalPrice = storedOrder.getLines().stream().mapToLong(OrderLine::getTotalPrice).sum();
+            assertEquals(order.getTotalPrice(), storedOrder.getTotalPrice());
+            assertEquals(storedOrder.getTotalPrice(), linesTotalPrice);
+            storedOrder.getLines().stream()
+                .filter(line -> line != deletedProductLine)
+                .forEach(line -> assertNotNull(line.getProduct()));
+        });
+    }
+}
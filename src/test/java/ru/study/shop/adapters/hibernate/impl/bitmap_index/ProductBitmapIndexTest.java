@@ -0,0 +1,158 @@
+package ru.study.shop.adapters.hibernate.impl.bitmap_index;
+
+import org.assertj.core.util.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.unitils.UnitilsBlockJUnit4ClassRunner;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductFacets;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints;
+import ru.study.shop.entities.Product;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints.getConstraintsBuilder;
+
+@RunWith(UnitilsBlockJUnit4ClassRunner.class)
+public class ProductBitmapIndexTest {
+    private static final List<Product> PRODUCT_LIST = Lists.list(
+        new Product(1L, "Продукт 1", "Тип 1", "Материал 1", "Производитель 1", "-", 1500L),
+        new Product(2L, "Продукт 2", "Тип 2", "Материал 1", "Производитель 2", "-", 2000L),
+        new Product(3L, "Продукт 3", "Тип 2", "Материал 1", "Производитель 2", "-", 3500L),
+        new Product(4L, "Продукт 4", "Тип 3", "Материал 2", "Производитель 3", "-", 4050L),
+        new Product(5L, "Продукт 5", "Тип 3", "Материал 3", "Производитель 3", "-", 6000L),
+        new Product(6L, "Продукт 6", "Тип 3", "Материал 3", "Производитель 3", "-", 7155L),
+        new Product(7L, "Продукт 7", "Тип 4", "Материал 5", "Производитель 4", "-", 8000L)
+    );
+
+    private ProductBitmapIndex index;
+
+    @Before
+    public void setUp() {
+        index = new ProductBitmapIndex();
+        index.reload(() -> PRODUCT_LIST);
+    }
+
+    @Test
+    public void findWithNullConstraintsReturnsAllProducts() {
+        assertIds(PRODUCT_LIST, index.find(null));
+    }
+
+    @Test
+    public void findWithEmptyConstraintsReturnsAllProducts() {
+        assertIds(PRODUCT_LIST, index.find(getConstraintsBuilder().build()));
+    }
+
+    @Test
+    public void findWithTypeListAndPriceRange() {
+        ProductQueryConstraints constraints = getConstraintsBuilder()
+            .typeConstraint(Lists.newArrayList("Тип 2", "Тип 3"))
+            .priceConstraint(3000L, 6500L)
+            .build();
+
+        assertIds(
+            filter(product -> product.getProductType().matches("Тип [23]")
+                && product.getPrice() >= 3000L && product.getPrice() <= 6500L),
+            index.find(constraints));
+    }
+
+    @Test
+    public void findWithIdRangeAndMaterialList() {
+        ProductQueryConstraints constraints = getConstraintsBuilder()
+            .idConstraint(2L, 6L)
+            .materialConstraint(Lists.newArrayList("Материал 1", "Материал 3", "Материала нет"))
+            .build();
+
+        assertIds(
+            filter(product -> product.getId() >= 2L && product.getId() <= 6L
+                && !product.getMaterial().equals("Материал 2")),
+            index.find(constraints));
+    }
+
+    @Test
+    public void findWithIdAndPriceLists() {
+        ProductQueryConstraints constraints = getConstraintsBuilder()
+            .idConstraint(Lists.newArrayList(1L, 3L, 5L, 42L))
+            .priceConstraint(Lists.newArrayList(1500L, 6000L))
+            .build();
+
+        assertIds(
+            filter(product -> product.getId() == 1L || product.getId() == 5L),
+            index.find(constraints));
+    }
+
+    @Test
+    public void findWithUnknownManufacturerReturnsNothing() {
+        ProductQueryConstraints constraints = getConstraintsBuilder()
+            .manufacturerConstraint(Lists.newArrayList("Производителя нет"))
+            .build();
+
+        assertEquals(Collections.emptyList(), index.find(constraints));
+    }
+
+    @Test
+    public void updatedProductIsFoundByNewValuesOnly() {
+        Product changedProduct = new Product(4L, "Продукт 4", "Тип 1", "Материал 2", "Производитель 3", "-", 999L);
+        index.putAll(Collections.singletonList(changedProduct));
+
+        List<Product> byOldType = index.find(getConstraintsBuilder()
+            .typeConstraint(Lists.newArrayList("Тип 3")).build());
+        List<Product> byNewTypeAndPrice = index.find(getConstraintsBuilder()
+            .typeConstraint(Lists.newArrayList("Тип 1"))
+            .priceConstraint(null, 1000L).build());
+
+        assertIds(filter(product -> product.getId() == 5L || product.getId() == 6L), byOldType);
+        assertEquals(Collections.singletonList(4L), getIds(byNewTypeAndPrice));
+    }
+
+    @Test
+    public void deletedProductIsNotFoundAndRowIsReused() {
+        index.removeAll(Collections.singletonList(2L));
+        index.putAll(Collections.singletonList(
+            new Product(8L, "Продукт 8", "Тип 2", "Материал 1", "Производитель 2", "-", 2000L)));
+
+        List<Product> result = index.find(getConstraintsBuilder()
+            .priceConstraint(Lists.newArrayList(2000L)).build());
+
+        assertEquals(Collections.singletonList(8L), getIds(result));
+        assertEquals(PRODUCT_LIST.size(), index.size());
+    }
+
+    @Test
+    public void countFacetsIgnoresConstraintOfCountedField() {
+        ProductFacets facets = index.countFacets(
+            getConstraintsBuilder().typeConstraint(Lists.newArrayList("Тип 3")).build(),
+            Lists.newArrayList(2000L, 5000L));
+
+        assertEquals(Lists.newArrayList("Тип 3", "Тип 2", "Тип 1", "Тип 4"),
+            new ArrayList<>(facets.getProductType().keySet()));
+        assertEquals(Long.valueOf(3L), facets.getProductType().get("Тип 3"));
+        assertEquals(Long.valueOf(2L), facets.getMaterial().get("Материал 3"));
+        assertEquals(Long.valueOf(1L), facets.getMaterial().get("Материал 2"));
+        assertEquals(2, facets.getMaterial().size());
+        assertEquals(Lists.newArrayList(0L, 1L, 2L), facets.getPrice().stream()
+            .map(ProductFacets.PriceBucket::getCount)
+            .collect(Collectors.toList()));
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private List<Product> filter(Predicate<Product> predicate) {
+        return PRODUCT_LIST.stream().filter(predicate).collect(Collectors.toList());
+    }
+
+    private void assertIds(List<Product> expected, List<Product> actual) {
+        assertEquals(getIds(expected), getIds(actual));
+    }
+
+    private List<Long> getIds(List<Product> products) {
+        return products.stream().map(Product::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,172 @@
+package ru.study.shop.adapters.hibernate.impl.product_snapshot;
+
+import org.assertj.core.util.Lists;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.unitils.UnitilsBlockJUnit4ClassRunner;
+import ru.study.shop.adapters.hibernate.impl.bitmap_index.ProductBitmapIndex;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints;
+import ru.study.shop.adapters.hibernate.impl.query_classes.filter_language.ProductFilter;
+import ru.study.shop.entities.Product;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints.getConstraintsBuilder;
+
+@RunWith(UnitilsBlockJUnit4ClassRunner.class)
+public class ProductSnapshotScannerTest {
+    private static final int CATALOG_SIZE = 5_000;
+    private static final int QUERY_COUNT = 50;
+    private static final int TYPE_COUNT = 20;
+    private static final int MATERIAL_COUNT = 5;
+    private static final int PRICE_BOUND = 10_000;
+    private static final int LEAF_SIZE = 64;
+
+    private final Random random = new Random(7);
+
+    private List<Product> catalog;
+    private ForkJoinPool pool;
+    private ProductSnapshotScanner scanner;
+
+    @Before
+    public void setUp() {
+        catalog = getRandomCatalog();
+        pool = new ForkJoinPool(4);
+        scanner = new ProductSnapshotScanner(pool, LEAF_SIZE);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    public void manyQueriesInOnePassMatchBitmapIndex() {
+        ProductBitmapIndex index = new ProductBitmapIndex();
+        index.reload(() -> catalog);
+
+        List<ProductQueryConstraints> queries = new ArrayList<>();
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            queries.add(getRandomConstraints());
+        }
+
+        List<List<Product>> results = scanner.findAll(ProductSnapshot.of(catalog), queries);
+
+        assertEquals(QUERY_COUNT, results.size());
+        for (int i = 0; i < QUERY_COUNT; i++) {
+            assertEquals(getIds(index.find(queries.get(i))), getIds(results.get(i)));
+        }
+    }
+
+    @Test
+    public void productsAreReturnedOrderedById() {
+        List<Product> shuffledCatalog = new ArrayList<>(catalog);
+        Collections.shuffle(shuffledCatalog, random);
+
+        List<Product> result = scanner.find(ProductSnapshot.of(shuffledCatalog), getConstraintsBuilder().build());
+
+        assertEquals(getIds(catalog), getIds(result));
+    }
+
+    @Test
+    public void valueAbsentFromSnapshotMatchesNothing() {
+        ProductQueryConstraints constraints = getConstraintsBuilder()
+            .typeConstraint(Lists.newArrayList("Тип не в каталоге"))
+            .build();
+
+        assertTrue(scanner.find(ProductSnapshot.of(catalog), constraints).isEmpty());
+    }
+
+    @Test
+    public void nullPriceIsOutsideAnyPriceRange() {
+        ProductQueryConstraints constraints = getConstraintsBuilder()
+            .priceConstraint(null, (long) PRICE_BOUND)
+            .build();
+
+        List<Product> result = scanner.find(ProductSnapshot.of(catalog), constraints);
+
+        assertEquals(
+            getIds(catalog.stream().filter(product -> product.getPrice() != null).collect(Collectors.toList())),
+            getIds(result));
+    }
+
+    @Test
+    public void filterIsAppliedAfterColumnConstraints() {
+        ProductFilter filter = ProductFilter.parse("material:\"Материал 1\" OR price<1000");
+        ProductQueryConstraints constraints = getConstraintsBuilder()
+            .typeConstraint(Lists.newArrayList("Тип 1", "Тип 2"))
+            .filter(filter)
+            .build();
+
+        List<Product> result = scanner.find(ProductSnapshot.of(catalog), constraints);
+
+        assertEquals(
+            getIds(catalog.stream()
+                .filter(product -> product.getProductType().equals("Тип 1") || product.getProductType().equals("Тип 2"))
+                .filter(filter::matches)
+                .collect(Collectors.toList())),
+            getIds(result));
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private List<Product> getRandomCatalog() {
+        List<Product> products = new ArrayList<>(CATALOG_SIZE);
+
+        for (long id = 1; id <= CATALOG_SIZE; id++) {
+            products.add(new Product(
+                id,
+                "Продукт " + id,
+                "Тип " + random.nextInt(TYPE_COUNT),
+                "Материал " + random.nextInt(MATERIAL_COUNT),
+                "Производитель " + random.nextInt(MATERIAL_COUNT),
+                "-",
+                random.nextInt(10) == 0 ? null : (long) random.nextInt(PRICE_BOUND)));
+        }
+
+        return products;
+    }
+
+    private ProductQueryConstraints getRandomConstraints() {
+        ProductQueryConstraints.Builder builder = getConstraintsBuilder();
+
+        if (random.nextBoolean()) {
+            List<String> types = new ArrayList<>();
+            for (int i = random.nextInt(4); i >= 0; i--) {
+                types.add("Тип " + random.nextInt(TYPE_COUNT + 2));
+            }
+            builder.typeConstraint(types);
+        }
+        if (random.nextBoolean()) {
+            builder.materialConstraint(Lists.newArrayList("Материал " + random.nextInt(MATERIAL_COUNT)));
+        }
+        if (random.nextBoolean()) {
+            long fromPrice = random.nextInt(PRICE_BOUND);
+            builder.priceConstraint(fromPrice, fromPrice + random.nextInt(PRICE_BOUND / 2));
+        }
+        if (random.nextInt(4) == 0) {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                ids.add((long) random.nextInt(CATALOG_SIZE) + 1);
+            }
+            builder.idConstraint(ids);
+        }
+
+        return builder.build();
+    }
+
+    private static List<Long> getIds(List<Product> products) {
+        return products.stream().map(Product::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,54 @@
+package ru.study.shop.adapters.hibernate.impl.query_classes;
+
+import org.assertj.core.util.Lists;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.unitils.UnitilsBlockJUnit4ClassRunner;
+import ru.study.shop.entities.Product;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+@RunWith(UnitilsBlockJUnit4ClassRunner.class)
+public class ProductProjectionTest {
+    private static final Product PRODUCT =
+        new Product(1L, "Продукт 1", "Тип 1", "Материал 1", "Производитель 1", "Описание", 1500L);
+
+    @Test
+    public void emptyFieldListSelectsAllAttributes() {
+        assertTrue(ProductProjection.of(Collections.emptyList()).isAll());
+    }
+
+    @Test
+    public void projectionAlwaysContainsId() {
+        ProductProjection projection = ProductProjection.of(Lists.list("productName", "price"));
+
+        assertEquals(EnumSet.of(ProductAttribute.ID, ProductAttribute.PRODUCT_NAME, ProductAttribute.PRICE),
+            projection.getAttributes());
+        assertFalse(projection.isAll());
+    }
+
+    @Test
+    public void unknownFieldIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> ProductProjection.of(Lists.list("productName", "weight")));
+    }
+
+    @Test
+    public void queriedAttributesIncludeSortKey() {
+        ProductProjection projection = ProductProjection.of(Lists.list("productName"));
+
+        assertTrue(projection.getQueriedAttributes(ProductSortField.PRICE).contains(ProductAttribute.PRICE));
+        assertFalse(projection.getAttributes().contains(ProductAttribute.PRICE));
+    }
+
+    @Test
+    public void toMapContainsOnlyProjectedAttributes() {
+        Map<String, Object> map = ProductProjection.of(Lists.list("manufacturer", "price")).toMap(PRODUCT);
+
+        assertEquals(Lists.list("id", "manufacturer", "price"), Lists.newArrayList(map.keySet()));
+        assertEquals(PRODUCT.getPrice(), map.get("price"));
+    }
+}
@@ -0,0 +1,200 @@
+package ru.study.shop.adapters.hibernate.impl.query_classes.filter_language;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.unitils.UnitilsBlockJUnit4ClassRunner;
+import ru.study.shop.entities.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+@RunWith(UnitilsBlockJUnit4ClassRunner.class)
+public class ProductFilterTest {
+    private static final String[] TYPES = { "Кеды", "Ботинки", "Сапоги" };
+    private static final String[] MATERIALS = { "Кожа", "Замша", "Текстиль" };
+    private static final String[] NAMES = { "Кеды летние", "Кеды зимние", "Ботинки рабочие", "Сапоги" };
+    private static final int PRODUCT_COUNT = 200;
+
+    @Test
+    public void filterIsRenderedAsParameterizedCondition() {
+        ProductFilter filter = ProductFilter.parse("type:Кеды AND (material:Кожа OR price<3000)");
+
+        assertEquals("((p.material = :filter0 OR p.price < :filter1) AND p.productType = :filter2)", filter.getCondition());
+        assertEquals(Arrays.asList("Кожа", 3000L, "Кеды"), filter.getValues());
+    }
+
+    @Test
+    public void notIsPushedDownToComparisons() {
+        ProductFilter filter = ProductFilter.parse("NOT (type:Кеды OR price>=100)");
+
+        assertEquals("(p.price < :filter0 AND p.productType <> :filter1)", filter.getCondition());
+        assertEquals(ProductFilter.parse("price<100 AND NOT type:Кеды"), filter);
+    }
+
+    @Test
+    public void equalitiesOnOneFieldAreMergedIntoInList() {
+        ProductFilter filter = ProductFilter.parse("type:b OR type:a OR (type:b OR type:c)");
+
+        assertEquals("p.productType IN (:filter0, :filter1, :filter2, :filter3)", filter.getCondition());
+        assertEquals(Arrays.asList("a", "b", "c", "c"), filter.getValues());
+
+        ProductFilter negated = ProductFilter.parse("NOT (type:a OR type:b)");
+        assertEquals("p.productType NOT IN (:filter0, :filter1)", negated.getCondition());
+    }
+
+    @Test
+    public void inListsOfSamePowerOfTwoShareCondition() {
+        ProductFilter threeTypes = ProductFilter.parse("type:a OR type:b OR type:c");
+        ProductFilter fourTypes = ProductFilter.parse("type:a OR type:b OR type:c OR type:d");
+        ProductFilter fiveTypes = ProductFilter.parse("type:a OR type:b OR type:c OR type:d OR type:e");
+
+        assertEquals(threeTypes.getCondition(), fourTypes.getCondition());
+        assertNotEquals(fourTypes.getCondition(), fiveTypes.getCondition());
+        assertTrue(threeTypes.matches(new Product(1L, "Кеды", "c", "Кожа", "Фабрика", "", null)));
+        assertFalse(threeTypes.matches(new Product(2L, "Кеды", "d", "Кожа", "Фабрика", "", null)));
+    }
+
+    @Test
+    public void filtersDifferingInOrderAndValuesShareCondition() {
+        ProductFilter filter = ProductFilter.parse("type:a AND price>5");
+        ProductFilter otherFilter = ProductFilter.parse("PRICE > 7 and Type:\"b c\"");
+
+        assertEquals(filter.getCondition(), otherFilter.getCondition());
+        assertNotEquals(filter, otherFilter);
+    }
+
+    @Test
+    public void canonicalFormParsesToEqualFilter() {
+        ProductFilter filter = ProductFilter.parse(
+            "NOT (name:\"Кеды \\\"Лето\\\"\"* OR material:Кожа) AND (id<=10 OR type:a OR type:b) AND NOT NOT price>-1");
+
+        ProductFilter reparsed = ProductFilter.parse(filter.toString());
+
+        assertEquals(filter, reparsed);
+        assertEquals(filter.getCondition(), reparsed.getCondition());
+        assertEquals(filter.getValues(), reparsed.getValues());
+    }
+
+    @Test
+    public void prefixMatchEscapesLikeWildcards() {
+        ProductFilter filter = ProductFilter.parse("name:\"50%_off!\"*");
+
+        assertEquals("p.productName LIKE :filter0 ESCAPE '!'", filter.getCondition());
+        assertEquals(Arrays.asList("50!%!_off!!%"), filter.getValues());
+    }
+
+    @Test
+    public void normalizedFilterMatchesSameProductsAsParsedOne() {
+        String[] expressions = {
+            "type:Кеды AND (material:Кожа OR price<3000)",
+            "NOT (type:Кеды OR material:Замша) OR price>=4000",
+            "name:Кеды* AND NOT (price<1000 AND NOT material:Кожа)",
+            "NOT (NOT type:Ботинки AND NOT type:Сапоги) AND id>100",
+            "(type:Кеды OR type:Кеды OR material:Текстиль) AND NOT name:\"Сапоги\"* AND price<=5000"
+        };
+        List<Product> products = getRandomProducts();
+
+        for (String expression : expressions) {
+            FilterExpression parsed = FilterParser.parse(expression);
+            ProductFilter filter = ProductFilter.parse(expression);
+
+            for (Product product : products) {
+                assertEquals(expression, parsed.matches(product), filter.matches(product));
+            }
+        }
+    }
+
+    @Test
+    public void comparisonWithNullFieldNeverMatches() {
+        Product product = new Product(1L, "Кеды", "Кеды", "Кожа", "Фабрика", "", null);
+
+        assertFalse(ProductFilter.parse("price<100").matches(product));
+        assertFalse(ProductFilter.parse("NOT price<100").matches(product));
+        assertTrue(ProductFilter.parse("NOT type:Сапоги").matches(product));
+    }
+
+    @Test(expected = FilterSyntaxException.class)
+    public void unknownFieldIsRejected() {
+        ProductFilter.parse("color:red");
+    }
+
+    @Test(expected = FilterSyntaxException.class)
+    public void rangeOnTextFieldIsRejected() {
+        ProductFilter.parse("type<b");
+    }
+
+    @Test(expected = FilterSyntaxException.class)
+    public void prefixOnNumericFieldIsRejected() {
+        ProductFilter.parse("price:10*");
+    }
+
+    @Test(expected = FilterSyntaxException.class)
+    public void nonNumericPriceIsRejected() {
+        ProductFilter.parse("price>cheap");
+    }
+
+    @Test(expected = FilterSyntaxException.class)
+    public void unterminatedStringIsRejected() {
+        ProductFilter.parse("type:\"Кеды");
+    }
+
+    @Test(expected = FilterSyntaxException.class)
+    public void emptyFilterIsRejected() {
+        ProductFilter.parse("  ");
+    }
+
+    @Test
+    public void syntaxErrorReportsPosition() {
+        try {
+            ProductFilter.parse("type:a AND (material:b OR price<3");
+            fail();
+        } catch (FilterSyntaxException e) {
+            assertEquals(33, e.getPosition());
+        }
+    }
+
+    @Test
+    public void deepNestingIsRejected() {
+        StringBuilder expression = new StringBuilder();
+        for (int i = 0; i <= FilterParser.MAX_NESTING_DEPTH; i++) {
+            expression.append('(');
+        }
+        expression.append("type:a");
+        for (int i = 0; i <= FilterParser.MAX_NESTING_DEPTH; i++) {
+            expression.append(')');
+        }
+
+        try {
+            ProductFilter.parse(expression.toString());
+            fail();
+        } catch (FilterSyntaxException e) {
+            assertEquals(FilterParser.MAX_NESTING_DEPTH, e.getPosition());
+        }
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private static List<Product> getRandomProducts() {
+        Random random = new Random(42);
+        List<Product> products = new ArrayList<>(PRODUCT_COUNT);
+
+        for (long id = 1; id <= PRODUCT_COUNT; id++) {
+            products.add(new Product(
+                id,
+                NAMES[random.nextInt(NAMES.length)],
+                TYPES[random.nextInt(TYPES.length)],
+                MATERIALS[random.nextInt(MATERIALS.length)],
+                "Фабрика",
+                "",
+                (long) random.nextInt(6000)));
+        }
+
+        return products;
+    }
+}
@@ -0,0 +1,177 @@
+package ru.study.shop.adapters.hibernate.impl.query_plan;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.unitils.UnitilsBlockJUnit4ClassRunner;
+import ru.study.shop.adapters.hibernate.impl.query_classes.KeysetCursor;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductPageRequest;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryField;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductSortField;
+import ru.study.shop.adapters.hibernate.impl.query_classes.filter_language.ProductFilter;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.*;
+import static ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints.getConstraintsBuilder;
+
+@RunWith(UnitilsBlockJUnit4ClassRunner.class)
+public class ProductQueryPlanCacheTest {
+    private static final int PAGE_SIZE = 10;
+
+    @Test
+    public void arityBucketIsNextPowerOfTwo() {
+        assertEquals(1, ProductQueryShape.getArityBucket(1));
+        assertEquals(2, ProductQueryShape.getArityBucket(2));
+        assertEquals(4, ProductQueryShape.getArityBucket(3));
+        assertEquals(4, ProductQueryShape.getArityBucket(4));
+        assertEquals(8, ProductQueryShape.getArityBucket(5));
+        assertEquals(1024, ProductQueryShape.getArityBucket(1000));
+    }
+
+    @Test
+    public void listsOfSameArityBucketShareOnePlan() {
+        ProductQueryPlanCache planCache = new ProductQueryPlanCache();
+
+        ProductQueryPlan threeTypesPlan = planCache.getPlan(getTypeConstraints("a", "b", "c"), null);
+        ProductQueryPlan fourTypesPlan = planCache.getPlan(getTypeConstraints("d", "e", "f", "g"), null);
+        ProductQueryPlan fiveTypesPlan = planCache.getPlan(getTypeConstraints("a", "b", "c", "d", "e"), null);
+
+        assertSame(threeTypesPlan, fourTypesPlan);
+        assertNotSame(threeTypesPlan, fiveTypesPlan);
+        assertEquals(2, planCache.size());
+    }
+
+    @Test
+    public void leastUsedPlansAreEvictedBeyondMaximumSize() {
+        ProductQueryPlanCache planCache = new ProductQueryPlanCache(2);
+
+        for (int typeCount = 1; typeCount <= 64; typeCount *= 2) {
+            String[] types = new String[typeCount];
+            Arrays.fill(types, "a");
+            planCache.getPlan(getTypeConstraints(types), null);
+        }
+
+        assertTrue(planCache.size() <= 2);
+    }
+
+    @Test
+    public void rangeAndListConstraintsAreRenderedAsParameters() {
+        ProductQueryConstraints constraints = getConstraintsBuilder()
+            .typeConstraint(Arrays.asList("a", "b", "c"))
+            .priceConstraint(100L, 200L)
+            .build();
+
+        ProductQueryPlan plan = new ProductQueryPlanCache().getPlan(constraints, null);
+
+        assertEquals("SELECT p FROM Product p WHERE p.productType IN (:type0, :type1, :type2, :type3)"
+            + " AND p.price BETWEEN :priceFrom AND :priceTo", plan.getJpql());
+    }
+
+    @Test
+    public void noConstraintsSelectAllProducts() {
+        ProductQueryPlan plan = new ProductQueryPlanCache().getPlan(null, null);
+
+        assertEquals("SELECT p FROM Product p", plan.getJpql());
+    }
+
+    @Test
+    public void pageAfterPriceCursorIsRenderedAsSeekAndOrder() {
+        ProductPageRequest pageRequest = new ProductPageRequest(ProductSortField.PRICE, PAGE_SIZE,
+            new KeysetCursor(ProductSortField.PRICE.getEntityFieldName(), "150", 7L));
+
+        ProductQueryPlan plan = new ProductQueryPlanCache().getPlan(getTypeConstraints("a"), pageRequest);
+
+        assertEquals("SELECT p FROM Product p WHERE p.productType IN (:type0)"
+            + " AND (p.price > :afterKey OR (p.price = :afterKey AND p.id > :afterId))"
+            + " ORDER BY p.price ASC, p.id ASC", plan.getJpql());
+    }
+
+    @Test
+    public void firstPageAndNextPageHaveDifferentPlans() {
+        ProductQueryPlanCache planCache = new ProductQueryPlanCache();
+        ProductPageRequest firstPage = ProductPageRequest.firstPage(PAGE_SIZE);
+        ProductPageRequest nextPage = new ProductPageRequest(ProductSortField.ID, PAGE_SIZE,
+            new KeysetCursor(ProductSortField.ID.getEntityFieldName(), null, 7L));
+
+        assertEquals("SELECT p FROM Product p ORDER BY p.id ASC",
+            planCache.getPlan(null, firstPage).getJpql());
+        assertEquals("SELECT p FROM Product p WHERE p.id > :afterId ORDER BY p.id ASC",
+            planCache.getPlan(null, nextPage).getJpql());
+        assertEquals(2, planCache.size());
+    }
+
+    @Test
+    public void largeIdListIsJoinedFromFilterTable() {
+        List<Long> ids = LongStream.rangeClosed(1, ProductQueryShape.LARGE_LIST_THRESHOLD + 1)
+            .boxed()
+            .collect(Collectors.toList());
+        ProductQueryPlanCache planCache = new ProductQueryPlanCache();
+
+        ProductQueryPlan plan = planCache.getPlan(getConstraintsBuilder().idConstraint(ids).build(), null);
+        ProductQueryPlan largerListPlan = planCache.getPlan(getConstraintsBuilder().idConstraint(
+            LongStream.rangeClosed(1, 10_000).boxed().collect(Collectors.toList())).build(), null);
+
+        assertEquals("SELECT p FROM Product p WHERE p.id IN"
+            + " (SELECT idValues.filterValue FROM QueryFilterValue idValues WHERE idValues.filterId = :idFilter)", plan.getJpql());
+        assertSame(plan, largerListPlan);
+    }
+
+    @Test
+    public void facetCountIgnoresConstraintOfCountedField() {
+        ProductQueryConstraints constraints = getConstraintsBuilder()
+            .typeConstraint(Arrays.asList("a", "b"))
+            .materialConstraint(Arrays.asList("c"))
+            .build();
+
+        ProductQueryPlan plan = new ProductQueryPlanCache().getPlan(ProductQueryShape.of(
+            ProductQuerySelection.countBy(ProductQueryField.TYPE), constraints, ProductQueryField.TYPE, null));
+
+        assertEquals("SELECT p.productType, COUNT(p) FROM Product p WHERE p.material IN (:material0)"
+            + " GROUP BY p.productType", plan.getJpql());
+    }
+
+    @Test
+    public void deletionIsRenderedAsBulkDeleteWithSameConditions() {
+        ProductQueryConstraints constraints = getConstraintsBuilder()
+            .manufacturerConstraint(Arrays.asList("a", "b"))
+            .build();
+
+        ProductQueryPlanCache planCache = new ProductQueryPlanCache();
+        ProductQueryPlan deletionPlan = planCache.getPlan(
+            ProductQueryShape.of(ProductQuerySelection.DELETION, constraints, null, null));
+
+        assertEquals("DELETE FROM Product p WHERE p.manufacturer IN (:manufacturer0, :manufacturer1)", deletionPlan.getJpql());
+        assertNotSame(planCache.getPlan(constraints, null), deletionPlan);
+    }
+
+    @Test
+    public void filtersDifferingInValuesShareOnePlan() {
+        ProductQueryConstraints constraints = getConstraintsBuilder()
+            .typeConstraint(Arrays.asList("a"))
+            .filter(ProductFilter.parse("material:Кожа OR price<3000"))
+            .build();
+        ProductQueryConstraints otherConstraints = getConstraintsBuilder()
+            .typeConstraint(Arrays.asList("b"))
+            .filter(ProductFilter.parse("price < 500 OR material:Замша"))
+            .build();
+
+        ProductQueryPlanCache planCache = new ProductQueryPlanCache();
+        ProductQueryPlan plan = planCache.getPlan(constraints, null);
+
+        assertEquals("SELECT p FROM Product p WHERE p.productType IN (:type0)"
+            + " AND (p.material = :filter0 OR p.price < :filter1)", plan.getJpql());
+        assertSame(plan, planCache.getPlan(otherConstraints, null));
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private static ProductQueryConstraints getTypeConstraints(String... types) {
+        return getConstraintsBuilder().typeConstraint(Arrays.asList(types)).build();
+    }
+}
@@ -0,0 +1,136 @@
+package ru.study.shop.adapters.recommendation;
+
+import org.assertj.core.util.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.unitils.UnitilsBlockJUnit4ClassRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(UnitilsBlockJUnit4ClassRunner.class)
+public class CoPurchaseRecommenderTest {
+    private static final int BATCH_SIZE = 2;
+
+    // order id -> product ids, one per order line
+    private Map<Long, List<Long>> orders;
+    private List<Long> requestedAfterOrderIds;
+    private CoPurchaseRecommender recommender;
+
+    @Before
+    public void setUp() {
+        orders = new TreeMap<>();
+        requestedAfterOrderIds = new ArrayList<>();
+        recommender = new CoPurchaseRecommender(this::loadOrderLines, BATCH_SIZE);
+
+        orders.put(1L, Lists.newArrayList(1L, 2L, 3L));
+        orders.put(2L, Lists.newArrayList(1L, 2L));
+        orders.put(3L, Lists.newArrayList());
+        orders.put(4L, Lists.newArrayList(1L, 3L, 4L));
+        orders.put(5L, Lists.newArrayList(1L, 2L, 2L));
+    }
+
+    @Test
+    public void relatedProductsAreRankedByCoPurchaseCount() {
+        recommender.refresh();
+
+        assertEquals(Lists.newArrayList(2L, 3L, 4L), recommender.findRelated(1L, 10));
+        assertEquals(Lists.newArrayList(1L, 3L), recommender.findRelated(2L, 10));
+        assertEquals(Lists.newArrayList(1L, 2L, 4L), recommender.findRelated(3L, 10));
+        assertTrue(recommender.findRelated(5L, 10).isEmpty());
+    }
+
+    @Test
+    public void ordersAreLoadedInBatches() {
+        recommender.refresh();
+
+        assertEquals(Lists.newArrayList(0L, 2L, 4L), requestedAfterOrderIds);
+    }
+
+    @Test
+    public void refreshCountsOnlyNewOrders() {
+        recommender.refresh();
+
+        orders.put(6L, Lists.newArrayList(3L, 4L));
+        orders.put(7L, Lists.newArrayList(3L, 4L));
+        requestedAfterOrderIds.clear();
+        recommender.refresh();
+
+        assertEquals(Lists.newArrayList(5L, 7L), requestedAfterOrderIds);
+        assertEquals(Lists.newArrayList(4L, 1L, 2L), recommender.findRelated(3L, 10));
+        assertEquals(Lists.newArrayList(2L, 3L, 4L), recommender.findRelated(1L, 10));
+    }
+
+    @Test
+    public void rebuildRecountsAllOrders() {
+        recommender.refresh();
+
+        orders.remove(1L);
+        orders.remove(4L);
+        recommender.rebuild();
+
+        assertEquals(Lists.newArrayList(2L), recommender.findRelated(1L, 10));
+        assertTrue(recommender.findRelated(3L, 10).isEmpty());
+    }
+
+    @Test
+    public void oversizedBasketsAreIgnored() {
+        List<Long> wholesaleOrder = new ArrayList<>();
+        for (long productId = 100; productId < 100 + CoPurchaseRecommender.MAX_BASKET_SIZE + 1; productId++) {
+            wholesaleOrder.add(productId);
+        }
+        orders.put(6L, wholesaleOrder);
+
+        recommender.refresh();
+
+        assertTrue(recommender.findRelated(100L, 10).isEmpty());
+    }
+
+    @Test
+    public void limitIsCappedByMaxRelated() {
+        List<Long> basket = new ArrayList<>();
+        for (long productId = 100; productId < 100 + CoPurchaseRecommender.MAX_RELATED * 2; productId++) {
+            basket.add(productId);
+        }
+        orders.put(6L, basket);
+
+        recommender.refresh();
+
+        assertEquals(Lists.newArrayList(101L, 102L), recommender.findRelated(100L, 2));
+        assertEquals(CoPurchaseRecommender.MAX_RELATED, recommender.findRelated(100L, 100).size());
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private List<Object[]> loadOrderLines(long afterOrderId, int maxOrders) {
+        requestedAfterOrderIds.add(afterOrderId);
+
+        List<Object[]> orderLines = new ArrayList<>();
+        int orderCount = 0;
+        for (Map.Entry<Long, List<Long>> order : orders.entrySet()) {
+            if (order.getKey() <= afterOrderId) {
+                continue;
+            }
+            if (orderCount++ == maxOrders) {
+                break;
+            }
+
+            if (order.getValue().isEmpty()) {
+                orderLines.add(new Object[] { order.getKey(), null });
+            }
+            for (Long productId : order.getValue()) {
+                orderLines.add(new Object[] { order.getKey(), productId });
+            }
+        }
+
+        return orderLines;
+    }
+}
@@ -0,0 +1,93 @@
+package ru.study.shop.adapters.search;
+
+import org.assertj.core.util.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.unitils.UnitilsBlockJUnit4ClassRunner;
+import org.unitils.easymock.annotation.Mock;
+import ru.study.shop.adapters.hibernate.ProductRepository;
+import ru.study.shop.entities.Product;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.easymock.EasyMock.expect;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.unitils.easymock.EasyMockUnitils.replay;
+
+@RunWith(UnitilsBlockJUnit4ClassRunner.class)
+public class ProductSearchIndexTest {
+    private static final List<Product> PRODUCT_LIST = Lists.list(
+        new Product(1L, "Стул деревянный", "Стулья", "Дуб", "Фабрика Север", "Прочный деревянный стул для кухни", 1500L),
+        new Product(2L, "Стол обеденный", "Столы", "Дуб", "Фабрика Север", "Деревянные ножки, столешница из стекла", 12000L),
+        new Product(3L, "Кресло офисное", "Кресла", "Кожа", "Офис Плюс", "Кожаное кресло с подлокотниками", 9000L),
+        new Product(4L, "Стулья барные", "Стулья", "Металл", "Офис Плюс", "Набор из двух стульев", 4000L)
+    );
+
+    @Mock
+    private ProductRepository productRepository;
+
+    private ProductSearchIndex index;
+
+    @Before
+    public void setUp() {
+        index = new ProductSearchIndex(productRepository);
+        expect(productRepository.findAll()).andReturn(PRODUCT_LIST);
+        replay();
+    }
+
+    @Test
+    public void searchMatchesInflectedForms() {
+        assertIds(index.search("стульев", 10), 4L, 1L);
+    }
+
+    @Test
+    public void nameMatchRanksAboveDescriptionMatch() {
+        assertIds(index.search("деревянная", 10), 1L, 2L);
+    }
+
+    @Test
+    public void searchReturnsNoMoreThanLimit() {
+        assertEquals(1, index.search("стул", 1).size());
+    }
+
+    @Test
+    public void unknownTermsAndStopWordsMatchNothing() {
+        assertTrue(index.search("диван", 10).isEmpty());
+        assertTrue(index.search("из", 10).isEmpty());
+    }
+
+    @Test
+    public void savedProductIsSearchableAndReplacesOldVersion() {
+        index.search("стул", 10);
+
+        index.productsSaved(Collections.singletonList(
+            new Product(3L, "Диван угловой", "Диваны", "Кожа", "Офис Плюс", "-", 30000L)));
+
+        assertIds(index.search("диван", 10), 3L);
+        assertTrue(index.search("кресло", 10).isEmpty());
+        assertEquals(PRODUCT_LIST.size(), index.size());
+    }
+
+    @Test
+    public void deletedProductIsNotFound() {
+        index.search("стул", 10);
+
+        index.productsDeleted(Collections.singletonList(1L));
+
+        assertIds(index.search("стул", 10), 4L);
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private static void assertIds(List<Product> actual, Long... expectedIds) {
+        assertEquals(Lists.list(expectedIds), actual.stream()
+            .map(Product::getId)
+            .collect(Collectors.toList()));
+    }
+}
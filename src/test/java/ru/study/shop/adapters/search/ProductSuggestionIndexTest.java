@@ -0,0 +1,127 @@
+package ru.study.shop.adapters.search;
+
+import org.assertj.core.util.Lists;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.unitils.UnitilsBlockJUnit4ClassRunner;
+import ru.study.shop.entities.Product;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(UnitilsBlockJUnit4ClassRunner.class)
+public class ProductSuggestionIndexTest {
+    private List<Product> catalog;
+    private Map<Long, Long> orderCounts;
+    private ProductSuggestionIndex index;
+
+    @Before
+    public void setUp() {
+        catalog = Lists.newArrayList(
+            new Product(1L, "Стол обеденный", "Стол", "Дуб", "Ёлки-Палки", "-", 10_000L),
+            new Product(2L, "Стул складной", "Стул", "Сосна", "Стройдом", "-", 2_000L),
+            new Product(3L, "Столешница", "Стол", "Бук", "Стройдом", "-", 5_000L),
+            new Product(4L, "Шкаф угловой", "Шкаф", "Дуб", "Мебель Стиль", "-", 20_000L));
+
+        orderCounts = new HashMap<>();
+        orderCounts.put(1L, 3L);
+        orderCounts.put(2L, 10L);
+        orderCounts.put(3L, 1L);
+
+        // rebuilds run on the calling thread, so every write is visible to the next lookup
+        index = new ProductSuggestionIndex(() -> catalog, () -> orderCounts, Runnable::run);
+    }
+
+    @Test
+    public void suggestionsAreRankedByOrderCount() {
+        List<ProductSuggestion> suggestions = index.suggest("ст", 10);
+
+        assertEquals(
+            Lists.newArrayList("Стройдом", "Стул", "Стул складной", "Стол", "Стол обеденный", "Столешница",
+                "Мебель Стиль"),
+            getValues(suggestions));
+        assertEquals(11L, suggestions.get(0).getPopularity());
+        assertEquals("manufacturer", suggestions.get(0).getField());
+    }
+
+    @Test
+    public void prefixMatchesStartOfAnyWord() {
+        assertEquals(Lists.newArrayList("Шкаф угловой"), getValues(index.suggest("угл", 10)));
+        assertEquals(Lists.newArrayList("Мебель Стиль"), getValues(index.suggest("сти", 10)));
+        assertTrue(index.suggest("гловой", 10).isEmpty());
+    }
+
+    @Test
+    public void matchingIgnoresCaseYoAndExtraSpaces() {
+        assertEquals(Lists.newArrayList("Ёлки-Палки"), getValues(index.suggest("ЕЛКИ", 10)));
+        assertEquals(Lists.newArrayList("Стол обеденный"), getValues(index.suggest("  стол   обе", 10)));
+    }
+
+    @Test
+    public void limitIsCappedByMaxSuggestions() {
+        List<Product> products = new ArrayList<>();
+        for (long id = 1; id <= 50; id++) {
+            products.add(new Product(id, "Кресло " + id, "Кресло", "Ткань", "Фабрика", "-", 1_000L));
+        }
+        catalog = products;
+
+        assertEquals(2, index.suggest("кре", 2).size());
+        assertEquals(ProductSuggestionIndex.MAX_SUGGESTIONS, index.suggest("кре", 100).size());
+        assertTrue(index.suggest("кре", 0).isEmpty());
+    }
+
+    @Test
+    public void savedAndDeletedProductsAreReflected() {
+        index.suggest("ст", 10);
+
+        index.productsSaved(Collections.singletonList(
+            new Product(5L, "Стеллаж книжный", "Стеллаж", "Металл", "Металлист", "-", 7_000L)));
+        index.productsSaved(Collections.singletonList(
+            new Product(2L, "Табурет", "Табурет", "Сосна", "Стройдом", "-", 2_000L)));
+        index.productsDeleted(Collections.singletonList(3L));
+
+        assertEquals(
+            Lists.newArrayList(
+                "Стройдом", "Стол", "Стол обеденный", "Мебель Стиль", "Стеллаж", "Стеллаж книжный"),
+            getValues(index.suggest("ст", 10)));
+        assertEquals(Lists.newArrayList("Табурет"), getValues(index.suggest("таб", 1)));
+    }
+
+    @Test
+    public void popularityRefreshReordersSuggestions() {
+        index.suggest("ст", 10);
+
+        orderCounts = new HashMap<>();
+        orderCounts.put(4L, 100L);
+        index.refreshPopularity();
+
+        assertEquals("Мебель Стиль", index.suggest("ст", 10).get(0).getValue());
+    }
+
+    @Test
+    public void bulkChangeReloadsCatalog() {
+        index.suggest("ст", 10);
+
+        catalog = Lists.newArrayList(new Product(9L, "Диван", "Мягкая мебель", "Кожа", "Диваны", "-", 50_000L));
+        index.productsChangedInBulk();
+
+        assertTrue(index.suggest("ст", 10).isEmpty());
+        assertEquals(Lists.newArrayList("Диван", "Диваны"), getValues(index.suggest("див", 10)));
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private static List<String> getValues(List<ProductSuggestion> suggestions) {
+        return suggestions.stream().map(ProductSuggestion::getValue).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,37 @@
+package ru.study.shop.adapters.search;
+
+import org.assertj.core.util.Lists;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.unitils.UnitilsBlockJUnit4ClassRunner;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(UnitilsBlockJUnit4ClassRunner.class)
+public class RussianAnalyzerTest {
+    private final RussianAnalyzer analyzer = new RussianAnalyzer();
+    private final RussianStemmer stemmer = new RussianStemmer();
+
+    @Test
+    public void stemmerFollowsSnowballRules() {
+        assertEquals("вагон", stemmer.stem("вагонами"));
+        assertEquals("важн", stemmer.stem("важнейшими"));
+        assertEquals("вдохновен", stemmer.stem("вдохновение"));
+        assertEquals("чита", stemmer.stem("читавши"));
+        assertEquals("говор", stemmer.stem("говорила"));
+        assertEquals("прочност", stemmer.stem("прочность"));
+    }
+
+    @Test
+    public void inflectedFormsShareStem() {
+        assertEquals(stemmer.stem("кожаный"), stemmer.stem("кожаная"));
+        assertEquals(stemmer.stem("стул"), stemmer.stem("стулья"));
+    }
+
+    @Test
+    public void analyzerSplitsLowerCasesAndDropsStopWords() {
+        assertEquals(
+            Lists.list("деревя", "стул", "елк", "made", "in", "ikea", "2020"),
+            analyzer.analyze("Деревянный стул из ёлки, Made in IKEA 2020"));
+    }
+}
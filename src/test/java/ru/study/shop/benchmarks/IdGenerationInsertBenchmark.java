@@ -0,0 +1,116 @@
+package ru.study.shop.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.study.shop.ShopApplication;
+import ru.study.shop.adapters.hibernate.CustomerRepository;
+import ru.study.shop.adapters.hibernate.ProductRepository;
+import ru.study.shop.entities.Customer;
+import ru.study.shop.entities.Order;
+import ru.study.shop.entities.OrderLine;
+import ru.study.shop.entities.Product;
+import ru.study.shop.entities.Stock;
+import ru.study.shop.services.interfaces.OrderService;
+import ru.study.shop.services.interfaces.StockService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures insert throughput of <code>OrderService.saveAll</code> and bulk stock creation.
+ * <p>
+ * With <code>idBlockSize = 1</code> every id costs a sequence call and every row its own statement,
+ * which is how identity ids used to behave; with a larger block ids are handed out in memory
+ * and Hibernate sends the inserts in JDBC batches of the same size.
+ * <p>
+ * Run <code>main</code> or <code>org.openjdk.jmh.Main IdGenerationInsertBenchmark</code> with the test classpath,
+ * e.g. from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IdGenerationInsertBenchmark {
+    private static final int ROWS_PER_INVOCATION = 1000;
+    private static final int PRODUCTS_PER_ORDER = 3;
+
+    @Param({"1", "50"})
+    private int idBlockSize;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private StockService stockService;
+
+    private Customer customer;
+    private List<Product> products;
+
+    private long stockSizeCounter = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // passed as arguments, not as default properties, so they override application.yml
+        context = new SpringApplicationBuilder(ShopApplication.class)
+            .web(WebApplicationType.NONE)
+            .run(
+                "--spring.datasource.url=jdbc:h2:mem:id_generation_insert_benchmark_" + idBlockSize + ";DB_CLOSE_DELAY=-1",
+                "--spring.jms.listener.auto-startup=false",
+                "--spring.main.banner-mode=off",
+                "--shop.persistence.id-allocation-size=" + idBlockSize,
+                "--shop.persistence.jdbc-batch-size=" + idBlockSize);
+
+        orderService = context.getBean(OrderService.class);
+        stockService = context.getBean(StockService.class);
+
+        customer = context.getBean(CustomerRepository.class).findAll().get(0);
+        products = context.getBean(ProductRepository.class).findAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_INVOCATION)
+    public List<Order> saveAllOrders() {
+        List<Order> orders = new ArrayList<>(ROWS_PER_INVOCATION);
+        for (int i = 0; i < ROWS_PER_INVOCATION; i++) {
+            List<OrderLine> orderLines = new ArrayList<>(PRODUCTS_PER_ORDER);
+            for (int j = 0; j < PRODUCTS_PER_ORDER; j++) {
+                orderLines.add(new OrderLine(products.get((i + j) % products.size()), 1));
+            }
+            orders.add(new Order(customer, orderLines, LocalDateTime.now(), false));
+        }
+
+        return orderService.saveAll(orders);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_INVOCATION)
+    public List<Stock> saveAllStocks() {
+        List<Stock> stocks = new ArrayList<>(ROWS_PER_INVOCATION);
+        for (int i = 0; i < ROWS_PER_INVOCATION; i++) {
+            Product product = products.get(i % products.size());
+            // sizes are unique per product, so every stock row is new
+            stocks.add(new Stock(null, product, Long.toString(stockSizeCounter++, Character.MAX_RADIX), 1L));
+        }
+
+        return stockService.saveAllStocks(stocks);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(IdGenerationInsertBenchmark.class.getSimpleName())
+            .build())
+            .run();
+    }
+}
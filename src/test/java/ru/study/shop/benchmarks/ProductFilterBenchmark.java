@@ -0,0 +1,93 @@
+package ru.study.shop.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints;
+import ru.study.shop.adapters.hibernate.impl.query_classes.filter_language.ProductFilter;
+import ru.study.shop.adapters.hibernate.impl.query_plan.ProductQueryPlan;
+import ru.study.shop.adapters.hibernate.impl.query_plan.ProductQueryPlanCache;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints.getConstraintsBuilder;
+
+/**
+ * Cost of turning a filter expression into a query: parsing and normalization alone,
+ * compiling a new plan for it, and looking the plan up in a warm plan cache, which is what a request pays
+ * once a filter of the same structure has been seen.
+ * <p>
+ * Run with <code>mvn test-compile exec:java -Dexec.mainClass=ru.study.shop.benchmarks.ProductFilterBenchmark
+ * -Dexec.classpathScope=test</code> or from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductFilterBenchmark {
+    private static final int VALUE_BOUND = 1_000;
+
+    @Param({"simple", "nested", "wide"})
+    private String filterKind;
+
+    private ProductQueryPlanCache warmPlanCache;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        warmPlanCache = new ProductQueryPlanCache();
+        warmPlanCache.getPlan(getConstraints(ProductFilter.parse(randomExpression())), null);
+    }
+
+    @Benchmark
+    public ProductFilter parse() {
+        return ProductFilter.parse(randomExpression());
+    }
+
+    @Benchmark
+    public ProductQueryPlan parseAndCompile() {
+        return new ProductQueryPlanCache().getPlan(getConstraints(ProductFilter.parse(randomExpression())), null);
+    }
+
+    @Benchmark
+    public ProductQueryPlan parseAndLookUpCachedPlan() {
+        return warmPlanCache.getPlan(getConstraints(ProductFilter.parse(randomExpression())), null);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(ProductFilterBenchmark.class.getSimpleName())
+            .build())
+            .run();
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private static ProductQueryConstraints getConstraints(ProductFilter filter) {
+        return getConstraintsBuilder().filter(filter).build();
+    }
+
+    private String randomExpression() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int a = random.nextInt(VALUE_BOUND);
+        int b = random.nextInt(VALUE_BOUND);
+        int c = random.nextInt(VALUE_BOUND);
+
+        switch (filterKind) {
+            case "simple":
+                return "type:\"Тип " + a + "\" AND price<" + b;
+            case "nested":
+                return "type:\"Тип " + a + "\" AND (material:\"Материал " + b + "\" OR price<" + c + ")"
+                    + " AND NOT (name:\"Товар №" + c + "\"* OR manufacturer:\"Производитель " + a + "\")";
+            default:
+                return "(type:\"Тип " + a + "\" OR type:\"Тип " + b + "\" OR type:\"Тип " + c + "\" OR type:\"Тип " + (a + 1) + "\")"
+                    + " AND (material:\"Материал " + b + "\" OR material:\"Материал " + c + "\")"
+                    + " AND price>=" + a + " AND price<=" + (a + b) + " AND NOT id:" + c;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package ru.study.shop.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.study.shop.ShopApplication;
+import ru.study.shop.entities.Product;
+import ru.study.shop.services.interfaces.ProductService;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures latency of the attribute finders of <code>ProductService</code> against catalogs of growing size.
+ * Every lookup value matches a constant number of rows (<code>ROWS_PER_VALUE</code>),
+ * so with indexed queries the latency is expected to stay flat while the catalog grows.
+ * <p>
+ * Run with <code>mvn test-compile exec:java -Dexec.mainClass=ru.study.shop.benchmarks.ProductFinderBenchmark
+ * -Dexec.classpathScope=test</code> or from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductFinderBenchmark {
+    private static final int ROWS_PER_VALUE = 20;
+    private static final int INSERT_BATCH_SIZE = 10_000;
+    private static final String INSERT_PRODUCT_SQL =
+        "INSERT INTO product (product_name, product_type, material, manufacturer, description, price) " +
+        "VALUES (?, ?, ?, ?, ?, ?)";
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int catalogSize;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShopApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                "spring.datasource.url=jdbc:h2:mem:product_finder_benchmark_" + catalogSize + ";DB_CLOSE_DELAY=-1",
+                "spring.jms.listener.auto-startup=false",
+                "spring.main.banner-mode=off")
+            .run();
+
+        fillCatalog(context.getBean(JdbcTemplate.class));
+
+        productService = context.getBean(ProductService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Product> findByName() {
+        return productService.findByName(productName(randomRow()));
+    }
+
+    @Benchmark
+    public List<Product> findByType() {
+        return productService.findByType(productType(randomRow()));
+    }
+
+    @Benchmark
+    public List<Product> findByMaterial() {
+        return productService.findByMaterial(material(randomRow()));
+    }
+
+    @Benchmark
+    public List<Product> findByManufacturer() {
+        return productService.findByManufacturer(manufacturer(randomRow()));
+    }
+
+    @Benchmark
+    public List<Product> findFromPriceToPrice() {
+        long fromPrice = price(randomRow());
+        return productService.findFromPriceToPrice(fromPrice, fromPrice + ROWS_PER_VALUE - 1);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(ProductFinderBenchmark.class.getSimpleName())
+            .build())
+            .run();
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private void fillCatalog(JdbcTemplate jdbcTemplate) {
+        for (int batchStart = 0; batchStart < catalogSize; batchStart += INSERT_BATCH_SIZE) {
+            int from = batchStart;
+            int size = Math.min(INSERT_BATCH_SIZE, catalogSize - batchStart);
+
+            jdbcTemplate.batchUpdate(INSERT_PRODUCT_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    int row = from + i;
+                    ps.setString(1, productName(row));
+                    ps.setString(2, productType(row));
+                    ps.setString(3, material(row));
+                    ps.setString(4, manufacturer(row));
+                    ps.setString(5, "Описание товара " + row);
+                    ps.setLong(6, price(row));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return size;
+                }
+            });
+        }
+    }
+
+    private int randomRow() {
+        return ThreadLocalRandom.current().nextInt(catalogSize);
+    }
+
+    private static String productName(int row) {
+        return "Товар №" + row;
+    }
+
+    private static String productType(int row) {
+        return "Тип " + row / ROWS_PER_VALUE;
+    }
+
+    private static String material(int row) {
+        return "Материал " + row / ROWS_PER_VALUE;
+    }
+
+    private static String manufacturer(int row) {
+        return "Производитель " + row / ROWS_PER_VALUE;
+    }
+
+    private static long price(int row) {
+        return 100_000L + row;
+    }
+}
@@ -0,0 +1,181 @@
+package ru.study.shop.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.study.shop.ShopApplication;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints;
+import ru.study.shop.adapters.hibernate.impl.query_plan.ProductQueryPlanCache;
+import ru.study.shop.entities.Product;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaBuilder.In;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints.getConstraintsBuilder;
+
+/**
+ * Compares per-request Criteria query assembly, which the repository used before,
+ * with binding values to a plan compiled once per query shape.
+ * The <code>create*</code> benchmarks measure query preparation only, the <code>find*</code> ones include execution.
+ * <p>
+ * Run with <code>mvn test-compile exec:java -Dexec.mainClass=ru.study.shop.benchmarks.ProductQueryPlanBenchmark
+ * -Dexec.classpathScope=test</code> or from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductQueryPlanBenchmark {
+    private static final int CATALOG_SIZE = 10_000;
+    private static final int TYPE_COUNT = 500;
+    private static final long PRICE_WINDOW = 2_000L;
+    private static final String INSERT_PRODUCT_SQL =
+        "INSERT INTO product (product_name, product_type, material, manufacturer, description, price) " +
+        "VALUES (?, ?, ?, ?, ?, ?)";
+
+    @Param({"1", "5", "20", "100"})
+    private int typeListSize;
+
+    private ConfigurableApplicationContext context;
+    private EntityManager entityManager;
+    private ProductQueryPlanCache planCache;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ShopApplication.class)
+            .web(WebApplicationType.NONE)
+            .properties(
+                "spring.datasource.url=jdbc:h2:mem:product_query_plan_benchmark_" + typeListSize + ";DB_CLOSE_DELAY=-1",
+                "spring.jms.listener.auto-startup=false",
+                "spring.main.banner-mode=off")
+            .run();
+
+        fillCatalog(context.getBean(JdbcTemplate.class));
+
+        entityManager = context.getBean(EntityManagerFactory.class).createEntityManager();
+        planCache = new ProductQueryPlanCache();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        entityManager.close();
+        context.close();
+    }
+
+    @Benchmark
+    public TypedQuery<Product> createCriteriaQuery() {
+        return createCriteriaQuery(randomConstraints());
+    }
+
+    @Benchmark
+    public TypedQuery<Product> createPlanQuery() {
+        return createPlanQuery(randomConstraints());
+    }
+
+    @Benchmark
+    public List<Product> findByCriteriaQuery() {
+        List<Product> products = createCriteriaQuery(randomConstraints()).getResultList();
+        entityManager.clear();
+        return products;
+    }
+
+    @Benchmark
+    public List<Product> findByPlanQuery() {
+        List<Product> products = createPlanQuery(randomConstraints()).getResultList();
+        entityManager.clear();
+        return products;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(ProductQueryPlanBenchmark.class.getSimpleName())
+            .build())
+            .run();
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private TypedQuery<Product> createPlanQuery(ProductQueryConstraints constraints) {
+        return planCache.getPlan(constraints, null).execute(entityManager, Product.class, constraints, null, query -> query);
+    }
+
+    private TypedQuery<Product> createCriteriaQuery(ProductQueryConstraints constraints) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Product> query = cb.createQuery(Product.class);
+        Root<Product> root = query.from(Product.class);
+
+        In<String> typeIn = cb.in(root.get("productType"));
+        constraints.getTypeConstraint().getConstraintList().forEach(typeIn::value);
+
+        query.select(root).where(cb.and(
+            typeIn,
+            cb.between(root.get("price"),
+                constraints.getPriceConstraint().getFrom(),
+                constraints.getPriceConstraint().getTo())));
+
+        return entityManager.createQuery(query);
+    }
+
+    private ProductQueryConstraints randomConstraints() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        List<String> types = new ArrayList<>(typeListSize);
+        for (int i = 0; i < typeListSize; i++) {
+            types.add(productType(random.nextInt(CATALOG_SIZE)));
+        }
+        long fromPrice = price(random.nextInt(CATALOG_SIZE));
+
+        return getConstraintsBuilder()
+            .typeConstraint(types)
+            .priceConstraint(fromPrice, fromPrice + PRICE_WINDOW)
+            .build();
+    }
+
+    private void fillCatalog(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.batchUpdate(INSERT_PRODUCT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int row) throws SQLException {
+                ps.setString(1, "Товар №" + row);
+                ps.setString(2, productType(row));
+                ps.setString(3, "Материал " + row % 10);
+                ps.setString(4, "Производитель " + row % 10);
+                ps.setString(5, "Описание товара " + row);
+                ps.setLong(6, price(row));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return CATALOG_SIZE;
+            }
+        });
+    }
+
+    private static String productType(int row) {
+        return "Тип " + row % TYPE_COUNT;
+    }
+
+    private static long price(int row) {
+        return 100_000L + row;
+    }
+}
@@ -0,0 +1,111 @@
+package ru.study.shop.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.study.shop.adapters.hibernate.impl.product_snapshot.ProductSnapshot;
+import ru.study.shop.adapters.hibernate.impl.product_snapshot.ProductSnapshotScanner;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints;
+import ru.study.shop.entities.Product;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints.getConstraintsBuilder;
+
+/**
+ * Evaluates a batch of queries against an in-memory catalog snapshot: in one fork/join pass on all cores,
+ * in one pass on a single thread, and query by query in parallel, which scans the snapshot once per query.
+ * <p>
+ * Run with <code>mvn test-compile exec:java -Dexec.mainClass=ru.study.shop.benchmarks.ProductSnapshotScanBenchmark
+ * -Dexec.classpathScope=test</code> or from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductSnapshotScanBenchmark {
+    private static final int CATALOG_SIZE = 1_000_000;
+    private static final int TYPE_COUNT = 500;
+    private static final int MATERIAL_COUNT = 20;
+    private static final long PRICE_WINDOW = 200_000L;
+
+    @Param({"1", "10", "100"})
+    private int queryCount;
+
+    private ProductSnapshot snapshot;
+    private List<ProductQueryConstraints> queries;
+    private ForkJoinPool singleThreadPool;
+    private ProductSnapshotScanner parallelScanner;
+    private ProductSnapshotScanner sequentialScanner;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(1);
+
+        List<Product> products = new ArrayList<>(CATALOG_SIZE);
+        for (long id = 1; id <= CATALOG_SIZE; id++) {
+            products.add(new Product(id, "Товар №" + id, "Тип " + random.nextInt(TYPE_COUNT),
+                "Материал " + random.nextInt(MATERIAL_COUNT), "Производитель " + random.nextInt(MATERIAL_COUNT),
+                "-", 100_000L + random.nextInt(CATALOG_SIZE)));
+        }
+        snapshot = ProductSnapshot.of(products);
+
+        queries = new ArrayList<>(queryCount);
+        for (int i = 0; i < queryCount; i++) {
+            List<String> types = new ArrayList<>();
+            for (int j = 0; j < 10; j++) {
+                types.add("Тип " + random.nextInt(TYPE_COUNT));
+            }
+            long fromPrice = 100_000L + random.nextInt(CATALOG_SIZE);
+
+            queries.add(getConstraintsBuilder()
+                .typeConstraint(types)
+                .materialConstraint(new ArrayList<>(Collections.singletonList("Материал " + random.nextInt(MATERIAL_COUNT))))
+                .priceConstraint(fromPrice, fromPrice + PRICE_WINDOW)
+                .build());
+        }
+
+        singleThreadPool = new ForkJoinPool(1);
+        parallelScanner = new ProductSnapshotScanner();
+        sequentialScanner = new ProductSnapshotScanner(singleThreadPool, ProductSnapshotScanner.DEFAULT_LEAF_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        singleThreadPool.shutdown();
+    }
+
+    @Benchmark
+    public List<List<Product>> onePassInParallel() {
+        return parallelScanner.findAll(snapshot, queries);
+    }
+
+    @Benchmark
+    public List<List<Product>> onePassOnOneThread() {
+        return sequentialScanner.findAll(snapshot, queries);
+    }
+
+    @Benchmark
+    public List<List<Product>> passPerQueryInParallel() {
+        List<List<Product>> results = new ArrayList<>(queries.size());
+        for (ProductQueryConstraints query : queries) {
+            results.add(parallelScanner.find(snapshot, query));
+        }
+        return results;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(ProductSnapshotScanBenchmark.class.getSimpleName())
+            .build())
+            .run();
+    }
+}
@@ -0,0 +1,69 @@
+package ru.study.shop.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import ru.study.shop.adapters.search.ProductSuggestion;
+import ru.study.shop.adapters.search.ProductSuggestionIndex;
+import ru.study.shop.entities.Product;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typeahead lookups over a large catalog, sampled to show the latency percentiles.
+ * <p>
+ * Run with <code>mvn test-compile exec:java -Dexec.mainClass=ru.study.shop.benchmarks.ProductSuggestionBenchmark
+ * -Dexec.classpathScope=test</code> or from the IDE.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductSuggestionBenchmark {
+    private static final int CATALOG_SIZE = 200_000;
+    private static final String[] WORDS = {
+        "стол", "стул", "шкаф", "кресло", "диван", "полка", "комод", "тумба", "кровать", "стеллаж",
+        "обеденный", "складной", "угловой", "мягкий", "детский", "офисный", "садовый", "раскладной" };
+
+    @Param({"с", "ст", "стол", "офисн"})
+    private String prefix;
+
+    private ProductSuggestionIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(1);
+
+        List<Product> products = new ArrayList<>(CATALOG_SIZE);
+        Map<Long, Long> orderCounts = new HashMap<>();
+        for (long id = 1; id <= CATALOG_SIZE; id++) {
+            String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + id;
+            products.add(new Product(id, name, "Тип " + random.nextInt(500), "Материал " + random.nextInt(20),
+                "Производитель " + random.nextInt(2_000), "-", 1_000L + random.nextInt(100_000)));
+            orderCounts.put(id, (long) random.nextInt(1_000));
+        }
+
+        index = new ProductSuggestionIndex(() -> products, () -> orderCounts, Runnable::run);
+        index.suggest(prefix, ProductSuggestionIndex.MAX_SUGGESTIONS);
+    }
+
+    @Benchmark
+    public List<ProductSuggestion> suggest() {
+        return index.suggest(prefix, ProductSuggestionIndex.MAX_SUGGESTIONS);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(ProductSuggestionBenchmark.class.getSimpleName())
+            .build())
+            .run();
+    }
+}
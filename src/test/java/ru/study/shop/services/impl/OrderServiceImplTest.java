@@ -6,21 +6,43 @@ import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.unitils.UnitilsBlockJUnit4ClassRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.unitils.easymock.annotation.Mock;
+import ru.study.shop.adapters.controllers.order_delivery.DeliveryQueueController;
 import ru.study.shop.adapters.hibernate.OrderRepository;
+import ru.study.shop.adapters.hibernate.impl.query_classes.CustomerOrderSummary;
+import ru.study.shop.adapters.hibernate.impl.query_classes.OrderPage;
+import ru.study.shop.adapters.hibernate.impl.query_classes.OrderPartition;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductOrderCount;
 import ru.study.shop.entities.Customer;
 import ru.study.shop.entities.Order;
+import ru.study.shop.entities.OrderLine;
 import ru.study.shop.entities.Product;
 import ru.study.shop.services.interfaces.OrderService;
 
+import javax.persistence.EntityManager;
 import java.time.LocalDateTime;
 import java.time.Month;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 
 import static org.assertj.core.util.Lists.emptyList;
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.eq;
 import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
 import static org.unitils.easymock.EasyMockUnitils.replay;
+import static org.unitils.easymock.EasyMockUnitils.verify;
 
 @RunWith(UnitilsBlockJUnit4ClassRunner.class)
 public class OrderServiceImplTest {
@@ -35,9 +57,12 @@ public class OrderServiceImplTest {
     );
     private static final Long EXPECTED_TOTAL_PRICE_OF_ORDER = 32205L;
     private static final Product PRODUCT_NOT_PRESENTED_IN_LIST = new Product("Товар не из списка", "", "", "", "", 666L);
+    private static final Long PRODUCT_ID = 1L;
 
     private static final Customer CUSTOMER_1 = new Customer("Имя 1", "Фамилия 1", "логин 1", "почта 1");
     private static final Customer CUSTOMER_2 = new Customer("Имя 2", "Фамилия 2", "логин 2", "почта 2");
+    private static final Long CUSTOMER_ID = 1L;
+    private static final Long ORDER_ID = 1L;
 
     private static final LocalDateTime DATE_TIME_INITIAL = LocalDateTime.of(2020, Month.DECEMBER, 3, 12, 0);
 
@@ -47,12 +72,18 @@ public class OrderServiceImplTest {
     @Mock
     OrderRepository orderRepository;
 
+    @Mock
+    DeliveryQueueController deliveryQueueController;
+
+    @Mock
+    EntityManager entityManager;
+
     @TestSubject
     OrderService orderService;
 
     @Before
     public void setUp() {
-        orderService = new OrderServiceImpl(orderRepository, null);
+        orderService = new OrderServiceImpl(orderRepository, deliveryQueueController, entityManager);
     }
 
     @Test
@@ -66,7 +97,7 @@ public class OrderServiceImplTest {
     @Test
     public void getTotalPriceFromNonEmptyOrder() {
         Order order = new Order();
-        order.setProductList(LIST_OF_PRODUCTS);
+        order.setLines(getLines(LIST_OF_PRODUCTS));
 
         Long totalPrice = orderService.getTotalPrice(order);
 
@@ -74,8 +105,54 @@ public class OrderServiceImplTest {
     }
 
     @Test
-    public void findByProductWithEmptyOrderListAndEmptyProduct() {
-        expect(orderRepository.findAll()).andReturn(emptyList());
+    public void getTotalPriceMultipliesUnitPriceByQuantity() {
+        Order order = new Order();
+        order.addLine(new OrderLine(LIST_OF_PRODUCTS.get(0), 3));
+        order.addLine(new OrderLine(LIST_OF_PRODUCTS.get(1), 2));
+
+        Long totalPrice = orderService.getTotalPrice(order);
+
+        assertEquals(3 * 1500L + 2 * 2000L, totalPrice.longValue());
+    }
+
+    @Test
+    public void getTotalPriceUsesPriceAtOrderTime() {
+        Product product = new Product("Продукт", "Тип", "Материал", "-", "-", 1000L);
+        Order order = new Order();
+        order.addLine(new OrderLine(product, 2));
+
+        product.setPrice(5000L);
+
+        assertEquals(2000L, orderService.getTotalPrice(order).longValue());
+    }
+
+    @Test
+    public void getTotalPriceFollowsEditedLines() {
+        Product product1 = new Product(1L, "Продукт 1", "Тип 1", "Материал 1", "-", "-", 1500L);
+        Product product2 = new Product(2L, "Продукт 2", "Тип 2", "Материал 1", "-", "-", 2000L);
+        Order order = new Order(CUSTOMER_1, Lists.newArrayList(
+            new OrderLine(product1, 1), new OrderLine(product2, 1)), DATE_TIME_INITIAL, IS_NOT_DELIVERED);
+
+        order.setLines(Lists.newArrayList(new OrderLine(product1, 4)));
+
+        assertEquals(4 * 1500L, orderService.getTotalPrice(order).longValue());
+    }
+
+    @Test
+    public void findByMinTotalPriceRequestsPage() {
+        List<Order> orderList = Lists.list(new Order(CUSTOMER_1, getLines(LIST_OF_PRODUCTS), DATE_TIME_INITIAL, IS_DELIVERED));
+
+        expect(orderRepository.findArchivedByTotalPriceAtLeast(EXPECTED_TOTAL_PRICE_OF_ORDER, 50))
+            .andReturn(new ArrayList<>());
+        expect(orderRepository.findByTotalPriceAtLeast(EXPECTED_TOTAL_PRICE_OF_ORDER, PageRequest.of(0, 50)))
+            .andReturn(orderList);
+        replay();
+
+        assertEquals(orderList, orderService.findByMinTotalPrice(EXPECTED_TOTAL_PRICE_OF_ORDER, 0, 50));
+    }
+
+    @Test
+    public void findByProductWithNullProductReturnsEmptyList() {
         replay();
 
         List<Order> orderList = orderService.findByProduct(null);
@@ -84,62 +161,359 @@ public class OrderServiceImplTest {
     }
 
     @Test
-    public void findByProductWithEmptyOrderList() {
-        expect(orderRepository.findAll()).andReturn(emptyList());
+    public void findByProductWithoutIdReturnsEmptyList() {
         replay();
 
-        List<Order> orderList = orderService.findByProduct(LIST_OF_PRODUCTS.get(0));
+        List<Order> orderList = orderService.findByProduct(PRODUCT_NOT_PRESENTED_IN_LIST);
 
         assertEquals(emptyList(), orderList);
     }
 
     @Test
-    public void findByProductNoProductInOrders() {
-        List<Order> OrderList = Lists.list(
-            new Order(CUSTOMER_1, LIST_OF_PRODUCTS, DATE_TIME_INITIAL, IS_DELIVERED),
-            new Order(CUSTOMER_1, LIST_OF_PRODUCTS, DATE_TIME_INITIAL, IS_NOT_DELIVERED),
-            new Order(CUSTOMER_2, LIST_OF_PRODUCTS, DATE_TIME_INITIAL, IS_DELIVERED)
+    public void findByProductQueriesOrdersContainingProduct() {
+        Product product = new Product(PRODUCT_ID, "Продукт 1", "Тип 1", "Материал 1", "-", "-", 1500L);
+        List<Order> orderList = Lists.list(
+            new Order(CUSTOMER_1, Lists.newArrayList(new OrderLine(product, 1)), DATE_TIME_INITIAL, IS_DELIVERED),
+            new Order(CUSTOMER_2, Lists.newArrayList(new OrderLine(product, 2)), DATE_TIME_INITIAL, IS_NOT_DELIVERED)
         );
 
-        expect(orderRepository.findAll()).andReturn(OrderList);
+        expect(orderRepository.findByProductId(PRODUCT_ID, Pageable.unpaged())).andReturn(orderList);
+        expect(orderRepository.findArchivedByProductId(PRODUCT_ID, Integer.MAX_VALUE)).andReturn(new ArrayList<>());
         replay();
 
-        List<Order> obtainedOrderList = orderService.findByProduct(PRODUCT_NOT_PRESENTED_IN_LIST);
+        List<Order> obtainedOrderList = orderService.findByProduct(product);
 
-        assertEquals(emptyList(), obtainedOrderList);
+        assertEquals(orderList, obtainedOrderList);
     }
 
     @Test
-    public void findByProductWithProductInAllOrders() {
-        List<Order> OrderList = Lists.list(
-            new Order(CUSTOMER_1, LIST_OF_PRODUCTS, DATE_TIME_INITIAL, IS_DELIVERED),
-            new Order(CUSTOMER_1, LIST_OF_PRODUCTS, DATE_TIME_INITIAL, IS_NOT_DELIVERED),
-            new Order(CUSTOMER_2, LIST_OF_PRODUCTS, DATE_TIME_INITIAL, IS_DELIVERED)
-        );
+    public void findByProductIdRequestsPage() {
+        List<Order> orderList = Lists.list(new Order(CUSTOMER_1, getLines(LIST_OF_PRODUCTS), DATE_TIME_INITIAL, IS_DELIVERED));
+
+        expect(orderRepository.findArchivedByProductId(PRODUCT_ID, 40)).andReturn(new ArrayList<>());
+        expect(orderRepository.findByProductId(PRODUCT_ID, PageRequest.of(1, 20))).andReturn(orderList);
+        replay();
+
+        assertEquals(orderList, orderService.findByProduct(PRODUCT_ID, 1, 20));
+    }
 
-        expect(orderRepository.findAll()).andReturn(OrderList);
+    @Test
+    public void countByProductReadsOrderAndUnitCounts() {
+        expect(orderRepository.countByProductId(PRODUCT_ID))
+            .andReturn(Collections.singletonList(new Object[] { 4L, 9L }));
+        expect(orderRepository.countArchivedByProductId(PRODUCT_ID)).andReturn(new ProductOrderCount(PRODUCT_ID, 0L, 0L));
         replay();
 
-        List<Order> obtainedOrderList = orderService.findByProduct(LIST_OF_PRODUCTS.get(0));
+        ProductOrderCount count = orderService.countByProduct(PRODUCT_ID);
 
-        assertEquals(OrderList, obtainedOrderList);
+        assertEquals(PRODUCT_ID, count.getProductId());
+        assertEquals(4L, count.getOrderCount());
+        assertEquals(9L, count.getUnitCount());
     }
 
     @Test
-    public void findByProductWithProductInSomeOrders() {
-        List<Order> orderList = Lists.list(
-            new Order(CUSTOMER_1, LIST_OF_PRODUCTS, DATE_TIME_INITIAL, IS_DELIVERED),
-            new Order(CUSTOMER_2, LIST_OF_PRODUCTS, DATE_TIME_INITIAL, IS_DELIVERED)
-        );
-        orderList.add(new Order(CUSTOMER_1, Lists.newArrayList(PRODUCT_NOT_PRESENTED_IN_LIST), DATE_TIME_INITIAL, IS_NOT_DELIVERED));
+    public void findByCustomerWithoutIdReturnsEmptyList() {
+        replay();
+
+        assertEquals(emptyList(), orderService.findByCustomer(CUSTOMER_1));
+        assertEquals(emptyList(), orderService.findByCustomer((Customer) null));
+    }
+
+    @Test
+    public void findByCustomerQueriesOrdersOfCustomerOnly() {
+        Customer customer = new Customer(CUSTOMER_ID, "Имя", "Фамилия", "логин", "почта");
+        List<Order> orderList = Lists.list(new Order(customer, getLines(LIST_OF_PRODUCTS), DATE_TIME_INITIAL, IS_DELIVERED));
+
+        expect(orderRepository.findByCustomerId(CUSTOMER_ID, Pageable.unpaged())).andReturn(orderList);
+        expect(orderRepository.findArchivedByCustomerId(CUSTOMER_ID, Integer.MAX_VALUE)).andReturn(new ArrayList<>());
+        replay();
+
+        assertEquals(orderList, orderService.findByCustomer(customer));
+    }
+
+    @Test
+    public void findByCustomerIdRequestsPage() {
+        List<Order> orderList = Lists.list(new Order(CUSTOMER_1, getLines(LIST_OF_PRODUCTS), DATE_TIME_INITIAL, IS_DELIVERED));
 
-        expect(orderRepository.findAll()).andReturn(orderList);
+        expect(orderRepository.findArchivedByCustomerId(CUSTOMER_ID, 30)).andReturn(new ArrayList<>());
+        expect(orderRepository.findByCustomerId(CUSTOMER_ID, PageRequest.of(2, 10))).andReturn(orderList);
         replay();
 
-        List<Order> obtainedOrderList = orderService.findByProduct(LIST_OF_PRODUCTS.get(0));
+        assertEquals(orderList, orderService.findByCustomer(CUSTOMER_ID, 2, 10));
+    }
 
-        orderList.remove(orderList.size() - 1);
+    @Test
+    public void findPageReadsOneOrderAheadAndReturnsCursorOfLastOrder() {
+        List<Order> lookahead = getOrders(DATE_TIME_INITIAL, 3);
 
-        assertEquals(orderList, obtainedOrderList);
+        expect(orderRepository.findPageAfter(DATE_TIME_INITIAL, 0L, DATE_TIME_INITIAL.plusDays(1), PageRequest.of(0, 3)))
+            .andReturn(lookahead);
+        expect(orderRepository.findArchivedPageAfter(DATE_TIME_INITIAL, 0L, DATE_TIME_INITIAL.plusDays(1), 3))
+            .andReturn(emptyList());
+        replay();
+
+        OrderPage page = orderService.findPage(DATE_TIME_INITIAL, DATE_TIME_INITIAL.plusDays(1), 2, null, null);
+
+        assertEquals(lookahead.subList(0, 2), page.getOrders());
+        assertEquals(OrderPage.getCursor(lookahead.get(1)).encode(), page.getNextCursor().get().encode());
+    }
+
+    @Test
+    public void findPageResumesAfterCursor() {
+        LocalDateTime afterTime = DATE_TIME_INITIAL.plusHours(1);
+        List<Order> orders = getOrders(afterTime, 1);
+
+        expect(orderRepository.findPageAfter(eq(afterTime), eq(7L), anyObject(LocalDateTime.class), eq(PageRequest.of(0, 3))))
+            .andReturn(orders);
+        expect(orderRepository.findArchivedPageAfter(eq(afterTime), eq(7L), anyObject(LocalDateTime.class), eq(3)))
+            .andReturn(emptyList());
+        replay();
+
+        OrderPage page = orderService.findPage(DATE_TIME_INITIAL, null, 2, afterTime, 7L);
+
+        assertEquals(orders, page.getOrders());
+        assertFalse(page.getNextCursor().isPresent());
+    }
+
+    @Test
+    public void findPageMergesLiveAndArchivedOrdersByOrderedTime() {
+        List<Order> liveOrders = getOrders(DATE_TIME_INITIAL, 2);
+        Order archivedOrder = new Order();
+        archivedOrder.setId(100L);
+        archivedOrder.setOrderedTime(DATE_TIME_INITIAL.minusDays(1));
+
+        expect(orderRepository.findPageAfter(eq(DATE_TIME_INITIAL.minusMonths(1)), eq(0L), anyObject(LocalDateTime.class),
+            eq(PageRequest.of(0, 3)))).andReturn(liveOrders);
+        expect(orderRepository.findArchivedPageAfter(eq(DATE_TIME_INITIAL.minusMonths(1)), eq(0L),
+            anyObject(LocalDateTime.class), eq(3))).andReturn(Lists.newArrayList(archivedOrder));
+        replay();
+
+        OrderPage page = orderService.findPage(DATE_TIME_INITIAL.minusMonths(1), null, 2, null, null);
+
+        assertEquals(Lists.newArrayList(archivedOrder, liveOrders.get(0)), page.getOrders());
+        assertEquals(OrderPage.getCursor(liveOrders.get(0)).encode(), page.getNextCursor().get().encode());
+    }
+
+    @Test
+    public void findByCustomerIdMergesLiveAndArchivedOrdersLatestFirst() {
+        List<Order> liveOrders = getOrders(DATE_TIME_INITIAL, 2);
+        Order archivedOrder = new Order();
+        archivedOrder.setId(100L);
+        archivedOrder.setOrderedTime(DATE_TIME_INITIAL.plusSeconds(30));
+
+        expect(orderRepository.findArchivedByCustomerId(CUSTOMER_ID, 2)).andReturn(Lists.newArrayList(archivedOrder));
+        expect(orderRepository.findByCustomerId(CUSTOMER_ID, PageRequest.of(0, 2))).andReturn(
+            Lists.newArrayList(liveOrders.get(1), liveOrders.get(0)));
+        replay();
+
+        assertEquals(Lists.newArrayList(liveOrders.get(1), archivedOrder), orderService.findByCustomer(CUSTOMER_ID, 0, 2));
+    }
+
+    @Test
+    public void summarizeByCustomerAddsArchivedOrders() {
+        LocalDateTime firstOrderedTime = DATE_TIME_INITIAL.minusMonths(3);
+
+        expect(orderRepository.summarizeByCustomerId(CUSTOMER_ID))
+            .andReturn(Collections.singletonList(
+                new Object[] { 3L, 2L, EXPECTED_TOTAL_PRICE_OF_ORDER, DATE_TIME_INITIAL, DATE_TIME_INITIAL }));
+        expect(orderRepository.countProductsByCustomerId(CUSTOMER_ID)).andReturn(7L);
+        expect(orderRepository.summarizeArchivedByCustomerId(CUSTOMER_ID))
+            .andReturn(new CustomerOrderSummary(CUSTOMER_ID, 2L, 2L, 5L, 100L, firstOrderedTime, firstOrderedTime));
+        replay();
+
+        CustomerOrderSummary summary = orderService.summarizeByCustomer(CUSTOMER_ID);
+
+        assertEquals(5L, summary.getOrderCount());
+        assertEquals(4L, summary.getDeliveredOrderCount());
+        assertEquals(12L, summary.getProductCount());
+        assertEquals(EXPECTED_TOTAL_PRICE_OF_ORDER + 100L, summary.getTotalPrice());
+        assertEquals(firstOrderedTime, summary.getFirstOrderedTime());
+        assertEquals(DATE_TIME_INITIAL, summary.getLastOrderedTime());
+    }
+
+    @Test
+    public void countByProductAddsArchivedOrders() {
+        expect(orderRepository.countByProductId(PRODUCT_ID))
+            .andReturn(Collections.singletonList(new Object[] { 4L, 9L }));
+        expect(orderRepository.countArchivedByProductId(PRODUCT_ID)).andReturn(new ProductOrderCount(PRODUCT_ID, 2L, 3L));
+        replay();
+
+        ProductOrderCount count = orderService.countByProduct(PRODUCT_ID);
+
+        assertEquals(6L, count.getOrderCount());
+        assertEquals(12L, count.getUnitCount());
+    }
+
+    @Test
+    public void findAllFromToDateAddsArchivedOrdersOfRange() {
+        LocalDateTime to = DATE_TIME_INITIAL.plusMonths(2);
+        List<Order> liveOrders = getOrders(DATE_TIME_INITIAL.plusMonths(1), 1);
+        List<Order> archivedOrders = getOrders(DATE_TIME_INITIAL, 2);
+
+        expect(orderRepository.findAllFromDateToDate(DATE_TIME_INITIAL, to)).andReturn(liveOrders);
+        expect(orderRepository.findArchivedPageAfter(DATE_TIME_INITIAL, 0L, to, Integer.MAX_VALUE)).andReturn(archivedOrders);
+        replay();
+
+        List<Order> orders = orderService.findAllFromToDate(DATE_TIME_INITIAL, to);
+
+        assertEquals(3, orders.size());
+        assertTrue(orders.containsAll(liveOrders));
+        assertTrue(orders.containsAll(archivedOrders));
+    }
+
+    @Test
+    public void findByIdWithArchivedFallsBackToArchivedOrders() {
+        Order archivedOrder = new Order();
+
+        expect(orderRepository.findById(ORDER_ID)).andReturn(Optional.empty());
+        expect(orderRepository.findArchivedById(ORDER_ID)).andReturn(Optional.of(archivedOrder));
+        replay();
+
+        assertEquals(Optional.of(archivedOrder), orderService.findByIdWithArchived(ORDER_ID));
+    }
+
+    @Test
+    public void forEachOrderLoadsBatchesAfterLastOrderAndClearsPersistenceContext() {
+        int batchSize = OrderServiceImpl.EXPORT_BATCH_SIZE;
+        List<Order> firstBatch = getOrders(DATE_TIME_INITIAL, batchSize);
+        List<Order> secondBatch = getOrders(DATE_TIME_INITIAL.plusDays(1), 1);
+        Order lastOfFirstBatch = firstBatch.get(batchSize - 1);
+
+        expect(orderRepository.findPageAfter(
+            eq(DATE_TIME_INITIAL), eq(0L), anyObject(LocalDateTime.class), eq(PageRequest.of(0, batchSize))))
+            .andReturn(firstBatch);
+        expect(orderRepository.findArchivedPageAfter(
+            eq(DATE_TIME_INITIAL), eq(0L), anyObject(LocalDateTime.class), eq(batchSize)))
+            .andReturn(emptyList());
+        entityManager.clear();
+        expectLastCall().once();
+        expect(orderRepository.findPageAfter(
+            eq(lastOfFirstBatch.getOrderedTime()), eq(lastOfFirstBatch.getId()),
+            anyObject(LocalDateTime.class), eq(PageRequest.of(0, batchSize))))
+            .andReturn(secondBatch);
+        expect(orderRepository.findArchivedPageAfter(
+            eq(lastOfFirstBatch.getOrderedTime()), eq(lastOfFirstBatch.getId()),
+            anyObject(LocalDateTime.class), eq(batchSize)))
+            .andReturn(emptyList());
+        replay();
+
+        List<Order> exported = new ArrayList<>();
+        orderService.forEachOrder(DATE_TIME_INITIAL, null, exported::add);
+
+        assertEquals(batchSize + 1, exported.size());
+        assertEquals(secondBatch.get(0), exported.get(batchSize));
+        verify();
+    }
+
+    @Test
+    public void saveNewOrdersSendsDeliveryRequestsOfAllOrdersTogether() {
+        List<Order> orders = Lists.newArrayList(
+            new Order(CUSTOMER_1, getLines(LIST_OF_PRODUCTS), DATE_TIME_INITIAL, IS_NOT_DELIVERED),
+            new Order(CUSTOMER_2, getLines(LIST_OF_PRODUCTS), DATE_TIME_INITIAL, IS_NOT_DELIVERED));
+
+        expect(orderRepository.saveAll(orders)).andReturn(orders).once();
+        deliveryQueueController.setToDelivery(orders, true);
+        expectLastCall().once();
+        replay();
+
+        assertEquals(orders, orderService.saveNewOrders(orders));
+        verify();
+    }
+
+    @Test
+    public void saveNewOrdersInTransactionSendsDeliveryRequestsAfterCommit() {
+        List<Order> orders = Lists.newArrayList(
+            new Order(CUSTOMER_1, getLines(LIST_OF_PRODUCTS), DATE_TIME_INITIAL, IS_NOT_DELIVERED));
+
+        expect(orderRepository.saveAll(orders)).andReturn(orders).once();
+        deliveryQueueController.setToDelivery(orders, true);
+        expectLastCall().once();
+        replay();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            orderService.saveNewOrders(orders);
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            assertEquals(1, synchronizations.size());
+            synchronizations.forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        verify();
+    }
+
+    @Test
+    public void saveNewOrdersWithoutOrdersDoesNothing() {
+        replay();
+
+        assertTrue(orderService.saveNewOrders(new ArrayList<>()).isEmpty());
+    }
+
+    @Test
+    public void archiveMonthRejectsCurrentMonth() {
+        replay();
+
+        assertThrows(IllegalArgumentException.class, () -> orderService.archiveMonth(YearMonth.now()));
+    }
+
+    @Test
+    public void archiveMonthArchivesPastMonthPartition() {
+        YearMonth month = YearMonth.from(DATE_TIME_INITIAL);
+        OrderPartition partition = new OrderPartition(month, 3, EXPECTED_TOTAL_PRICE_OF_ORDER, DATE_TIME_INITIAL);
+
+        orderRepository.createPartitionTables(month);
+        expectLastCall().once();
+        expect(orderRepository.archivePartition(month)).andReturn(partition).once();
+        replay();
+
+        assertEquals(partition, orderService.archiveMonth(month));
+        verify();
+    }
+
+    @Test
+    public void summarizeByCustomerCombinesOrderAndProductTotals() {
+        LocalDateTime lastOrderedTime = DATE_TIME_INITIAL.plusDays(3);
+
+        expect(orderRepository.summarizeByCustomerId(CUSTOMER_ID))
+            .andReturn(Collections.singletonList(
+                new Object[] { 3L, 2L, EXPECTED_TOTAL_PRICE_OF_ORDER, DATE_TIME_INITIAL, lastOrderedTime }));
+        expect(orderRepository.countProductsByCustomerId(CUSTOMER_ID)).andReturn(7L);
+        expect(orderRepository.summarizeArchivedByCustomerId(CUSTOMER_ID))
+            .andReturn(new CustomerOrderSummary(CUSTOMER_ID, 0L, 0L, 0L, 0L, null, null));
+        replay();
+
+        CustomerOrderSummary summary = orderService.summarizeByCustomer(CUSTOMER_ID);
+
+        assertEquals(CUSTOMER_ID, summary.getCustomerId());
+        assertEquals(3L, summary.getOrderCount());
+        assertEquals(2L, summary.getDeliveredOrderCount());
+        assertEquals(7L, summary.getProductCount());
+        assertEquals(EXPECTED_TOTAL_PRICE_OF_ORDER.longValue(), summary.getTotalPrice());
+        assertEquals(DATE_TIME_INITIAL, summary.getFirstOrderedTime());
+        assertEquals(lastOrderedTime, summary.getLastOrderedTime());
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private static List<Order> getOrders(LocalDateTime firstOrderedTime, int count) {
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Order order = new Order();
+            order.setId((long) i + 1);
+            order.setOrderedTime(firstOrderedTime.plusMinutes(i));
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    private static List<OrderLine> getLines(List<Product> products) {
+        List<OrderLine> lines = new ArrayList<>();
+        for (Product product : products) {
+            lines.add(new OrderLine(product, 1));
+        }
+        return lines;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,87 @@
+package ru.study.shop.services.impl;
+
+import org.junit.Before;
+import org.junit.Test;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductPage;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductPageRequest;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductProjection;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints;
+import ru.study.shop.entities.Product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class ProductQueryResultCacheTest {
+    private ProductQueryResultCache cache;
+    private AtomicInteger loadCount;
+
+    @Before
+    public void setUp() {
+        cache = new ProductQueryResultCache(ProductQueryResultCache.DEFAULT_MAX_CACHED_PRODUCTS);
+        loadCount = new AtomicInteger();
+    }
+
+    @Test
+    public void constraintsListingSameValuesShareEntry() {
+        List<Product> first = cache.getProducts(getConstraints("Стол", "Стул", "Стол"), this::load);
+        List<Product> second = cache.getProducts(getConstraints("Стул", "Стол"), this::load);
+
+        assertSame(first, second);
+        assertEquals(1, loadCount.get());
+        assertEquals(1L, cache.getStatistics().get("hitCount"));
+        assertEquals(1L, cache.getStatistics().get("missCount"));
+    }
+
+    @Test
+    public void differentPagesAndProjectionsAreCachedSeparately() {
+        ProductQueryConstraints constraints = getConstraints("Стол");
+        ProductPageRequest firstPage = ProductPageRequest.firstPage(10);
+
+        ProductPageRequest largerPage = ProductPageRequest.firstPage(20);
+
+        cache.getPage(constraints, firstPage, ProductProjection.ALL, () -> loadPage(firstPage));
+        cache.getPage(constraints, largerPage, ProductProjection.ALL, () -> loadPage(largerPage));
+        cache.getPage(constraints, firstPage, ProductProjection.of(Collections.singletonList("productName")),
+            () -> loadPage(firstPage));
+
+        assertEquals(3, loadCount.get());
+    }
+
+    @Test
+    public void productWriteInvalidatesCachedResults() {
+        cache.getProducts(getConstraints("Стол"), this::load);
+        cache.productsDeleted(Collections.singletonList(1L));
+        cache.getProducts(getConstraints("Стол"), this::load);
+
+        cache.productsSaved(Collections.singletonList(new Product()));
+        cache.getProducts(getConstraints("Стол"), this::load);
+
+        assertEquals(3, loadCount.get());
+        assertEquals(2L, cache.getStatistics().get("generation"));
+    }
+
+    // ===================================================================================================================
+    // = Implementation
+    // ===================================================================================================================
+
+    private ProductQueryConstraints getConstraints(String... names) {
+        return ProductQueryConstraints.getConstraintsBuilder()
+            .nameConstraint(new ArrayList<>(Arrays.asList(names)))
+            .build();
+    }
+
+    private List<Product> load() {
+        loadCount.incrementAndGet();
+        return new ArrayList<>();
+    }
+
+    private ProductPage loadPage(ProductPageRequest pageRequest) {
+        return ProductPage.fromLookahead(load(), pageRequest);
+    }
+}
@@ -8,6 +8,7 @@ import org.junit.runner.RunWith;
 import org.unitils.UnitilsBlockJUnit4ClassRunner;
 import org.unitils.easymock.annotation.Mock;
 import ru.study.shop.adapters.hibernate.ProductRepository;
+import ru.study.shop.adapters.hibernate.impl.query_classes.ProductQueryConstraints;
 import ru.study.shop.entities.Product;
 import ru.study.shop.services.interfaces.ProductService;
 
@@ -16,6 +17,7 @@ import java.util.stream.Collectors;
 
 import static org.easymock.EasyMock.expect;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThrows;
 import static org.unitils.easymock.EasyMockUnitils.replay;
 
 @RunWith(UnitilsBlockJUnit4ClassRunner.class)
@@ -58,7 +60,7 @@ public class ProductServiceImplTest {
 
     @Test
     public void findByNameEmptyProductList() {
-        expect(productRepository.findAll()).andReturn(Lists.emptyList());
+        expect(productRepository.findByProductName(PRODUCT_NAME_REPRESENTED_IN_LIST)).andReturn(Lists.emptyList());
         replay();
 
         List<Product> result = productService.findByName(PRODUCT_NAME_REPRESENTED_IN_LIST);
@@ -68,7 +70,6 @@ public class ProductServiceImplTest {
 
     @Test
     public void findByNameNullName() {
-        expect(productRepository.findAll()).andReturn(PRODUCT_LIST);
         replay();
 
         List<Product> result = productService.findByName(null);
@@ -78,7 +79,7 @@ public class ProductServiceImplTest {
 
     @Test
     public void findByNameNoSuchProductNameInList() {
-        expect(productRepository.findAll()).andReturn(PRODUCT_LIST);
+        expect(productRepository.findByProductName(PRODUCT_NAME_NOT_REPRESENTED_IN_LIST)).andReturn(Lists.emptyList());
         replay();
 
         List<Product> result = productService.findByName(PRODUCT_NAME_NOT_REPRESENTED_IN_LIST);
@@ -88,30 +89,30 @@ public class ProductServiceImplTest {
 
     @Test
     public void findByNameProductNameInList() {
-        expect(productRepository.findAll()).andReturn(PRODUCT_LIST);
+        List<Product> expectedList = PRODUCT_LIST.stream().
+            filter(product -> product.getProductName().equals(PRODUCT_NAME_REPRESENTED_IN_LIST))
+            .collect(Collectors.toList());
+
+        expect(productRepository.findByProductName(PRODUCT_NAME_REPRESENTED_IN_LIST)).andReturn(expectedList);
         replay();
 
         List<Product> result = productService.findByName(PRODUCT_NAME_REPRESENTED_IN_LIST);
 
-        assertEquals(PRODUCT_LIST.stream().
-                filter(product -> product.getProductName().equals(PRODUCT_NAME_REPRESENTED_IN_LIST))
-                .collect(Collectors.toList()),
-            result);
+        assertEquals(expectedList, result);
     }
 
     @Test
     public void findByTypeEmptyProductList() {
-        expect(productRepository.findAll()).andReturn(Lists.emptyList());
+        expect(productRepository.findByProductType(PRODUCT_TYPE_REPRESENTED_IN_LIST_ONCE)).andReturn(Lists.emptyList());
         replay();
 
-        List<Product> result = productService.findByType(PRODUCT_NAME_REPRESENTED_IN_LIST);
+        List<Product> result = productService.findByType(PRODUCT_TYPE_REPRESENTED_IN_LIST_ONCE);
 
         assertEquals(Lists.emptyList(), result);
     }
 
     @Test
     public void findByTypeNullType() {
-        expect(productRepository.findAll()).andReturn(PRODUCT_LIST);
         replay();
 
         List<Product> result = productService.findByType(null);
@@ -121,7 +122,7 @@ public class ProductServiceImplTest {
 
     @Test
     public void findByTypeNoSuchProductTypeInList() {
-        expect(productRepository.findAll()).andReturn(PRODUCT_LIST);
+        expect(productRepository.findByProductType(PRODUCT_TYPE_NOT_REPRESENTED_IN_LIST)).andReturn(Lists.emptyList());
         replay();
 
         List<Product> result = productService.findByType(PRODUCT_TYPE_NOT_REPRESENTED_IN_LIST);
@@ -131,33 +132,34 @@ public class ProductServiceImplTest {
 
     @Test
     public void findByTypeOneProductWithTheTypeInList() {
-        expect(productRepository.findAll()).andReturn(PRODUCT_LIST);
+        List<Product> expectedList = PRODUCT_LIST.stream()
+            .filter(product -> product.getProductType().equals(PRODUCT_TYPE_REPRESENTED_IN_LIST_ONCE))
+            .collect(Collectors.toList());
+
+        expect(productRepository.findByProductType(PRODUCT_TYPE_REPRESENTED_IN_LIST_ONCE)).andReturn(expectedList);
         replay();
 
         List<Product> result = productService.findByType(PRODUCT_TYPE_REPRESENTED_IN_LIST_ONCE);
 
-        assertEquals(PRODUCT_LIST.stream()
-                .filter(product -> product.getProductType().equals(PRODUCT_TYPE_REPRESENTED_IN_LIST_ONCE))
-                .collect(Collectors.toList()),
-            result);
+        assertEquals(expectedList, result);
     }
 
     @Test
     public void findByTypeSeveralProductsWithTheTypeInList() {
-        expect(productRepository.findAll()).andReturn(PRODUCT_LIST);
+        List<Product> expectedList = PRODUCT_LIST.stream()
+            .filter(product -> product.getProductType().equals(PRODUCT_TYPE_REPRESENTED_IN_LIST_SEVERAL_TIMES))
+            .collect(Collectors.toList());
+
+        expect(productRepository.findByProductType(PRODUCT_TYPE_REPRESENTED_IN_LIST_SEVERAL_TIMES)).andReturn(expectedList);
         replay();
 
         List<Product> result = productService.findByType(PRODUCT_TYPE_REPRESENTED_IN_LIST_SEVERAL_TIMES);
 
-        assertEquals(PRODUCT_LIST.stream()
-                .filter(product -> product.getProductType().equals(PRODUCT_TYPE_REPRESENTED_IN_LIST_SEVERAL_TIMES))
-                .collect(Collectors.toList()),
-            result);
+        assertEquals(expectedList, result);
     }
 
     @Test
     public void findByMaterialNullMaterial() {
-        expect(productRepository.findAll()).andReturn(PRODUCT_LIST);
         replay();
 
         List<Product> result = productService.findByMaterial(null);
@@ -167,7 +169,7 @@ public class ProductServiceImplTest {
 
     @Test
     public void findByMaterialEmptyProductList() {
-        expect(productRepository.findAll()).andReturn(Lists.emptyList());
+        expect(productRepository.findByMaterial(PRODUCT_MATERIAL_NOT_REPRESENTED_IN_LIST)).andReturn(Lists.emptyList());
         replay();
 
         List<Product> result = productService.findByMaterial(PRODUCT_MATERIAL_NOT_REPRESENTED_IN_LIST);
@@ -177,7 +179,7 @@ public class ProductServiceImplTest {
 
     @Test
     public void findByMaterialNoSuchMaterial() {
-        expect(productRepository.findAll()).andReturn(PRODUCT_LIST);
+        expect(productRepository.findByMaterial(PRODUCT_MATERIAL_NOT_REPRESENTED_IN_LIST)).andReturn(Lists.emptyList());
         replay();
 
         List<Product> result = productService.findByMaterial(PRODUCT_MATERIAL_NOT_REPRESENTED_IN_LIST);
@@ -187,33 +189,34 @@ public class ProductServiceImplTest {
 
     @Test
     public void findByMaterialRepresentedInListOnce() {
-        expect(productRepository.findAll()).andReturn(PRODUCT_LIST);
+        List<Product> expectedList = PRODUCT_LIST.stream()
+            .filter(product -> product.getMaterial().equals(PRODUCT_MATERIAL_REPRESENTED_IN_LIST_ONCE))
+            .collect(Collectors.toList());
+
+        expect(productRepository.findByMaterial(PRODUCT_MATERIAL_REPRESENTED_IN_LIST_ONCE)).andReturn(expectedList);
         replay();
 
         List<Product> result = productService.findByMaterial(PRODUCT_MATERIAL_REPRESENTED_IN_LIST_ONCE);
 
-        assertEquals(PRODUCT_LIST.stream()
-                .filter(product -> product.getMaterial().equals(PRODUCT_MATERIAL_REPRESENTED_IN_LIST_ONCE))
-                .collect(Collectors.toList()),
-            result);
+        assertEquals(expectedList, result);
     }
 
     @Test
     public void findByMaterialRepresentedInListSeveralTimes() {
-        expect(productRepository.findAll()).andReturn(PRODUCT_LIST);
+        List<Product> expectedList = PRODUCT_LIST.stream()
+            .filter(product -> product.getMaterial().equals(PRODUCT_MATERIAL_REPRESENTED_IN_LIST_SEVERAL_TIMES))
+            .collect(Collectors.toList());
+
+        expect(productRepository.findByMaterial(PRODUCT_MATERIAL_REPRESENTED_IN_LIST_SEVERAL_TIMES)).andReturn(expectedList);
         replay();
 
         List<Product> result = productService.findByMaterial(PRODUCT_MATERIAL_REPRESENTED_IN_LIST_SEVERAL_TIMES);
 
-        assertEquals(PRODUCT_LIST.stream()
-                .filter(product -> product.getMaterial().equals(PRODUCT_MATERIAL_REPRESENTED_IN_LIST_SEVERAL_TIMES))
-                .collect(Collectors.toList()),
-            result);
+        assertEquals(expectedList, result);
     }
 
     @Test
     public void findByManufacturerNullManufacturer() {
-        expect(productRepository.findAll()).andReturn(PRODUCT_LIST);
         replay();
 
         List<Product> result = productService.findByManufacturer(null);
@@ -223,7 +226,7 @@ public class ProductServiceImplTest {
 
     @Test
     public void findByManufacturerEmptyProductList() {
-        expect(productRepository.findAll()).andReturn(Lists.emptyList());
+        expect(productRepository.findByManufacturer(PRODUCT_MANUFACTURER_NOT_REPRESENTED_IN_LIST)).andReturn(Lists.emptyList());
         replay();
 
         List<Product> result = productService.findByManufacturer(PRODUCT_MANUFACTURER_NOT_REPRESENTED_IN_LIST);
@@ -233,7 +236,7 @@ public class ProductServiceImplTest {
 
     @Test
     public void findByManufacturerNoSuchProductManufacturer() {
-        expect(productRepository.findAll()).andReturn(PRODUCT_LIST);
+        expect(productRepository.findByManufacturer(PRODUCT_MANUFACTURER_NOT_REPRESENTED_IN_LIST)).andReturn(Lists.emptyList());
         replay();
 
         List<Product> result = productService.findByManufacturer(PRODUCT_MANUFACTURER_NOT_REPRESENTED_IN_LIST);
@@ -243,28 +246,30 @@ public class ProductServiceImplTest {
 
     @Test
     public void findByManufacturerRepresentedInListOnce() {
-        expect(productRepository.findAll()).andReturn(PRODUCT_LIST);
+        List<Product> expectedList = PRODUCT_LIST.stream()
+            .filter(product -> product.getManufacturer().equals(PRODUCT_MANUFACTURER_REPRESENTED_IN_LIST_ONCE))
+            .collect(Collectors.toList());
+
+        expect(productRepository.findByManufacturer(PRODUCT_MANUFACTURER_REPRESENTED_IN_LIST_ONCE)).andReturn(expectedList);
         replay();
 
         List<Product> result = productService.findByManufacturer(PRODUCT_MANUFACTURER_REPRESENTED_IN_LIST_ONCE);
 
-        assertEquals(PRODUCT_LIST.stream()
-                .filter(product -> product.getManufacturer().equals(PRODUCT_MANUFACTURER_REPRESENTED_IN_LIST_ONCE))
-                .collect(Collectors.toList()),
-            result);
+        assertEquals(expectedList, result);
     }
 
     @Test
     public void findByManufacturerRepresentedInListSeveralTimes() {
-        expect(productRepository.findAll()).andReturn(PRODUCT_LIST);
+        List<Product> expectedList = PRODUCT_LIST.stream()
+            .filter(product -> product.getManufacturer().equals(PRODUCT_MANUFACTURER_REPRESENTED_IN_LIST_SEVERAL_TIMES))
+            .collect(Collectors.toList());
+
+        expect(productRepository.findByManufacturer(PRODUCT_MANUFACTURER_REPRESENTED_IN_LIST_SEVERAL_TIMES)).andReturn(expectedList);
         replay();
 
         List<Product> result = productService.findByManufacturer(PRODUCT_MANUFACTURER_REPRESENTED_IN_LIST_SEVERAL_TIMES);
 
-        assertEquals(PRODUCT_LIST.stream()
-                .filter(product -> product.getManufacturer().equals(PRODUCT_MANUFACTURER_REPRESENTED_IN_LIST_SEVERAL_TIMES))
-                .collect(Collectors.toList()),
-            result);
+        assertEquals(expectedList, result);
     }
 
     @Test
@@ -276,7 +281,7 @@ public class ProductServiceImplTest {
 
     @Test
     public void findFromPriceToPriceFirstPriceIsNull() {
-        expect(productRepository.findAll()).andReturn(PRODUCT_LIST);
+        expect(productRepository.findByPriceBetween(MIN_POSSIBLE_PRICE, MAX_PRICE_FROM_LIST)).andReturn(PRODUCT_LIST);
         replay();
 
         List<Product> result = productService.findFromPriceToPrice(null, MAX_PRICE_FROM_LIST);
@@ -286,7 +291,7 @@ public class ProductServiceImplTest {
 
     @Test
     public void findFromPriceToPriceSecondPriceIsNull() {
-        expect(productRepository.findAll()).andReturn(PRODUCT_LIST);
+        expect(productRepository.findByPriceBetween(MIN_POSSIBLE_PRICE, Long.MAX_VALUE)).andReturn(PRODUCT_LIST);
         replay();
 
         List<Product> result = productService.findFromPriceToPrice(0L, null);
@@ -294,16 +299,18 @@ public class ProductServiceImplTest {
         assertEquals(PRODUCT_LIST, result);
     }
 
+    @Test
     public void findFromPriceToPriceFirstPriceIsGreaterThanSecondPrice() {
-        expect(productRepository.findAll()).andReturn(PRODUCT_LIST);
+        replay();
 
         List<Product> result = productService.findFromPriceToPrice(MAX_PRICE_FROM_LIST, MIN_POSSIBLE_PRICE);
 
-        assertEquals(PRODUCT_LIST, result);
+        assertEquals(Lists.emptyList(), result);
     }
 
+    @Test
     public void findFromPriceToPriceNoPricesInInterval() {
-        expect(productRepository.findAll()).andReturn(PRODUCT_LIST);
+        expect(productRepository.findByPriceBetween(MAX_PRICE_FROM_LIST + 1L, Long.MAX_VALUE)).andReturn(Lists.emptyList());
         replay();
 
         List<Product> result = productService.findFromPriceToPrice(MAX_PRICE_FROM_LIST + 1L, Long.MAX_VALUE);
@@ -311,8 +318,9 @@ public class ProductServiceImplTest {
         assertEquals(Lists.emptyList(), result);
     }
 
+    @Test
     public void findFromPriceToPriceIntervalContainsAllProducts() {
-        expect(productRepository.findAll()).andReturn(PRODUCT_LIST);
+        expect(productRepository.findByPriceBetween(MIN_POSSIBLE_PRICE, MAX_PRICE_FROM_LIST)).andReturn(PRODUCT_LIST);
         replay();
 
         List<Product> result = productService.findFromPriceToPrice(MIN_POSSIBLE_PRICE, MAX_PRICE_FROM_LIST);
@@ -320,31 +328,77 @@ public class ProductServiceImplTest {
         assertEquals(PRODUCT_LIST, result);
     }
 
+    @Test
     public void findFromPriceToPriceFromMinPriceToMedianPrice() {
-        expect(productRepository.findAll()).andReturn(PRODUCT_LIST);
+        List<Product> expectedList = PRODUCT_LIST.stream()
+            .filter(product ->
+                product.getPrice().compareTo(MIN_POSSIBLE_PRICE) >= 0
+                    && product.getPrice().compareTo(MEDIAN_PRICE) <= 0)
+            .collect(Collectors.toList());
+
+        expect(productRepository.findByPriceBetween(MIN_POSSIBLE_PRICE, MEDIAN_PRICE)).andReturn(expectedList);
         replay();
 
         List<Product> result = productService.findFromPriceToPrice(MIN_POSSIBLE_PRICE, MEDIAN_PRICE);
 
-        assertEquals(PRODUCT_LIST.stream()
-        .filter(product ->
-            product.getPrice().compareTo(MIN_POSSIBLE_PRICE) >= 0
-                && product.getPrice().compareTo(MEDIAN_PRICE) <= 0)
-            .collect(Collectors.toList()),
-            result);
+        assertEquals(expectedList, result);
     }
 
+    @Test
     public void findFromPriceToPriceFromMedianPriceToMaxPrice() {
-        expect(productRepository.findAll()).andReturn(PRODUCT_LIST);
+        List<Product> expectedList = PRODUCT_LIST.stream()
+            .filter(product ->
+                product.getPrice().compareTo(MEDIAN_PRICE) >= 0
+                    && product.getPrice().compareTo(MAX_PRICE_FROM_LIST) <= 0)
+            .collect(Collectors.toList());
+
+        expect(productRepository.findByPriceBetween(MEDIAN_PRICE, MAX_PRICE_FROM_LIST)).andReturn(expectedList);
         replay();
 
         List<Product> result = productService.findFromPriceToPrice(MEDIAN_PRICE, MAX_PRICE_FROM_LIST);
 
-        assertEquals(PRODUCT_LIST.stream()
-                .filter(product ->
-                    product.getPrice().compareTo(MEDIAN_PRICE) >= 0
-                        && product.getPrice().compareTo(MAX_PRICE_FROM_LIST) <= 0)
-                .collect(Collectors.toList()),
-            result);
+        assertEquals(expectedList, result);
+    }
+
+    @Test
+    public void deleteByProductQueryWithoutConstraintsThrowsException() {
+        replay();
+
+        assertThrows(IllegalArgumentException.class, () ->
+            productService.deleteByProductQuery(ProductQueryConstraints.getConstraintsBuilder().build()));
+        assertThrows(IllegalArgumentException.class, () -> productService.deleteByProductQuery(null));
+    }
+
+    @Test
+    public void deleteByProductQueryReturnsDeletedCount() {
+        ProductQueryConstraints constraints = ProductQueryConstraints.getConstraintsBuilder()
+            .typeConstraint(Lists.list(PRODUCT_TYPE_REPRESENTED_IN_LIST_SEVERAL_TIMES))
+            .build();
+
+        expect(productRepository.deleteByProductQueryConstraints(constraints)).andReturn(3);
+        replay();
+
+        assertEquals(3, productService.deleteByProductQuery(constraints));
+    }
+
+    @Test
+    public void findByProductQueriesLoadsCatalogOnceForAllQueries() {
+        List<Product> catalog = Lists.list(
+            new Product(3L, "Продукт 3", "Тип 2", "Материал 1", "Производитель 2", "-", 3500L),
+            new Product(1L, "Продукт 1", "Тип 1", "Материал 1", "Производитель 1", "-", 1500L),
+            new Product(2L, "Продукт 2", "Тип 2", "Материал 2", "Производитель 2", "-", 2000L));
+        List<ProductQueryConstraints> queries = Lists.list(
+            ProductQueryConstraints.getConstraintsBuilder().typeConstraint(Lists.list("Тип 2")).build(),
+            ProductQueryConstraints.getConstraintsBuilder().materialConstraint(Lists.list("Материал 1")).build(),
+            ProductQueryConstraints.getConstraintsBuilder().priceConstraint(MAX_PRICE_FROM_LIST, null).build());
+
+        expect(productRepository.findAll()).andReturn(catalog);
+        replay();
+
+        List<List<Product>> results = productService.findByProductQueries(queries);
+
+        assertEquals(Lists.list(catalog.get(2), catalog.get(0)), results.get(0));
+        assertEquals(Lists.list(catalog.get(1), catalog.get(0)), results.get(1));
+        assertEquals(Lists.emptyList(), results.get(2));
     }
-}
\ No newline at end of file
+}